@@ -0,0 +1,27 @@
+package com.auction.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Runs the benchmarks with the GC profiler attached, so every result also reports allocation rate and bytes
+// allocated per operation, and writes the results as JSON for comparison against baseline.json.
+//
+//     java -cp target/benchmarks.jar com.auction.benchmarks.BenchmarkRunner [include regex] [result file]
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        String include = args.length > 0 ? args[0] : "com.auction.benchmarks.*";
+        String resultFile = args.length > 1 ? args[1] : "target/results.json";
+
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .include(include)
+                .addProfiler(GCProfiler.class)
+                .jvmArgsAppend("-Xms2g", "-Xmx2g", "-XX:+UseG1GC")
+                .resultFormat(ResultFormatType.JSON)
+                .result(resultFile);
+        new Runner(options.build()).run();
+    }
+}
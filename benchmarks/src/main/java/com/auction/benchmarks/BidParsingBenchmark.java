@@ -0,0 +1,76 @@
+package com.auction.benchmarks;
+
+import com.auction.api.AuctionJsonModule;
+import com.auction.model.Bid;
+import com.auction.model.MoneyParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.dropwizard.jackson.Jackson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// Measures the Bid constructor, which is what Jackson calls for every POST body. The parameters cover the money
+// formats the API accepts: dollar signs, thousands separators and a missing leading zero. regexParse and moneyParser
+// compare parsing a single amount the way the constructor used to, with replaceAll and the BigDecimal string
+// constructor, against MoneyParser. deserialize and deserializeModule read a whole POST body with Jackson's bean
+// deserializer and with the hand-written one from AuctionJsonModule.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BidParsingBenchmark {
+
+    @Param({"$1,000.34", "4,000", "$.100"})
+    public String price;
+
+    private final ObjectMapper objectMapper = Jackson.newObjectMapper();
+
+    private final ObjectMapper moduleMapper = Jackson.newObjectMapper().registerModule(new AuctionJsonModule());
+
+    private byte[] body;
+
+    @Setup
+    public void encodeBody() {
+        body = ("{\"bidderId\":\"JohnDoe123\",\"startingBid\":\"" + price + "\",\"maxBid\":\"$1,000,000\","
+                + "\"autoIncrement\":\"" + price + "\",\"auctionId\":1}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Bid construct() throws Exception {
+        return new Bid("JohnDoe123", price, "$1,000,000", price, 1);
+    }
+
+    @Benchmark
+    public BigDecimal regexParse() {
+        return new BigDecimal(price.replaceAll("[$,]", ""));
+    }
+
+    @Benchmark
+    public BigDecimal moneyParser() {
+        return new MoneyParser().parse(price, "maxBid");
+    }
+
+    @Benchmark
+    public Bid deserialize() throws Exception {
+        return objectMapper.readValue(body, Bid.class);
+    }
+
+    @Benchmark
+    public Bid deserializeModule() throws Exception {
+        return moduleMapper.readValue(body, Bid.class);
+    }
+}
@@ -0,0 +1,147 @@
+package com.auction.benchmarks;
+
+import com.auction.metrics.BidMetrics;
+import com.auction.model.Bid;
+import com.auction.services.AuctionService;
+import com.auction.services.WinnerStore;
+import com.auction.services.WinnerStoreFactory;
+import com.auction.services.WinnerStoreType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Measures AuctionService.processBid on pre-built bids, so Bid parsing is not part of the numbers.
+//
+//     uncontended - one thread, bids spread over many auctions
+//     hotAuction  - every thread bids on the same auction
+//     manyAuctions - every thread bids across many auctions
+//
+// Each benchmark runs against every winner store, the TIERED one holding a tenth of the auctions on the heap, with
+// and without BidMetrics recording resolutions at the default timing interval of one bid in 16.
+//
+// The auction state is reset every iteration so winning prices do not saturate and every branch of the resolution
+// keeps being exercised.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BidProcessingBenchmark {
+
+    private static final int BIDS = 1 << 16;
+
+    private static final int AUCTIONS = 100_000;
+
+    @State(Scope.Benchmark)
+    public static class Auctions {
+        @Param({"HEAP", "PRIMITIVE", "TIERED"})
+        public WinnerStoreType store;
+
+        @Param({"false", "true"})
+        public boolean metrics;
+
+        WinnerStore winners;
+        AuctionService auctionService;
+        Bid[] hotBids;
+        Bid[] spreadBids;
+
+        @Setup(Level.Trial)
+        public void createBids() throws Exception {
+            Random random = new Random(42);
+            hotBids = new Bid[BIDS];
+            spreadBids = new Bid[BIDS];
+            for (int i = 0; i < BIDS; i++) {
+                int startingBid = 1 + random.nextInt(100);
+                int maxBid = startingBid + random.nextInt(10_000);
+                String autoIncrement = "$" + (1 + random.nextInt(500)) / 100.0;
+                String bidderId = "Bidder" + random.nextInt(1_000);
+                hotBids[i] = new Bid(bidderId, "$" + startingBid, "$" + maxBid, autoIncrement, 1);
+                spreadBids[i] = new Bid(bidderId, "$" + startingBid, "$" + maxBid, autoIncrement,
+                        random.nextInt(AUCTIONS));
+            }
+        }
+
+        @Setup(Level.Iteration)
+        public void resetAuctions() throws IOException {
+            WinnerStoreFactory factory = new WinnerStoreFactory();
+            factory.setType(store);
+            factory.setExpectedAuctions(AUCTIONS);
+            factory.setMaxHotAuctions(AUCTIONS / 10);
+            if (winners instanceof Closeable) {
+                ((Closeable) winners).close();
+            }
+            winners = factory.build();
+            auctionService = new AuctionService(winners);
+            if (metrics) {
+                auctionService.setResolutionTimingInterval(16);
+                auctionService.addResolutionListener(new BidMetrics(10, 16, 1, TimeUnit.MINUTES));
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        @Setup(Level.Trial)
+        public void randomStart() {
+            next = new Random().nextInt(BIDS);
+        }
+
+        int advance() {
+            next = (next + 1) & (BIDS - 1);
+            return next;
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Bid uncontended(Auctions auctions, Cursor cursor) {
+        return auctions.auctionService.processBid(auctions.spreadBids[cursor.advance()]);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Bid hotAuction1(Auctions auctions, Cursor cursor) {
+        return auctions.auctionService.processBid(auctions.hotBids[cursor.advance()]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Bid hotAuction4(Auctions auctions, Cursor cursor) {
+        return auctions.auctionService.processBid(auctions.hotBids[cursor.advance()]);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public Bid hotAuction16(Auctions auctions, Cursor cursor) {
+        return auctions.auctionService.processBid(auctions.hotBids[cursor.advance()]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Bid manyAuctions4(Auctions auctions, Cursor cursor) {
+        return auctions.auctionService.processBid(auctions.spreadBids[cursor.advance()]);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public Bid manyAuctions16(Auctions auctions, Cursor cursor) {
+        return auctions.auctionService.processBid(auctions.spreadBids[cursor.advance()]);
+    }
+}
@@ -0,0 +1,78 @@
+package com.auction.benchmarks;
+
+import com.auction.api.AuctionJsonModule;
+import com.auction.api.Winner;
+import com.auction.model.Bid;
+import com.auction.resources.AuctionResource;
+import com.auction.services.AuctionService;
+import com.auction.services.BidEngine;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.dropwizard.jackson.Jackson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+// Measures building the GET /auction response, including the DecimalFormat formatting of the winning price.
+//
+//     construct      - the Winner object alone
+//     serialize      - Winner plus Jackson encoding, what every read cost before responses were cached
+//     serializeModule - the same with the hand-written Winner serializer from AuctionJsonModule
+//     cachedResponse - AuctionResource.getWinner for an auction whose encoded response is cached
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WinnerBenchmark {
+
+    @Param({"1000.34", "4000", "0.100"})
+    public String price;
+
+    private BigDecimal winningPrice;
+
+    private final ObjectMapper objectMapper = Jackson.newObjectMapper();
+
+    private final ObjectMapper moduleMapper = Jackson.newObjectMapper().registerModule(new AuctionJsonModule());
+
+    private AuctionResource resource;
+
+    @Setup
+    public void parsePrice() throws Exception {
+        winningPrice = new BigDecimal(price);
+        AuctionService auctionService = new AuctionService();
+        auctionService.processBid(new Bid("JohnDoe123", price, price, "1", 1));
+        resource = new AuctionResource(auctionService, new BidEngine(auctionService, 1, 1, 1, 1000));
+    }
+
+    @Benchmark
+    public Winner construct() {
+        return new Winner(200, "JohnDoe123", winningPrice, 1);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return objectMapper.writeValueAsBytes(new Winner(200, "JohnDoe123", winningPrice, 1));
+    }
+
+    @Benchmark
+    public byte[] serializeModule() throws Exception {
+        return moduleMapper.writeValueAsBytes(new Winner(200, "JohnDoe123", winningPrice, 1));
+    }
+
+    @Benchmark
+    public byte[] cachedResponse() {
+        return resource.getWinner(1);
+    }
+}
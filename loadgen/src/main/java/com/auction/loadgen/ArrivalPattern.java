@@ -0,0 +1,33 @@
+package com.auction.loadgen;
+
+import java.util.concurrent.TimeUnit;
+
+// When each request of a run is meant to be sent, as an offset from the start of the run. Requests keep to this
+// schedule however slowly the service answers, and latency is measured from the scheduled time, so a stall counts
+// against every request that should have been sent during it rather than only the one that was waiting.
+enum ArrivalPattern {
+
+    // Evenly spaced at the target rate.
+    STEADY {
+        @Override
+        long offsetNanos(long request, double rate, long burstPeriodNanos, double burstFactor) {
+            return (long) (request * NANOS_PER_SECOND / rate);
+        }
+    },
+
+    // The same average rate, but each burst period's requests arrive at burstFactor times the rate at its start,
+    // followed by silence for the rest of the period.
+    BURSTY {
+        @Override
+        long offsetNanos(long request, double rate, long burstPeriodNanos, double burstFactor) {
+            long perBurst = Math.max(1, (long) (rate * burstPeriodNanos / NANOS_PER_SECOND));
+            long burst = request / perBurst;
+            long inBurst = request % perBurst;
+            return burst * burstPeriodNanos + (long) (inBurst * NANOS_PER_SECOND / (rate * burstFactor));
+        }
+    };
+
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    abstract long offsetNanos(long request, double rate, long burstPeriodNanos, double burstFactor);
+}
@@ -0,0 +1,42 @@
+package com.auction.loadgen;
+
+import java.util.Arrays;
+import java.util.Random;
+
+// How the auctions a run bids on and reads are picked.
+enum AuctionDistribution {
+
+    // Every auction equally often.
+    UNIFORM {
+        @Override
+        Sampler sampler(int auctions, double skew) {
+            return random -> random.nextInt(auctions);
+        }
+    },
+
+    // Auction k, counting from 0, is picked in proportion to 1/(k+1)^skew, so a few hot auctions take most of the
+    // traffic, as when bidding converges on the last minutes of popular items. skew 0.99 is YCSB's default.
+    ZIPFIAN {
+        @Override
+        Sampler sampler(int auctions, double skew) {
+            double[] cumulative = new double[auctions];
+            double total = 0.0;
+            for (int k = 0; k < auctions; k++) {
+                total += 1.0 / Math.pow(k + 1, skew);
+                cumulative[k] = total;
+            }
+            double sum = total;
+            return random -> {
+                int index = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+                return Math.min(auctions - 1, index < 0 ? -index - 1 : index);
+            };
+        }
+    };
+
+    abstract Sampler sampler(int auctions, double skew);
+
+
+    interface Sampler {
+        int next(Random random);
+    }
+}
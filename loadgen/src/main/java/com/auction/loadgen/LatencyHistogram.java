@@ -0,0 +1,116 @@
+package com.auction.loadgen;
+
+import com.auction.metrics.LogLinearBuckets;
+
+import java.io.PrintStream;
+import java.util.Locale;
+
+// Nanosecond latencies counted in the service's log-linear buckets, the layout HdrHistogram uses, with every power of
+// two split into 128 buckets so a reported value is within 1% of the recorded one. The exact maximum is kept
+// separately.
+//
+// Not thread-safe. Each load worker records into its own histograms, which are added together once the run is over.
+final class LatencyHistogram {
+
+    private static final LogLinearBuckets LAYOUT = new LogLinearBuckets(7);
+
+    private static final int BUCKETS = LAYOUT.count();
+
+    private final long[] counts = new long[BUCKETS];
+
+    private long totalCount;
+
+    private long max;
+
+    private double sum;
+
+    void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts[LAYOUT.index(value)]++;
+        totalCount++;
+        max = Math.max(max, value);
+        sum += value;
+    }
+
+    void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        max = Math.max(max, other.max);
+        sum += other.sum;
+    }
+
+    long getTotalCount() {
+        return totalCount;
+    }
+
+    long getMax() {
+        return max;
+    }
+
+    double getMean() {
+        return totalCount == 0 ? 0.0 : sum / totalCount;
+    }
+
+    // The value at or below which percentile percent of the recorded values fall, as the upper end of its bucket
+    // so that a percentile is never reported lower than it was measured. 100 gives the exact maximum.
+    long getValueAtPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * totalCount));
+        if (rank >= totalCount) {
+            return max;
+        }
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(max, LAYOUT.lowerBound(i + 1) - 1);
+            }
+        }
+        return max;
+    }
+
+    // Writes the distribution in HdrHistogram's percentile format, one line per non-empty bucket, so the files can be
+    // plotted and compared with HdrHistogram's tools. Values are divided by unitNanos, e.g. 1e6 for milliseconds.
+    void writePercentileDistribution(PrintStream output, double unitNanos) {
+        output.format(Locale.ROOT, "%12s %14s %10s %14s%n%n", "Value", "Percentile", "TotalCount", "1/(1-Percentile)");
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            if (counts[i] == 0) {
+                continue;
+            }
+            seen += counts[i];
+            double quantile = (double) seen / totalCount;
+            long value = Math.min(max, LAYOUT.lowerBound(i + 1) - 1);
+            if (quantile < 1.0) {
+                output.format(Locale.ROOT, "%12.3f %2.12f %10d %14.2f%n", value / unitNanos, quantile, seen,
+                        1 / (1 - quantile));
+            } else {
+                output.format(Locale.ROOT, "%12.3f %2.12f %10d%n", value / unitNanos, quantile, seen);
+            }
+        }
+        output.format(Locale.ROOT, "#[Mean    = %12.3f, StdDeviation   = %12.3f]%n", getMean() / unitNanos,
+                getStdDev() / unitNanos);
+        output.format(Locale.ROOT, "#[Max     = %12.3f, Total count    = %12d]%n", max / unitNanos, totalCount);
+        output.format(Locale.ROOT, "#[Buckets = %12d, SubBuckets     = %12d]%n", BUCKETS / LAYOUT.subBuckets(),
+                LAYOUT.subBuckets());
+    }
+
+    private double getStdDev() {
+        if (totalCount <= 1) {
+            return 0.0;
+        }
+        double mean = getMean();
+        double variance = 0.0;
+        for (int i = 0; i < BUCKETS; i++) {
+            if (counts[i] != 0) {
+                double diff = (LAYOUT.lowerBound(i) + LAYOUT.lowerBound(i + 1) - 1) / 2.0 - mean;
+                variance += counts[i] * diff * diff;
+            }
+        }
+        return Math.sqrt(variance / (totalCount - 1));
+    }
+}
@@ -0,0 +1,261 @@
+package com.auction.loadgen;
+
+import com.auction.AuctionServiceApplication;
+import com.auction.AuctionServiceConfiguration;
+import com.auction.api.AuctionJsonModule;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Iterables;
+import io.dropwizard.configuration.YamlConfigurationFactory;
+import io.dropwizard.jackson.Jackson;
+import io.dropwizard.jetty.ConnectorFactory;
+import io.dropwizard.jetty.HttpConnectorFactory;
+import io.dropwizard.jersey.validation.Validators;
+import io.dropwizard.server.DefaultServerFactory;
+import io.dropwizard.testing.DropwizardTestSupport;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Replays a bid and read workload against the service over HTTP and reports latency percentiles.
+//
+// The load is open-loop: every request has a scheduled send time derived from the target rate and the arrival
+// pattern, and its latency is measured from that time rather than from when a connection was free to send it. When
+// the service stalls, the requests that queue up behind the stall are charged for the wait, which is the
+// coordinated-omission correction wrk2 applies. Latency measured from the actual send is reported next to it, so the
+// difference shows how much queueing in front of the service a run hid.
+//
+//     java -jar target/loadgen.jar --rate 5000 --distribution ZIPFIAN --arrival BURSTY --output target/run
+public class LoadGenerator {
+
+    private static final int TIMEOUT_MILLIS = 30000;
+
+    private final LoadOptions options;
+
+    private final String target;
+
+    // Shared by the workers; each samples with its own Random.
+    private final AuctionDistribution.Sampler auctions;
+
+    private final AtomicLong nextRequest = new AtomicLong();
+
+    LoadGenerator(LoadOptions options, String target) {
+        this.options = options;
+        this.target = target;
+        this.auctions = options.distribution.sampler(options.auctions, options.skew);
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadOptions options;
+        try {
+            options = LoadOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(LoadOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+
+        DropwizardTestSupport<AuctionServiceConfiguration> service = null;
+        String target = options.target;
+        if (target == null) {
+            service = startService(options);
+            target = "http://localhost:" + service.getLocalPort();
+        }
+        try {
+            LoadReport report = new LoadGenerator(options, target).run();
+            report.print(System.out);
+            if (options.compare != null) {
+                report.compare(LoadReport.read(options.compare), System.out);
+            }
+            if (options.output != null) {
+                report.write(options.output);
+            }
+        } finally {
+            if (service != null) {
+                service.after();
+            }
+        }
+    }
+
+    // Starts the service on free ports, so a local instance on the configured ports can keep running. The ports are
+    // set on the parsed configuration because config.yml leaves the admin connector to its default, which a
+    // server.adminConnectors[0].port override cannot reach.
+    private static DropwizardTestSupport<AuctionServiceConfiguration> startService(LoadOptions options)
+            throws Exception {
+        for (String override : options.overrides) {
+            int separator = override.indexOf('=');
+            System.setProperty("dw." + override.substring(0, separator), override.substring(separator + 1));
+        }
+        ObjectMapper objectMapper = Jackson.newObjectMapper().registerModule(new AuctionJsonModule());
+        AuctionServiceConfiguration configuration = new YamlConfigurationFactory<>(AuctionServiceConfiguration.class,
+                Validators.newValidator(), objectMapper, "dw").build(new File(options.config));
+        DefaultServerFactory server = (DefaultServerFactory) configuration.getServerFactory();
+        for (ConnectorFactory connector : Iterables.concat(server.getApplicationConnectors(),
+                server.getAdminConnectors())) {
+            ((HttpConnectorFactory) connector).setPort(0);
+        }
+        DropwizardTestSupport<AuctionServiceConfiguration> service = new DropwizardTestSupport<>(
+                AuctionServiceApplication.class, configuration);
+        service.before();
+        return service;
+    }
+
+    LoadReport run() throws InterruptedException {
+        // The JDK keeps only 5 idle keep-alive connections per host unless told otherwise.
+        System.setProperty("http.maxConnections", Integer.toString(options.connections));
+
+        long warmupNanos = options.warmup.toNanoseconds();
+        long endNanos = warmupNanos + options.duration.toNanoseconds();
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+        List<Worker> workers = new ArrayList<>();
+        for (int i = 0; i < options.connections; i++) {
+            Worker worker = new Worker(i, start, warmupNanos, endNanos);
+            worker.thread.start();
+            workers.add(worker);
+        }
+        LoadReport report = new LoadReport(options, target);
+        long lastCompletion = start + warmupNanos;
+        for (Worker worker : workers) {
+            worker.thread.join();
+            lastCompletion = Math.max(lastCompletion, worker.lastCompletion);
+            for (Operation operation : Operation.values()) {
+                report.add(operation, worker.results[operation.ordinal()]);
+            }
+        }
+        report.setElapsedNanos(lastCompletion - (start + warmupNanos));
+        return report;
+    }
+
+    // Sends one request and returns whether it succeeded. Overridden by tests that stand in for the service.
+    boolean send(Operation operation, int auctionId, Random random) {
+        try {
+            HttpURLConnection connection;
+            if (operation == Operation.READ) {
+                connection = open("/auction?auctionId=" + auctionId);
+            } else {
+                connection = open("/auction");
+                connection.setRequestMethod("POST");
+                connection.setDoOutput(true);
+                connection.setRequestProperty("Content-Type", "application/json");
+                // Random maximums make some bids outbid the winner and others lose to it.
+                String body = "{\"bidderId\":\"bidder" + random.nextInt(1000) + "\",\"startingBid\":\"1\","
+                        + "\"maxBid\":\"" + (2 + random.nextInt(10000)) + "\",\"autoIncrement\":\"1\","
+                        + "\"auctionId\":" + auctionId + "}";
+                try (OutputStream output = connection.getOutputStream()) {
+                    output.write(body.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            int status = connection.getResponseCode();
+            byte[] response = drain(status < 400 ? connection.getInputStream() : connection.getErrorStream());
+            // A bid's outcome is in the body; the status is 200 either way.
+            return status == 200 && (operation == Operation.READ || contains(response, "\"code\":201"));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private HttpURLConnection open(String path) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(target + path).openConnection();
+        connection.setConnectTimeout(TIMEOUT_MILLIS);
+        connection.setReadTimeout(TIMEOUT_MILLIS);
+        connection.setRequestProperty("Accept", "application/json");
+        return connection;
+    }
+
+    // Reads the whole body, which lets the JDK put the connection back in its keep-alive pool.
+    private static byte[] drain(InputStream input) throws IOException {
+        if (input == null) {
+            return new byte[0];
+        }
+        try (InputStream body = input) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            byte[] buffer = new byte[1024];
+            int read;
+            while ((read = body.read(buffer)) > 0) {
+                bytes.write(buffer, 0, read);
+            }
+            return bytes.toByteArray();
+        }
+    }
+
+    private static boolean contains(byte[] bytes, String text) {
+        return new String(bytes, StandardCharsets.UTF_8).contains(text);
+    }
+
+
+    enum Operation {
+        BID, READ
+    }
+
+
+    // What one worker measured for one operation.
+    static final class Results {
+        final LatencyHistogram corrected = new LatencyHistogram();
+        final LatencyHistogram uncorrected = new LatencyHistogram();
+        long errors;
+    }
+
+
+    // One connection's worth of concurrency: takes the next request off the shared schedule, waits for its time,
+    // sends it and records the outcome.
+    private final class Worker {
+        private final Thread thread;
+        private final Results[] results = {new Results(), new Results()};
+        private final long start;
+        private final long warmupNanos;
+        private final long endNanos;
+        private final Random random;
+        private long lastCompletion;
+
+        private Worker(int id, long start, long warmupNanos, long endNanos) {
+            this.start = start;
+            this.warmupNanos = warmupNanos;
+            this.endNanos = endNanos;
+            // Seeded, so runs with the same options pick the same auctions and operations.
+            this.random = new Random(id);
+            this.thread = new Thread(this::work, "load-worker-" + id);
+        }
+
+        private void work() {
+            long burstPeriodNanos = options.burstPeriod.toNanoseconds();
+            while (true) {
+                long offset = options.arrival.offsetNanos(nextRequest.getAndIncrement(), options.rate,
+                        burstPeriodNanos, options.burstFactor);
+                if (offset >= endNanos) {
+                    return;
+                }
+                long scheduled = start + offset;
+                long now;
+                while ((now = System.nanoTime()) < scheduled) {
+                    LockSupport.parkNanos(scheduled - now);
+                }
+                Operation operation = random.nextDouble() < options.readRatio ? Operation.READ : Operation.BID;
+                boolean succeeded = send(operation, auctions.next(random), random);
+                long done = System.nanoTime();
+                if (offset < warmupNanos) {
+                    continue;
+                }
+                Results result = results[operation.ordinal()];
+                if (succeeded) {
+                    result.corrected.record(done - scheduled);
+                    result.uncorrected.record(done - now);
+                } else {
+                    result.errors++;
+                }
+                lastCompletion = done;
+            }
+        }
+    }
+}
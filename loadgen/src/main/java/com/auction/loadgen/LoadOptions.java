@@ -0,0 +1,158 @@
+package com.auction.loadgen;
+
+import io.dropwizard.util.Duration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Command line options of LoadGenerator, each given as --name value.
+final class LoadOptions {
+
+    static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: java -jar target/loadgen.jar [--name value]...",
+            "",
+            "  --target URL            Service to load, e.g. http://localhost:8080. Without it the service is",
+            "                          started in-process from --config.",
+            "  --config PATH           Configuration of the in-process service (../config.yml).",
+            "  --override KEY=VALUE    Overrides a setting of the in-process service; may be repeated.",
+            "  --rate N                Requests per second, reads and bids together (1000).",
+            "  --duration D            Measured length of the run (30s).",
+            "  --warmup D              Unmeasured load before the run (5s).",
+            "  --connections N         Requests in flight at most (64).",
+            "  --auctions N            Auctions to spread requests over (10000).",
+            "  --distribution NAME     UNIFORM or ZIPFIAN choice of auctions (UNIFORM).",
+            "  --skew S                Exponent of the ZIPFIAN distribution (0.99).",
+            "  --arrival NAME          STEADY or BURSTY arrival of requests (STEADY).",
+            "  --burst-period D        BURSTY: length of one burst and the silence after it (1s).",
+            "  --burst-factor F        BURSTY: rate during a burst, as a multiple of --rate (10).",
+            "  --read-ratio R          Share of requests that are GET /auction reads, 0 to 1 (0.8).",
+            "  --output DIR            Writes report.json and HdrHistogram percentile files to DIR.",
+            "  --compare FILE          Compares the run against an earlier report.json.");
+
+    String target;
+
+    String config = "../config.yml";
+
+    List<String> overrides = new ArrayList<>();
+
+    double rate = 1000;
+
+    Duration duration = Duration.seconds(30);
+
+    Duration warmup = Duration.seconds(5);
+
+    int connections = 64;
+
+    int auctions = 10000;
+
+    AuctionDistribution distribution = AuctionDistribution.UNIFORM;
+
+    double skew = 0.99;
+
+    ArrivalPattern arrival = ArrivalPattern.STEADY;
+
+    Duration burstPeriod = Duration.seconds(1);
+
+    double burstFactor = 10;
+
+    double readRatio = 0.8;
+
+    String output;
+
+    String compare;
+
+    // Throws IllegalArgumentException naming the offending option.
+    static LoadOptions parse(String[] args) {
+        LoadOptions options = new LoadOptions();
+        for (int i = 0; i < args.length; i += 2) {
+            String name = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + name + ".");
+            }
+            String value = args[i + 1];
+            try {
+                options.set(name, value);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid value " + value + " for " + name + ".", e);
+            }
+        }
+        options.validate();
+        return options;
+    }
+
+    private void set(String name, String value) {
+        switch (name) {
+            case "--target":
+                target = value.endsWith("/") ? value.substring(0, value.length() - 1) : value;
+                break;
+            case "--config":
+                config = value;
+                break;
+            case "--override":
+                if (!value.contains("=")) {
+                    throw new IllegalArgumentException("Overrides have the form key=value.");
+                }
+                overrides.add(value);
+                break;
+            case "--rate":
+                rate = Double.parseDouble(value);
+                break;
+            case "--duration":
+                duration = Duration.parse(value);
+                break;
+            case "--warmup":
+                warmup = Duration.parse(value);
+                break;
+            case "--connections":
+                connections = Integer.parseInt(value);
+                break;
+            case "--auctions":
+                auctions = Integer.parseInt(value);
+                break;
+            case "--distribution":
+                distribution = AuctionDistribution.valueOf(value.toUpperCase(Locale.ROOT));
+                break;
+            case "--skew":
+                skew = Double.parseDouble(value);
+                break;
+            case "--arrival":
+                arrival = ArrivalPattern.valueOf(value.toUpperCase(Locale.ROOT));
+                break;
+            case "--burst-period":
+                burstPeriod = Duration.parse(value);
+                break;
+            case "--burst-factor":
+                burstFactor = Double.parseDouble(value);
+                break;
+            case "--read-ratio":
+                readRatio = Double.parseDouble(value);
+                break;
+            case "--output":
+                output = value;
+                break;
+            case "--compare":
+                compare = value;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown option " + name + ".");
+        }
+    }
+
+    private void validate() {
+        check(rate > 0, "--rate must be positive.");
+        check(duration.toNanoseconds() > 0, "--duration must be positive.");
+        check(connections > 0, "--connections must be positive.");
+        check(auctions > 0, "--auctions must be positive.");
+        check(skew >= 0, "--skew must not be negative.");
+        check(burstPeriod.toNanoseconds() > 0, "--burst-period must be positive.");
+        check(burstFactor >= 1, "--burst-factor must be at least 1.");
+        check(readRatio >= 0 && readRatio <= 1, "--read-ratio must be between 0 and 1.");
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+}
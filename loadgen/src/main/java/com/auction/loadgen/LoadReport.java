@@ -0,0 +1,196 @@
+package com.auction.loadgen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.dropwizard.jackson.Jackson;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+// The outcome of a run: its options, the achieved rate and per operation the latency percentiles with and without
+// the coordinated-omission correction.
+//
+// report.json holds the options and percentiles in milliseconds, so two runs can be compared with --compare or any
+// JSON diff. The <operation>-corrected.hgrm and <operation>-uncorrected.hgrm files hold the full distributions in
+// HdrHistogram's percentile format, in milliseconds.
+final class LoadReport {
+
+    private static final ObjectMapper MAPPER = Jackson.newObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    private final LoadOptions options;
+
+    private final String target;
+
+    private final Map<LoadGenerator.Operation, LoadGenerator.Results> results = new LinkedHashMap<>();
+
+    private long elapsedNanos;
+
+    LoadReport(LoadOptions options, String target) {
+        this.options = options;
+        this.target = target;
+        for (LoadGenerator.Operation operation : LoadGenerator.Operation.values()) {
+            results.put(operation, new LoadGenerator.Results());
+        }
+    }
+
+    void add(LoadGenerator.Operation operation, LoadGenerator.Results measured) {
+        LoadGenerator.Results total = results.get(operation);
+        total.corrected.add(measured.corrected);
+        total.uncorrected.add(measured.uncorrected);
+        total.errors += measured.errors;
+    }
+
+    LoadGenerator.Results getResults(LoadGenerator.Operation operation) {
+        return results.get(operation);
+    }
+
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    // Completed requests per second over the measured part of the run, errors included.
+    double getAchievedRate() {
+        long completed = 0;
+        for (LoadGenerator.Results result : results.values()) {
+            completed += result.corrected.getTotalCount() + result.errors;
+        }
+        return elapsedNanos <= 0 ? 0.0 : completed * 1e9 / elapsedNanos;
+    }
+
+    void print(PrintStream output) {
+        output.format(Locale.ROOT, "Target          %s%n", target);
+        output.format(Locale.ROOT, "Workload        %s auctions of %d, %s arrivals, %.0f%% reads%n",
+                options.distribution, options.auctions, options.arrival, options.readRatio * 100);
+        output.format(Locale.ROOT, "Rate            %.1f requests/s achieved of %.1f requested, %d connections%n",
+                getAchievedRate(), options.rate, options.connections);
+        output.format(Locale.ROOT, "Duration        %s after %s warmup%n%n", options.duration, options.warmup);
+        output.format(Locale.ROOT, "%-18s %9s %7s", "Latency (ms)", "count", "errors");
+        for (double percentile : PERCENTILES) {
+            output.format(Locale.ROOT, " %9s", "p" + format(percentile));
+        }
+        output.format(Locale.ROOT, " %9s%n", "max");
+        for (Map.Entry<LoadGenerator.Operation, LoadGenerator.Results> entry : results.entrySet()) {
+            String name = entry.getKey().name().toLowerCase(Locale.ROOT);
+            printRow(output, name, entry.getValue().corrected, entry.getValue().errors);
+            printRow(output, name + " (sent)", entry.getValue().uncorrected, entry.getValue().errors);
+        }
+        output.println();
+        output.println("Latency is measured from the scheduled send time; (sent) rows measure from the actual send.");
+    }
+
+    // Prints how each corrected percentile moved relative to baseline, an earlier report.json.
+    void compare(JsonNode baseline, PrintStream output) {
+        output.format(Locale.ROOT, "%nCompared with the baseline (ms, baseline -> this run)%n");
+        JsonNode current = toJson();
+        for (LoadGenerator.Operation operation : LoadGenerator.Operation.values()) {
+            String name = operation.name().toLowerCase(Locale.ROOT);
+            JsonNode before = baseline.path("operations").path(name).path("corrected");
+            JsonNode after = current.path("operations").path(name).path("corrected");
+            if (before.isMissingNode()) {
+                continue;
+            }
+            output.format(Locale.ROOT, "%-8s", name);
+            for (double percentile : PERCENTILES) {
+                String key = "p" + format(percentile);
+                output.format(Locale.ROOT, "  %s %s", key, change(before.path(key).asDouble(), after.path(key).asDouble()));
+            }
+            output.format(Locale.ROOT, "  max %s%n", change(before.path("max").asDouble(), after.path("max").asDouble()));
+        }
+        if (!baseline.path("workload").equals(current.path("workload"))) {
+            output.println("The baseline ran a different workload, so the numbers are not directly comparable.");
+        }
+    }
+
+    void write(String directory) throws IOException {
+        Path path = Paths.get(directory);
+        Files.createDirectories(path);
+        MAPPER.writeValue(path.resolve("report.json").toFile(), toJson());
+        for (Map.Entry<LoadGenerator.Operation, LoadGenerator.Results> entry : results.entrySet()) {
+            String name = entry.getKey().name().toLowerCase(Locale.ROOT);
+            writeDistribution(path.resolve(name + "-corrected.hgrm"), entry.getValue().corrected);
+            writeDistribution(path.resolve(name + "-uncorrected.hgrm"), entry.getValue().uncorrected);
+        }
+    }
+
+    static JsonNode read(String file) throws IOException {
+        return MAPPER.readTree(new File(file));
+    }
+
+    private JsonNode toJson() {
+        Map<String, Object> workload = new LinkedHashMap<>();
+        workload.put("rate", options.rate);
+        workload.put("connections", options.connections);
+        workload.put("auctions", options.auctions);
+        workload.put("distribution", options.distribution.name());
+        workload.put("skew", options.skew);
+        workload.put("arrival", options.arrival.name());
+        workload.put("burstPeriodMillis", options.burstPeriod.toMilliseconds());
+        workload.put("burstFactor", options.burstFactor);
+        workload.put("readRatio", options.readRatio);
+        workload.put("durationMillis", options.duration.toMilliseconds());
+        workload.put("warmupMillis", options.warmup.toMilliseconds());
+
+        Map<String, Object> operations = new LinkedHashMap<>();
+        for (Map.Entry<LoadGenerator.Operation, LoadGenerator.Results> entry : results.entrySet()) {
+            Map<String, Object> operation = new LinkedHashMap<>();
+            operation.put("count", entry.getValue().corrected.getTotalCount());
+            operation.put("errors", entry.getValue().errors);
+            operation.put("corrected", percentiles(entry.getValue().corrected));
+            operation.put("uncorrected", percentiles(entry.getValue().uncorrected));
+            operations.put(entry.getKey().name().toLowerCase(Locale.ROOT), operation);
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("target", target);
+        report.put("workload", workload);
+        report.put("achievedRate", getAchievedRate());
+        report.put("operations", operations);
+        return MAPPER.valueToTree(report);
+    }
+
+    private static Map<String, Object> percentiles(LatencyHistogram histogram) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("mean", histogram.getMean() / NANOS_PER_MILLI);
+        for (double percentile : PERCENTILES) {
+            values.put("p" + format(percentile), histogram.getValueAtPercentile(percentile) / NANOS_PER_MILLI);
+        }
+        values.put("max", histogram.getMax() / NANOS_PER_MILLI);
+        return values;
+    }
+
+    private static void printRow(PrintStream output, String name, LatencyHistogram histogram, long errors) {
+        output.format(Locale.ROOT, "%-18s %9d %7d", name, histogram.getTotalCount(), errors);
+        for (double percentile : PERCENTILES) {
+            output.format(Locale.ROOT, " %9.3f", histogram.getValueAtPercentile(percentile) / NANOS_PER_MILLI);
+        }
+        output.format(Locale.ROOT, " %9.3f%n", histogram.getMax() / NANOS_PER_MILLI);
+    }
+
+    private static void writeDistribution(Path file, LatencyHistogram histogram) throws IOException {
+        try (PrintStream output = new PrintStream(file.toFile(), "UTF-8")) {
+            histogram.writePercentileDistribution(output, NANOS_PER_MILLI);
+        }
+    }
+
+    private static String change(double before, double after) {
+        String delta = before == 0 ? "n/a" : String.format(Locale.ROOT, "%+.1f%%", (after - before) / before * 100);
+        return String.format(Locale.ROOT, "%.3f -> %.3f (%s)", before, after, delta);
+    }
+
+    // 50 -> "50", 99.9 -> "99.9"
+    private static String format(double percentile) {
+        return percentile == Math.rint(percentile) ? Long.toString((long) percentile) : Double.toString(percentile);
+    }
+}
@@ -0,0 +1,76 @@
+package com.auction.loadgen;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    public void testPercentilesAreNeverBelowTheRecordedValue() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long millis = 1; millis <= 1000; millis++) {
+            histogram.record(millis * MILLI);
+        }
+        assertEquals(1000, histogram.getTotalCount());
+        assertEquals(500.5 * MILLI, histogram.getMean(), 0.001 * MILLI);
+        assertPercentile(500 * MILLI, histogram.getValueAtPercentile(50));
+        assertPercentile(990 * MILLI, histogram.getValueAtPercentile(99));
+        assertPercentile(999 * MILLI, histogram.getValueAtPercentile(99.9));
+        assertEquals(1000 * MILLI, histogram.getValueAtPercentile(100));
+        assertEquals(1000 * MILLI, histogram.getMax());
+    }
+
+    @Test
+    public void testAddMergesWorkers() throws Exception {
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        for (int i = 0; i < 90; i++) {
+            first.record(10 * MILLI);
+        }
+        for (int i = 0; i < 10; i++) {
+            second.record(200 * MILLI);
+        }
+        first.add(second);
+        assertEquals(100, first.getTotalCount());
+        assertPercentile(10 * MILLI, first.getValueAtPercentile(90));
+        assertPercentile(200 * MILLI, first.getValueAtPercentile(91));
+        assertEquals(200 * MILLI, first.getMax());
+    }
+
+    @Test
+    public void testEmptyHistogramReportsZero() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getValueAtPercentile(99));
+        assertEquals(0.0, histogram.getMean(), 0.0);
+    }
+
+    @Test
+    public void testWritesHdrHistogramPercentileFormat() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(MILLI);
+        histogram.record(3 * MILLI);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (PrintStream output = new PrintStream(bytes, true, "UTF-8")) {
+            histogram.writePercentileDistribution(output, MILLI);
+        }
+        String[] lines = new String(bytes.toByteArray(), StandardCharsets.UTF_8).split("\\R");
+        assertEquals("", lines[1]);
+        assertTrue(lines[2], lines[2].matches(" *1\\.00\\d 0\\.500000000000 +1 +2\\.00"));
+        assertTrue(lines[3], lines[3].matches(" *3\\.000 1\\.000000000000 +2"));
+        assertTrue(lines[5], lines[5].startsWith("#[Max     =        3.000, Total count    =            2]"));
+    }
+
+    // A percentile is reported as the top of its bucket: at least the recorded value and within 1% of it.
+    private static void assertPercentile(long recorded, long reported) {
+        assertTrue(reported + " for " + recorded, reported >= recorded && reported <= recorded * 1.01);
+    }
+}
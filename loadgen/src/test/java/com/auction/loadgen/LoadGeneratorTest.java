@@ -0,0 +1,88 @@
+package com.auction.loadgen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.dropwizard.util.Duration;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LoadGeneratorTest {
+
+    private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // One connection at 100 requests/s against a service whose first answer takes 500 ms: the ~50 requests scheduled
+    // during the stall are sent late, one after the other. Measured from their scheduled times they are charged for
+    // the wait; measured from the actual send they look as fast as the rest.
+    @Test
+    public void testLatencyIsMeasuredFromTheSchedule() throws Exception {
+        LoadOptions options = new LoadOptions();
+        options.rate = 100;
+        options.duration = Duration.seconds(1);
+        options.warmup = Duration.seconds(0);
+        options.connections = 1;
+        options.readRatio = 1;
+        AtomicBoolean stalled = new AtomicBoolean();
+        LoadReport report = new LoadGenerator(options, "http://unused") {
+            @Override
+            boolean send(Operation operation, int auctionId, Random random) {
+                if (stalled.compareAndSet(false, true)) {
+                    try {
+                        Thread.sleep(500);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return true;
+            }
+        }.run();
+
+        LoadGenerator.Results reads = report.getResults(LoadGenerator.Operation.READ);
+        assertEquals(100, reads.corrected.getTotalCount());
+        assertEquals(100, reads.uncorrected.getTotalCount());
+        assertEquals(0, report.getResults(LoadGenerator.Operation.BID).corrected.getTotalCount());
+        // Request 75 in latency order is one of those scheduled in the first 250 ms of the stall.
+        assertTrue(reads.corrected.getValueAtPercentile(75) + " ns",
+                reads.corrected.getValueAtPercentile(75) >= 150 * MILLI);
+        assertTrue(reads.uncorrected.getValueAtPercentile(75) + " ns",
+                reads.uncorrected.getValueAtPercentile(75) < 50 * MILLI);
+        assertTrue(reads.corrected.getMax() >= 500 * MILLI);
+
+        File output = folder.newFolder("run");
+        report.write(output.getPath());
+        JsonNode written = LoadReport.read(new File(output, "report.json").getPath());
+        JsonNode corrected = written.path("operations").path("read").path("corrected");
+        assertEquals(reads.corrected.getValueAtPercentile(99) / 1e6, corrected.path("p99").asDouble(), 1e-9);
+        assertEquals(reads.corrected.getMax() / 1e6, corrected.path("max").asDouble(), 1e-9);
+        assertEquals(100, written.path("operations").path("read").path("count").asLong());
+        assertTrue(new File(output, "read-corrected.hgrm").isFile());
+        assertTrue(new File(output, "read-uncorrected.hgrm").isFile());
+    }
+
+    @Test
+    public void testSteadyArrivalsKeepToTheRate() throws Exception {
+        assertEquals(0, ArrivalPattern.STEADY.offsetNanos(0, 100, 0, 1));
+        assertEquals(10 * MILLI, ArrivalPattern.STEADY.offsetNanos(1, 100, 0, 1));
+        assertEquals(990 * MILLI, ArrivalPattern.STEADY.offsetNanos(99, 100, 0, 1));
+    }
+
+    // 100 requests/s in 1 s periods at 10 times the rate: each period's 100 requests go out in its first 100 ms.
+    @Test
+    public void testBurstyArrivalsKeepTheAverageRate() throws Exception {
+        long period = TimeUnit.SECONDS.toNanos(1);
+        assertEquals(0, ArrivalPattern.BURSTY.offsetNanos(0, 100, period, 10));
+        assertEquals(MILLI, ArrivalPattern.BURSTY.offsetNanos(1, 100, period, 10));
+        assertEquals(99 * MILLI, ArrivalPattern.BURSTY.offsetNanos(99, 100, period, 10));
+        assertEquals(period, ArrivalPattern.BURSTY.offsetNanos(100, 100, period, 10));
+    }
+}
@@ -1,8 +1,17 @@
 package com.auction;
 
+import com.auction.api.AuctionJsonModule;
+import com.auction.cluster.Cluster;
 import com.auction.health.AuctionServiceAppHealthCheck;
+import com.auction.persistence.BidJournal;
+import com.auction.replay.ReplayCommand;
 import com.auction.resources.AuctionResource;
+import com.auction.resources.BinaryBidProvider;
 import com.auction.services.AuctionService;
+import com.auction.services.BidEngine;
+import com.auction.services.BidHistory;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
 import io.dropwizard.Application;
 import io.dropwizard.setup.Bootstrap;
 import io.dropwizard.setup.Environment;
@@ -24,6 +33,8 @@ public class AuctionServiceApplication extends Application<AuctionServiceConfigu
 
     @Override
     public void initialize(final Bootstrap<AuctionServiceConfiguration> bootstrap) {
+        bootstrap.getObjectMapper().registerModule(new AuctionJsonModule());
+        bootstrap.addCommand(new ReplayCommand());
     }
 
     @Override
@@ -31,9 +42,21 @@ public class AuctionServiceApplication extends Application<AuctionServiceConfigu
                     final Environment environment) throws Exception {
         final Client client = new JerseyClientBuilder(environment).build("HealthRESTClient");
         environment.healthChecks().register("APIHealthCheck", new AuctionServiceAppHealthCheck(client));
-        final AuctionService auctionService = new AuctionService();
-        final AuctionResource resource = new AuctionResource(auctionService);
+        final AuctionService auctionService = new AuctionService(configuration.getStore().build());
+        final BidJournal journal = configuration.getJournal().build(auctionService, environment);
+        final BidHistory bidHistory = configuration.getHistory().build(auctionService);
+        configuration.getEvents().build(auctionService, environment);
+        configuration.getBidMetrics().build(auctionService, environment);
+        configuration.getLifecycle().build(auctionService, environment);
+        configuration.getReplication().build(auctionService, environment);
+        final BidEngine bidEngine = configuration.getEngine().build(auctionService, journal, environment);
+        final Cluster cluster = configuration.getCluster().build(environment);
+        final AuctionResource resource = new AuctionResource(auctionService, bidEngine, bidHistory,
+                environment.getObjectMapper(), cluster);
         environment.jersey().register(resource);
+        environment.metrics().register(MetricRegistry.name(AuctionResource.class, "pending-requests"),
+                (Gauge<Integer>) resource::getPendingRequests);
+        environment.jersey().register(new BinaryBidProvider());
     }
 
 }
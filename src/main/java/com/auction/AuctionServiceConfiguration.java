@@ -1,6 +1,145 @@
 package com.auction;
 
+import com.auction.cluster.ClusterFactory;
+import com.auction.events.WinnerEventFactory;
+import com.auction.lifecycle.AuctionSchedulerFactory;
+import com.auction.metrics.BidMetricsFactory;
+import com.auction.persistence.JournalFactory;
+import com.auction.replication.ReplicationFactory;
+import com.auction.services.BidEngineFactory;
+import com.auction.services.BidHistoryFactory;
+import com.auction.services.WinnerStoreFactory;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import io.dropwizard.Configuration;
 
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+
 public class AuctionServiceConfiguration extends Configuration {
+
+    @Valid
+    @NotNull
+    private WinnerStoreFactory store = new WinnerStoreFactory();
+
+    @Valid
+    @NotNull
+    private BidEngineFactory engine = new BidEngineFactory();
+
+    @Valid
+    @NotNull
+    private JournalFactory journal = new JournalFactory();
+
+    @Valid
+    @NotNull
+    private BidHistoryFactory history = new BidHistoryFactory();
+
+    @Valid
+    @NotNull
+    private WinnerEventFactory events = new WinnerEventFactory();
+
+    @Valid
+    @NotNull
+    private BidMetricsFactory bidMetrics = new BidMetricsFactory();
+
+    @Valid
+    @NotNull
+    private AuctionSchedulerFactory lifecycle = new AuctionSchedulerFactory();
+
+    @Valid
+    @NotNull
+    private ClusterFactory cluster = new ClusterFactory();
+
+    @Valid
+    @NotNull
+    private ReplicationFactory replication = new ReplicationFactory();
+
+    @JsonProperty("store")
+    public WinnerStoreFactory getStore() {
+        return store;
+    }
+
+    @JsonProperty("store")
+    public void setStore(WinnerStoreFactory store) {
+        this.store = store;
+    }
+
+    @JsonProperty("engine")
+    public BidEngineFactory getEngine() {
+        return engine;
+    }
+
+    @JsonProperty("engine")
+    public void setEngine(BidEngineFactory engine) {
+        this.engine = engine;
+    }
+
+    @JsonProperty("journal")
+    public JournalFactory getJournal() {
+        return journal;
+    }
+
+    @JsonProperty("journal")
+    public void setJournal(JournalFactory journal) {
+        this.journal = journal;
+    }
+
+    @JsonProperty("history")
+    public BidHistoryFactory getHistory() {
+        return history;
+    }
+
+    @JsonProperty("history")
+    public void setHistory(BidHistoryFactory history) {
+        this.history = history;
+    }
+
+    @JsonProperty("events")
+    public WinnerEventFactory getEvents() {
+        return events;
+    }
+
+    @JsonProperty("events")
+    public void setEvents(WinnerEventFactory events) {
+        this.events = events;
+    }
+
+    @JsonProperty("bidMetrics")
+    public BidMetricsFactory getBidMetrics() {
+        return bidMetrics;
+    }
+
+    @JsonProperty("bidMetrics")
+    public void setBidMetrics(BidMetricsFactory bidMetrics) {
+        this.bidMetrics = bidMetrics;
+    }
+
+    @JsonProperty("lifecycle")
+    public AuctionSchedulerFactory getLifecycle() {
+        return lifecycle;
+    }
+
+    @JsonProperty("lifecycle")
+    public void setLifecycle(AuctionSchedulerFactory lifecycle) {
+        this.lifecycle = lifecycle;
+    }
+
+    @JsonProperty("cluster")
+    public ClusterFactory getCluster() {
+        return cluster;
+    }
+
+    @JsonProperty("cluster")
+    public void setCluster(ClusterFactory cluster) {
+        this.cluster = cluster;
+    }
+
+    @JsonProperty("replication")
+    public ReplicationFactory getReplication() {
+        return replication;
+    }
+
+    @JsonProperty("replication")
+    public void setReplication(ReplicationFactory replication) {
+        this.replication = replication;
+    }
 }
@@ -0,0 +1,200 @@
+package com.auction.api;
+
+import com.auction.model.Bid;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+// Hand-written Jackson codecs for the types on the per-request path: Bid bodies read by POST /auction, and the
+// Winner and ProcessedBid responses.
+//
+// The bean codecs Jackson would otherwise build introspect these classes once, but still go through property
+// buffering for the Bid creator and a property writer per field on every call. These read and write the five fields
+// directly. Output is byte for byte what the bean codecs produce, including field order, and input is accepted and
+// rejected the same way: anything off the common path, such as a numeric string for auctionId, is handed to the
+// deserializer Jackson would have used for that field.
+public class AuctionJsonModule extends SimpleModule {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Collection<Object> BID_FIELDS = Collections.unmodifiableList(
+            Arrays.asList("bidderId", "startingBid", "maxBid", "autoIncrement", "auctionId"));
+
+    public AuctionJsonModule() {
+        super("AuctionJsonModule");
+        addDeserializer(Bid.class, new BidDeserializer());
+        addSerializer(Bid.class, new BidSerializer());
+        addSerializer(Winner.class, new WinnerSerializer());
+        addSerializer(ProcessedBid.class, new ProcessedBidSerializer());
+    }
+
+
+    private static final class BidDeserializer extends JsonDeserializer<Bid> {
+
+        @Override
+        public Bid deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            String field;
+            if (parser.isExpectedStartObjectToken()) {
+                field = parser.nextFieldName();
+            } else if (parser.getCurrentToken() == JsonToken.FIELD_NAME) {
+                field = parser.getCurrentName();
+            } else {
+                return (Bid) context.handleUnexpectedToken(Bid.class, parser);
+            }
+            String bidderId = null;
+            String startingBid = null;
+            String maxBid = null;
+            String autoIncrement = null;
+            Integer auctionId = null;
+
+            for (; field != null; field = parser.nextFieldName()) {
+                JsonToken value = parser.nextToken();
+                try {
+                    switch (field) {
+                        case "bidderId":
+                            bidderId = text(parser, context, value);
+                            break;
+                        case "startingBid":
+                            startingBid = text(parser, context, value);
+                            break;
+                        case "maxBid":
+                            maxBid = text(parser, context, value);
+                            break;
+                        case "autoIncrement":
+                            autoIncrement = text(parser, context, value);
+                            break;
+                        case "auctionId":
+                            auctionId = integer(parser, context, value);
+                            break;
+                        default:
+                            context.handleUnknownProperty(parser, this, Bid.class, field);
+                    }
+                } catch (IOException e) {
+                    // Adds the field to the error the way the bean deserializer does, e.g. for an out of range
+                    // auctionId.
+                    throw JsonMappingException.wrapWithPath(e, Bid.class, field);
+                }
+            }
+
+            try {
+                return new Bid(bidderId, startingBid, maxBid, autoIncrement, auctionId);
+            } catch (Exception e) {
+                // The same exception Jackson raises when a creator throws, so callers see no difference.
+                throw context.instantiationException(Bid.class, e);
+            }
+        }
+
+        @Override
+        public Collection<Object> getKnownPropertyNames() {
+            return BID_FIELDS;
+        }
+
+        private static String text(JsonParser parser, DeserializationContext context, JsonToken value)
+                throws IOException {
+            switch (value) {
+                case VALUE_STRING:
+                case VALUE_NUMBER_INT:
+                case VALUE_NUMBER_FLOAT:
+                    return parser.getText();
+                case VALUE_NULL:
+                    return null;
+                default:
+                    return context.readValue(parser, String.class);
+            }
+        }
+
+        private static Integer integer(JsonParser parser, DeserializationContext context, JsonToken value)
+                throws IOException {
+            if (value == JsonToken.VALUE_NUMBER_INT && parser.getNumberType() == JsonParser.NumberType.INT) {
+                return parser.getIntValue();
+            }
+            if (value == JsonToken.VALUE_NULL) {
+                return null;
+            }
+            return context.readValue(parser, Integer.class);
+        }
+    }
+
+
+    private static final class BidSerializer extends JsonSerializer<Bid> {
+
+        @Override
+        public void serialize(Bid bid, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartObject();
+            generator.writeStringField("bidderId", bid.getId());
+            writeNumberField(generator, "startingBid", bid.getStartingBid());
+            writeNumberField(generator, "maxBid", bid.getMaxBid());
+            writeNumberField(generator, "autoIncrement", bid.getAutoIncrement());
+            writeNumberField(generator, "auctionId", bid.getAuctionId());
+            generator.writeEndObject();
+        }
+    }
+
+
+    private static final class WinnerSerializer extends JsonSerializer<Winner> {
+
+        @Override
+        public void serialize(Winner winner, JsonGenerator generator, SerializerProvider provider)
+                throws IOException {
+            generator.writeStartObject();
+            generator.writeNumberField("code", winner.getCode());
+            generator.writeStringField("bidderId", winner.getBidderId());
+            generator.writeStringField("winningPrice", winner.getWinningPrice());
+            writeNumberField(generator, "auctionId", winner.getAuctionId());
+            generator.writeEndObject();
+        }
+    }
+
+
+    private static final class ProcessedBidSerializer extends JsonSerializer<ProcessedBid> {
+
+        private final BidSerializer bidSerializer = new BidSerializer();
+
+        @Override
+        public void serialize(ProcessedBid processedBid, JsonGenerator generator, SerializerProvider provider)
+                throws IOException {
+            generator.writeStartObject();
+            generator.writeNumberField("code", processedBid.getCode());
+            generator.writeFieldName("bid");
+            if (processedBid.getBid() == null) {
+                generator.writeNull();
+            } else {
+                bidSerializer.serialize(processedBid.getBid(), generator, provider);
+            }
+            generator.writeEndObject();
+        }
+    }
+
+
+    private static void writeNumberField(JsonGenerator generator, String field, BigDecimal value)
+            throws IOException {
+        generator.writeFieldName(field);
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            // Honours WRITE_BIGDECIMAL_AS_PLAIN like Jackson's own number serializer.
+            generator.writeNumber(value);
+        }
+    }
+
+    private static void writeNumberField(JsonGenerator generator, String field, Integer value) throws IOException {
+        generator.writeFieldName(field);
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(value);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.auction.api;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+// Whether an auction has closed and, while it is open, when it is scheduled to close. "closesAt" is in epoch
+// milliseconds and absent for an auction without a close time or one that has already closed.
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AuctionStatus {
+
+    private long code;
+
+    private Integer auctionId;
+
+    private Long closesAt;
+
+    private boolean closed;
+
+    public AuctionStatus() {
+        // Jackson deserialization
+    }
+
+    public AuctionStatus(long code, Integer auctionId, Long closesAt, boolean closed) {
+        this.code = code;
+        this.auctionId = auctionId;
+        this.closesAt = closesAt;
+        this.closed = closed;
+    }
+
+    @JsonProperty
+    public long getCode() {
+        return code;
+    }
+
+    @JsonProperty
+    public Integer getAuctionId() {
+        return auctionId;
+    }
+
+    @JsonProperty
+    public Long getClosesAt() {
+        return closesAt;
+    }
+
+    @JsonProperty
+    public boolean isClosed() {
+        return closed;
+    }
+}
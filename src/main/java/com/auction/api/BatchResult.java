@@ -0,0 +1,31 @@
+package com.auction.api;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+public class BatchResult {
+
+    private long code;
+
+    private List<BidResult> results;
+
+    public BatchResult() {
+        // Jackson deserialization
+    }
+
+    public BatchResult(long code, List<BidResult> results) {
+        this.code = code;
+        this.results = results;
+    }
+
+    @JsonProperty
+    public long getCode() {
+        return code;
+    }
+
+    @JsonProperty
+    public List<BidResult> getResults() {
+        return results;
+    }
+}
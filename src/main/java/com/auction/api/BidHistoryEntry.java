@@ -0,0 +1,74 @@
+package com.auction.api;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+
+// One bid from an auction's history. "sequence" orders bids across all auctions; "winning" tells whether the bid was
+// the auction's winner right after it was applied.
+public class BidHistoryEntry {
+
+    private long sequence;
+
+    private long timestamp;
+
+    private String bidderId;
+
+    private BigDecimal startingBid;
+
+    private BigDecimal maxBid;
+
+    private BigDecimal autoIncrement;
+
+    private boolean winning;
+
+    public BidHistoryEntry() {
+        // Jackson deserialization
+    }
+
+    public BidHistoryEntry(long sequence, long timestamp, String bidderId, BigDecimal startingBid, BigDecimal maxBid,
+                           BigDecimal autoIncrement, boolean winning) {
+        this.sequence = sequence;
+        this.timestamp = timestamp;
+        this.bidderId = bidderId;
+        this.startingBid = startingBid;
+        this.maxBid = maxBid;
+        this.autoIncrement = autoIncrement;
+        this.winning = winning;
+    }
+
+    @JsonProperty
+    public long getSequence() {
+        return sequence;
+    }
+
+    @JsonProperty
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @JsonProperty
+    public String getBidderId() {
+        return bidderId;
+    }
+
+    @JsonProperty
+    public BigDecimal getStartingBid() {
+        return startingBid;
+    }
+
+    @JsonProperty
+    public BigDecimal getMaxBid() {
+        return maxBid;
+    }
+
+    @JsonProperty
+    public BigDecimal getAutoIncrement() {
+        return autoIncrement;
+    }
+
+    @JsonProperty
+    public boolean isWinning() {
+        return winning;
+    }
+}
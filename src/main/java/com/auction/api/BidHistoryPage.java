@@ -0,0 +1,51 @@
+package com.auction.api;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+// A page of an auction's bid history, newest first. "next" is the cursor for the following page and is absent on the
+// last page.
+public class BidHistoryPage {
+
+    private long code;
+
+    private Integer auctionId;
+
+    private List<BidHistoryEntry> bids;
+
+    private Long next;
+
+    public BidHistoryPage() {
+        // Jackson deserialization
+    }
+
+    public BidHistoryPage(long code, Integer auctionId, List<BidHistoryEntry> bids, Long next) {
+        this.code = code;
+        this.auctionId = auctionId;
+        this.bids = bids;
+        this.next = next;
+    }
+
+    @JsonProperty
+    public long getCode() {
+        return code;
+    }
+
+    @JsonProperty
+    public Integer getAuctionId() {
+        return auctionId;
+    }
+
+    @JsonProperty
+    public List<BidHistoryEntry> getBids() {
+        return bids;
+    }
+
+    @JsonProperty
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public Long getNext() {
+        return next;
+    }
+}
@@ -0,0 +1,62 @@
+package com.auction.api;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+// Result of one bid in a batch submission. "winning" tells whether the bid is the auction's winner after it was
+// applied; "error" is only present when the bid was rejected, and "warning" when it was applied but its effect may not
+// survive a restart.
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BidResult {
+
+    private long code;
+
+    private Integer auctionId;
+
+    private Boolean winning;
+
+    private String error;
+
+    private String warning;
+
+    public BidResult() {
+        // Jackson deserialization
+    }
+
+    public BidResult(long code, Integer auctionId, Boolean winning, String error) {
+        this(code, auctionId, winning, error, null);
+    }
+
+    public BidResult(long code, Integer auctionId, Boolean winning, String error, String warning) {
+        this.code = code;
+        this.auctionId = auctionId;
+        this.winning = winning;
+        this.error = error;
+        this.warning = warning;
+    }
+
+    @JsonProperty
+    public long getCode() {
+        return code;
+    }
+
+    @JsonProperty
+    public Integer getAuctionId() {
+        return auctionId;
+    }
+
+    @JsonProperty
+    public Boolean getWinning() {
+        return winning;
+    }
+
+    @JsonProperty
+    public String getError() {
+        return error;
+    }
+
+    @JsonProperty
+    public String getWarning() {
+        return warning;
+    }
+}
@@ -1,5 +1,6 @@
 package com.auction.api;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.math.BigDecimal;
@@ -7,12 +8,20 @@ import java.text.DecimalFormat;
 
 public class Winner {
 
+    // DecimalFormat is not thread-safe and costly to build, so each thread keeps its own.
+    private static final ThreadLocal<DecimalFormat> PRICE_FORMAT =
+            ThreadLocal.withInitial(() -> new DecimalFormat("#,###.00"));
+
     private Long code;
 
     private String bidderId;
 
     private String winningPrice;
 
+    // The price winningPrice was formatted from, for encodings that carry it as a number. Null after Jackson
+    // deserialization.
+    private BigDecimal winningAmount;
+
     private Integer auctionId;
 
     public Winner() {
@@ -20,10 +29,10 @@ public class Winner {
     }
 
     public Winner(long code, String bidderId, BigDecimal winningPrice, Integer auctionId) {
-        DecimalFormat df = new DecimalFormat("#,###.00");
         this.code = code;
         this.bidderId = bidderId;
-        this.winningPrice = "$" + df.format(winningPrice);
+        this.winningPrice = formatPrice(winningPrice);
+        this.winningAmount = winningPrice;
         this.auctionId = auctionId;
     }
 
@@ -46,4 +55,14 @@ public class Winner {
     public Integer getAuctionId() {
         return auctionId;
     }
+
+    @JsonIgnore
+    public BigDecimal getWinningAmount() {
+        return winningAmount;
+    }
+
+    // Formats a winning price the way it appears in responses, e.g. "$1,000.34".
+    public static String formatPrice(BigDecimal winningPrice) {
+        return "$" + PRICE_FORMAT.get().format(winningPrice);
+    }
 }
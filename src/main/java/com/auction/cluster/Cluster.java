@@ -0,0 +1,151 @@
+package com.auction.cluster;
+
+import io.dropwizard.lifecycle.Managed;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.Invocation;
+import javax.ws.rs.client.InvocationCallback;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriBuilder;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+// This node's view of a statically configured cluster: which node owns each auction, and how to reach the others.
+//
+// Nodes talk to each other over plain HTTP against the same endpoints clients use, so there is no second protocol to
+// keep in step with AuctionResource. A request sent on by a node carries the FORWARDED_BY header, and a node serves
+// such a request itself whatever its ring says, so a request never travels more than one hop even while members
+// disagree about membership during a rolling config change.
+//
+// Clients could send FORWARDED_BY too, and skip routing, so a node also sends the cluster's shared secret in
+// FORWARD_TOKEN. ClusterRoutingFilter strips FORWARDED_BY from any request that does not carry the secret.
+public class Cluster implements Managed {
+
+    public static final String FORWARDED_BY = "X-Auction-Forwarded-By";
+
+    public static final String FORWARD_TOKEN = "X-Auction-Forward-Token";
+
+    private final String self;
+
+    private final HashRing ring;
+
+    private final Map<String, URI> urls = new LinkedHashMap<>();
+
+    private final ClusterMode mode;
+
+    private final Client client;
+
+    private final byte[] secret;
+
+    private final long timeoutMillis;
+
+    // timeoutMillis is how long a node waits for the others to answer, and should match client's read timeout.
+    public Cluster(String self, List<ClusterNode> nodes, int virtualNodes, ClusterMode mode, Client client,
+                   String secret, long timeoutMillis) {
+        if (secret == null || secret.isEmpty()) {
+            throw new IllegalArgumentException("A cluster needs a shared secret.");
+        }
+        for (ClusterNode node : nodes) {
+            if (urls.put(node.getName(), URI.create(node.getUrl())) != null) {
+                throw new IllegalArgumentException("Cluster node " + node.getName() + " is configured twice.");
+            }
+        }
+        if (!urls.containsKey(self)) {
+            throw new IllegalArgumentException("Cluster self " + self + " is not one of the cluster's nodes.");
+        }
+        this.self = self;
+        this.ring = new HashRing(urls.keySet(), virtualNodes);
+        this.mode = mode;
+        this.client = client;
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public boolean isLocal(int auctionId) {
+        return self.equals(ring.ownerOf(auctionId));
+    }
+
+    public String ownerOf(int auctionId) {
+        return ring.ownerOf(auctionId);
+    }
+
+    public String getSelf() {
+        return self;
+    }
+
+    public ClusterMode getMode() {
+        return mode;
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    // Whether token is the cluster's secret, compared in constant time so it cannot be guessed a byte at a time.
+    public boolean isMemberToken(String token) {
+        return token != null && MessageDigest.isEqual(secret, token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // The same request on node: its scheme, host and port with the original path and query.
+    public URI relocate(String node, URI requestUri) {
+        URI base = urls.get(node);
+        return UriBuilder.fromUri(requestUri).scheme(base.getScheme()).host(base.getHost()).port(base.getPort())
+                .build();
+    }
+
+    // Sends a request on to node without waiting. The response's entity is buffered, so it can be read, or relayed
+    // to a client, after the connection has gone back to the pool. body may be null.
+    public CompletableFuture<Response> forwardAsync(String node, String method, URI requestUri, String accept,
+                                                    MediaType contentType, byte[] body) {
+        CompletableFuture<Response> result = new CompletableFuture<>();
+        Invocation.Builder request = client.target(relocate(node, requestUri)).request().header(FORWARDED_BY, self)
+                .header(FORWARD_TOKEN, new String(secret, StandardCharsets.UTF_8));
+        if (accept != null) {
+            request.header(HttpHeaders.ACCEPT, accept);
+        }
+        InvocationCallback<Response> callback = new InvocationCallback<Response>() {
+            @Override
+            public void completed(Response response) {
+                try {
+                    response.bufferEntity();
+                    result.complete(response);
+                } catch (ProcessingException e) {
+                    result.completeExceptionally(e);
+                }
+            }
+
+            @Override
+            public void failed(Throwable throwable) {
+                result.completeExceptionally(throwable);
+            }
+        };
+        try {
+            if (body == null) {
+                request.async().method(method, callback);
+            } else {
+                request.async().method(method, Entity.entity(body, contentType), callback);
+            }
+        } catch (ProcessingException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    @Override
+    public void start() {
+    }
+
+    @Override
+    public void stop() {
+        client.close();
+    }
+}
@@ -0,0 +1,149 @@
+package com.auction.cluster;
+
+import com.auction.resources.BinaryBidProvider;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.setup.Environment;
+import io.dropwizard.util.Duration;
+import io.dropwizard.validation.ValidationMethod;
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.client.ClientProperties;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.FilterRegistration;
+import javax.validation.Valid;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+public class ClusterFactory {
+
+    private boolean enabled = false;
+
+    // Name of this node among nodes.
+    private String self;
+
+    @Valid
+    @NotNull
+    private List<ClusterNode> nodes = new ArrayList<>();
+
+    // Points per node on the hash ring; more points spread auctions more evenly.
+    @Min(1)
+    private int virtualNodes = 128;
+
+    @NotNull
+    private ClusterMode mode = ClusterMode.FORWARD;
+
+    // How long a node waits for another to answer a forwarded request.
+    @NotNull
+    private Duration timeout = Duration.seconds(5);
+
+    // Shared by every node and sent with each forwarded request, so only members can mark a request as forwarded.
+    private String secret;
+
+    @JsonProperty
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @JsonProperty
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @JsonProperty
+    public String getSelf() {
+        return self;
+    }
+
+    @JsonProperty
+    public void setSelf(String self) {
+        this.self = self;
+    }
+
+    @JsonProperty
+    public List<ClusterNode> getNodes() {
+        return nodes;
+    }
+
+    @JsonProperty
+    public void setNodes(List<ClusterNode> nodes) {
+        this.nodes = nodes;
+    }
+
+    @JsonProperty
+    public int getVirtualNodes() {
+        return virtualNodes;
+    }
+
+    @JsonProperty
+    public void setVirtualNodes(int virtualNodes) {
+        this.virtualNodes = virtualNodes;
+    }
+
+    @JsonProperty
+    public ClusterMode getMode() {
+        return mode;
+    }
+
+    @JsonProperty
+    public void setMode(ClusterMode mode) {
+        this.mode = mode;
+    }
+
+    @JsonProperty
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    @JsonProperty
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    @JsonProperty
+    public String getSecret() {
+        return secret;
+    }
+
+    @JsonProperty
+    public void setSecret(String secret) {
+        this.secret = secret;
+    }
+
+    @JsonIgnore
+    @ValidationMethod(message = "secret must be set when the cluster is enabled")
+    public boolean isSecretValid() {
+        return !enabled || secret != null && !secret.isEmpty();
+    }
+
+    // Registers the routing filter and returns the cluster for AuctionResource, or null when the node runs alone.
+    public Cluster build(Environment environment) {
+        if (!enabled) {
+            return null;
+        }
+        Cluster cluster = new Cluster(self, nodes, virtualNodes, mode, buildClient(), secret,
+                timeout.toMilliseconds());
+        environment.lifecycle().manage(cluster);
+        FilterRegistration.Dynamic routing = environment.servlets()
+                .addFilter("cluster-routing", new ClusterRoutingFilter(cluster));
+        routing.setAsyncSupported(true);
+        routing.addMappingForUrlPatterns(EnumSet.of(DispatcherType.REQUEST), true, "/auction", "/auction/*");
+        return cluster;
+    }
+
+    // A separate client from the health check's, so forwarded requests have their own timeouts and can carry bids
+    // in the binary encoding.
+    Client buildClient() {
+        int timeoutMillis = (int) Math.min(Integer.MAX_VALUE, timeout.toMilliseconds());
+        return ClientBuilder.newClient(new ClientConfig()
+                .property(ClientProperties.CONNECT_TIMEOUT, timeoutMillis)
+                .property(ClientProperties.READ_TIMEOUT, timeoutMillis)
+                .property(ClientProperties.FOLLOW_REDIRECTS, false)
+                .register(BinaryBidProvider.class));
+    }
+}
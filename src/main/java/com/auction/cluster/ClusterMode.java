@@ -0,0 +1,11 @@
+package com.auction.cluster;
+
+// What a node does with a request for an auction another node owns.
+public enum ClusterMode {
+
+    // Sends the request on to the owner and relays its response, so clients can talk to any node.
+    FORWARD,
+
+    // Answers 307 Temporary Redirect to the same request on the owner, which keeps the method and the body.
+    REDIRECT
+}
@@ -0,0 +1,44 @@
+package com.auction.cluster;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.hibernate.validator.constraints.NotEmpty;
+
+// One member of the static cluster membership in config.yml.
+public class ClusterNode {
+
+    // Identifies the node on the hash ring, so renaming a node moves its auctions.
+    @NotEmpty
+    private String name;
+
+    // Base URL the other nodes reach the node's application connector at, e.g. http://10.0.0.7:8080.
+    @NotEmpty
+    private String url;
+
+    public ClusterNode() {
+    }
+
+    public ClusterNode(String name, String url) {
+        this.name = name;
+        this.url = url;
+    }
+
+    @JsonProperty
+    public String getName() {
+        return name;
+    }
+
+    @JsonProperty
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    @JsonProperty
+    public String getUrl() {
+        return url;
+    }
+
+    @JsonProperty
+    public void setUrl(String url) {
+        this.url = url;
+    }
+}
@@ -0,0 +1,307 @@
+package com.auction.cluster;
+
+import com.auction.resources.BinaryBidProvider;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriBuilder;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+// Sends requests for a single auction owned by another node to that node, or redirects the client there.
+//
+// The auction is taken from the auctionId query parameter, or for POST /auction from the bid in the body, which is
+// read into memory so it can be both inspected and passed on. Requests that cover many auctions, /auction/batch and
+// /auction/winners, are split across the owners by AuctionResource itself. Anything the filter cannot attribute to an
+// auction, including a malformed body, is left to this node so it is rejected exactly as it would be without a
+// cluster.
+//
+// A request that carries FORWARDED_BY is served here as is only if it also carries the cluster's secret in
+// FORWARD_TOKEN. Otherwise the header is stripped before anything else looks at it, so a client cannot use it to
+// skip routing.
+//
+// This is a servlet filter rather than a Jersey one so that it covers GET /auction/events as well, and so that a
+// forwarded request is suspended with the servlet async API instead of holding a container thread until the owner
+// answers; the forwarding client's connect and read timeouts bound the wait. Event subscriptions are always
+// redirected, even in FORWARD mode, since relaying a stream that never ends would hold a connection through this
+// node for as long as the client listens.
+public class ClusterRoutingFilter implements Filter {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final Cluster cluster;
+
+    public ClusterRoutingFilter(Cluster cluster) {
+        this.cluster = cluster;
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) {
+    }
+
+    @Override
+    public void destroy() {
+    }
+
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain chain)
+            throws IOException, ServletException {
+        HttpServletRequest request = (HttpServletRequest) servletRequest;
+        HttpServletResponse response = (HttpServletResponse) servletResponse;
+        if (request.getHeader(Cluster.FORWARDED_BY) != null) {
+            if (cluster.isMemberToken(request.getHeader(Cluster.FORWARD_TOKEN))) {
+                chain.doFilter(request, response);
+                return;
+            }
+            // Not sent by a member, so the request is routed like any other and the resources never see the header.
+            request = new UnforwardedRequest(request);
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.startsWith("/")) {
+            path = path.substring(1);
+        }
+        if (!path.equals("auction") && !path.startsWith("auction/")
+                || path.startsWith("auction/batch") || path.startsWith("auction/winners")) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        byte[] body = null;
+        Integer auctionId = parseAuctionId(queryParameter(request, "auctionId"));
+        if (auctionId == null && path.equals("auction") && HttpMethod.POST.equals(request.getMethod())) {
+            body = readFully(request.getInputStream());
+            auctionId = auctionIdOf(body, mediaType(request));
+        }
+        if (auctionId == null || cluster.isLocal(auctionId)) {
+            chain.doFilter(body == null ? request : new BufferedRequest(request, body), response);
+            return;
+        }
+
+        String owner = cluster.ownerOf(auctionId);
+        if (cluster.getMode() == ClusterMode.REDIRECT || path.startsWith("auction/events")) {
+            response.setStatus(HttpServletResponse.SC_TEMPORARY_REDIRECT);
+            response.setHeader(HttpHeaders.LOCATION, cluster.relocate(owner, requestUri(request)).toString());
+            return;
+        }
+        if (body == null) {
+            body = readFully(request.getInputStream());
+        }
+        AsyncContext async = request.startAsync();
+        async.setTimeout(0);
+        cluster.forwardAsync(owner, request.getMethod(), requestUri(request), request.getHeader(HttpHeaders.ACCEPT),
+                mediaType(request), body.length == 0 ? null : body)
+                .whenComplete((forwarded, failure) -> {
+                    try {
+                        relay(failure == null ? forwarded : null, (HttpServletResponse) async.getResponse());
+                    } catch (IOException e) {
+                        // The client has gone away; there is nobody left to tell.
+                    } finally {
+                        async.complete();
+                    }
+                });
+    }
+
+    // Writes the owner's response as this node's, with the same status, media type and body, or 503 Service
+    // Unavailable when the owner could not be reached.
+    private static void relay(Response forwarded, HttpServletResponse response) throws IOException {
+        if (forwarded == null) {
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        }
+        response.setStatus(forwarded.getStatus());
+        if (forwarded.getMediaType() != null) {
+            response.setContentType(forwarded.getMediaType().toString());
+        }
+        if (forwarded.hasEntity()) {
+            byte[] entity = forwarded.readEntity(byte[].class);
+            response.setContentLength(entity.length);
+            response.getOutputStream().write(entity);
+        }
+    }
+
+    private static URI requestUri(HttpServletRequest request) {
+        return UriBuilder.fromUri(request.getRequestURL().toString()).replaceQuery(request.getQueryString()).build();
+    }
+
+    // Read from the query string alone; getParameter would consume a form body.
+    private static String queryParameter(HttpServletRequest request, String name) {
+        String query = request.getQueryString();
+        if (query == null) {
+            return null;
+        }
+        // Like Jersey's @QueryParam, the first value counts.
+        for (String parameter : query.split("&")) {
+            int equals = parameter.indexOf('=');
+            if (equals > 0 && parameter.substring(0, equals).equals(name)) {
+                try {
+                    return URLDecoder.decode(parameter.substring(equals + 1), StandardCharsets.UTF_8.name());
+                } catch (UnsupportedEncodingException | IllegalArgumentException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static MediaType mediaType(HttpServletRequest request) {
+        try {
+            return request.getContentType() == null ? null : MediaType.valueOf(request.getContentType());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static Integer parseAuctionId(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            int auctionId = Integer.parseInt(value.trim());
+            return auctionId >= 0 ? auctionId : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // The auctionId of a bid, in the binary encoding or as a JSON object, or null if there is none to be found.
+    private static Integer auctionIdOf(byte[] body, MediaType mediaType) {
+        if (mediaType != null && BinaryBidProvider.APPLICATION_AUCTION_BID_TYPE.isCompatible(mediaType)) {
+            // [int frame length][int auctionId]...
+            if (body.length < 8) {
+                return null;
+            }
+            int auctionId = (body[4] & 0xFF) << 24 | (body[5] & 0xFF) << 16 | (body[6] & 0xFF) << 8 | body[7] & 0xFF;
+            return auctionId >= 0 ? auctionId : null;
+        }
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            // Like Bid's deserializer, the last auctionId wins when the field is repeated.
+            Integer auctionId = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("auctionId".equals(field)) {
+                    if (value == JsonToken.VALUE_NUMBER_INT && parser.getNumberType() == JsonParser.NumberType.INT) {
+                        auctionId = parser.getIntValue() >= 0 ? parser.getIntValue() : null;
+                    } else {
+                        auctionId = value == JsonToken.VALUE_STRING ? parseAuctionId(parser.getText()) : null;
+                    }
+                }
+                parser.skipChildren();
+            }
+            return auctionId;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static byte[] readFully(InputStream input) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = input.read(buffer)) > 0) {
+            bytes.write(buffer, 0, read);
+        }
+        return bytes.toByteArray();
+    }
+
+
+    // The request without FORWARDED_BY, for a client that sent the header without the cluster's secret.
+    private static final class UnforwardedRequest extends HttpServletRequestWrapper {
+
+        private UnforwardedRequest(HttpServletRequest request) {
+            super(request);
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return isForwardedBy(name) ? null : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return isForwardedBy(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            List<String> names = Collections.list(super.getHeaderNames());
+            names.removeIf(UnforwardedRequest::isForwardedBy);
+            return Collections.enumeration(names);
+        }
+
+        private static boolean isForwardedBy(String name) {
+            return Cluster.FORWARDED_BY.equalsIgnoreCase(name);
+        }
+    }
+
+
+    // The request with the body the filter has already read, for the resources to read again.
+    private static final class BufferedRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        private BufferedRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return input.read(buffer, offset, length);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new IllegalStateException("The body has already been read");
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.auction.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+// Consistent hashing of auctionIds onto cluster nodes. Every node is placed on a 64-bit ring at virtualNodes points
+// derived from its name, and an auction belongs to the first point at or after its own hash. Adding or removing a
+// node therefore only moves the auctions between that node's points and their predecessors, about 1/n of them, and
+// every node that is configured with the same names computes the same owners.
+//
+// The points are kept as a sorted long array with a parallel array of owners, so a lookup is one binary search with
+// no boxing.
+public final class HashRing {
+
+    private final long[] points;
+
+    private final String[] owners;
+
+    public HashRing(Collection<String> nodes, int virtualNodes) {
+        if (nodes.isEmpty() || virtualNodes < 1) {
+            throw new IllegalArgumentException("A hash ring needs at least one node and one virtual node per node.");
+        }
+        int count = nodes.size() * virtualNodes;
+        long[][] placed = new long[count][];
+        String[] names = nodes.toArray(new String[0]);
+        int next = 0;
+        for (int node = 0; node < names.length; node++) {
+            for (int i = 0; i < virtualNodes; i++) {
+                placed[next++] = new long[]{hash(names[node] + "#" + i), node};
+            }
+        }
+        // Ties are vanishingly rare but are broken by node name, so every member still agrees on the order.
+        Arrays.sort(placed, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0])
+                : names[(int) a[1]].compareTo(names[(int) b[1]]));
+        points = new long[count];
+        owners = new String[count];
+        for (int i = 0; i < count; i++) {
+            points[i] = placed[i][0];
+            owners[i] = names[(int) placed[i][1]];
+        }
+    }
+
+    public String ownerOf(int auctionId) {
+        int index = Arrays.binarySearch(points, mix(auctionId));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners[index == points.length ? 0 : index];
+    }
+
+    public List<String> getNodes() {
+        return Arrays.asList(Arrays.stream(owners).distinct().sorted().toArray(String[]::new));
+    }
+
+    // FNV-1a over the name's UTF-8 bytes, finished with the same mix as auctionIds so both spread over the whole ring.
+    private static long hash(String name) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : name.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    // The finalizer of SplitMix64.
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+}
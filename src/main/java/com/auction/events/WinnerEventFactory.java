@@ -0,0 +1,67 @@
+package com.auction.events;
+
+import com.auction.services.AuctionService;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.setup.Environment;
+import io.dropwizard.util.Duration;
+
+import javax.servlet.ServletRegistration;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+public class WinnerEventFactory {
+
+    private boolean enabled;
+
+    @Min(0)
+    private int maxSubscribers = 10000;
+
+    @NotNull
+    private Duration heartbeatInterval = Duration.seconds(15);
+
+    @JsonProperty
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @JsonProperty
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @JsonProperty
+    public int getMaxSubscribers() {
+        return maxSubscribers;
+    }
+
+    @JsonProperty
+    public void setMaxSubscribers(int maxSubscribers) {
+        this.maxSubscribers = maxSubscribers;
+    }
+
+    @JsonProperty
+    public Duration getHeartbeatInterval() {
+        return heartbeatInterval;
+    }
+
+    @JsonProperty
+    public void setHeartbeatInterval(Duration heartbeatInterval) {
+        this.heartbeatInterval = heartbeatInterval;
+    }
+
+    // Registers GET /auction/events and returns the hub feeding it, or null when winner events are disabled.
+    public WinnerEventHub build(AuctionService auctionService, Environment environment) {
+        if (!enabled) {
+            return null;
+        }
+        WinnerEventHub hub = new WinnerEventHub(auctionService, environment.getObjectMapper(),
+                heartbeatInterval.toMilliseconds());
+        auctionService.addWinnerListener(hub);
+        environment.lifecycle().manage(hub);
+        ServletRegistration.Dynamic servlet = environment.servlets()
+                .addServlet("winner-events", new WinnerEventServlet(hub, maxSubscribers));
+        servlet.setAsyncSupported(true);
+        servlet.addMapping("/auction/events");
+        return hub;
+    }
+}
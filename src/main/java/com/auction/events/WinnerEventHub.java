@@ -0,0 +1,263 @@
+package com.auction.events;
+
+import com.auction.api.Winner;
+import com.auction.model.Bid;
+import com.auction.services.AuctionService;
+import com.auction.services.WinnerListener;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.dropwizard.lifecycle.Managed;
+import org.eclipse.jetty.http.HttpStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Pushes an auction's winner to its subscribers whenever the winner or winning price changes.
+//
+// Bid processing only records the latest winner of a subscribed auction and marks the auction dirty; auctions nobody
+// subscribes to cost a single map lookup. A dispatcher thread then encodes each dirty auction's winner once and hands
+// the same bytes to every subscriber, so changes that arrive faster than the dispatcher runs are coalesced into one
+// event per auction.
+//
+// Each subscriber holds at most one event that has not been written yet. A newer event replaces it, so a slow
+// consumer skips intermediate winners and always ends up with the latest one instead of building up a backlog.
+public class WinnerEventHub implements WinnerListener, Managed {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WinnerEventHub.class);
+
+    private static final byte[] HEARTBEAT = ": heartbeat\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private static final String NO_ENTRIES = "No entries.";
+
+    private final AuctionService auctionService;
+
+    private final ObjectMapper objectMapper;
+
+    private final long heartbeatMillis;
+
+    private final ConcurrentMap<Integer, Topic> topics = new ConcurrentHashMap<>();
+
+    // Every topic is queued at most once until the dispatcher picks it up, so this is bounded by the number of
+    // subscribed auctions.
+    private final BlockingQueue<Topic> dirtyTopics = new LinkedBlockingQueue<>();
+
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    private final AtomicLong droppedEvents = new AtomicLong();
+
+    private final Thread dispatcher;
+
+    private volatile boolean running = true;
+
+    public WinnerEventHub(AuctionService auctionService, ObjectMapper objectMapper, long heartbeatMillis) {
+        this.auctionService = auctionService;
+        this.objectMapper = objectMapper;
+        this.heartbeatMillis = heartbeatMillis;
+        this.dispatcher = new Thread(this::dispatch, "winner-event-dispatcher");
+        this.dispatcher.setDaemon(true);
+    }
+
+    @Override
+    public void start() {
+        dispatcher.start();
+    }
+
+    @Override
+    public void stop() throws InterruptedException {
+        running = false;
+        dispatcher.interrupt();
+        dispatcher.join(heartbeatMillis);
+        for (Topic topic : topics.values()) {
+            for (Subscriber subscriber : topic.subscribers) {
+                subscriber.close();
+            }
+        }
+    }
+
+    @Override
+    public void winnerChanged(Bid previousWinner, Bid winner) {
+        Topic topic = topics.get(winner.getAuctionId());
+        if (topic != null) {
+            topic.latest.set(winner);
+            schedule(topic);
+        }
+    }
+
+    // Starts sending the auction's winner to subscriber, beginning with the current one.
+    public void subscribe(int auctionId, Subscriber subscriber) {
+        Topic topic = topics.compute(auctionId, (id, current) -> {
+            if (current == null) {
+                current = new Topic(id);
+            }
+            current.subscribers.add(subscriber);
+            return current;
+        });
+        subscriberCount.incrementAndGet();
+        // Read only once the topic is visible to winnerChanged, so a change racing with this read is either seen
+        // here or recorded by winnerChanged. A recorded change is newer than the read, so the read only fills a
+        // topic that has no winner yet.
+        if (topic.latest.get() == null) {
+            topic.latest.compareAndSet(null, auctionService.findWinner(auctionId));
+        }
+        synchronized (topic) {
+            offer(subscriber, topic.encode());
+        }
+    }
+
+    public void unsubscribe(int auctionId, Subscriber subscriber) {
+        topics.computeIfPresent(auctionId, (id, topic) -> {
+            if (topic.subscribers.remove(subscriber)) {
+                subscriberCount.decrementAndGet();
+            }
+            return topic.subscribers.isEmpty() ? null : topic;
+        });
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    // Events replaced by a newer one before a slow subscriber could take them.
+    public long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    private void schedule(Topic topic) {
+        if (topic.scheduled.compareAndSet(false, true)) {
+            dirtyTopics.offer(topic);
+        }
+    }
+
+    private void dispatch() {
+        long nextHeartbeat = System.currentTimeMillis() + heartbeatMillis;
+        while (running) {
+            try {
+                Topic topic = dirtyTopics.poll(Math.max(nextHeartbeat - System.currentTimeMillis(), 1),
+                        TimeUnit.MILLISECONDS);
+                if (topic != null) {
+                    publish(topic);
+                }
+                if (System.currentTimeMillis() >= nextHeartbeat) {
+                    heartbeat();
+                    nextHeartbeat = System.currentTimeMillis() + heartbeatMillis;
+                }
+            } catch (InterruptedException e) {
+                break;
+            } catch (RuntimeException e) {
+                LOGGER.error("Failed to publish winner event", e);
+            }
+        }
+    }
+
+    private void publish(Topic topic) {
+        synchronized (topic) {
+            // Cleared before reading the winner, so a change made after the read schedules the topic again.
+            topic.scheduled.set(false);
+            byte[] event = topic.encode();
+            for (Subscriber subscriber : topic.subscribers) {
+                offer(subscriber, event);
+            }
+        }
+    }
+
+    // Lets idle connections notice a client that has gone away, and keeps proxies from closing them.
+    private void heartbeat() {
+        for (Topic topic : topics.values()) {
+            for (Subscriber subscriber : topic.subscribers) {
+                subscriber.offerIfIdle(HEARTBEAT);
+            }
+        }
+    }
+
+    private void offer(Subscriber subscriber, byte[] event) {
+        if (subscriber.offer(event)) {
+            droppedEvents.incrementAndGet();
+        }
+    }
+
+    byte[] encode(int auctionId, Bid winner) {
+        Winner event = winner == null
+                ? new Winner(HttpStatus.OK_200, NO_ENTRIES, BigDecimal.ZERO, auctionId)
+                : new Winner(HttpStatus.OK_200, winner.getId(), winner.getWinningPrice(), auctionId);
+        try {
+            byte[] data = objectMapper.writeValueAsBytes(event);
+            byte[] prefix = "event: winner\ndata: ".getBytes(StandardCharsets.UTF_8);
+            byte[] encoded = new byte[prefix.length + data.length + 2];
+            System.arraycopy(prefix, 0, encoded, 0, prefix.length);
+            System.arraycopy(data, 0, encoded, prefix.length, data.length);
+            encoded[encoded.length - 2] = '\n';
+            encoded[encoded.length - 1] = '\n';
+            return encoded;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not encode winner of auction " + auctionId, e);
+        }
+    }
+
+
+    // One connection receiving events for an auction. Holds the latest event not yet written; how and when it is
+    // written is up to the connection.
+    public abstract static class Subscriber {
+        private final AtomicReference<byte[]> pending = new AtomicReference<>();
+
+        // Queues event in place of any event not yet written and returns whether one was replaced.
+        boolean offer(byte[] event) {
+            boolean replaced = pending.getAndSet(event) != null;
+            write();
+            return replaced;
+        }
+
+        void offerIfIdle(byte[] event) {
+            if (pending.compareAndSet(null, event)) {
+                write();
+            }
+        }
+
+        // Takes the event to write next, or null if there is none.
+        protected byte[] take() {
+            return pending.getAndSet(null);
+        }
+
+        // Writes pending events for as long as the connection accepts them without blocking.
+        protected abstract void write();
+
+        protected abstract void close();
+    }
+
+
+    private final class Topic {
+        private final int auctionId;
+        private final AtomicReference<Bid> latest = new AtomicReference<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final Set<Subscriber> subscribers = new CopyOnWriteArraySet<>();
+
+        // Encoded event for the winner it was encoded from; only touched while holding the topic's monitor.
+        private Bid encodedWinner;
+        private byte[] encoded;
+
+        private Topic(int auctionId) {
+            this.auctionId = auctionId;
+        }
+
+        private byte[] encode() {
+            Bid winner = latest.get();
+            if (encoded == null || winner != encodedWinner) {
+                encoded = WinnerEventHub.this.encode(auctionId, winner);
+                encodedWinner = winner;
+            }
+            return encoded;
+        }
+    }
+}
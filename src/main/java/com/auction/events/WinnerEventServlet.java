@@ -0,0 +1,145 @@
+package com.auction.events;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+// Server-sent events endpoint, GET /auction/events?auctionId=1, streaming an auction's winner to the client as it
+// changes. Connections are held with the servlet async API and written with non-blocking I/O, so an open subscription
+// ties up neither a request thread nor the dispatcher while the client is slow to read.
+public class WinnerEventServlet extends HttpServlet {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WinnerEventServlet.class);
+
+    private final transient WinnerEventHub hub;
+
+    private final int maxSubscribers;
+
+    public WinnerEventServlet(WinnerEventHub hub, int maxSubscribers) {
+        this.hub = hub;
+        this.maxSubscribers = maxSubscribers;
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        int auctionId;
+        try {
+            auctionId = Integer.parseInt(request.getParameter("auctionId"));
+        } catch (NumberFormatException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+        if (auctionId < 0) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+        if (hub.getSubscriberCount() >= maxSubscribers) {
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        }
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType("text/event-stream");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Cache-Control", "no-cache");
+
+        AsyncContext async = request.startAsync();
+        async.setTimeout(0);
+        StreamSubscriber subscriber = new StreamSubscriber(auctionId, async, response.getOutputStream());
+        async.addListener(subscriber);
+        response.getOutputStream().setWriteListener(subscriber);
+        hub.subscribe(auctionId, subscriber);
+    }
+
+
+    private final class StreamSubscriber extends WinnerEventHub.Subscriber implements WriteListener, AsyncListener {
+        private final int auctionId;
+        private final AsyncContext async;
+        private final ServletOutputStream output;
+        private boolean closed;
+
+        private StreamSubscriber(int auctionId, AsyncContext async, ServletOutputStream output) {
+            this.auctionId = auctionId;
+            this.async = async;
+            this.output = output;
+        }
+
+        // Called by the hub's dispatcher and by the container once the connection can take more; isReady() false
+        // means the container will call onWritePossible later, and the latest event waits in the hub's slot.
+        @Override
+        protected synchronized void write() {
+            if (closed) {
+                return;
+            }
+            try {
+                while (output.isReady()) {
+                    byte[] event = take();
+                    if (event == null) {
+                        return;
+                    }
+                    output.write(event);
+                    if (output.isReady()) {
+                        output.flush();
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                LOGGER.debug("Closing winner event stream for auction {}", auctionId, e);
+                close();
+            }
+        }
+
+        @Override
+        protected synchronized void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            hub.unsubscribe(auctionId, this);
+            try {
+                async.complete();
+            } catch (IllegalStateException e) {
+                // Already completed by the container.
+            }
+        }
+
+        @Override
+        public void onWritePossible() {
+            write();
+        }
+
+        @Override
+        public void onError(Throwable failure) {
+            close();
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            close();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            close();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            close();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
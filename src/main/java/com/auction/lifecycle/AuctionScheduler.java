@@ -0,0 +1,132 @@
+package com.auction.lifecycle;
+
+import com.auction.services.AuctionService;
+import io.dropwizard.lifecycle.Managed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Closes auctions at their close time. Close times are kept in a TimerWheel, so scheduling an auction is O(1) and
+// a tick costs the same whether it closes one auction or thousands, with no task per auction. A single ticker thread
+// advances the wheel every tick and closes whatever came due; an auction closes within a tick of its close time.
+//
+// Moving an auction's close time adds a second wheel entry rather than removing the first. AuctionService holds the
+// current one, and an expiring entry that no longer matches it is dropped.
+//
+// Close times live in AuctionService, which tells the journal about every change, so the scheduler starts with
+// whatever close times were recovered and closes the ones that passed while the service was down on its first tick.
+public class AuctionScheduler implements Managed {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AuctionScheduler.class);
+
+    private final AuctionService auctionService;
+
+    private final long tickMillis;
+
+    // Guarded by itself. Only held to add or collect entries, never while an auction is being closed.
+    private final TimerWheel wheel;
+
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "auction-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Only touched while advancing, which only the ticker thread does once started.
+    private int[] expired = new int[256];
+
+    public AuctionScheduler(AuctionService auctionService, long tickMillis) {
+        this(auctionService, tickMillis, System.currentTimeMillis());
+    }
+
+    AuctionScheduler(AuctionService auctionService, long tickMillis, long nowMillis) {
+        if (tickMillis < 1) {
+            throw new IllegalArgumentException("Tick must be positive.");
+        }
+        this.auctionService = auctionService;
+        this.tickMillis = tickMillis;
+        this.wheel = new TimerWheel(nowMillis / tickMillis);
+        auctionService.forEachCloseTime((auctionId, closesAt) -> wheel.add(auctionId, deadline(closesAt)));
+    }
+
+    @Override
+    public void start() {
+        ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() throws InterruptedException {
+        ticker.shutdown();
+        ticker.awaitTermination(tickMillis * 10, TimeUnit.MILLISECONDS);
+    }
+
+    // Sets or moves the auction's close time, in epoch milliseconds. A close time in the past closes the auction on
+    // the next tick. Fails with 409 Conflict if the auction is already closed.
+    public void schedule(int auctionId, long closesAt) {
+        if (!auctionService.setCloseTime(auctionId, closesAt)) {
+            throw new WebApplicationException(Response.Status.CONFLICT);
+        }
+        long deadline = deadline(closesAt);
+        synchronized (wheel) {
+            wheel.add(auctionId, deadline);
+        }
+    }
+
+    // The auction's close time in epoch milliseconds, or null if it has none or has already closed.
+    public Long getCloseTime(int auctionId) {
+        return auctionService.getCloseTime(auctionId);
+    }
+
+    public int getScheduledCount() {
+        return auctionService.getScheduledCount();
+    }
+
+    // Closes every auction whose close time is at or before nowMillis and returns how many were closed.
+    int advanceTo(long nowMillis) {
+        long tick = nowMillis / tickMillis;
+        int count;
+        synchronized (wheel) {
+            int[] due = {0};
+            wheel.advance(tick, (auctionId, deadline) -> {
+                if (due[0] == expired.length) {
+                    expired = Arrays.copyOf(expired, due[0] * 2);
+                }
+                expired[due[0]++] = auctionId;
+            });
+            count = due[0];
+        }
+
+        int closed = 0;
+        for (int i = 0; i < count; i++) {
+            int auctionId = expired[i];
+            Long closesAt = auctionService.getCloseTime(auctionId);
+            if (closesAt != null && deadline(closesAt) <= tick && auctionService.closeAuction(auctionId, closesAt)) {
+                closed++;
+            }
+        }
+        return closed;
+    }
+
+    // The first tick at or after closesAt, so an auction never closes early.
+    private long deadline(long closesAt) {
+        return Math.floorDiv(closesAt, tickMillis) + (Math.floorMod(closesAt, tickMillis) == 0 ? 0 : 1);
+    }
+
+    private void tick() {
+        try {
+            int closed = advanceTo(System.currentTimeMillis());
+            if (closed > 0) {
+                LOGGER.debug("Closed {} auctions", closed);
+            }
+        } catch (RuntimeException e) {
+            // An exception would cancel every later tick.
+            LOGGER.error("Failed to close auctions", e);
+        }
+    }
+}
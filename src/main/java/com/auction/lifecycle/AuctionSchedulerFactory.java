@@ -0,0 +1,48 @@
+package com.auction.lifecycle;
+
+import com.auction.resources.AuctionScheduleResource;
+import com.auction.services.AuctionService;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.setup.Environment;
+import io.dropwizard.util.Duration;
+
+import javax.validation.constraints.NotNull;
+
+public class AuctionSchedulerFactory {
+
+    private boolean enabled = true;
+
+    @NotNull
+    private Duration tick = Duration.milliseconds(10);
+
+    @JsonProperty
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @JsonProperty
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @JsonProperty
+    public Duration getTick() {
+        return tick;
+    }
+
+    @JsonProperty
+    public void setTick(Duration tick) {
+        this.tick = tick;
+    }
+
+    // Registers /auction/close and returns the scheduler behind it, or null when auctions never close.
+    public AuctionScheduler build(AuctionService auctionService, Environment environment) {
+        if (!enabled) {
+            return null;
+        }
+        AuctionScheduler scheduler = new AuctionScheduler(auctionService, Math.max(1, tick.toMilliseconds()));
+        environment.lifecycle().manage(scheduler);
+        environment.jersey().register(new AuctionScheduleResource(auctionService, scheduler));
+        return scheduler;
+    }
+}
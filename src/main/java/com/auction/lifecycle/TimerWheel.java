@@ -0,0 +1,164 @@
+package com.auction.lifecycle;
+
+import java.util.Arrays;
+
+// Hierarchical timing wheel of auction deadlines, in ticks. Six wheels of 256 buckets each cover 2^48 ticks: the
+// first holds deadlines in the current rotation of 256 ticks, the second those in the current rotation of 256 * 256
+// ticks and so on. Adding a deadline and expiring it are O(1); an entry is moved down a wheel at most five times on
+// its way, when the lower wheel comes round to its range.
+//
+// Entries are kept as parallel primitive arrays per bucket, 12 bytes each, so millions of scheduled auctions do not
+// cost millions of objects. An auction scheduled twice is simply in the wheel twice; the caller decides which entry
+// is current when it expires. Not thread-safe.
+final class TimerWheel {
+
+    private static final int WHEEL_BITS = 8;
+
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    private static final int LEVELS = 6;
+
+    private static final long SPAN_MASK = (1L << (WHEEL_BITS * LEVELS)) - 1;
+
+    // Buckets are allocated when first used and dropped once emptied.
+    private final Bucket[][] wheels = new Bucket[LEVELS][WHEEL_SIZE];
+
+    // One bit per bucket that holds entries, to find the next due bucket without walking empty ones.
+    private final long[][] occupied = new long[LEVELS][WHEEL_SIZE / 64];
+
+    // The next tick advance() will expire.
+    private long nextTick;
+
+    private int size;
+
+    TimerWheel(long startTick) {
+        this.nextTick = startTick;
+    }
+
+    interface Expiry {
+        void expire(int auctionId, long deadline);
+    }
+
+    // A deadline that has already passed expires on the next tick.
+    void add(int auctionId, long deadline) {
+        place(auctionId, deadline);
+        size++;
+    }
+
+    // Expires every entry with a deadline up to and including tick. Ticks on which no bucket is due are skipped, so
+    // advancing over a long quiet stretch costs no more than a short one.
+    void advance(long tick, Expiry expiry) {
+        while (nextTick <= tick) {
+            long current = size == 0 ? Long.MAX_VALUE : nextDueTick();
+            if (current > tick) {
+                nextTick = tick + 1;
+                return;
+            }
+            // When the current tick starts a new rotation of a wheel, the entries in the next wheel's bucket for that
+            // rotation move down. Higher wheels go first so their entries can keep moving down on the same tick.
+            nextTick = current;
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((current & ((1L << (WHEEL_BITS * level)) - 1)) == 0) {
+                    Bucket bucket = take(level, index(current, level));
+                    if (bucket != null) {
+                        for (int i = 0; i < bucket.size; i++) {
+                            place(bucket.auctionIds[i], bucket.deadlines[i]);
+                        }
+                    }
+                }
+            }
+            Bucket due = take(0, index(current, 0));
+            nextTick = current + 1;
+            if (due != null) {
+                for (int i = 0; i < due.size; i++) {
+                    if (due.deadlines[i] <= current) {
+                        size--;
+                        expiry.expire(due.auctionIds[i], due.deadlines[i]);
+                    } else {
+                        // Beyond the wheels' span when it was placed; it goes round again.
+                        place(due.auctionIds[i], due.deadlines[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void place(int auctionId, long deadline) {
+        long placed = Math.min(Math.max(deadline, nextTick), nextTick | SPAN_MASK);
+        long diff = placed ^ nextTick;
+        int level = 0;
+        while (level < LEVELS - 1 && diff >>> (WHEEL_BITS * (level + 1)) != 0) {
+            level++;
+        }
+        int index = index(placed, level);
+        Bucket bucket = wheels[level][index];
+        if (bucket == null) {
+            bucket = new Bucket();
+            wheels[level][index] = bucket;
+            occupied[level][index >>> 6] |= 1L << index;
+        }
+        bucket.add(auctionId, deadline);
+    }
+
+    private Bucket take(int level, int index) {
+        Bucket bucket = wheels[level][index];
+        wheels[level][index] = null;
+        occupied[level][index >>> 6] &= ~(1L << index);
+        return bucket;
+    }
+
+    // The first tick from nextTick on at which a bucket expires or moves down. Every occupied bucket lies at or after
+    // nextTick's position in its wheel's current rotation.
+    private long nextDueTick() {
+        long due = Long.MAX_VALUE;
+        for (int level = 0; level < LEVELS; level++) {
+            int index = nextOccupied(level, index(nextTick, level));
+            if (index >= 0) {
+                long rotation = nextTick & ~((1L << (WHEEL_BITS * (level + 1))) - 1);
+                due = Math.min(due, Math.max(nextTick, rotation | (long) index << (WHEEL_BITS * level)));
+            }
+        }
+        return due;
+    }
+
+    private int nextOccupied(int level, int from) {
+        long[] words = occupied[level];
+        int word = from >>> 6;
+        long bits = words[word] & (-1L << from);
+        while (true) {
+            if (bits != 0) {
+                return word * 64 + Long.numberOfTrailingZeros(bits);
+            }
+            if (++word == words.length) {
+                return -1;
+            }
+            bits = words[word];
+        }
+    }
+
+    private static int index(long tick, int level) {
+        return (int) (tick >>> (WHEEL_BITS * level)) & WHEEL_MASK;
+    }
+
+
+    private static final class Bucket {
+        private int[] auctionIds = new int[4];
+        private long[] deadlines = new long[4];
+        private int size;
+
+        private void add(int auctionId, long deadline) {
+            if (size == auctionIds.length) {
+                auctionIds = Arrays.copyOf(auctionIds, size * 2);
+                deadlines = Arrays.copyOf(deadlines, size * 2);
+            }
+            auctionIds[size] = auctionId;
+            deadlines[size++] = deadline;
+        }
+    }
+}
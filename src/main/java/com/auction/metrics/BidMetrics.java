@@ -0,0 +1,92 @@
+package com.auction.metrics;
+
+import com.auction.model.Bidder;
+import com.auction.services.AuctionService;
+import com.auction.services.BidResolution;
+import com.auction.services.ResolutionListener;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Records how AuctionService resolves bids: per resolution branch a counter of every bid that took it and a histogram
+// of the timed ones' latency in nanoseconds, plus the auctions receiving the most bids. Only timed bids are offered
+// to the hot auction sketch, so it costs as little as the timing does; its counts are scaled back up by the timing
+// interval.
+public class BidMetrics implements ResolutionListener {
+
+    private final Counter[] counts = new Counter[BidResolution.values().length];
+
+    private final Histogram[] latencies = new Histogram[BidResolution.values().length];
+
+    private final HotAuctionSketch hotAuctions;
+
+    private final int hotAuctionLimit;
+
+    private final int timingInterval;
+
+    // hotAuctionLimit is how many of the busiest auctions the hot-auctions gauge reports, 0 to not track them.
+    // timingInterval must match the AuctionService's.
+    public BidMetrics(int hotAuctionLimit, int timingInterval, long window, TimeUnit unit) {
+        for (BidResolution resolution : BidResolution.values()) {
+            counts[resolution.ordinal()] = new Counter();
+            latencies[resolution.ordinal()] = new Histogram(new LatencyReservoir(window, unit));
+        }
+        // Twice as many counters as reported keeps the estimates for the reported auctions tight.
+        this.hotAuctions = hotAuctionLimit > 0 ? new HotAuctionSketch(hotAuctionLimit * 2) : null;
+        this.hotAuctionLimit = hotAuctionLimit;
+        this.timingInterval = timingInterval;
+    }
+
+    @Override
+    public void bidResolved(int auctionId, BidResolution resolution, long nanos) {
+        counts[resolution.ordinal()].inc();
+        if (nanos >= 0) {
+            latencies[resolution.ordinal()].update(nanos);
+            if (hotAuctions != null) {
+                hotAuctions.offer(auctionId);
+            }
+        }
+    }
+
+    public Counter getCount(BidResolution resolution) {
+        return counts[resolution.ordinal()];
+    }
+
+    public Histogram getLatency(BidResolution resolution) {
+        return latencies[resolution.ordinal()];
+    }
+
+    // The busiest auctions, highest first, with their approximate bid counts.
+    public Map<Integer, Long> getHotAuctions() {
+        Map<Integer, Long> top = new LinkedHashMap<>();
+        hotAuctions.top(hotAuctionLimit).forEach((auctionId, count) -> top.put(auctionId, count * timingInterval));
+        return top;
+    }
+
+    // Registers the metrics and auctionService's gauges under com.auction.services.AuctionService.
+    public void register(MetricRegistry registry, AuctionService auctionService) {
+        for (BidResolution resolution : BidResolution.values()) {
+            String name = MetricRegistry.name(AuctionService.class, "resolution",
+                    resolution.name().toLowerCase(Locale.ROOT));
+            registry.register(name, counts[resolution.ordinal()]);
+            registry.register(MetricRegistry.name(name, "nanos"), latencies[resolution.ordinal()]);
+        }
+        registry.register(MetricRegistry.name(AuctionService.class, "auctions"),
+                (Gauge<Integer>) auctionService::getAuctionCount);
+        registry.register(MetricRegistry.name(AuctionService.class, "closed-auctions"),
+                (Gauge<Integer>) auctionService::getClosedAuctionCount);
+        registry.register(MetricRegistry.name(AuctionService.class, "winner-bytes"),
+                (Gauge<Long>) auctionService::getEstimatedWinnerBytes);
+        registry.register(MetricRegistry.name(AuctionService.class, "bidders"), (Gauge<Integer>) Bidder::count);
+        if (hotAuctions != null) {
+            registry.register(MetricRegistry.name(AuctionService.class, "hot-auctions"),
+                    (Gauge<Map<Integer, Long>>) this::getHotAuctions);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.auction.metrics;
+
+import com.auction.services.AuctionService;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.setup.Environment;
+import io.dropwizard.util.Duration;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+public class BidMetricsFactory {
+
+    private boolean enabled = true;
+
+    @Min(0)
+    private int hotAuctions = 10;
+
+    @Min(1)
+    private int timingInterval = 16;
+
+    @NotNull
+    private Duration latencyWindow = Duration.minutes(1);
+
+    @JsonProperty
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @JsonProperty
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @JsonProperty
+    public int getHotAuctions() {
+        return hotAuctions;
+    }
+
+    @JsonProperty
+    public void setHotAuctions(int hotAuctions) {
+        this.hotAuctions = hotAuctions;
+    }
+
+    @JsonProperty
+    public int getTimingInterval() {
+        return timingInterval;
+    }
+
+    @JsonProperty
+    public void setTimingInterval(int timingInterval) {
+        this.timingInterval = timingInterval;
+    }
+
+    @JsonProperty
+    public Duration getLatencyWindow() {
+        return latencyWindow;
+    }
+
+    @JsonProperty
+    public void setLatencyWindow(Duration latencyWindow) {
+        this.latencyWindow = latencyWindow;
+    }
+
+    // Registers the bid metrics with the admin port's metric registry and returns them, or null when disabled.
+    public BidMetrics build(AuctionService auctionService, Environment environment) {
+        if (!enabled) {
+            return null;
+        }
+        BidMetrics metrics = new BidMetrics(hotAuctions, timingInterval, latencyWindow.getQuantity(),
+                latencyWindow.getUnit());
+        metrics.register(environment.metrics(), auctionService);
+        auctionService.setResolutionTimingInterval(timingInterval);
+        auctionService.addResolutionListener(metrics);
+        return metrics;
+    }
+}
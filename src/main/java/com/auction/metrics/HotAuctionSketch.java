@@ -0,0 +1,86 @@
+package com.auction.metrics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Tracks the auctions receiving the most bids with the space-saving algorithm: a fixed number of counters, where an
+// auction without one takes over the smallest counter and inherits its count. Any auction with more than
+// total / capacity bids is guaranteed a counter, and a count overstates the true one by at most what it inherited.
+//
+// Auctions are striped across independently locked sketches by id, so concurrent bids on different auctions rarely
+// meet on a lock. An auction only ever lands in one stripe, which keeps each stripe's guarantee intact for the merge.
+public class HotAuctionSketch {
+
+    private static final int STRIPES = 16;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    // capacity is the number of counters per stripe.
+    public HotAuctionSketch(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive.");
+        }
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(capacity);
+        }
+    }
+
+    public void offer(int auctionId) {
+        stripes[(auctionId * 0x9E3779B9) >>> 28].offer(auctionId);
+    }
+
+    // Returns up to limit auctions with their estimated bid counts, highest first.
+    public Map<Integer, Long> top(int limit) {
+        List<long[]> entries = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            stripe.copyTo(entries);
+        }
+        entries.sort((a, b) -> Long.compare(b[1], a[1]));
+        Map<Integer, Long> top = new LinkedHashMap<>();
+        for (int i = 0; i < entries.size() && i < limit; i++) {
+            top.put((int) entries.get(i)[0], entries.get(i)[1]);
+        }
+        return top;
+    }
+
+
+    // One space-saving sketch. A linear scan over a few dozen ints is cheaper than hashing at these sizes.
+    private static final class Stripe {
+        private final int[] keys;
+        private final long[] counts;
+        private int size;
+
+        private Stripe(int capacity) {
+            this.keys = new int[capacity];
+            this.counts = new long[capacity];
+        }
+
+        private synchronized void offer(int auctionId) {
+            int smallest = 0;
+            for (int i = 0; i < size; i++) {
+                if (keys[i] == auctionId) {
+                    counts[i]++;
+                    return;
+                }
+                if (counts[i] < counts[smallest]) {
+                    smallest = i;
+                }
+            }
+            if (size < keys.length) {
+                keys[size] = auctionId;
+                counts[size++] = 1;
+                return;
+            }
+            keys[smallest] = auctionId;
+            counts[smallest]++;
+        }
+
+        private synchronized void copyTo(List<long[]> entries) {
+            for (int i = 0; i < size; i++) {
+                entries.add(new long[]{keys[i], counts[i]});
+            }
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.auction.metrics;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.Reservoir;
+import com.codahale.metrics.Snapshot;
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// A Reservoir for nanosecond latencies that records into fixed log-linear buckets instead of sampling, so update()
+// is a single LongAdder increment with no locking or allocation. Every power of two is split into 16 buckets, so a
+// reported value is within about 6% of the recorded one.
+//
+// Snapshots cover the current window and the one before it, so percentiles follow recent behaviour rather than
+// everything since startup. Windows are rotated when a snapshot is taken, keeping the clock off the update path.
+public class LatencyReservoir implements Reservoir {
+
+    private static final LogLinearBuckets LAYOUT = new LogLinearBuckets(4);
+
+    private static final int BUCKETS = LAYOUT.count();
+
+    // Upper bound on getValues(); larger snapshots are scaled down to this many values.
+    private static final int MAX_VALUES = 1028;
+
+    private final Clock clock;
+
+    private final long windowNanos;
+
+    private volatile LongAdder[] current = newBuckets();
+
+    private volatile LongAdder[] previous = newBuckets();
+
+    private long nextRotation;
+
+    public LatencyReservoir(long window, TimeUnit unit) {
+        this(window, unit, Clock.defaultClock());
+    }
+
+    LatencyReservoir(long window, TimeUnit unit, Clock clock) {
+        this.clock = clock;
+        this.windowNanos = unit.toNanos(window);
+        this.nextRotation = clock.getTick() + windowNanos;
+    }
+
+    @Override
+    public int size() {
+        return getSnapshot().size();
+    }
+
+    @Override
+    public void update(long value) {
+        current[LAYOUT.index(value)].increment();
+    }
+
+    @Override
+    public Snapshot getSnapshot() {
+        LongAdder[] previous;
+        LongAdder[] current;
+        synchronized (this) {
+            long now = clock.getTick();
+            if (now - nextRotation >= 0) {
+                // Skipping more than one window means the one before now saw no snapshot and is dropped as well.
+                this.previous = now - nextRotation >= windowNanos ? newBuckets() : this.current;
+                this.current = newBuckets();
+                nextRotation = now + windowNanos;
+            }
+            previous = this.previous;
+            current = this.current;
+        }
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = previous[i].sum() + current[i].sum();
+        }
+        return new BucketSnapshot(counts);
+    }
+
+    // The value a bucket reports: its midpoint.
+    static long value(int index) {
+        return (LAYOUT.lowerBound(index) + LAYOUT.lowerBound(index + 1) - 1) / 2;
+    }
+
+    private static LongAdder[] newBuckets() {
+        LongAdder[] buckets = new LongAdder[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+        return buckets;
+    }
+
+
+    private static final class BucketSnapshot extends Snapshot {
+
+        private final long[] counts;
+
+        private final long total;
+
+        private BucketSnapshot(long[] counts) {
+            long total = 0;
+            for (long count : counts) {
+                total += count;
+            }
+            this.counts = counts;
+            this.total = total;
+        }
+
+        @Override
+        public double getValue(double quantile) {
+            if (quantile < 0.0 || quantile > 1.0 || Double.isNaN(quantile)) {
+                throw new IllegalArgumentException(quantile + " is not in [0..1]");
+            }
+            if (total == 0) {
+                return 0.0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(quantile * total));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return value(i);
+                }
+            }
+            return getMax();
+        }
+
+        // Bucket values in ascending order, each repeated in proportion to its count, at most MAX_VALUES in all.
+        @Override
+        public long[] getValues() {
+            double scale = total > MAX_VALUES ? (double) MAX_VALUES / total : 1.0;
+            long[] values = new long[(int) Math.min(total, MAX_VALUES)];
+            int size = 0;
+            double carried = 0.0;
+            for (int i = 0; i < counts.length && size < values.length; i++) {
+                carried += counts[i] * scale;
+                for (; carried >= 1.0 - 1e-9 && size < values.length; carried -= 1.0) {
+                    values[size++] = value(i);
+                }
+            }
+            return size == values.length ? values : Arrays.copyOf(values, size);
+        }
+
+        @Override
+        public int size() {
+            return (int) Math.min(total, MAX_VALUES);
+        }
+
+        @Override
+        public long getMax() {
+            for (int i = counts.length - 1; i >= 0; i--) {
+                if (counts[i] != 0) {
+                    return value(i);
+                }
+            }
+            return 0;
+        }
+
+        @Override
+        public double getMean() {
+            if (total == 0) {
+                return 0.0;
+            }
+            double sum = 0.0;
+            for (int i = 0; i < counts.length; i++) {
+                sum += (double) counts[i] * value(i);
+            }
+            return sum / total;
+        }
+
+        @Override
+        public long getMin() {
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] != 0) {
+                    return value(i);
+                }
+            }
+            return 0;
+        }
+
+        @Override
+        public double getStdDev() {
+            if (total <= 1) {
+                return 0.0;
+            }
+            double mean = getMean();
+            double variance = 0.0;
+            for (int i = 0; i < counts.length; i++) {
+                double diff = value(i) - mean;
+                variance += counts[i] * diff * diff;
+            }
+            return Math.sqrt(variance / (total - 1));
+        }
+
+        @Override
+        public void dump(OutputStream output) {
+            try (PrintWriter out = new PrintWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8))) {
+                for (long value : getValues()) {
+                    out.printf("%d%n", value);
+                }
+            }
+        }
+    }
+}
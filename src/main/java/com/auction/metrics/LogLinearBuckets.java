@@ -0,0 +1,57 @@
+package com.auction.metrics;
+
+// The layout of a log-linear latency histogram, the one HdrHistogram uses: values below 2^subBits get a bucket each,
+// and above that every power of two is split into 2^subBits buckets, so a value is known to within 1 part in
+// 2^subBits. Values of 2^40 and more, about 18 minutes in nanoseconds, share the last bucket.
+//
+// Only the arithmetic lives here; LatencyReservoir and the load generator keep their own counts.
+public final class LogLinearBuckets {
+
+    private static final long MAX_VALUE = (1L << 40) - 1;
+
+    private final int subBits;
+
+    private final int subBuckets;
+
+    private final int count;
+
+    public LogLinearBuckets(int subBits) {
+        if (subBits < 1 || subBits > 20) {
+            throw new IllegalArgumentException("subBits must be between 1 and 20, was " + subBits);
+        }
+        this.subBits = subBits;
+        this.subBuckets = 1 << subBits;
+        this.count = index(MAX_VALUE) + 1;
+    }
+
+    // Number of buckets.
+    public int count() {
+        return count;
+    }
+
+    // Buckets each power of two is split into.
+    public int subBuckets() {
+        return subBuckets;
+    }
+
+    // The bucket a value falls in; negative values fall in the first.
+    public int index(long value) {
+        if (value < subBuckets) {
+            return value < 0 ? 0 : (int) value;
+        }
+        long clamped = Math.min(value, MAX_VALUE);
+        int exponent = 63 - Long.numberOfLeadingZeros(clamped);
+        int sub = (int) (clamped >>> (exponent - subBits)) & (subBuckets - 1);
+        return (exponent - subBits + 1) * subBuckets + sub;
+    }
+
+    // The smallest value in a bucket. lowerBound(index + 1) - 1 is the largest, also for the last bucket.
+    public long lowerBound(int index) {
+        if (index < subBuckets) {
+            return index;
+        }
+        int exponent = index / subBuckets + subBits - 1;
+        long sub = index % subBuckets;
+        return (subBuckets + sub) << (exponent - subBits);
+    }
+}
@@ -3,7 +3,6 @@ package com.auction.model;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import org.hibernate.validator.constraints.NotBlank;
 
 import javax.validation.constraints.DecimalMin;
 import javax.validation.constraints.Min;
@@ -11,10 +10,11 @@ import java.io.IOException;
 import java.math.BigDecimal;
 
 
+@NotBlankBidder
 public class Bid {
 
-    @NotBlank
-    private final String id;
+    // Interned, so a bidder's id is held once however many Bids refer to it.
+    private final Bidder bidder;
 
     @DecimalMin("0")
     private final BigDecimal startingBid;
@@ -28,12 +28,26 @@ public class Bid {
     @Min(0)
     private final Integer auctionId;
 
-    private BigDecimal winningPrice;
+    private final BigDecimal winningPrice;
+
+    // Micro-unit copies of the monetary fields used by the fixed-point resolution path, see Money.
+    private final long startingBidMicros;
+
+    private final long maxBidMicros;
+
+    private final long autoIncrementMicros;
+
+    private final long winningPriceMicros;
 
 
     @JsonProperty("bidderId")
     public String getId() {
-        return id;
+        return bidder == null ? null : bidder.getId();
+    }
+
+    @JsonIgnore
+    public Bidder getBidder() {
+        return bidder;
     }
 
     @JsonProperty("startingBid")
@@ -61,8 +75,35 @@ public class Bid {
         return winningPrice;
     }
 
-    public void setWinningPrice(BigDecimal winningPrice) {
-        this.winningPrice = winningPrice;
+    @JsonIgnore
+    public long getStartingBidMicros() {
+        return startingBidMicros;
+    }
+
+    @JsonIgnore
+    public long getMaxBidMicros() {
+        return maxBidMicros;
+    }
+
+    @JsonIgnore
+    public long getAutoIncrementMicros() {
+        return autoIncrementMicros;
+    }
+
+    @JsonIgnore
+    public long getWinningPriceMicros() {
+        return winningPriceMicros;
+    }
+
+    // Bids are shared between request threads once they are stored as an auction's winner, so a price change
+    // produces a copy rather than mutating the stored instance.
+    public Bid withWinningPrice(BigDecimal winningPrice) {
+        return new Bid(this, winningPrice, Money.toMicros(winningPrice));
+    }
+
+    // Same as withWinningPrice(BigDecimal) for callers that already hold the price in micro-units.
+    public Bid withWinningPrice(BigDecimal winningPrice, long winningPriceMicros) {
+        return new Bid(this, winningPrice, winningPriceMicros);
     }
 
     @JsonCreator
@@ -74,30 +115,84 @@ public class Bid {
         if (id == null || startingBid == null || maxBid == null || autoIncrement == null || auctionId == null) {
             throw new NullPointerException("Null field(s) detected.");
         }
-        this.id = id;
-        this.startingBid = new BigDecimal(startingBid.replaceAll("[$,]", ""));
-        if (this.startingBid.signum() < 0) {
+        this.bidder = Bidder.of(id);
+        // One parser for all three amounts; it also yields each amount's micro-unit value.
+        MoneyParser parser = new MoneyParser();
+        this.startingBid = parser.parse(startingBid, "startingBid");
+        this.startingBidMicros = parser.getMicros();
+        this.maxBid = parser.parse(maxBid, "maxBid");
+        this.maxBidMicros = parser.getMicros();
+        this.autoIncrement = parser.parse(autoIncrement, "autoIncrement");
+        this.autoIncrementMicros = parser.getMicros();
+        check(this.startingBid, this.maxBid, this.autoIncrement, auctionId);
+        this.auctionId = auctionId;
+        this.winningPrice = this.startingBid;
+        this.winningPriceMicros = this.startingBidMicros;
+    }
+
+    // Builds a bid from amounts that are already decimals, for example decoded from the binary protocol, with the
+    // same checks as the JSON constructor.
+    public static Bid create(String id, BigDecimal startingBid, BigDecimal maxBid, BigDecimal autoIncrement,
+                             Integer auctionId) throws IOException {
+        if (id == null || startingBid == null || maxBid == null || autoIncrement == null || auctionId == null) {
+            throw new NullPointerException("Null field(s) detected.");
+        }
+        check(startingBid, maxBid, autoIncrement, auctionId);
+        return new Bid(id, startingBid, maxBid, autoIncrement, auctionId, startingBid);
+    }
+
+    private static void check(BigDecimal startingBid, BigDecimal maxBid, BigDecimal autoIncrement, Integer auctionId)
+            throws IOException {
+        if (startingBid.signum() < 0) {
             throw new IOException("Starting bid is negative.");
         }
-        this.maxBid = new BigDecimal(maxBid.replaceAll("[$,]", ""));
-        if (this.maxBid.signum() < 0) {
+        if (maxBid.signum() < 0) {
             throw new IOException("Maximum bid is negative.");
         }
-
-        if ((this.maxBid.compareTo(this.startingBid)) < 0) {
+        if ((maxBid.compareTo(startingBid)) < 0) {
             throw new IOException("Maximum bid is less than starting bid");
         }
-
-        this.autoIncrement = new BigDecimal(autoIncrement.replaceAll("[$,]", ""));
-        if (this.autoIncrement.signum() < 0) {
+        if (autoIncrement.signum() < 0) {
             throw new IOException("Auto-increment is negative.");
         }
-
         if (auctionId < 0) {
             throw new IOException("AuctionId is invalid. Must be a positive, whole number.");
         }
+    }
+
+    // Rebuilds a Bid that was already validated when it was first accepted, for example when restoring persisted
+    // winners. No parsing or validation is done.
+    public Bid(String id, BigDecimal startingBid, BigDecimal maxBid, BigDecimal autoIncrement, Integer auctionId,
+               BigDecimal winningPrice) {
+        this(id == null ? null : Bidder.of(id), startingBid, maxBid, autoIncrement, auctionId, winningPrice);
+    }
+
+    // As above, for a bidder that is already interned, such as one a winner store kept.
+    public Bid(Bidder bidder, BigDecimal startingBid, BigDecimal maxBid, BigDecimal autoIncrement, Integer auctionId,
+               BigDecimal winningPrice) {
+        this.bidder = bidder;
+        this.startingBid = startingBid;
+        this.maxBid = maxBid;
+        this.autoIncrement = autoIncrement;
         this.auctionId = auctionId;
-        this.winningPrice = this.startingBid;
+        this.winningPrice = winningPrice;
+        this.startingBidMicros = Money.toMicros(startingBid);
+        this.maxBidMicros = Money.toMicros(maxBid);
+        this.autoIncrementMicros = Money.toMicros(autoIncrement);
+        this.winningPriceMicros = Money.toMicros(winningPrice);
+    }
+
+    private Bid(Bid bid, BigDecimal winningPrice, long winningPriceMicros) {
+        this.bidder = bid.bidder;
+        this.startingBid = bid.startingBid;
+        this.maxBid = bid.maxBid;
+        this.autoIncrement = bid.autoIncrement;
+        this.auctionId = bid.auctionId;
+        this.winningPrice = winningPrice;
+        this.startingBidMicros = bid.startingBidMicros;
+        this.maxBidMicros = bid.maxBidMicros;
+        this.autoIncrementMicros = bid.autoIncrementMicros;
+        this.winningPriceMicros = winningPriceMicros;
     }
 
     @Override
@@ -112,7 +207,9 @@ public class Bid {
 
         final Bid other = (Bid) obj;
 
-        if ((this.getId() == null) ? (other.getId() != null) : !this.getId().equals(other.getId())) {
+        // Equal ids share one interned Bidder while either Bid is alive, so comparing handles compares the ids.
+        if ((this.bidder == null) ? (other.bidder != null)
+                : (other.bidder == null || this.bidder.getHandle() != other.bidder.getHandle())) {
             return false;
         }
 
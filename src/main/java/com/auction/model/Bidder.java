@@ -0,0 +1,140 @@
+package com.auction.model;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// A bidder id interned by BidderRegistry: every live Bid of the same bidder shares one Bidder, so a heavy bidder's
+// id is held once however many auctions it is winning, and two ids are equal exactly when their handles are.
+//
+// Ids made only of Latin-1 characters, which covers the ids seen in practice, are kept as one byte per character,
+// half the size of the char array behind a Java 8 String. Anything else is kept as the String itself.
+public final class Bidder {
+
+    private static final BidderRegistry REGISTRY = new BidderRegistry();
+
+    private final int handle;
+
+    private final int hash;
+
+    // Exactly one of latin1 and id is set.
+    private final byte[] latin1;
+
+    private final String id;
+
+    Bidder(int handle, String id, int hash) {
+        this.handle = handle;
+        this.hash = hash;
+        if (isLatin1(id)) {
+            this.latin1 = id.getBytes(StandardCharsets.ISO_8859_1);
+            this.id = null;
+        } else {
+            this.latin1 = null;
+            this.id = id;
+        }
+    }
+
+    // The process-wide Bidder for id, created on first use.
+    public static Bidder of(String id) {
+        return REGISTRY.intern(id);
+    }
+
+    // Number of bidders currently interned, for tests and metrics.
+    public static int count() {
+        return REGISTRY.size();
+    }
+
+    // A dense index, unique among the Bidders that are alive. The handle of a Bidder that has been garbage
+    // collected is given to a later one, so a handle must not be kept without the Bidder it belongs to.
+    public int getHandle() {
+        return handle;
+    }
+
+    // Builds a String from the Latin-1 bytes on every call, so resolution and storage work with the Bidder and only
+    // callers that render the id ask for it. Encoders use utf8Length and writeUtf8 instead.
+    public String getId() {
+        return id != null ? id : new String(latin1, StandardCharsets.ISO_8859_1);
+    }
+
+    // Length of the id in UTF-8, in which a Latin-1 character from 0x80 up takes two bytes.
+    public int utf8Length() {
+        if (id != null) {
+            return id.getBytes(StandardCharsets.UTF_8).length;
+        }
+        int length = latin1.length;
+        for (byte b : latin1) {
+            if (b < 0) {
+                length++;
+            }
+        }
+        return length;
+    }
+
+    // Puts the id's utf8Length() bytes of UTF-8 at the buffer's position, without building a String.
+    public void writeUtf8(ByteBuffer buffer) {
+        if (id != null) {
+            buffer.put(id.getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        for (byte b : latin1) {
+            if (b >= 0) {
+                buffer.put(b);
+            } else {
+                buffer.put((byte) (0xC0 | (b & 0xFF) >>> 6)).put((byte) (0x80 | b & 0x3F));
+            }
+        }
+    }
+
+    // Whether the id is empty or only control characters and spaces, as String.trim() would leave it empty.
+    public boolean isBlank() {
+        int length = id != null ? id.length() : latin1.length;
+        for (int i = 0; i < length; i++) {
+            if ((id != null ? id.charAt(i) : latin1[i] & 0xFF) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Heap held by the id: the byte array or the String and its char array, on a 64-bit JVM with compressed oops.
+    long estimatedIdBytes() {
+        return latin1 != null ? align(16 + latin1.length) : 24 + align(16 + 2L * id.length());
+    }
+
+    int hash() {
+        return hash;
+    }
+
+    // Whether this Bidder holds id, compared without building a String.
+    boolean matches(String id) {
+        if (this.id != null) {
+            return this.id.equals(id);
+        }
+        if (latin1.length != id.length()) {
+            return false;
+        }
+        for (int i = 0; i < latin1.length; i++) {
+            if ((latin1[i] & 0xFF) != id.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return getId();
+    }
+
+    private static boolean isLatin1(String id) {
+        for (int i = 0; i < id.length(); i++) {
+            if (id.charAt(i) > 0xFF) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
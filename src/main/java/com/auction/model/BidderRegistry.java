@@ -0,0 +1,158 @@
+package com.auction.model;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+
+// Interns bidder ids into canonical Bidders with dense int handles.
+//
+// The registry only holds its Bidders weakly. Bids, winner stores and the bid history keep the Bidders they use
+// reachable, and once none does, the garbage collector clears the entry and its handle is reused by the next new
+// bidder. A flood of one-off bidder ids therefore costs nothing once their bids are gone.
+//
+// Entries are spread over segments, each a chained hash table guarded by its own monitor, so concurrent bids only
+// contend when their ids land in the same segment.
+final class BidderRegistry {
+
+    private static final int SEGMENT_BITS = 5;
+
+    private static final int SEGMENTS = 1 << SEGMENT_BITS;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    private final ReferenceQueue<Bidder> collected = new ReferenceQueue<>();
+
+    // Guarded by the handles' monitor: handles below nextHandle that were released, to be handed out again first.
+    private final Object handles = new Object();
+
+    private int[] freeHandles = new int[16];
+
+    private int freeCount;
+
+    private int nextHandle;
+
+    BidderRegistry() {
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    Bidder intern(String id) {
+        expungeCollected();
+        int hash = id.hashCode() * 0x9E3779B9;
+        Segment segment = segments[hash >>> (Integer.SIZE - SEGMENT_BITS)];
+        synchronized (segment) {
+            return segment.intern(id, hash);
+        }
+    }
+
+    // Bidders interned and not yet found collected.
+    int size() {
+        expungeCollected();
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size;
+            }
+        }
+        return size;
+    }
+
+    private void expungeCollected() {
+        Entry entry;
+        while ((entry = (Entry) collected.poll()) != null) {
+            synchronized (entry.segment) {
+                entry.segment.remove(entry);
+            }
+            releaseHandle(entry.handle);
+        }
+    }
+
+    private int allocateHandle() {
+        synchronized (handles) {
+            return freeCount > 0 ? freeHandles[--freeCount] : nextHandle++;
+        }
+    }
+
+    private void releaseHandle(int handle) {
+        synchronized (handles) {
+            if (freeCount == freeHandles.length) {
+                freeHandles = Arrays.copyOf(freeHandles, freeCount * 2);
+            }
+            freeHandles[freeCount++] = handle;
+        }
+    }
+
+
+    private final class Segment {
+        private Entry[] buckets = new Entry[16];
+        private int size;
+
+        // Caller holds this segment's monitor.
+        private Bidder intern(String id, int hash) {
+            for (Entry entry = buckets[hash & (buckets.length - 1)]; entry != null; entry = entry.next) {
+                Bidder bidder;
+                // A cleared entry is skipped here and unlinked once it reaches the reference queue.
+                if (entry.hash == hash && (bidder = entry.get()) != null && bidder.matches(id)) {
+                    return bidder;
+                }
+            }
+            if (size + 1 > buckets.length * 3 / 4) {
+                resize();
+            }
+            Bidder bidder = new Bidder(allocateHandle(), id, hash);
+            int bucket = hash & (buckets.length - 1);
+            buckets[bucket] = new Entry(bidder, this, buckets[bucket]);
+            size++;
+            return bidder;
+        }
+
+        // Caller holds this segment's monitor.
+        private void remove(Entry removed) {
+            int bucket = removed.hash & (buckets.length - 1);
+            Entry previous = null;
+            for (Entry entry = buckets[bucket]; entry != null; previous = entry, entry = entry.next) {
+                if (entry == removed) {
+                    if (previous == null) {
+                        buckets[bucket] = entry.next;
+                    } else {
+                        previous.next = entry.next;
+                    }
+                    size--;
+                    return;
+                }
+            }
+        }
+
+        private void resize() {
+            Entry[] resized = new Entry[buckets.length * 2];
+            for (Entry head : buckets) {
+                Entry entry = head;
+                while (entry != null) {
+                    Entry next = entry.next;
+                    int bucket = entry.hash & (resized.length - 1);
+                    entry.next = resized[bucket];
+                    resized[bucket] = entry;
+                    entry = next;
+                }
+            }
+            buckets = resized;
+        }
+    }
+
+
+    private final class Entry extends WeakReference<Bidder> {
+        private final int hash;
+        private final int handle;
+        private final Segment segment;
+        private Entry next;
+
+        private Entry(Bidder bidder, Segment segment, Entry next) {
+            super(bidder, collected);
+            this.hash = bidder.hash();
+            this.handle = bidder.getHandle();
+            this.segment = segment;
+            this.next = next;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.auction.model;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+// Fixed-point helpers for monetary values held as a long count of micro-units (millionths of a dollar).
+//
+// Bid keeps its BigDecimal fields as the source of truth and additionally caches their micro-unit values so bid
+// resolution can run on plain longs. A value is only converted when it is exact at 6 decimal places and fits in a
+// long; anything else is marked NOT_REPRESENTABLE and callers fall back to BigDecimal arithmetic.
+public final class Money {
+
+    public static final int SCALE = 6;
+
+    public static final long NOT_REPRESENTABLE = Long.MIN_VALUE;
+
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L
+    };
+
+    private Money() {
+    }
+
+    public static long toMicros(BigDecimal value) {
+        if (value == null || value.scale() < 0 || value.scale() > SCALE) {
+            return NOT_REPRESENTABLE;
+        }
+        BigInteger unscaled = value.unscaledValue();
+        if (unscaled.bitLength() > 63) {
+            return NOT_REPRESENTABLE;
+        }
+        try {
+            return Math.multiplyExact(unscaled.longValue(), POWERS_OF_TEN[SCALE - value.scale()]);
+        } catch (ArithmeticException e) {
+            return NOT_REPRESENTABLE;
+        }
+    }
+
+    // Converts back to a BigDecimal with the given scale. The micro-unit value must be exact at that scale, which
+    // holds for any sum or whole multiple of values whose scales are no larger than it.
+    public static BigDecimal toBigDecimal(long micros, int scale) {
+        return BigDecimal.valueOf(micros / POWERS_OF_TEN[SCALE - scale], scale);
+    }
+
+    public static boolean isRepresentable(long micros) {
+        return micros != NOT_REPRESENTABLE;
+    }
+}
@@ -0,0 +1,108 @@
+package com.auction.model;
+
+import java.math.BigDecimal;
+
+// Parses the money strings bids arrive with, such as "$1,000.34", "4,000" and "$.100", in a single pass over the
+// characters.
+//
+// Dollar signs and thousands separators are skipped wherever they appear and the remaining characters follow the
+// BigDecimal string grammar, so every string the API accepted before is accepted with the same value and scale.
+// Values of up to 18 digits without an exponent, which is every realistic price, are accumulated into a long as they
+// are read and produce both the BigDecimal and its micro-unit value without a regex, an intermediate String or a
+// BigInteger. Longer values and exponents are handed to the BigDecimal constructor.
+//
+// A parser is cheap to create and holds the micro-unit value of the last parse, so a caller that needs both values
+// creates one per use; it is not thread-safe.
+public final class MoneyParser {
+
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L
+    };
+
+    // Largest unscaled value that can take another digit without overflowing.
+    private static final long MAX_BEFORE_DIGIT = (Long.MAX_VALUE - 9) / 10;
+
+    private long micros = Money.NOT_REPRESENTABLE;
+
+    // Parses text as the value of field, which only appears in error messages.
+    public BigDecimal parse(String text, String field) {
+        int length = text.length();
+        long unscaled = 0;
+        int scale = 0;
+        boolean negative = false;
+        boolean signAllowed = true;
+        boolean point = false;
+        boolean digits = false;
+
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (unscaled > MAX_BEFORE_DIGIT) {
+                    return parseSlow(text, field);
+                }
+                unscaled = unscaled * 10 + (c - '0');
+                if (point) {
+                    scale++;
+                }
+                digits = true;
+                signAllowed = false;
+            } else if (c == '$' || c == ',') {
+                continue;
+            } else if (c == '.' && !point) {
+                point = true;
+                signAllowed = false;
+            } else if ((c == '-' || c == '+') && signAllowed) {
+                negative = c == '-';
+                signAllowed = false;
+            } else if ((c == 'e' || c == 'E') && digits) {
+                return parseSlow(text, field);
+            } else {
+                throw new NumberFormatException(
+                        field + " has an unexpected character '" + c + "' at position " + i + ": " + text);
+            }
+        }
+        if (!digits) {
+            throw new NumberFormatException(field + " has no digits: " + text);
+        }
+
+        if (negative) {
+            unscaled = -unscaled;
+        }
+        micros = toMicros(unscaled, scale);
+        return BigDecimal.valueOf(unscaled, scale);
+    }
+
+    // Micro-unit value of the last parsed value, or Money.NOT_REPRESENTABLE.
+    public long getMicros() {
+        return micros;
+    }
+
+    private BigDecimal parseSlow(String text, String field) {
+        char[] characters = new char[text.length()];
+        int length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c != '$' && c != ',') {
+                characters[length++] = c;
+            }
+        }
+        try {
+            BigDecimal value = new BigDecimal(characters, 0, length);
+            micros = Money.toMicros(value);
+            return value;
+        } catch (NumberFormatException e) {
+            throw new NumberFormatException(field + " is not a valid amount: " + text);
+        }
+    }
+
+    private static long toMicros(long unscaled, int scale) {
+        if (scale > Money.SCALE) {
+            return Money.NOT_REPRESENTABLE;
+        }
+        long factor = POWERS_OF_TEN[Money.SCALE - scale];
+        if (Math.abs(unscaled) > Long.MAX_VALUE / factor) {
+            return Money.NOT_REPRESENTABLE;
+        }
+        return unscaled * factor;
+    }
+}
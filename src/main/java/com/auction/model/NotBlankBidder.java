@@ -0,0 +1,47 @@
+package com.auction.model;
+
+import javax.validation.Constraint;
+import javax.validation.ConstraintValidator;
+import javax.validation.ConstraintValidatorContext;
+import javax.validation.Payload;
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// @NotBlank for a Bid's bidder id, checked on the interned Bidder instead of through getId(), which would build a
+// String for every bid validated. A violation is reported on the id property with @NotBlank's message, so clients
+// see the same "id may not be empty" as before.
+@Documented
+@Constraint(validatedBy = NotBlankBidder.Validator.class)
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface NotBlankBidder {
+
+    String message() default "{org.hibernate.validator.constraints.NotBlank.message}";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+
+
+    class Validator implements ConstraintValidator<NotBlankBidder, Bid> {
+
+        @Override
+        public void initialize(NotBlankBidder annotation) {
+        }
+
+        @Override
+        public boolean isValid(Bid bid, ConstraintValidatorContext context) {
+            if (bid == null || bid.getBidder() != null && !bid.getBidder().isBlank()) {
+                return true;
+            }
+            context.disableDefaultConstraintViolation();
+            context.buildConstraintViolationWithTemplate(context.getDefaultConstraintMessageTemplate())
+                    .addPropertyNode("id")
+                    .addConstraintViolation();
+            return false;
+        }
+    }
+}
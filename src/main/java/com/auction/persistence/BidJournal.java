@@ -0,0 +1,394 @@
+package com.auction.persistence;
+
+import com.auction.model.Bid;
+import com.auction.services.AuctionService;
+import com.auction.services.CloseListener;
+import com.auction.services.WinnerListener;
+import io.dropwizard.lifecycle.Managed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Append-only journal of auction winner changes, and of close time changes and closes.
+//
+// Every time an auction's winner or winning price changes, the new winner is queued here and a single writer thread
+// appends it to the current segment file with a FileChannel. The writer drains whatever has queued up since its last
+// write and commits it as one group, so under load a single write and fsync covers many bids instead of one each.
+//
+// The journal is an ordered WinnerListener: AuctionService queues each change inside the auction's compute(), so
+// records for one auction are queued in the order they were applied by whichever thread applies them, BidEngine's
+// shards, replication or a test, and a change the journal refuses because it has failed or stopped is never applied.
+//
+// Replaying the journal is idempotent: each record is the auction's full winner state, so applying records in order
+// ends with the latest state no matter which snapshot the replay starts from. Segments are named journal-<id>.log
+// with increasing ids; a snapshot with id N covers everything before segment N.
+//
+// Snapshots only hold winners, so each snapshot's segment starts with a checkpoint of every close time and closed
+// auction instead, written by checkpointCloses right after the roll. Replaying a close time after the auction closed
+// changes nothing, so checkpoint records interleaved with live ones still end with the latest state.
+public class BidJournal implements WinnerListener, CloseListener, Managed {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BidJournal.class);
+
+    static final String SEGMENT_PREFIX = "journal-";
+
+    static final String SEGMENT_SUFFIX = ".log";
+
+    private static final int RECORD = 0;
+
+    private static final int BARRIER = 1;
+
+    private static final int ROLL = 2;
+
+    private static final int CLOSE_TIME = 3;
+
+    private static final int CLOSED = 4;
+
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final Path directory;
+
+    private final FsyncPolicy fsyncPolicy;
+
+    private final long fsyncIntervalMillis;
+
+    private final int batchSize;
+
+    private final BlockingQueue<Entry> queue;
+
+    private final Thread writer;
+
+    private volatile boolean running = false;
+
+    private volatile IOException failure;
+
+    // Only touched by the writer thread once started.
+    private FileChannel channel;
+
+    private long segmentId = 1;
+
+    private ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+
+    private boolean unforced = false;
+
+    private long lastForceMillis = System.currentTimeMillis();
+
+    public BidJournal(Path directory, FsyncPolicy fsyncPolicy, long fsyncIntervalMillis, int queueCapacity,
+                      int batchSize) {
+        this.directory = directory;
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalMillis = fsyncIntervalMillis;
+        this.batchSize = batchSize;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.writer = new Thread(this::write, "bid-journal-writer");
+        this.writer.setDaemon(true);
+    }
+
+    // Loads the latest snapshot and replays every later journal segment into auctionService. Must be called before
+    // start(). A torn record at the end of the last segment, left by a crash mid-write, is truncated away.
+    public void recover(AuctionService auctionService) throws IOException {
+        Files.createDirectories(directory);
+        long snapshotId = WinnerSnapshotter.load(directory, auctionService);
+
+        List<Long> segments = segmentIds(directory);
+        long replayed = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            long id = segments.get(i);
+            if (id < snapshotId) {
+                continue;
+            }
+            replayed += replay(segmentPath(directory, id), auctionService, i == segments.size() - 1);
+        }
+
+        long lastSegment = segments.isEmpty() ? 0 : segments.get(segments.size() - 1);
+        segmentId = Math.max(lastSegment, snapshotId) + 1;
+        LOGGER.info("Recovered {} auctions from snapshot {} and {} journal records",
+                auctionService.getAuctionCount(), snapshotId, replayed);
+    }
+
+    @Override
+    public void start() throws IOException {
+        Files.createDirectories(directory);
+        channel = openSegment(segmentId);
+        running = true;
+        writer.start();
+    }
+
+    @Override
+    public void stop() throws InterruptedException {
+        running = false;
+        writer.join();
+    }
+
+    @Override
+    public void winnerChanged(Bid previousWinner, Bid winner) {
+        enqueue(new Entry(RECORD, winner));
+    }
+
+    @Override
+    public void closeTimeChanged(int auctionId, long closesAt) {
+        enqueue(new Entry(auctionId, closesAt));
+    }
+
+    @Override
+    public void auctionClosed(int auctionId) {
+        enqueue(new Entry(new int[]{auctionId}));
+    }
+
+    // Queues every current close time and closed auction of auctionService, so the segment started by the last
+    // roll holds them all and the segments before it can be deleted.
+    public void checkpointCloses(AuctionService auctionService) {
+        auctionService.forEachCloseTime(this::closeTimeChanged);
+        int[][] closed = {new int[WinnerCodec.MAX_CLOSED_PER_RECORD]};
+        int[] count = {0};
+        auctionService.forEachClosed(auctionId -> {
+            closed[0][count[0]++] = auctionId;
+            if (count[0] == closed[0].length) {
+                enqueue(new Entry(closed[0]));
+                closed[0] = new int[WinnerCodec.MAX_CLOSED_PER_RECORD];
+                count[0] = 0;
+            }
+        });
+        if (count[0] > 0) {
+            enqueue(new Entry(Arrays.copyOf(closed[0], count[0])));
+        }
+    }
+
+    // Returns a future that completes once every winner change queued so far by the calling thread is written, and
+    // forced to disk when the fsync policy is ALWAYS.
+    public CompletableFuture<Long> sync() {
+        return enqueue(new Entry(BARRIER, null)).future;
+    }
+
+    // Closes the current segment and starts a new one. The future completes with the new segment's id; every winner
+    // change queued after this call is written to that segment or a later one.
+    public CompletableFuture<Long> roll() {
+        return enqueue(new Entry(ROLL, null)).future;
+    }
+
+    public int getQueuedEntries() {
+        return queue.size();
+    }
+
+    private Entry enqueue(Entry entry) {
+        if (failure != null) {
+            throw new IllegalStateException("Bid journal has failed.", failure);
+        }
+        if (!running) {
+            throw new IllegalStateException("Bid journal is not running.");
+        }
+        try {
+            queue.put(entry);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing a journal entry.", e);
+        }
+        return entry;
+    }
+
+    private void write() {
+        List<Entry> batch = new ArrayList<>(batchSize);
+        List<Entry> waiting = new ArrayList<>();
+        try {
+            while (running || !queue.isEmpty()) {
+                Entry first = queue.poll(pollMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    forceIfDue();
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                for (Entry entry : batch) {
+                    if (entry.type == RECORD) {
+                        buffer = WinnerCodec.write(buffer, entry.winner);
+                    } else if (entry.type == CLOSE_TIME) {
+                        buffer = WinnerCodec.writeCloseTime(buffer, entry.auctionId, entry.closesAt);
+                    } else if (entry.type == CLOSED) {
+                        buffer = WinnerCodec.writeClosed(buffer, entry.closed, entry.closed.length);
+                    } else if (entry.type == BARRIER) {
+                        waiting.add(entry);
+                    } else {
+                        commit(waiting);
+                        channel.force(false);
+                        channel.close();
+                        segmentId++;
+                        channel = openSegment(segmentId);
+                        entry.future.complete(segmentId);
+                    }
+                }
+                commit(waiting);
+                batch.clear();
+            }
+            commit(waiting);
+            channel.force(false);
+            channel.close();
+        } catch (IOException e) {
+            LOGGER.error("Bid journal failed writing segment {}", segmentId, e);
+            failure = e;
+            fail(batch);
+            fail(waiting);
+            List<Entry> remaining = new ArrayList<>();
+            queue.drainTo(remaining);
+            fail(remaining);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Writes the buffered records as one group, forces them according to the fsync policy and then releases the
+    // barriers that were queued behind them.
+    private void commit(List<Entry> waiting) throws IOException {
+        if (buffer.position() > 0) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+            unforced = true;
+        }
+        if (fsyncPolicy == FsyncPolicy.ALWAYS && unforced) {
+            force();
+        } else {
+            forceIfDue();
+        }
+        for (Entry entry : waiting) {
+            entry.future.complete(segmentId);
+        }
+        waiting.clear();
+    }
+
+    private void forceIfDue() throws IOException {
+        if (unforced && fsyncPolicy == FsyncPolicy.INTERVAL
+                && System.currentTimeMillis() - lastForceMillis >= fsyncIntervalMillis) {
+            force();
+        }
+    }
+
+    private void force() throws IOException {
+        channel.force(false);
+        unforced = false;
+        lastForceMillis = System.currentTimeMillis();
+    }
+
+    private long pollMillis() {
+        return fsyncPolicy == FsyncPolicy.INTERVAL ? Math.min(fsyncIntervalMillis, IDLE_POLL_MILLIS) : IDLE_POLL_MILLIS;
+    }
+
+    private FileChannel openSegment(long id) throws IOException {
+        return FileChannel.open(segmentPath(directory, id),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private void fail(List<Entry> entries) {
+        for (Entry entry : entries) {
+            if (entry.future != null) {
+                entry.future.completeExceptionally(failure);
+            }
+        }
+        entries.clear();
+    }
+
+    private static long replay(Path segment, AuctionService auctionService, boolean last) throws IOException {
+        ByteBuffer records = ByteBuffer.wrap(Files.readAllBytes(segment));
+        CloseListener restore = new CloseListener() {
+            @Override
+            public void closeTimeChanged(int auctionId, long closesAt) {
+                auctionService.restoreCloseTime(auctionId, closesAt);
+            }
+
+            @Override
+            public void auctionClosed(int auctionId) {
+                auctionService.restoreClosed(auctionId);
+            }
+        };
+        long replayed = 0;
+        while (true) {
+            if (WinnerCodec.next(records) != WinnerCodec.WINNER) {
+                WinnerCodec.readClose(records, restore);
+            } else {
+                Bid winner = WinnerCodec.read(records);
+                if (winner == null) {
+                    break;
+                }
+                auctionService.restoreWinner(winner);
+            }
+            replayed++;
+        }
+        if (records.hasRemaining()) {
+            if (!last) {
+                throw new IOException("Journal segment " + segment + " is corrupt at offset " + records.position());
+            }
+            LOGGER.warn("Truncating torn record at offset {} of {}", records.position(), segment);
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+                channel.truncate(records.position());
+            }
+        }
+        return replayed;
+    }
+
+    static Path segmentPath(Path directory, long id) {
+        return directory.resolve(String.format("%s%019d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+    }
+
+    // Ids of the journal segments in directory, oldest first.
+    static List<Long> segmentIds(Path directory) throws IOException {
+        return fileIds(directory, SEGMENT_PREFIX, SEGMENT_SUFFIX);
+    }
+
+    static List<Long> fileIds(Path directory, String prefix, String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.endsWith(suffix))
+                    .map(name -> Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+
+    private static final class Entry {
+        private final int type;
+        private final Bid winner;
+        private final int auctionId;
+        private final long closesAt;
+        private final int[] closed;
+        private final CompletableFuture<Long> future;
+
+        private Entry(int type, Bid winner) {
+            this(type, winner, 0, 0, null, type == RECORD ? null : new CompletableFuture<>());
+        }
+
+        private Entry(int auctionId, long closesAt) {
+            this(CLOSE_TIME, null, auctionId, closesAt, null, null);
+        }
+
+        private Entry(int[] closed) {
+            this(CLOSED, null, 0, 0, closed, null);
+        }
+
+        private Entry(int type, Bid winner, int auctionId, long closesAt, int[] closed,
+                      CompletableFuture<Long> future) {
+            this.type = type;
+            this.winner = winner;
+            this.auctionId = auctionId;
+            this.closesAt = closesAt;
+            this.closed = closed;
+            this.future = future;
+        }
+    }
+}
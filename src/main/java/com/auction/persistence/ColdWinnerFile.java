@@ -0,0 +1,256 @@
+package com.auction.persistence;
+
+import com.auction.model.Bid;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// An append-only file of winners that TieredWinnerStore moved off the heap, with an in-memory index from auctionId
+// to its latest record.
+//
+// Records use the journal's WinnerCodec framing. Writing a winner again appends a new record and leaves the old one
+// behind as garbage; once garbage outweighs the live records the file is rewritten with only the live ones. The
+// file is a cache, not a durable copy: it is truncated when opened, and the journal and snapshots stay the source of
+// truth on restart.
+//
+// The index packs each record's offset and length into one long in a primitive open-addressing table, 12 bytes per
+// slot. Not thread-safe; the owner serializes every call.
+public final class ColdWinnerFile implements Closeable {
+
+    private static final int EMPTY = -1;
+
+    // Records are at most WinnerCodec.HEADER_BYTES + MAX_PAYLOAD_BYTES long, which fits in 24 bits.
+    private static final int LENGTH_BITS = 24;
+
+    private static final long LENGTH_MASK = (1L << LENGTH_BITS) - 1;
+
+    private static final int MIN_CAPACITY = 16;
+
+    private static final int BYTES_PER_SLOT = 12;
+
+    // Files smaller than this are never compacted, whatever their share of garbage.
+    private static final long MIN_COMPACTION_BYTES = 1 << 20;
+
+    private final Path path;
+
+    private FileChannel channel;
+
+    private ByteBuffer buffer = ByteBuffer.allocate(256);
+
+    private long end;
+
+    private long liveBytes;
+
+    private int[] keys = new int[MIN_CAPACITY];
+
+    private long[] locations = new long[MIN_CAPACITY];
+
+    private int size;
+
+    public ColdWinnerFile(Path path) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        Arrays.fill(keys, EMPTY);
+    }
+
+    public boolean contains(int auctionId) {
+        return find(auctionId) >= 0;
+    }
+
+    // Returns the auction's latest written winner, or null if the file does not hold the auction.
+    public Bid read(int auctionId) throws IOException {
+        int slot = find(auctionId);
+        return slot < 0 ? null : readRecord(locations[slot]);
+    }
+
+    // Appends winner, replacing any earlier record of its auction.
+    public void write(Bid winner) throws IOException {
+        buffer.clear();
+        buffer = WinnerCodec.write(buffer, winner);
+        buffer.flip();
+        int length = buffer.remaining();
+        long offset = end;
+        writeFully(channel, buffer, offset);
+        end += length;
+
+        int auctionId = winner.getAuctionId();
+        int slot = find(auctionId);
+        if (slot >= 0) {
+            liveBytes -= locations[slot] & LENGTH_MASK;
+        } else {
+            if (size + 1 > keys.length * 3 / 4) {
+                resize(keys.length * 2);
+            }
+            slot = insert(auctionId);
+            size++;
+        }
+        locations[slot] = offset << LENGTH_BITS | length;
+        liveBytes += length;
+
+        if (end > MIN_COMPACTION_BYTES && end - liveBytes > liveBytes) {
+            compact();
+        }
+    }
+
+    // Forgets the auction; its record becomes garbage.
+    public void remove(int auctionId) {
+        int slot = find(auctionId);
+        if (slot < 0) {
+            return;
+        }
+        liveBytes -= locations[slot] & LENGTH_MASK;
+        removeSlot(slot);
+        size--;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Bytes the file currently takes on disk, garbage included.
+    public long fileBytes() {
+        return end;
+    }
+
+    // Heap bytes of the index.
+    public long estimatedBytes() {
+        return (long) keys.length * BYTES_PER_SLOT;
+    }
+
+    public int[] auctionIds() {
+        int[] auctionIds = new int[size];
+        int count = 0;
+        for (int key : keys) {
+            if (key != EMPTY) {
+                auctionIds[count++] = key;
+            }
+        }
+        return auctionIds;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private Bid readRecord(long location) throws IOException {
+        long offset = location >>> LENGTH_BITS;
+        ByteBuffer record = ByteBuffer.allocate((int) (location & LENGTH_MASK));
+        readFully(channel, record, offset);
+        record.flip();
+        Bid winner = WinnerCodec.read(record);
+        if (winner == null) {
+            throw new IOException("Record at offset " + offset + " of " + path + " is corrupt.");
+        }
+        return winner;
+    }
+
+    // Copies the live records into a fresh file and swaps it in place of the current one.
+    private void compact() throws IOException {
+        Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+        FileChannel target = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        long written = 0;
+        try {
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (keys[slot] == EMPTY) {
+                    continue;
+                }
+                int length = (int) (locations[slot] & LENGTH_MASK);
+                ByteBuffer record = ByteBuffer.allocate(length);
+                readFully(channel, record, locations[slot] >>> LENGTH_BITS);
+                record.flip();
+                writeFully(target, record, written);
+                locations[slot] = written << LENGTH_BITS | length;
+                written += length;
+            }
+            Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            target.close();
+            throw e;
+        }
+        channel.close();
+        channel = target;
+        end = written;
+        liveBytes = written;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long offset) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, offset + buffer.position());
+            if (read < 0) {
+                throw new EOFException("Unexpected end of cold winner file at offset " + offset + ".");
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long offset) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, offset + buffer.position());
+        }
+    }
+
+    private static int home(int auctionId, int mask) {
+        int hash = auctionId * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private int find(int auctionId) {
+        int mask = keys.length - 1;
+        for (int slot = home(auctionId, mask); ; slot = (slot + 1) & mask) {
+            if (keys[slot] == auctionId) {
+                return slot;
+            }
+            if (keys[slot] == EMPTY) {
+                return -1;
+            }
+        }
+    }
+
+    private int insert(int auctionId) {
+        int mask = keys.length - 1;
+        int slot = home(auctionId, mask);
+        while (keys[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = auctionId;
+        return slot;
+    }
+
+    // Backward-shift deletion, as in PrimitiveWinnerStore, so the table never holds tombstones.
+    private void removeSlot(int slot) {
+        int mask = keys.length - 1;
+        int hole = slot;
+        for (int next = (slot + 1) & mask; keys[next] != EMPTY; next = (next + 1) & mask) {
+            int home = home(keys[next], mask);
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                locations[hole] = locations[next];
+                hole = next;
+            }
+        }
+        keys[hole] = EMPTY;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        long[] oldLocations = locations;
+        keys = new int[capacity];
+        locations = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != EMPTY) {
+                locations[insert(oldKeys[slot])] = oldLocations[slot];
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.auction.persistence;
+
+// When the journal forces written records to the storage device.
+public enum FsyncPolicy {
+
+    // After every group commit, before the bids in the group are acknowledged.
+    ALWAYS,
+
+    // At most once per fsync interval. Acknowledged bids survive a process crash but the last interval can be lost
+    // if the machine itself goes down.
+    INTERVAL,
+
+    // Never; the operating system decides when to write back.
+    NEVER
+}
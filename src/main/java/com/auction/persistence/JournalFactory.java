@@ -0,0 +1,124 @@
+package com.auction.persistence;
+
+import com.auction.services.AuctionService;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.setup.Environment;
+import io.dropwizard.util.Duration;
+import org.hibernate.validator.constraints.NotEmpty;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+public class JournalFactory {
+
+    private boolean enabled = false;
+
+    @NotEmpty
+    private String directory = "/tmp/auction-service";
+
+    @NotNull
+    private FsyncPolicy fsyncPolicy = FsyncPolicy.INTERVAL;
+
+    @NotNull
+    private Duration fsyncInterval = Duration.milliseconds(10);
+
+    @Min(1)
+    private int queueCapacity = 65536;
+
+    @Min(1)
+    private int batchSize = 1024;
+
+    @NotNull
+    private Duration snapshotInterval = Duration.minutes(5);
+
+    @JsonProperty
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @JsonProperty
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @JsonProperty
+    public String getDirectory() {
+        return directory;
+    }
+
+    @JsonProperty
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    @JsonProperty
+    public FsyncPolicy getFsyncPolicy() {
+        return fsyncPolicy;
+    }
+
+    @JsonProperty
+    public void setFsyncPolicy(FsyncPolicy fsyncPolicy) {
+        this.fsyncPolicy = fsyncPolicy;
+    }
+
+    @JsonProperty
+    public Duration getFsyncInterval() {
+        return fsyncInterval;
+    }
+
+    @JsonProperty
+    public void setFsyncInterval(Duration fsyncInterval) {
+        this.fsyncInterval = fsyncInterval;
+    }
+
+    @JsonProperty
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    @JsonProperty
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    @JsonProperty
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    @JsonProperty
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    @JsonProperty
+    public Duration getSnapshotInterval() {
+        return snapshotInterval;
+    }
+
+    @JsonProperty
+    public void setSnapshotInterval(Duration snapshotInterval) {
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    // Recovers auctionService from disk and returns the journal that records its changes from now on, or null when
+    // journaling is disabled. Must be called before the bid engine is built so the engine stops before the journal.
+    public BidJournal build(AuctionService auctionService, Environment environment) throws IOException {
+        if (!enabled) {
+            return null;
+        }
+        Path path = Paths.get(directory);
+        BidJournal journal = new BidJournal(path, fsyncPolicy, fsyncInterval.toMilliseconds(), queueCapacity,
+                batchSize);
+        journal.recover(auctionService);
+        auctionService.addOrderedWinnerListener(journal);
+        auctionService.addCloseListener(journal);
+        environment.lifecycle().manage(journal);
+        environment.lifecycle().manage(new WinnerSnapshotter(path, journal, auctionService,
+                snapshotInterval.toMilliseconds()));
+        return journal;
+    }
+}
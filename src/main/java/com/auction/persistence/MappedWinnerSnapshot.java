@@ -0,0 +1,320 @@
+package com.auction.persistence;
+
+import com.auction.model.Bid;
+import com.auction.model.Bidder;
+import com.auction.model.Money;
+import com.auction.services.WinnerSource;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+// Binary snapshot of every auction's winner that is memory-mapped at startup instead of being loaded into the heap.
+//
+// Winners are stored as fixed-width records sorted by auctionId, so a lookup is a binary search over the mapping and
+// opening a snapshot costs the same whether it holds a thousand auctions or ten million. Bidder ids are interned into
+// a string table and referenced by index, and prices are stored as micro-unit longs with their BigDecimal scale.
+// Winners whose prices do not fit in micro-units are rare and are kept in a variable-length overflow section that is
+// loaded into the heap when the snapshot is opened.
+//
+//     header   MAGIC, VERSION, record count, bidder count, overflow count, section offsets
+//     records  RECORD_BYTES per winner: auctionId, bidder index, startingBid, maxBid, autoIncrement and winningPrice
+//              micro-units, and the four scales
+//     bidders  an int offset per bidder, then each bidder id as an int length and UTF-8 bytes
+//     overflow WinnerCodec records
+//
+// A single mapping is limited to 2GB, which is roughly 40 million records.
+public class MappedWinnerSnapshot implements WinnerSource {
+
+    static final int MAGIC = 0x41554353;
+
+    static final int VERSION = 2;
+
+    static final int HEADER_BYTES = 64;
+
+    static final int RECORD_BYTES = 48;
+
+    private final MappedByteBuffer mapping;
+
+    private final int recordCount;
+
+    private final int recordsOffset;
+
+    private final int bidderOffsetsOffset;
+
+    private final int bidderDataOffset;
+
+    private final Map<Integer, Bid> overflow;
+
+    // Bidder ids decoded so far. Racing threads may decode the same id twice, which is harmless.
+    private final String[] bidders;
+
+    private MappedWinnerSnapshot(MappedByteBuffer mapping, int recordCount, int bidderCount, int recordsOffset,
+                                 int biddersOffset, Map<Integer, Bid> overflow) {
+        this.mapping = mapping;
+        this.recordCount = recordCount;
+        this.recordsOffset = recordsOffset;
+        this.bidderOffsetsOffset = biddersOffset;
+        this.bidderDataOffset = biddersOffset + 4 * bidderCount;
+        this.overflow = overflow;
+        this.bidders = new String[bidderCount];
+    }
+
+    public static MappedWinnerSnapshot open(Path snapshot) throws IOException {
+        MappedByteBuffer mapping;
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot " + snapshot + " is too large to map.");
+            }
+            mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (mapping.capacity() < HEADER_BYTES || mapping.getInt(0) != MAGIC || mapping.getInt(4) != VERSION) {
+            throw new IOException("Snapshot " + snapshot + " has an unknown format.");
+        }
+        int recordCount = mapping.getInt(8);
+        int bidderCount = mapping.getInt(12);
+        int overflowCount = mapping.getInt(16);
+        int recordsOffset = (int) mapping.getLong(24);
+        int biddersOffset = (int) mapping.getLong(32);
+        int overflowOffset = (int) mapping.getLong(40);
+
+        Map<Integer, Bid> overflow = new HashMap<>();
+        ByteBuffer overflowRecords = mapping.duplicate();
+        overflowRecords.position(overflowOffset);
+        for (int i = 0; i < overflowCount; i++) {
+            Bid winner = WinnerCodec.read(overflowRecords);
+            if (winner == null) {
+                throw new IOException("Snapshot " + snapshot + " is corrupt at offset " + overflowRecords.position());
+            }
+            overflow.put(winner.getAuctionId(), winner);
+        }
+        return new MappedWinnerSnapshot(mapping, recordCount, bidderCount, recordsOffset, biddersOffset, overflow);
+    }
+
+    @Override
+    public Bid get(int auctionId) {
+        int low = 0;
+        int high = recordCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int middleId = mapping.getInt(recordsOffset + middle * RECORD_BYTES);
+            if (middleId < auctionId) {
+                low = middle + 1;
+            } else if (middleId > auctionId) {
+                high = middle - 1;
+            } else {
+                return decode(recordsOffset + middle * RECORD_BYTES);
+            }
+        }
+        return overflow.isEmpty() ? null : overflow.get(auctionId);
+    }
+
+    @Override
+    public int size() {
+        return recordCount + overflow.size();
+    }
+
+    @Override
+    public void forEach(Consumer<Bid> action) {
+        for (int i = 0; i < recordCount; i++) {
+            action.accept(decode(recordsOffset + i * RECORD_BYTES));
+        }
+        overflow.values().forEach(action);
+    }
+
+    private Bid decode(int offset) {
+        int auctionId = mapping.getInt(offset);
+        String bidderId = bidder(mapping.getInt(offset + 4));
+        BigDecimal startingBid = Money.toBigDecimal(mapping.getLong(offset + 8), mapping.get(offset + 40));
+        BigDecimal maxBid = Money.toBigDecimal(mapping.getLong(offset + 16), mapping.get(offset + 41));
+        BigDecimal autoIncrement = Money.toBigDecimal(mapping.getLong(offset + 24), mapping.get(offset + 42));
+        BigDecimal winningPrice = Money.toBigDecimal(mapping.getLong(offset + 32), mapping.get(offset + 43));
+        return new Bid(bidderId, startingBid, maxBid, autoIncrement, auctionId, winningPrice);
+    }
+
+    private String bidder(int index) {
+        String bidderId = bidders[index];
+        if (bidderId == null) {
+            int offset = bidderDataOffset + mapping.getInt(bidderOffsetsOffset + 4 * index);
+            byte[] bytes = new byte[mapping.getInt(offset)];
+            ByteBuffer data = mapping.duplicate();
+            data.position(offset + 4);
+            data.get(bytes);
+            bidderId = new String(bytes, StandardCharsets.UTF_8);
+            bidders[index] = bidderId;
+        }
+        return bidderId;
+    }
+
+    // Writes the winners of auctionIds[0..count), which must be sorted and distinct, to channel in this format and
+    // returns how many were written. Each winner is looked up as its record is written, so only the ids, one index
+    // per bidder and the rare overflow winners are held at once. An auction winners returns null for is skipped.
+    static long write(FileChannel channel, int[] auctionIds, int count, IntFunction<Bid> winners) throws IOException {
+        BidderIndexes bidderIndexes = new BidderIndexes();
+        List<Bid> variableWidth = new ArrayList<>();
+        int fixedWidth = 0;
+
+        // The header is written last, once the section sizes are known.
+        ByteBuffer buffer = ByteBuffer.allocate(256 * 1024);
+        buffer.position(HEADER_BYTES);
+
+        for (int i = 0; i < count; i++) {
+            Bid winner = winners.apply(auctionIds[i]);
+            if (winner == null) {
+                continue;
+            }
+            if (!isFixedWidth(winner)) {
+                variableWidth.add(winner);
+                continue;
+            }
+            buffer = flushIfFull(channel, buffer, RECORD_BYTES);
+            buffer.putInt(winner.getAuctionId())
+                    .putInt(bidderIndexes.indexOf(winner.getBidder()))
+                    .putLong(winner.getStartingBidMicros())
+                    .putLong(winner.getMaxBidMicros())
+                    .putLong(winner.getAutoIncrementMicros())
+                    .putLong(winner.getWinningPriceMicros())
+                    .put((byte) winner.getStartingBid().scale())
+                    .put((byte) winner.getMaxBid().scale())
+                    .put((byte) winner.getAutoIncrement().scale())
+                    .put((byte) winner.getWinningPrice().scale())
+                    .putInt(0);
+            fixedWidth++;
+        }
+
+        int bidderCount = bidderIndexes.size();
+        int[] bidderIdBytes = new int[bidderCount];
+        long recordsOffset = HEADER_BYTES;
+        long biddersOffset = recordsOffset + (long) RECORD_BYTES * fixedWidth;
+        long bidderDataBytes = 0;
+        for (int i = 0; i < bidderCount; i++) {
+            bidderIdBytes[i] = bidderIndexes.bidder(i).utf8Length();
+            bidderDataBytes += 4 + bidderIdBytes[i];
+        }
+        long overflowOffset = biddersOffset + 4L * bidderCount + bidderDataBytes;
+
+        int bidderOffset = 0;
+        for (int length : bidderIdBytes) {
+            buffer = flushIfFull(channel, buffer, 4);
+            buffer.putInt(bidderOffset);
+            bidderOffset += 4 + length;
+        }
+        for (int i = 0; i < bidderCount; i++) {
+            buffer = flushIfFull(channel, buffer, 4 + bidderIdBytes[i]);
+            buffer = WinnerCodec.ensureCapacity(buffer, 4 + bidderIdBytes[i]);
+            buffer.putInt(bidderIdBytes[i]);
+            bidderIndexes.bidder(i).writeUtf8(buffer);
+        }
+
+        for (Bid winner : variableWidth) {
+            buffer = flushIfFull(channel, buffer, 0);
+            buffer = WinnerCodec.write(buffer, winner);
+        }
+        flush(channel, buffer);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putInt(VERSION).putInt(fixedWidth).putInt(bidderCount)
+                .putInt(variableWidth.size()).putInt(0)
+                .putLong(recordsOffset).putLong(biddersOffset).putLong(overflowOffset);
+        header.clear();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+        return fixedWidth + variableWidth.size();
+    }
+
+    private static boolean isFixedWidth(Bid winner) {
+        return Money.isRepresentable(winner.getStartingBidMicros()) && Money.isRepresentable(winner.getMaxBidMicros())
+                && Money.isRepresentable(winner.getAutoIncrementMicros())
+                && Money.isRepresentable(winner.getWinningPriceMicros());
+    }
+
+    private static ByteBuffer flushIfFull(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.position() > buffer.capacity() / 2 || buffer.remaining() < bytes) {
+            flush(channel, buffer);
+        }
+        return buffer;
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    // Hands out dense indexes to bidders in the order they are first seen. Bidders are interned, so the table probes
+    // on identity, and a bidder costs a few array slots rather than a HashMap entry and a boxed index.
+    private static final class BidderIndexes {
+
+        private Bidder[] keys = new Bidder[64];
+
+        private int[] indexes = new int[64];
+
+        private Bidder[] bidders = new Bidder[32];
+
+        private int size;
+
+        int indexOf(Bidder bidder) {
+            int slot = slot(bidder, keys.length);
+            while (keys[slot] != null) {
+                if (keys[slot] == bidder) {
+                    return indexes[slot];
+                }
+                slot = (slot + 1) & (keys.length - 1);
+            }
+            if (size == bidders.length) {
+                bidders = Arrays.copyOf(bidders, size * 2);
+            }
+            bidders[size] = bidder;
+            keys[slot] = bidder;
+            indexes[slot] = size;
+            size++;
+            if (size * 2 > keys.length) {
+                grow();
+            }
+            return size - 1;
+        }
+
+        Bidder bidder(int index) {
+            return bidders[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        private void grow() {
+            Bidder[] grownKeys = new Bidder[keys.length * 2];
+            int[] grownIndexes = new int[grownKeys.length];
+            for (int i = 0; i < size; i++) {
+                int slot = slot(bidders[i], grownKeys.length);
+                while (grownKeys[slot] != null) {
+                    slot = (slot + 1) & (grownKeys.length - 1);
+                }
+                grownKeys[slot] = bidders[i];
+                grownIndexes[slot] = i;
+            }
+            keys = grownKeys;
+            indexes = grownIndexes;
+        }
+
+        private static int slot(Bidder bidder, int length) {
+            int hash = System.identityHashCode(bidder);
+            return (hash ^ (hash >>> 16)) & (length - 1);
+        }
+    }
+}
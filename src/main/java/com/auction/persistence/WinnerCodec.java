@@ -0,0 +1,201 @@
+package com.auction.persistence;
+
+import com.auction.model.Bid;
+import com.auction.model.Bidder;
+import com.auction.services.CloseListener;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+// Binary encoding of an auction winner shared by the journal, the snapshots and the replication stream.
+//
+// Every record is framed as [int payload length][int CRC32 of payload][payload] so a torn write at the end of a file
+// is detected on recovery. The payload holds the auctionId, the bidderId as UTF-8 and the four money values as
+// scale plus unscaled two's-complement bytes, which reproduces each BigDecimal exactly.
+//
+// The journal also holds close records in the same framing. Their payload starts with a negative type where a
+// winner's starts with its auctionId, which is never negative: CLOSE_TIME is followed by an auctionId and the close
+// time in epoch milliseconds, CLOSED by a count and that many auctionIds.
+public final class WinnerCodec {
+
+    public static final int HEADER_BYTES = 8;
+
+    // Types of the records next() finds.
+    public static final int WINNER = 0;
+
+    public static final int CLOSE_TIME = -1;
+
+    public static final int CLOSED = -2;
+
+    // Most auctionIds a single CLOSED record holds, keeping it well inside MAX_PAYLOAD_BYTES.
+    public static final int MAX_CLOSED_PER_RECORD = 64 * 1024;
+
+    // Upper bound on a sane payload; anything larger is treated as corruption.
+    public static final int MAX_PAYLOAD_BYTES = 1 << 20;
+
+    private WinnerCodec() {
+    }
+
+    // Appends one framed record to buffer, growing it when needed, and returns the buffer that holds the record.
+    public static ByteBuffer write(ByteBuffer buffer, Bid winner) {
+        Bidder bidder = winner.getBidder();
+        int bidderIdBytes = bidder.utf8Length();
+        byte[] startingBid = winner.getStartingBid().unscaledValue().toByteArray();
+        byte[] maxBid = winner.getMaxBid().unscaledValue().toByteArray();
+        byte[] autoIncrement = winner.getAutoIncrement().unscaledValue().toByteArray();
+        byte[] winningPrice = winner.getWinningPrice().unscaledValue().toByteArray();
+
+        // auctionId, then each variable-length field with its int length, the four decimals also with their scale.
+        int payloadBytes = 4 + 4 + bidderIdBytes
+                + 4 * 8 + startingBid.length + maxBid.length + autoIncrement.length + winningPrice.length;
+        buffer = ensureCapacity(buffer, HEADER_BYTES + payloadBytes);
+
+        int start = buffer.position();
+        buffer.putInt(payloadBytes);
+        buffer.putInt(0);
+        buffer.putInt(winner.getAuctionId());
+        buffer.putInt(bidderIdBytes);
+        bidder.writeUtf8(buffer);
+        putDecimal(buffer, winner.getStartingBid().scale(), startingBid);
+        putDecimal(buffer, winner.getMaxBid().scale(), maxBid);
+        putDecimal(buffer, winner.getAutoIncrement().scale(), autoIncrement);
+        putDecimal(buffer, winner.getWinningPrice().scale(), winningPrice);
+
+        buffer.putInt(start + 4, checksum(buffer, start + HEADER_BYTES, payloadBytes));
+        return buffer;
+    }
+
+    // Appends a record of the auction's close time to buffer and returns the buffer that holds it.
+    public static ByteBuffer writeCloseTime(ByteBuffer buffer, int auctionId, long closesAt) {
+        buffer = ensureCapacity(buffer, HEADER_BYTES + 16);
+        int start = buffer.position();
+        buffer.putInt(16).putInt(0).putInt(CLOSE_TIME).putInt(auctionId).putLong(closesAt);
+        buffer.putInt(start + 4, checksum(buffer, start + HEADER_BYTES, 16));
+        return buffer;
+    }
+
+    // Appends a record of count closed auctions to buffer and returns the buffer that holds it. count must not be
+    // more than MAX_CLOSED_PER_RECORD.
+    public static ByteBuffer writeClosed(ByteBuffer buffer, int[] auctionIds, int count) {
+        int payloadBytes = 8 + 4 * count;
+        buffer = ensureCapacity(buffer, HEADER_BYTES + payloadBytes);
+        int start = buffer.position();
+        buffer.putInt(payloadBytes).putInt(0).putInt(CLOSED).putInt(count);
+        for (int i = 0; i < count; i++) {
+            buffer.putInt(auctionIds[i]);
+        }
+        buffer.putInt(start + 4, checksum(buffer, start + HEADER_BYTES, payloadBytes));
+        return buffer;
+    }
+
+    // Type of the next framed record, WINNER, CLOSE_TIME or CLOSED, or 0 with the position untouched under the same
+    // conditions read returns null. Read a WINNER with read and the others with readClose.
+    public static int next(ByteBuffer buffer) {
+        int start = buffer.position();
+        if (!isComplete(buffer)) {
+            return WINNER;
+        }
+        int type = buffer.getInt(start + HEADER_BYTES);
+        return type < 0 ? type : WINNER;
+    }
+
+    // Reads a CLOSE_TIME or CLOSED record, telling listener about the close time or about each closed auction.
+    public static void readClose(ByteBuffer buffer, CloseListener listener) throws IOException {
+        int start = buffer.position();
+        int end = start + HEADER_BYTES + buffer.getInt(start);
+        buffer.position(start + HEADER_BYTES);
+        int type = buffer.getInt();
+        if (type == CLOSE_TIME && end - buffer.position() == 12) {
+            int auctionId = buffer.getInt();
+            listener.closeTimeChanged(auctionId, buffer.getLong());
+        } else if (type == CLOSED && end - buffer.position() >= 4
+                && end - buffer.position() - 4 == 4L * buffer.getInt(buffer.position())) {
+            for (int count = buffer.getInt(); count > 0; count--) {
+                listener.auctionClosed(buffer.getInt());
+            }
+        } else {
+            throw new IOException("Record at offset " + start + " is not a valid close record.");
+        }
+    }
+
+    // Reads the next framed record, or returns null and leaves the position untouched if the remaining bytes do not
+    // hold a complete record with a matching checksum.
+    public static Bid read(ByteBuffer buffer) throws IOException {
+        int start = buffer.position();
+        if (!isComplete(buffer)) {
+            return null;
+        }
+        int payloadBytes = buffer.getInt(start);
+
+        buffer.position(start + HEADER_BYTES);
+        int auctionId = buffer.getInt();
+        String bidderId = new String(getBytes(buffer), StandardCharsets.UTF_8);
+        BigDecimal startingBid = getDecimal(buffer);
+        BigDecimal maxBid = getDecimal(buffer);
+        BigDecimal autoIncrement = getDecimal(buffer);
+        BigDecimal winningPrice = getDecimal(buffer);
+        if (buffer.position() != start + HEADER_BYTES + payloadBytes) {
+            throw new IOException("Record at offset " + start + " does not match its length.");
+        }
+        return new Bid(bidderId, startingBid, maxBid, autoIncrement, auctionId, winningPrice);
+    }
+
+    // Whether the remaining bytes start with a complete record with a matching checksum.
+    private static boolean isComplete(ByteBuffer buffer) {
+        int start = buffer.position();
+        if (buffer.remaining() < HEADER_BYTES) {
+            return false;
+        }
+        int payloadBytes = buffer.getInt(start);
+        return payloadBytes > 0 && payloadBytes <= MAX_PAYLOAD_BYTES
+                && buffer.remaining() - HEADER_BYTES >= payloadBytes
+                && checksum(buffer, start + HEADER_BYTES, payloadBytes) == buffer.getInt(start + 4);
+    }
+
+    static ByteBuffer ensureCapacity(ByteBuffer buffer, int bytes) {
+        if (buffer.remaining() >= bytes) {
+            return buffer;
+        }
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+        buffer.flip();
+        larger.put(buffer);
+        return larger;
+    }
+
+    private static int checksum(ByteBuffer buffer, int offset, int length) {
+        ByteBuffer payload = buffer.duplicate();
+        payload.limit(offset + length).position(offset);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private static void putBytes(ByteBuffer buffer, byte[] bytes) {
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static byte[] getBytes(ByteBuffer buffer) throws IOException {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IOException("Invalid field length " + length + ".");
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static void putDecimal(ByteBuffer buffer, int scale, byte[] unscaled) {
+        buffer.putInt(scale);
+        putBytes(buffer, unscaled);
+    }
+
+    private static BigDecimal getDecimal(ByteBuffer buffer) throws IOException {
+        int scale = buffer.getInt();
+        return new BigDecimal(new BigInteger(getBytes(buffer)), scale);
+    }
+}
@@ -0,0 +1,206 @@
+package com.auction.persistence;
+
+import com.auction.model.Bid;
+import com.auction.services.AuctionService;
+import io.dropwizard.lifecycle.Managed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Periodically writes a compact snapshot of every auction's winner so recovery only has to replay the journal written
+// since, and deletes the journal segments and snapshots the new snapshot makes obsolete. A deleted snapshot that is
+// still mapped as the service's baseline keeps its disk space until the process exits.
+//
+// Taking a snapshot first rolls the journal to a new segment N and then walks the live winner map. Every change that
+// is not yet in the map when the walk reaches its auction is queued after the roll and therefore lands in segment N or
+// later, so loading snapshot-N and replaying segments from N onwards reproduces the latest state. Close times and
+// closed auctions are not in the snapshot; the journal checkpoints them at the start of segment N instead.
+public class WinnerSnapshotter implements Managed {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WinnerSnapshotter.class);
+
+    static final String SNAPSHOT_PREFIX = "snapshot-";
+
+    static final String SNAPSHOT_SUFFIX = ".dat";
+
+    private static final int MAGIC = MappedWinnerSnapshot.MAGIC;
+
+    // Version of the original format, a WinnerCodec record per winner.
+    private static final int RECORD_VERSION = 1;
+
+    private final Path directory;
+
+    private final BidJournal journal;
+
+    private final AuctionService auctionService;
+
+    private final long intervalMillis;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "winner-snapshotter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public WinnerSnapshotter(Path directory, BidJournal journal, AuctionService auctionService, long intervalMillis) {
+        this.directory = directory;
+        this.journal = journal;
+        this.auctionService = auctionService;
+        this.intervalMillis = intervalMillis;
+    }
+
+    @Override
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::snapshotQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Takes a final snapshot so the next startup has nothing to replay. The journal must still be running.
+    @Override
+    public void stop() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(intervalMillis, TimeUnit.MILLISECONDS);
+        snapshotQuietly();
+    }
+
+    // Writes a snapshot and returns its id.
+    public long snapshot() throws IOException {
+        long id;
+        try {
+            id = journal.roll().get();
+            journal.checkpointCloses(auctionService);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while rolling the journal.", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Could not roll the journal.", e.getCause());
+        }
+
+        long count = write(snapshotPath(directory, id), auctionService);
+        deleteBefore(id);
+        LOGGER.info("Wrote snapshot {} with {} auctions", id, count);
+        return id;
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("Failed to write winner snapshot", e);
+        }
+    }
+
+    private void deleteBefore(long id) throws IOException {
+        for (long segment : BidJournal.segmentIds(directory)) {
+            if (segment < id) {
+                Files.deleteIfExists(BidJournal.segmentPath(directory, segment));
+            }
+        }
+        for (long snapshot : snapshotIds(directory)) {
+            if (snapshot < id) {
+                Files.deleteIfExists(snapshotPath(directory, snapshot));
+            }
+        }
+    }
+
+    // Writes every winner to a temporary file in the MappedWinnerSnapshot format, forces it and then renames it into
+    // place, so a snapshot file that exists is always complete.
+    //
+    // Only the auctionIds are collected up front, 4 bytes per auction, and each winner is looked up again as its
+    // record is written. A winner that changed in between changed after the roll, so the lookup finds it at least as
+    // new as the walk would have, and replaying the new segment ends with the same state either way. The lookups are
+    // peeks, so a tiered store reads cold winners from disk without admitting them to its hot tier.
+    static long write(Path snapshot, AuctionService auctionService) throws IOException {
+        Path temporary = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+        int[][] auctionIds = {new int[Math.max(16, auctionService.getAuctionCount())]};
+        int[] count = {0};
+        auctionService.forEachWinner(winner -> {
+            if (count[0] == auctionIds[0].length) {
+                auctionIds[0] = Arrays.copyOf(auctionIds[0], count[0] * 2);
+            }
+            auctionIds[0][count[0]++] = winner.getAuctionId();
+        });
+        int distinct = sortDistinct(auctionIds[0], count[0]);
+        long written;
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            written = MappedWinnerSnapshot.write(channel, auctionIds[0], distinct, auctionService::peekWinner);
+            channel.force(true);
+        }
+        Files.move(temporary, snapshot, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return written;
+    }
+
+    // Sorts ids[0..count) and moves out duplicates, left by an auction the walk saw both open and closed, returning
+    // how many distinct ids are left at the front.
+    private static int sortDistinct(int[] ids, int count) {
+        Arrays.sort(ids, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || ids[i] != ids[distinct - 1]) {
+                ids[distinct++] = ids[i];
+            }
+        }
+        return distinct;
+    }
+
+    // Makes the newest snapshot in directory the baseline of auctionService and returns its id, or 0 if there is
+    // none. Snapshots are memory-mapped rather than read, so this returns almost immediately regardless of size.
+    // Snapshots in the older record-per-winner format are still read into the heap.
+    static long load(Path directory, AuctionService auctionService) throws IOException {
+        List<Long> snapshots = snapshotIds(directory);
+        if (snapshots.isEmpty()) {
+            return 0;
+        }
+        long id = snapshots.get(snapshots.size() - 1);
+        Path snapshot = snapshotPath(directory, id);
+        ByteBuffer header = ByteBuffer.allocate(8);
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            channel.read(header, 0);
+        }
+        if (header.getInt(0) != MAGIC) {
+            throw new IOException("Snapshot " + snapshot + " has an unknown format.");
+        }
+        if (header.getInt(4) == MappedWinnerSnapshot.VERSION) {
+            auctionService.setBaseline(MappedWinnerSnapshot.open(snapshot));
+        } else if (header.getInt(4) == RECORD_VERSION) {
+            loadRecords(snapshot, auctionService);
+        } else {
+            throw new IOException("Snapshot " + snapshot + " has unknown version " + header.getInt(4) + ".");
+        }
+        return id;
+    }
+
+    private static void loadRecords(Path snapshot, AuctionService auctionService) throws IOException {
+        ByteBuffer records = ByteBuffer.wrap(Files.readAllBytes(snapshot));
+        records.position(8);
+        long count = records.getLong();
+        for (long i = 0; i < count; i++) {
+            Bid winner = WinnerCodec.read(records);
+            if (winner == null) {
+                throw new IOException("Snapshot " + snapshot + " is corrupt at offset " + records.position());
+            }
+            auctionService.restoreWinner(winner);
+        }
+    }
+
+    static Path snapshotPath(Path directory, long id) {
+        return directory.resolve(String.format("%s%019d%s", SNAPSHOT_PREFIX, id, SNAPSHOT_SUFFIX));
+    }
+
+    static List<Long> snapshotIds(Path directory) throws IOException {
+        return BidJournal.fileIds(directory, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+    }
+}
@@ -0,0 +1,252 @@
+package com.auction.replay;
+
+import com.auction.model.Bid;
+import com.auction.services.AuctionService;
+
+import javax.ws.rs.WebApplicationException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Replays a recorded bid stream through two AuctionServices and compares the auction's winner and winning price
+// after every bid.
+//
+// Bids on different auctions never affect each other, so the stream is split by auction and the auctions are
+// replayed in parallel on a fork-join pool, while the bids of one auction are applied in stream order. That makes the
+// outcome independent of the parallelism. An auction stops being replayed at its first divergence, because every
+// later comparison would start from different winners.
+public class BidReplay {
+
+    // Auctions per fork-join task once the work is split small enough.
+    private static final int AUCTIONS_PER_TASK = 64;
+
+    private final AuctionService baseline;
+
+    private final AuctionService candidate;
+
+    private final ForkJoinPool pool;
+
+    public BidReplay(AuctionService baseline, AuctionService candidate, ForkJoinPool pool) {
+        this.baseline = baseline;
+        this.candidate = candidate;
+        this.pool = pool;
+    }
+
+    public Result replay(List<Bid> bids) {
+        long start = System.nanoTime();
+        Partitions partitions = partition(bids);
+        Queue<Divergence> divergences = new ConcurrentLinkedQueue<>();
+        pool.invoke(new ReplayTask(bids, partitions, 0, partitions.auctions(), divergences));
+        List<Divergence> sorted = new ArrayList<>(divergences);
+        sorted.sort(Comparator.comparingInt(Divergence::getIndex));
+        return new Result(bids.size(), partitions.auctions(), sorted, System.nanoTime() - start);
+    }
+
+    // Orders the bid indexes by auction, in stream order within an auction, with a counting sort over the auctions
+    // in order of first appearance.
+    static Partitions partition(List<Bid> bids) {
+        Map<Integer, Integer> auctions = new HashMap<>();
+        int[] auctionOf = new int[bids.size()];
+        int[] counts = new int[16];
+        for (int i = 0; i < bids.size(); i++) {
+            Integer auction = auctions.computeIfAbsent(bids.get(i).getAuctionId(), id -> auctions.size());
+            if (auction == counts.length) {
+                counts = Arrays.copyOf(counts, counts.length * 2);
+            }
+            auctionOf[i] = auction;
+            counts[auction]++;
+        }
+        int[] offsets = new int[auctions.size() + 1];
+        for (int auction = 0; auction < auctions.size(); auction++) {
+            offsets[auction + 1] = offsets[auction] + counts[auction];
+        }
+        int[] next = Arrays.copyOf(offsets, auctions.size());
+        int[] order = new int[bids.size()];
+        for (int i = 0; i < bids.size(); i++) {
+            order[next[auctionOf[i]]++] = i;
+        }
+        return new Partitions(offsets, order);
+    }
+
+    // Applies one auction's bids to both services until they disagree.
+    private void replayAuction(List<Bid> bids, Partitions partitions, int auction, Queue<Divergence> divergences) {
+        for (int i = partitions.offsets[auction]; i < partitions.offsets[auction + 1]; i++) {
+            int index = partitions.order[i];
+            Bid bid = bids.get(index);
+            Outcome expected = Outcome.of(baseline, bid);
+            Outcome actual = Outcome.of(candidate, bid);
+            if (!expected.equals(actual)) {
+                divergences.add(new Divergence(index, bid, expected.toString(), actual.toString()));
+                return;
+            }
+        }
+    }
+
+
+    static final class Partitions {
+        // Auction a's bids are order[offsets[a]] to order[offsets[a + 1] - 1].
+        final int[] offsets;
+        final int[] order;
+
+        private Partitions(int[] offsets, int[] order) {
+            this.offsets = offsets;
+            this.order = order;
+        }
+
+        int auctions() {
+            return offsets.length - 1;
+        }
+    }
+
+
+    private final class ReplayTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient List<Bid> bids;
+        private final transient Partitions partitions;
+        private final int from;
+        private final int to;
+        private final transient Queue<Divergence> divergences;
+
+        private ReplayTask(List<Bid> bids, Partitions partitions, int from, int to, Queue<Divergence> divergences) {
+            this.bids = bids;
+            this.partitions = partitions;
+            this.from = from;
+            this.to = to;
+            this.divergences = divergences;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= AUCTIONS_PER_TASK) {
+                for (int auction = from; auction < to; auction++) {
+                    replayAuction(bids, partitions, auction, divergences);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ReplayTask(bids, partitions, from, middle, divergences),
+                    new ReplayTask(bids, partitions, middle, to, divergences));
+        }
+    }
+
+
+    // What a service made of one bid: the auction's winner afterwards, or the status the bid was rejected with.
+    private static final class Outcome {
+        private final Bid winner;
+        private final int status;
+
+        private Outcome(Bid winner, int status) {
+            this.winner = winner;
+            this.status = status;
+        }
+
+        static Outcome of(AuctionService service, Bid bid) {
+            try {
+                return new Outcome(service.processBid(bid), 0);
+            } catch (WebApplicationException e) {
+                return new Outcome(null, e.getResponse().getStatus());
+            }
+        }
+
+        // The winning price is compared with equals, so a price that differs only in scale is a divergence too.
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Outcome)) {
+                return false;
+            }
+            Outcome other = (Outcome) obj;
+            if (status != other.status || (winner == null) != (other.winner == null)) {
+                return false;
+            }
+            return winner == null || (winner.getId().equals(other.winner.getId())
+                    && winner.getWinningPrice().equals(other.winner.getWinningPrice()));
+        }
+
+        @Override
+        public int hashCode() {
+            return winner == null ? status : Objects.hash(winner.getId(), winner.getWinningPrice());
+        }
+
+        @Override
+        public String toString() {
+            if (status != 0) {
+                return "rejected with " + status;
+            }
+            return winner == null ? "ignored" : winner.getId() + " at " + winner.getWinningPrice().toPlainString();
+        }
+    }
+
+
+    // The first bid after which the two services disagreed about an auction.
+    public static final class Divergence {
+        private final int index;
+        private final Bid bid;
+        private final String expected;
+        private final String actual;
+
+        Divergence(int index, Bid bid, String expected, String actual) {
+            this.index = index;
+            this.bid = bid;
+            this.expected = expected;
+            this.actual = actual;
+        }
+
+        // Position of the bid in the replayed stream, from 0.
+        public int getIndex() {
+            return index;
+        }
+
+        public Bid getBid() {
+            return bid;
+        }
+
+        public String getExpected() {
+            return expected;
+        }
+
+        public String getActual() {
+            return actual;
+        }
+    }
+
+
+    public static final class Result {
+        private final int bids;
+        private final int auctions;
+        private final List<Divergence> divergences;
+        private final long nanos;
+
+        Result(int bids, int auctions, List<Divergence> divergences, long nanos) {
+            this.bids = bids;
+            this.auctions = auctions;
+            this.divergences = divergences;
+            this.nanos = nanos;
+        }
+
+        public int getBids() {
+            return bids;
+        }
+
+        public int getAuctions() {
+            return auctions;
+        }
+
+        // At most one per auction, in stream order.
+        public List<Divergence> getDivergences() {
+            return divergences;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+    }
+}
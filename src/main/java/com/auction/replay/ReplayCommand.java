@@ -0,0 +1,164 @@
+package com.auction.replay;
+
+import com.auction.model.Bid;
+import com.auction.resources.BidStreamParser;
+import com.auction.services.AuctionService;
+import io.dropwizard.cli.Cli;
+import io.dropwizard.cli.Command;
+import io.dropwizard.setup.Bootstrap;
+import net.sourceforge.argparse4j.inf.Namespace;
+import net.sourceforge.argparse4j.inf.Subparser;
+
+import javax.ws.rs.WebApplicationException;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+// Replays recorded bid streams through two resolution and winner store variants and reports every auction where
+// their winners or winning prices differ:
+//
+//     java -jar target/auction-service-0.0.1-SNAPSHOT.jar replay --candidate FIXED_POINT:TIERED bids.ndjson
+//
+// The files hold bids the way POST /auction accepts them, as a JSON array or one bid object per line. Bids that
+// fail validation are skipped, as the service would reject them. Exits with status 1 when the variants diverge.
+public class ReplayCommand extends Command {
+
+    private static final int SHOWN_DIVERGENCES = 20;
+
+    public ReplayCommand() {
+        super("replay", "Replays bid streams through two bid resolution variants and diffs their winners");
+    }
+
+    @Override
+    public void configure(Subparser subparser) {
+        subparser.addArgument("--baseline")
+                .setDefault("DECIMAL:HEAP")
+                .help("variant whose winners are expected, as RESOLUTION[:STORE] with RESOLUTION FIXED_POINT or "
+                        + "DECIMAL and STORE HEAP, PRIMITIVE or TIERED");
+        subparser.addArgument("--candidate")
+                .setDefault("FIXED_POINT:PRIMITIVE")
+                .help("variant compared against the baseline");
+        subparser.addArgument("--parallelism")
+                .type(Integer.class)
+                .setDefault(Runtime.getRuntime().availableProcessors())
+                .help("threads replaying auctions, one per available processor unless set");
+        subparser.addArgument("--max-hot-auctions")
+                .type(Integer.class)
+                .setDefault(100_000)
+                .help("winners a TIERED store keeps on the heap");
+        subparser.addArgument("files")
+                .nargs("+")
+                .help("JSON or NDJSON bid streams, replayed one after the other");
+    }
+
+    @Override
+    public void run(Bootstrap<?> bootstrap, Namespace namespace) throws Exception {
+        ReplayVariant baselineVariant = ReplayVariant.parse(namespace.getString("baseline"));
+        ReplayVariant candidateVariant = ReplayVariant.parse(namespace.getString("candidate"));
+        int parallelism = namespace.getInt("parallelism");
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("--parallelism must be positive.");
+        }
+
+        long start = System.nanoTime();
+        List<Bid> bids = new ArrayList<>();
+        int skipped = 0;
+        for (String file : namespace.<String>getList("files")) {
+            skipped += read(Paths.get(file), bids);
+        }
+        System.out.format(Locale.ROOT, "Read %d bids in %.1f s, skipped %d invalid ones%n",
+                bids.size(), (System.nanoTime() - start) / 1e9, skipped);
+
+        Path coldDirectory = Files.createTempDirectory("auction-replay");
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        BidReplay.Result result;
+        try {
+            int maxHotAuctions = namespace.getInt("max_hot_auctions");
+            AuctionService baseline = baselineVariant.build(bids.size(), maxHotAuctions,
+                    coldDirectory.resolve("baseline"));
+            AuctionService candidate = candidateVariant.build(bids.size(), maxHotAuctions,
+                    coldDirectory.resolve("candidate"));
+            result = new BidReplay(baseline, candidate, pool).replay(bids);
+        } finally {
+            pool.shutdown();
+            delete(coldDirectory);
+        }
+
+        System.out.format(Locale.ROOT, "Replayed %d bids on %d auctions through %s and %s in %.2f s (%.0f bids/s)%n",
+                result.getBids(), result.getAuctions(), baselineVariant, candidateVariant, result.getNanos() / 1e9,
+                result.getBids() / (result.getNanos() / 1e9));
+        List<BidReplay.Divergence> divergences = result.getDivergences();
+        if (divergences.isEmpty()) {
+            System.out.println("No divergences.");
+            return;
+        }
+        int shown = Math.min(SHOWN_DIVERGENCES, divergences.size());
+        for (BidReplay.Divergence divergence : divergences.subList(0, shown)) {
+            Bid bid = divergence.getBid();
+            System.out.format(Locale.ROOT,
+                    "Auction %d diverged at bid %d (%s, starting %s, max %s, increment %s): expected %s, was %s%n",
+                    bid.getAuctionId(), divergence.getIndex(), bid.getId(), bid.getStartingBid().toPlainString(),
+                    bid.getMaxBid().toPlainString(), bid.getAutoIncrement().toPlainString(),
+                    divergence.getExpected(), divergence.getActual());
+        }
+        if (divergences.size() > SHOWN_DIVERGENCES) {
+            System.out.format(Locale.ROOT, "... and %d more%n", divergences.size() - SHOWN_DIVERGENCES);
+        }
+        throw new DivergenceException(divergences.size() + " of " + result.getAuctions() + " auctions diverged.");
+    }
+
+    // A divergence is a result, not a crash, so only its message is printed.
+    @Override
+    public void onError(Cli cli, Namespace namespace, Throwable e) {
+        if (e instanceof DivergenceException || e instanceof IllegalArgumentException) {
+            cli.getStdErr().println(e.getMessage());
+        } else {
+            super.onError(cli, namespace, e);
+        }
+    }
+
+    // Appends the file's valid bids to bids and returns how many were invalid.
+    private static int read(Path file, List<Bid> bids) throws IOException {
+        List<BidStreamParser.ParsedBid> parsed;
+        try (InputStream input = new BufferedInputStream(Files.newInputStream(file), 1 << 16)) {
+            parsed = new BidStreamParser(Integer.MAX_VALUE).parse(input);
+        } catch (WebApplicationException e) {
+            throw new IllegalArgumentException(file + " is not a JSON or NDJSON bid stream.", e);
+        }
+        int skipped = 0;
+        for (BidStreamParser.ParsedBid bid : parsed) {
+            if (bid.getBid() != null) {
+                bids.add(bid.getBid());
+            } else {
+                skipped++;
+            }
+        }
+        return skipped;
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+
+    private static final class DivergenceException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        private DivergenceException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.auction.replay;
+
+import com.auction.services.AuctionService;
+import com.auction.services.WinnerStoreFactory;
+import com.auction.services.WinnerStoreType;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Locale;
+
+// One side of a replay: how AuctionService resolves bids and which winner store it keeps winners in, written as
+// RESOLUTION or RESOLUTION:STORE, e.g. DECIMAL:HEAP or FIXED_POINT:TIERED. The store defaults to HEAP.
+public final class ReplayVariant {
+
+    private static final String FIXED_POINT = "FIXED_POINT";
+
+    private static final String DECIMAL = "DECIMAL";
+
+    private final boolean fixedPoint;
+
+    private final WinnerStoreType store;
+
+    public ReplayVariant(boolean fixedPoint, WinnerStoreType store) {
+        this.fixedPoint = fixedPoint;
+        this.store = store;
+    }
+
+    public static ReplayVariant parse(String text) {
+        String[] parts = text.toUpperCase(Locale.ROOT).split(":", 2);
+        if (!parts[0].equals(FIXED_POINT) && !parts[0].equals(DECIMAL)) {
+            throw new IllegalArgumentException("Resolution must be " + FIXED_POINT + " or " + DECIMAL + ": " + text);
+        }
+        WinnerStoreType store = WinnerStoreType.HEAP;
+        if (parts.length == 2) {
+            try {
+                store = WinnerStoreType.valueOf(parts[1]);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown winner store: " + parts[1]);
+            }
+        }
+        return new ReplayVariant(parts[0].equals(FIXED_POINT), store);
+    }
+
+    // expectedAuctions sizes a PRIMITIVE store. A TIERED store keeps maxHotAuctions winners on the heap and spills
+    // the rest to files in coldDirectory.
+    public AuctionService build(int expectedAuctions, int maxHotAuctions, Path coldDirectory) throws IOException {
+        WinnerStoreFactory factory = new WinnerStoreFactory();
+        factory.setType(store);
+        factory.setExpectedAuctions(expectedAuctions);
+        factory.setMaxHotAuctions(maxHotAuctions);
+        factory.setColdDirectory(coldDirectory.toString());
+        return new AuctionService(factory.build(), fixedPoint);
+    }
+
+    @Override
+    public String toString() {
+        return (fixedPoint ? FIXED_POINT : DECIMAL) + ":" + store;
+    }
+}
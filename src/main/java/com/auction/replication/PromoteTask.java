@@ -0,0 +1,22 @@
+package com.auction.replication;
+
+import com.google.common.collect.ImmutableMultimap;
+import io.dropwizard.servlets.tasks.Task;
+
+import java.io.PrintWriter;
+
+// POST /tasks/promote on the admin port turns a replica into the primary.
+public class PromoteTask extends Task {
+
+    private final Replication replication;
+
+    public PromoteTask(Replication replication) {
+        super("promote");
+        this.replication = replication;
+    }
+
+    @Override
+    public void execute(ImmutableMultimap<String, String> parameters, PrintWriter output) throws Exception {
+        output.println(replication.promote() ? "Promoted to primary." : "Already the primary.");
+    }
+}
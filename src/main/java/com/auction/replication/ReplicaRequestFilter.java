@@ -0,0 +1,47 @@
+package com.auction.replication;
+
+import javax.annotation.Priority;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.PreMatching;
+import javax.ws.rs.core.Response;
+
+// Keeps a replica read-only and its reads within the staleness bound. Requests that would change an auction are
+// refused with 405 Method Not Allowed, since only the primary applies bids, and reads are refused with 503 Service
+// Unavailable while the replica is syncing or further behind the primary than allowed. A promoted replica passes
+// everything.
+@PreMatching
+@Priority(Priorities.HEADER_DECORATOR)
+public class ReplicaRequestFilter implements ContainerRequestFilter {
+
+    private final Replication replication;
+
+    public ReplicaRequestFilter(Replication replication) {
+        this.replication = replication;
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request) {
+        if (replication.isPrimary()) {
+            return;
+        }
+        String path = request.getUriInfo().getPath();
+        if (path.startsWith("/")) {
+            path = path.substring(1);
+        }
+        if (!path.equals("auction") && !path.startsWith("auction/")) {
+            return;
+        }
+        String method = request.getMethod();
+        // POST /auction/winners only carries a list of auctionIds too long for a query string.
+        boolean read = HttpMethod.GET.equals(method) || HttpMethod.HEAD.equals(method)
+                || HttpMethod.POST.equals(method) && path.startsWith("auction/winners");
+        if (!read) {
+            request.abortWith(Response.status(Response.Status.METHOD_NOT_ALLOWED).build());
+        } else if (!replication.isFresh()) {
+            request.abortWith(Response.status(Response.Status.SERVICE_UNAVAILABLE).build());
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.auction.replication;
+
+import io.dropwizard.lifecycle.Managed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+
+// This node's place in a primary/replica setup. A primary serves its replication port; a replica follows its
+// primary until it is promoted, after which it accepts bids and serves replicas of its own on the same port a
+// primary would use.
+public class Replication implements Managed {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Replication.class);
+
+    private final ReplicationPrimary primary;
+
+    // Null on a node configured as the primary.
+    private final ReplicationReplica replica;
+
+    private final long maxStalenessMillis;
+
+    private volatile ReplicationRole role;
+
+    public Replication(ReplicationPrimary primary, ReplicationReplica replica, long maxStalenessMillis) {
+        this.primary = primary;
+        this.replica = replica;
+        this.maxStalenessMillis = maxStalenessMillis;
+        this.role = replica == null ? ReplicationRole.PRIMARY : ReplicationRole.REPLICA;
+    }
+
+    @Override
+    public synchronized void start() throws IOException {
+        if (role == ReplicationRole.PRIMARY) {
+            primary.start();
+        } else {
+            replica.start();
+        }
+    }
+
+    @Override
+    public synchronized void stop() throws IOException, InterruptedException {
+        if (replica != null) {
+            replica.stop();
+        }
+        primary.stop();
+    }
+
+    // Turns a replica into a primary, typically after its primary failed: the replica stops following, so nothing
+    // replicated can interleave with the bids it accepts from now on, and starts serving replicas itself. Returns
+    // false if the node already is a primary.
+    public synchronized boolean promote() throws IOException, InterruptedException {
+        if (role == ReplicationRole.PRIMARY) {
+            return false;
+        }
+        replica.stop();
+        role = ReplicationRole.PRIMARY;
+        primary.start();
+        LOGGER.info("Promoted to primary {} the initial sync had completed",
+                replica.isSynced() ? "after" : "before");
+        return true;
+    }
+
+    public ReplicationRole getRole() {
+        return role;
+    }
+
+    public boolean isPrimary() {
+        return role == ReplicationRole.PRIMARY;
+    }
+
+    // Whether this node may serve reads: always as a primary, within the staleness bound as a replica.
+    public boolean isFresh() {
+        return role == ReplicationRole.PRIMARY || replica.isFresh(maxStalenessMillis);
+    }
+
+    // How far behind its primary a replica is, see ReplicationReplica.getLagMillis(); 0 on a primary.
+    public long getLagMillis() {
+        return role == ReplicationRole.PRIMARY ? 0 : replica.getLagMillis();
+    }
+
+    public ReplicationPrimary getPrimary() {
+        return primary;
+    }
+}
@@ -0,0 +1,188 @@
+package com.auction.replication;
+
+import com.auction.services.AuctionService;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.setup.Environment;
+import io.dropwizard.util.Duration;
+import io.dropwizard.validation.ValidationMethod;
+import org.hibernate.validator.constraints.NotEmpty;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+public class ReplicationFactory {
+
+    private boolean enabled = false;
+
+    @NotNull
+    private ReplicationRole role = ReplicationRole.PRIMARY;
+
+    // Port a primary, or a promoted replica, serves replicas on.
+    @Min(0)
+    @Max(65535)
+    private int port = 7070;
+
+    // Host the primary's port is reached at, for a replica.
+    @NotEmpty
+    private String primaryHost = "localhost";
+
+    @Min(1)
+    @Max(65535)
+    private int primaryPort = 7070;
+
+    // How far behind the primary a replica may be and still serve reads.
+    @NotNull
+    private Duration maxStaleness = Duration.seconds(1);
+
+    @NotNull
+    private Duration heartbeatInterval = Duration.milliseconds(100);
+
+    // A replica that hears nothing from its primary for this long reconnects.
+    @NotNull
+    private Duration timeout = Duration.seconds(2);
+
+    @NotNull
+    private Duration retryInterval = Duration.seconds(1);
+
+    // Changes a primary holds for each replica before giving up on it.
+    @Min(1)
+    private int queueCapacity = 65536;
+
+    @JsonProperty
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @JsonProperty
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @JsonProperty
+    public ReplicationRole getRole() {
+        return role;
+    }
+
+    @JsonProperty
+    public void setRole(ReplicationRole role) {
+        this.role = role;
+    }
+
+    @JsonProperty
+    public int getPort() {
+        return port;
+    }
+
+    @JsonProperty
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    @JsonProperty
+    public String getPrimaryHost() {
+        return primaryHost;
+    }
+
+    @JsonProperty
+    public void setPrimaryHost(String primaryHost) {
+        this.primaryHost = primaryHost;
+    }
+
+    @JsonProperty
+    public int getPrimaryPort() {
+        return primaryPort;
+    }
+
+    @JsonProperty
+    public void setPrimaryPort(int primaryPort) {
+        this.primaryPort = primaryPort;
+    }
+
+    @JsonProperty
+    public Duration getMaxStaleness() {
+        return maxStaleness;
+    }
+
+    @JsonProperty
+    public void setMaxStaleness(Duration maxStaleness) {
+        this.maxStaleness = maxStaleness;
+    }
+
+    @JsonProperty
+    public Duration getHeartbeatInterval() {
+        return heartbeatInterval;
+    }
+
+    @JsonProperty
+    public void setHeartbeatInterval(Duration heartbeatInterval) {
+        this.heartbeatInterval = heartbeatInterval;
+    }
+
+    @JsonProperty
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    @JsonProperty
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    @JsonProperty
+    public Duration getRetryInterval() {
+        return retryInterval;
+    }
+
+    @JsonProperty
+    public void setRetryInterval(Duration retryInterval) {
+        this.retryInterval = retryInterval;
+    }
+
+    @JsonProperty
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    @JsonProperty
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    // A replica must hear heartbeats more often than it gives up on its primary, and more often than it turns stale.
+    @JsonIgnore
+    @ValidationMethod(message = "heartbeatInterval must be shorter than timeout and maxStaleness")
+    public boolean isHeartbeatIntervalValid() {
+        return heartbeatInterval.toNanoseconds() < timeout.toNanoseconds()
+                && heartbeatInterval.toNanoseconds() < maxStaleness.toNanoseconds();
+    }
+
+    // Starts streaming winner changes to replicas, or following the primary, and returns the node's replication, or
+    // null when replication is disabled. A replica refuses bids until promoted with the promote admin task.
+    public Replication build(AuctionService auctionService, Environment environment) {
+        if (!enabled) {
+            return null;
+        }
+        ReplicationPrimary primary = new ReplicationPrimary(auctionService, port,
+                heartbeatInterval.toMilliseconds(), queueCapacity);
+        auctionService.addWinnerListener(primary);
+        ReplicationReplica replica = role == ReplicationRole.PRIMARY ? null : new ReplicationReplica(auctionService,
+                primaryHost, primaryPort, timeout.toMilliseconds(), retryInterval.toMilliseconds());
+        Replication replication = new Replication(primary, replica, maxStaleness.toMilliseconds());
+        environment.lifecycle().manage(replication);
+        environment.jersey().register(new ReplicaRequestFilter(replication));
+        environment.admin().addTask(new PromoteTask(replication));
+
+        MetricRegistry metrics = environment.metrics();
+        metrics.register(MetricRegistry.name(Replication.class, "lag-millis"),
+                (Gauge<Long>) replication::getLagMillis);
+        metrics.register(MetricRegistry.name(Replication.class, "replicas"),
+                (Gauge<Integer>) primary::getReplicaCount);
+        metrics.register(MetricRegistry.name(Replication.class, "backlog"),
+                (Gauge<Integer>) primary::getBacklog);
+        return replication;
+    }
+}
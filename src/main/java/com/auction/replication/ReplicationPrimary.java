@@ -0,0 +1,223 @@
+package com.auction.replication;
+
+import com.auction.model.Bid;
+import com.auction.services.AuctionService;
+import com.auction.services.WinnerListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Streams winner changes to the replicas that connect to its port.
+//
+// Each replica gets its own queue and sender thread. A new replica is first sent a copy of every winner, then the
+// changes queued since it connected, then SYNCED; from then on changes follow in the order they were applied, which
+// per auction is the order BidEngine applied the bids. The copy and the queued changes can overlap, but since every
+// record is an auction's full winner, the replica ends up with the latest winner either way.
+//
+// winnerChanged runs on the bid engine's shard threads and never blocks: a replica whose queue overflows is
+// disconnected, and copies everything again when it reconnects.
+public class ReplicationPrimary implements WinnerListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplicationPrimary.class);
+
+    // Queued after the changes a new replica has to catch up on; its winner is null.
+    private static final Change SYNC_MARKER = new Change(null, 0);
+
+    private final AuctionService auctionService;
+
+    private final int port;
+
+    private final long heartbeatNanos;
+
+    private final int queueCapacity;
+
+    private final List<Session> sessions = new CopyOnWriteArrayList<>();
+
+    private final AtomicInteger sessionIds = new AtomicInteger();
+
+    private volatile ServerSocket serverSocket;
+
+    // port 0 picks a free port, see getLocalPort().
+    public ReplicationPrimary(AuctionService auctionService, int port, long heartbeatIntervalMillis,
+                              int queueCapacity) {
+        this.auctionService = auctionService;
+        this.port = port;
+        this.heartbeatNanos = TimeUnit.MILLISECONDS.toNanos(heartbeatIntervalMillis);
+        this.queueCapacity = queueCapacity;
+    }
+
+    public synchronized void start() throws IOException {
+        if (serverSocket != null) {
+            return;
+        }
+        ServerSocket socket = new ServerSocket();
+        socket.setReuseAddress(true);
+        socket.bind(new InetSocketAddress(port));
+        serverSocket = socket;
+        Thread acceptor = new Thread(() -> accept(socket), "replication-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        LOGGER.info("Serving replicas on port {}", socket.getLocalPort());
+    }
+
+    public synchronized void stop() throws IOException {
+        if (serverSocket != null) {
+            serverSocket.close();
+            serverSocket = null;
+        }
+        for (Session session : sessions) {
+            session.close();
+        }
+    }
+
+    @Override
+    public void winnerChanged(Bid previousWinner, Bid winner) {
+        if (sessions.isEmpty()) {
+            return;
+        }
+        Change change = new Change(winner, System.nanoTime());
+        for (Session session : sessions) {
+            session.offer(change);
+        }
+    }
+
+    public int getLocalPort() {
+        ServerSocket socket = serverSocket;
+        return socket == null ? -1 : socket.getLocalPort();
+    }
+
+    public int getReplicaCount() {
+        return sessions.size();
+    }
+
+    // Changes queued for the replica that is furthest behind.
+    public int getBacklog() {
+        int backlog = 0;
+        for (Session session : sessions) {
+            backlog = Math.max(backlog, session.queue.size());
+        }
+        return backlog;
+    }
+
+    private void accept(ServerSocket socket) {
+        while (!socket.isClosed()) {
+            try {
+                Session session = new Session(socket.accept());
+                // Registered before the copy starts, so no change can fall between the copy and the queue.
+                sessions.add(session);
+                session.sender.start();
+            } catch (IOException e) {
+                if (!socket.isClosed()) {
+                    LOGGER.warn("Failed to accept a replica", e);
+                }
+            }
+        }
+    }
+
+
+    private static final class Change {
+        private final Bid winner;
+        private final long enqueuedNanos;
+
+        private Change(Bid winner, long enqueuedNanos) {
+            this.winner = winner;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+
+
+    private final class Session {
+        private final Socket socket;
+        private final BlockingQueue<Change> queue = new ArrayBlockingQueue<>(queueCapacity);
+        private final Thread sender;
+        private volatile boolean closed = false;
+
+        private Session(Socket socket) throws IOException {
+            this.socket = socket;
+            socket.setTcpNoDelay(true);
+            this.sender = new Thread(this::send, "replication-sender-" + sessionIds.incrementAndGet());
+            this.sender.setDaemon(true);
+        }
+
+        private void offer(Change change) {
+            if (!closed && !queue.offer(change)) {
+                LOGGER.warn("Disconnecting replica {}, which fell {} changes behind", socket.getRemoteSocketAddress(),
+                        queueCapacity);
+                close();
+            }
+        }
+
+        private void send() {
+            try (DataOutputStream output = new DataOutputStream(
+                    new BufferedOutputStream(socket.getOutputStream(), 64 * 1024))) {
+                ReplicationProtocol.writeHeader(output);
+                ByteBuffer[] buffer = {ByteBuffer.allocate(256)};
+                auctionService.forEachWinner(winner -> {
+                    try {
+                        buffer[0] = ReplicationProtocol.writeWinner(output, buffer[0], winner);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                offer(SYNC_MARKER);
+
+                long nextHeartbeat = System.nanoTime();
+                while (!closed) {
+                    long now = System.nanoTime();
+                    if (now - nextHeartbeat >= 0) {
+                        Change oldest = queue.peek();
+                        long behind = oldest == null ? 0 : Math.max(0, now - oldest.enqueuedNanos);
+                        ReplicationProtocol.writeHeartbeat(output, TimeUnit.NANOSECONDS.toMillis(behind));
+                        output.flush();
+                        nextHeartbeat = now + heartbeatNanos;
+                    }
+                    Change change = queue.poll();
+                    if (change == null) {
+                        output.flush();
+                        change = queue.poll(nextHeartbeat - System.nanoTime(), TimeUnit.NANOSECONDS);
+                        if (change == null) {
+                            continue;
+                        }
+                    }
+                    if (change == SYNC_MARKER) {
+                        ReplicationProtocol.writeSynced(output);
+                    } else {
+                        buffer[0] = ReplicationProtocol.writeWinner(output, buffer[0], change.winner);
+                    }
+                }
+            } catch (IOException | UncheckedIOException e) {
+                if (!closed) {
+                    LOGGER.info("Lost replica {}: {}", socket.getRemoteSocketAddress(), e.toString());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                close();
+            }
+        }
+
+        private void close() {
+            closed = true;
+            sessions.remove(this);
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Nothing left to do with a socket that fails to close.
+            }
+        }
+    }
+}
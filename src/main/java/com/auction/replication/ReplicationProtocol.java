@@ -0,0 +1,79 @@
+package com.auction.replication;
+
+import com.auction.model.Bid;
+import com.auction.persistence.WinnerCodec;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+// The stream a primary sends each replica over TCP. Replicas send nothing back.
+//
+// The stream opens with a magic number and a version, then carries messages that each start with a type byte:
+// WINNER is followed by one record in the journal's WinnerCodec framing, checksum included; SYNCED marks the end of
+// the initial copy of every winner; HEARTBEAT is followed by a long giving how many milliseconds the oldest change
+// still queued for the replica has been waiting, 0 when none is.
+final class ReplicationProtocol {
+
+    static final int MAGIC = 0x41524550;
+
+    static final int VERSION = 1;
+
+    static final byte WINNER = 1;
+
+    static final byte SYNCED = 2;
+
+    static final byte HEARTBEAT = 3;
+
+    private ReplicationProtocol() {
+    }
+
+    static void writeHeader(DataOutputStream output) throws IOException {
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+    }
+
+    static void readHeader(DataInputStream input) throws IOException {
+        int magic = input.readInt();
+        int version = input.readInt();
+        if (magic != MAGIC || version != VERSION) {
+            throw new IOException("Not a replication stream of version " + VERSION + ".");
+        }
+    }
+
+    // Encodes winner into buffer, growing it when needed, writes it and returns the buffer for the next call.
+    static ByteBuffer writeWinner(DataOutputStream output, ByteBuffer buffer, Bid winner) throws IOException {
+        buffer.clear();
+        buffer = WinnerCodec.write(buffer, winner);
+        output.writeByte(WINNER);
+        output.write(buffer.array(), 0, buffer.position());
+        return buffer;
+    }
+
+    // Reads the record following a WINNER type byte.
+    static Bid readWinner(DataInputStream input) throws IOException {
+        int payloadBytes = input.readInt();
+        if (payloadBytes <= 0 || payloadBytes > WinnerCodec.MAX_PAYLOAD_BYTES) {
+            throw new IOException("Invalid winner record length " + payloadBytes + ".");
+        }
+        ByteBuffer record = ByteBuffer.allocate(WinnerCodec.HEADER_BYTES + payloadBytes);
+        record.putInt(payloadBytes);
+        input.readFully(record.array(), 4, record.capacity() - 4);
+        record.rewind();
+        Bid winner = WinnerCodec.read(record);
+        if (winner == null) {
+            throw new IOException("Winner record failed its checksum.");
+        }
+        return winner;
+    }
+
+    static void writeSynced(DataOutputStream output) throws IOException {
+        output.writeByte(SYNCED);
+    }
+
+    static void writeHeartbeat(DataOutputStream output, long behindMillis) throws IOException {
+        output.writeByte(HEARTBEAT);
+        output.writeLong(behindMillis);
+    }
+}
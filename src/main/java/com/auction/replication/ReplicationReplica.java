@@ -0,0 +1,157 @@
+package com.auction.replication;
+
+import com.auction.services.AuctionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+
+// Follows a primary's replication stream into auctionService, reconnecting after a failure.
+//
+// Every connection starts with a full copy of the primary's winners, so the replica is only synced once the copy
+// and the changes queued behind it have been applied. After that, each heartbeat tells how far behind the primary's
+// queue for this replica is, which together with the time since the heartbeat arrived bounds how old the replica's
+// view can be. The bound keeps growing while the primary is unreachable, so reads can be refused once it is exceeded.
+public class ReplicationReplica {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplicationReplica.class);
+
+    private final AuctionService auctionService;
+
+    private final String host;
+
+    private final int port;
+
+    private final int timeoutMillis;
+
+    private final long retryMillis;
+
+    private volatile boolean running = false;
+
+    private volatile Thread follower;
+
+    private volatile Socket socket;
+
+    // Whether the current or last connection finished its initial copy.
+    private volatile boolean synced = false;
+
+    // System.nanoTime() at which the replica was last known to have every change the primary had made.
+    private volatile long currentAsOfNanos;
+
+    // A connection that delivers nothing for timeoutMillis, heartbeats included, is dropped and reopened.
+    public ReplicationReplica(AuctionService auctionService, String host, int port, long timeoutMillis,
+                              long retryMillis) {
+        this.auctionService = auctionService;
+        this.host = host;
+        this.port = port;
+        this.timeoutMillis = (int) Math.min(Integer.MAX_VALUE, timeoutMillis);
+        this.retryMillis = retryMillis;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        Thread thread = new Thread(this::follow, "replication-follower");
+        thread.setDaemon(true);
+        follower = thread;
+        thread.start();
+    }
+
+    // Returns once the follower thread has stopped applying changes.
+    public synchronized void stop() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        closeSocket();
+        follower.interrupt();
+        follower.join();
+    }
+
+    public boolean isSynced() {
+        return synced;
+    }
+
+    // Milliseconds since the replica was last known to be up to date with the primary, or -1 if it has not synced
+    // yet.
+    public long getLagMillis() {
+        if (!synced) {
+            return -1;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(Math.max(0, System.nanoTime() - currentAsOfNanos));
+    }
+
+    // Whether the replica is synced and at most maxStalenessMillis behind the primary.
+    public boolean isFresh(long maxStalenessMillis) {
+        long lag = getLagMillis();
+        return lag >= 0 && lag <= maxStalenessMillis;
+    }
+
+    private void follow() {
+        while (running) {
+            try (Socket connection = new Socket()) {
+                socket = connection;
+                connection.connect(new InetSocketAddress(host, port), timeoutMillis);
+                connection.setSoTimeout(timeoutMillis);
+                apply(new DataInputStream(new BufferedInputStream(connection.getInputStream(), 64 * 1024)));
+            } catch (IOException e) {
+                if (running) {
+                    LOGGER.warn("Lost replication stream from {}:{}: {}", host, port, e.toString());
+                }
+            }
+            if (running) {
+                try {
+                    Thread.sleep(retryMillis);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void apply(DataInputStream input) throws IOException {
+        ReplicationProtocol.readHeader(input);
+        // The copy that follows may briefly put back older winners than the replica already has.
+        synced = false;
+        LOGGER.info("Following primary {}:{}", host, port);
+        while (running) {
+            byte type = input.readByte();
+            switch (type) {
+                case ReplicationProtocol.WINNER:
+                    auctionService.replicateWinner(ReplicationProtocol.readWinner(input));
+                    break;
+                case ReplicationProtocol.SYNCED:
+                    currentAsOfNanos = System.nanoTime();
+                    synced = true;
+                    LOGGER.info("Synced {} auctions from primary {}:{}", auctionService.getAuctionCount(), host, port);
+                    break;
+                case ReplicationProtocol.HEARTBEAT:
+                    long behindNanos = TimeUnit.MILLISECONDS.toNanos(input.readLong());
+                    if (synced) {
+                        currentAsOfNanos = System.nanoTime() - behindNanos;
+                    }
+                    break;
+                default:
+                    throw new IOException("Unknown replication message type " + type + ".");
+            }
+        }
+    }
+
+    private void closeSocket() {
+        Socket current = socket;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                // The follower sees the failure and stops.
+            }
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.auction.replication;
+
+public enum ReplicationRole {
+
+    // Accepts bids and streams winner changes to the replicas.
+    PRIMARY,
+
+    // Follows a primary and only serves reads, refusing them once it is too far behind.
+    REPLICA
+}
@@ -1,42 +1,479 @@
 package com.auction.resources;
 
+import com.auction.cluster.Cluster;
 import com.codahale.metrics.annotation.Timed;
+import com.auction.api.AuctionJsonModule;
+import com.auction.api.BatchResult;
+import com.auction.api.BidHistoryEntry;
+import com.auction.api.BidHistoryPage;
+import com.auction.api.BidResult;
 import com.auction.api.ProcessedBid;
 import com.auction.api.Winner;
 import com.auction.model.Bid;
 import com.auction.services.AuctionService;
+import com.auction.services.BidEngine;
+import com.auction.services.BidHistory;
+import com.auction.services.BidOutcome;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.dropwizard.jackson.Jackson;
 import org.eclipse.jetty.http.HttpStatus;
 
 import javax.inject.Singleton;
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 import javax.ws.rs.*;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.CompletionCallback;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Singleton
 @Path("/auction")
 @Produces(MediaType.APPLICATION_JSON)
 public class AuctionResource {
-    private final AuctionService auctionService;;
+    // Largest number of bids accepted in one batch request.
+    static final int MAX_BATCH_BIDS = 10000;
 
-    public AuctionResource(AuctionService auctionService) {
+    // Largest number of auctions whose encoded GET response is cached.
+    static final int MAX_CACHED_WINNERS = 100000;
+
+    // Largest number of auctions looked up in one winners request.
+    static final int MAX_WINNER_IDS = 1000;
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final BidStreamParser BATCH_PARSER = new BidStreamParser(MAX_BATCH_BIDS);
+
+    private static final URI BATCH_URI = URI.create("/auction/batch");
+
+    private static final URI WINNERS_URI = URI.create("/auction/winners");
+
+    private final AuctionService auctionService;
+
+    private final BidEngine bidEngine;
+
+    // Null when bid history is disabled.
+    private final BidHistory bidHistory;
+
+    private final WinnerResponseCache winnerResponses;
+
+    private final AtomicInteger pendingRequests = new AtomicInteger();
+
+    // Null when this node is not part of a cluster.
+    private final Cluster cluster;
+
+    private final ObjectMapper objectMapper;
+
+    public AuctionResource(AuctionService auctionService, BidEngine bidEngine) {
+        this(auctionService, bidEngine, null);
+    }
+
+    public AuctionResource(AuctionService auctionService, BidEngine bidEngine, BidHistory bidHistory) {
+        this(auctionService, bidEngine, bidHistory, Jackson.newObjectMapper().registerModule(new AuctionJsonModule()));
+    }
+
+    // objectMapper encodes the cached GET responses and should be the one Jersey writes the other responses with.
+    public AuctionResource(AuctionService auctionService, BidEngine bidEngine, BidHistory bidHistory,
+                           ObjectMapper objectMapper) {
+        this(auctionService, bidEngine, bidHistory, objectMapper, null);
+    }
+
+    // cluster is null when this node holds every auction. Otherwise requests for single auctions owned elsewhere never
+    // get here, see ClusterRoutingFilter, and batches and winner lookups are split across the owners.
+    public AuctionResource(AuctionService auctionService, BidEngine bidEngine, BidHistory bidHistory,
+                           ObjectMapper objectMapper, Cluster cluster) {
         this.auctionService = auctionService;
+        this.cluster = cluster;
+        this.objectMapper = objectMapper;
+        this.bidEngine = bidEngine;
+        this.bidHistory = bidHistory;
+        this.winnerResponses = new WinnerResponseCache(auctionService, objectMapper, MAX_CACHED_WINNERS);
+        auctionService.addWinnerListener(winnerResponses);
     }
 
 
     @GET
     @Timed
-    public Winner getWinner(@QueryParam("auctionId") @Min(0) @Valid Integer auctionId) {
+    public byte[] getWinner(@QueryParam("auctionId") @Min(0) @Valid Integer auctionId) {
+        // Returns the Winner response already encoded, straight from the cache unless the winner changed since it
+        // was last read.
+        if (auctionId == null) {
+            throw new WebApplicationException(Response.Status.BAD_REQUEST);
+        }
+        return winnerResponses.get(auctionId);
+    }
+
+
+    @GET
+    @Produces(BinaryBidProvider.APPLICATION_AUCTION_BID)
+    @Timed
+    public Winner getBinaryWinner(@QueryParam("auctionId") @Min(0) @Valid Integer auctionId) {
+        // The same winner in the binary encoding, for clients that send Accept: application/x-auction-bid.
         Bid winner = auctionService.getWinner(auctionId);
-        return new Winner(HttpStatus.OK_200, winner.getId(), winner.getWinningPrice(), winner.getAuctionId());
+        return new Winner(HttpStatus.OK_200, winner.getId(), winner.getWinningPrice(), auctionId);
+    }
+
+
+    @GET
+    @Path("/history")
+    @Timed
+    public BidHistoryPage getHistory(@QueryParam("auctionId") @NotNull @Min(0) Integer auctionId,
+                                     @QueryParam("cursor") @DefaultValue("-1") @Min(-1) long cursor,
+                                     @QueryParam("limit") @DefaultValue("50") @Min(1) @Max(1000) int limit) {
+        // Pages through the auction's bids newest first. Pass the previous page's "next" as cursor to continue.
+        if (bidHistory == null) {
+            throw new WebApplicationException(Response.Status.NOT_FOUND);
+        }
+        List<BidHistory.Entry> entries = bidHistory.page(auctionId, cursor, limit);
+        if (entries == null) {
+            throw new WebApplicationException(Response.Status.BAD_REQUEST);
+        }
+        List<BidHistoryEntry> bids = new ArrayList<>(entries.size());
+        for (BidHistory.Entry entry : entries) {
+            Bid bid = entry.getBid();
+            bids.add(new BidHistoryEntry(entry.getSequence(), entry.getTimestamp(), bid.getId(), bid.getStartingBid(),
+                    bid.getMaxBid(), bid.getAutoIncrement(), entry.isWinning()));
+        }
+        Long next = null;
+        if (entries.size() == limit) {
+            long previous = bidHistory.previous(entries.get(entries.size() - 1).getSequence());
+            next = previous >= 0 ? previous : null;
+        }
+        return new BidHistoryPage(HttpStatus.OK_200, auctionId, bids, next);
+    }
+
+
+    @GET
+    @Path("/winners")
+    @Timed
+    public void getWinners(@QueryParam("ids") @NotNull String ids,
+                           @HeaderParam(Cluster.FORWARDED_BY) String forwardedBy, @Suspended AsyncResponse response) {
+        // ids is a comma-separated list of auctionIds, e.g. ?ids=1,2,3. Winners come back in the same order.
+        int[] auctionIds = new int[Math.min(ids.length() / 2 + 1, MAX_WINNER_IDS + 1)];
+        int count = 0;
+        for (String id : ids.split(",")) {
+            auctionIds = add(auctionIds, count++, parseAuctionId(id.trim()));
+        }
+        winners(Arrays.copyOf(auctionIds, count), forwardedBy == null, response);
     }
 
 
     @POST
+    @Path("/winners")
+    @Consumes(MediaType.APPLICATION_JSON)
     @Timed
-    public ProcessedBid createBid(@NotNull @Valid Bid bid) {
-        auctionService.processBid(bid);
-        return new ProcessedBid(HttpStatus.CREATED_201, bid);
+    public void getWinners(InputStream body, @HeaderParam(Cluster.FORWARDED_BY) String forwardedBy,
+                           @Suspended AsyncResponse response) {
+        // The body is a JSON array of auctionIds, for lists too long to fit in a query string.
+        int[] auctionIds = new int[64];
+        int count = 0;
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new WebApplicationException(Response.Status.BAD_REQUEST);
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == JsonToken.VALUE_NUMBER_INT && parser.getNumberType() == JsonParser.NumberType.INT) {
+                    auctionIds = add(auctionIds, count++, checkAuctionId(parser.getIntValue()));
+                } else if (token == JsonToken.VALUE_STRING) {
+                    auctionIds = add(auctionIds, count++, parseAuctionId(parser.getText().trim()));
+                } else {
+                    throw new WebApplicationException(Response.Status.BAD_REQUEST);
+                }
+            }
+        } catch (IOException e) {
+            throw new WebApplicationException(e, Response.Status.BAD_REQUEST);
+        }
+        winners(Arrays.copyOf(auctionIds, count), forwardedBy == null, response);
+    }
+
+    // In a cluster, first fetches the winners other nodes own, one request per owner, so the response can still be
+    // written in the order asked for. A request another node sent on is answered from this node alone, as
+    // ClusterRoutingFilter does, so it never travels a second hop. The request is suspended while the owners answer,
+    // and answered with 503 when one of them fails or they take longer than the cluster's timeout.
+    private void winners(int[] auctionIds, boolean route, AsyncResponse response) {
+        Map<String, List<Integer>> forwarded = new HashMap<>();
+        if (cluster != null && route) {
+            for (int auctionId : auctionIds) {
+                if (!cluster.isLocal(auctionId)) {
+                    forwarded.computeIfAbsent(cluster.ownerOf(auctionId), owner -> new ArrayList<>()).add(auctionId);
+                }
+            }
+        }
+        if (forwarded.isEmpty()) {
+            response.resume(new WinnersOutput(auctionService, auctionIds));
+            return;
+        }
+
+        response.setTimeoutHandler(timedOut -> timedOut.resume(unavailable()));
+        response.setTimeout(cluster.getTimeoutMillis(), TimeUnit.MILLISECONDS);
+        List<CompletableFuture<Response>> responses = new ArrayList<>(forwarded.size());
+        try {
+            for (Map.Entry<String, List<Integer>> owner : forwarded.entrySet()) {
+                responses.add(cluster.forwardAsync(owner.getKey(), HttpMethod.POST, WINNERS_URI,
+                        MediaType.APPLICATION_JSON, MediaType.APPLICATION_JSON_TYPE,
+                        objectMapper.writeValueAsBytes(owner.getValue())));
+            }
+        } catch (IOException e) {
+            response.resume(unavailable());
+            return;
+        }
+        CompletableFuture.allOf(responses.toArray(new CompletableFuture<?>[0])).whenComplete((ignored, failure) -> {
+            if (failure != null) {
+                response.resume(unavailable());
+                return;
+            }
+            try {
+                Map<Integer, Winner> winners = new HashMap<>();
+                for (CompletableFuture<Response> pending : responses) {
+                    Response owned = pending.join();
+                    if (owned.getStatus() != HttpStatus.OK_200) {
+                        response.resume(unavailable());
+                        return;
+                    }
+                    for (JsonNode winner : objectMapper.readTree(owned.readEntity(byte[].class)).path("winners")) {
+                        winners.put(winner.path("auctionId").asInt(), objectMapper.treeToValue(winner, Winner.class));
+                    }
+                }
+                response.resume(new WinnersOutput(auctionService, auctionIds, winners));
+            } catch (IOException | RuntimeException e) {
+                response.resume(unavailable());
+            }
+        });
+    }
+
+    // A plain 503 response rather than an exception, which Jersey would log with its stack trace.
+    private static Response unavailable() {
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE).build();
+    }
+
+    private static int[] add(int[] auctionIds, int index, int auctionId) {
+        if (index == MAX_WINNER_IDS) {
+            throw new WebApplicationException(Response.Status.REQUEST_ENTITY_TOO_LARGE);
+        }
+        if (index == auctionIds.length) {
+            auctionIds = Arrays.copyOf(auctionIds, Math.min(auctionIds.length * 2, MAX_WINNER_IDS));
+        }
+        auctionIds[index] = auctionId;
+        return auctionIds;
+    }
+
+    private static int parseAuctionId(String id) {
+        try {
+            return checkAuctionId(Integer.parseInt(id));
+        } catch (NumberFormatException e) {
+            throw new WebApplicationException(Response.Status.BAD_REQUEST);
+        }
+    }
+
+    private static int checkAuctionId(int auctionId) {
+        if (auctionId < 0) {
+            throw new WebApplicationException(Response.Status.BAD_REQUEST);
+        }
+        return auctionId;
+    }
+
+
+    @POST
+    @Produces({MediaType.APPLICATION_JSON, BinaryBidProvider.APPLICATION_AUCTION_BID})
+    @Timed
+    public void createBid(@NotNull @Valid Bid bid, @Suspended AsyncResponse response) {
+        // Suspends the request until the bid's shard has applied it, and the journal has committed it, without
+        // holding a container thread. Fails with 429 when the shard is backed up and 503 when it does not answer in
+        // time. A bid the journal failed to commit is still applied, and answered with a Warning header.
+        suspend(response);
+        try {
+            bidEngine.submitForOutcome(bid).whenComplete((outcome, failure) -> {
+                if (failure != null) {
+                    response.resume(unwrap(failure));
+                } else if (!outcome.isApplied()) {
+                    response.resume(outcome.getFailure());
+                } else if (outcome.getWarning() != null) {
+                    response.resume(Response.ok(new ProcessedBid(HttpStatus.CREATED_201, bid))
+                            .header("Warning", "199 - \"" + outcome.getWarning() + "\"")
+                            .build());
+                } else {
+                    response.resume(new ProcessedBid(HttpStatus.CREATED_201, bid));
+                }
+            });
+        } catch (WebApplicationException e) {
+            response.resume(e);
+        }
+    }
+
+
+    @POST
+    @Path("/batch")
+    @Consumes({MediaType.APPLICATION_JSON, "application/x-ndjson"})
+    @Timed
+    public void createBids(InputStream body, @HeaderParam(Cluster.FORWARDED_BY) String forwardedBy,
+                           @Suspended AsyncResponse response) {
+        // The body is either a JSON array of bids or one bid per line. Results come back in the same order as the
+        // bids, and a bid that is invalid or rejected does not affect the others.
+        process(BATCH_PARSER.parse(body), forwardedBy == null, response);
+    }
+
+
+    @POST
+    @Path("/batch")
+    @Consumes(BinaryBidProvider.APPLICATION_AUCTION_BID)
+    @Produces(BinaryBidProvider.APPLICATION_AUCTION_BID)
+    @Timed
+    public void createBinaryBids(InputStream body, @HeaderParam(Cluster.FORWARDED_BY) String forwardedBy,
+                                 @Suspended AsyncResponse response) {
+        // The body is any number of binary bid frames back to back; results come back as one binary frame.
+        process(BinaryBidCodec.readBids(body, MAX_BATCH_BIDS), forwardedBy == null, response);
+    }
+
+    // Number of bid requests suspended while their bids are queued, applied or journaled.
+    public int getPendingRequests() {
+        return pendingRequests.get();
+    }
+
+    private void suspend(AsyncResponse response) {
+        pendingRequests.incrementAndGet();
+        response.register((CompletionCallback) failure -> pendingRequests.decrementAndGet());
+        response.setTimeoutHandler(timedOut -> timedOut.resume(unavailable()));
+        response.setTimeout(bidEngine.getTimeoutMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    // The same mapping of a failed future as BidEngine's blocking variants use.
+    private static WebApplicationException unwrap(Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                ? failure.getCause() : failure;
+        if (cause instanceof WebApplicationException) {
+            return (WebApplicationException) cause;
+        }
+        return new WebApplicationException(cause, Response.Status.INTERNAL_SERVER_ERROR);
+    }
+
+    // The body has already been read when the request is suspended; only the wait for the shards, and in a cluster
+    // for the nodes that own some of the bids, is asynchronous. Unless route is set, as for a batch another node
+    // sent on, every bid is applied here.
+    private void process(List<BidStreamParser.ParsedBid> parsed, boolean route, AsyncResponse response) {
+        List<Bid> bids = new ArrayList<>(parsed.size());
+        Map<String, List<Bid>> forwarded = new HashMap<>();
+        for (BidStreamParser.ParsedBid bid : parsed) {
+            if (bid.getBid() == null) {
+                continue;
+            }
+            String owner = route ? ownerOf(bid.getBid()) : null;
+            if (owner == null) {
+                bids.add(bid.getBid());
+            } else {
+                forwarded.computeIfAbsent(owner, node -> new ArrayList<>()).add(bid.getBid());
+            }
+        }
+
+        suspend(response);
+        CompletableFuture<List<BidOutcome>> local = bidEngine.submitAll(bids);
+        Map<String, CompletableFuture<List<BidResult>>> remote = new HashMap<>();
+        forwarded.forEach((owner, ownerBids) -> remote.put(owner, forward(owner, ownerBids)));
+        List<CompletableFuture<?>> pending = new ArrayList<>(remote.values());
+        pending.add(local);
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).whenComplete((ignored, failure) -> {
+            if (failure != null) {
+                response.resume(unwrap(failure));
+                return;
+            }
+            List<BidOutcome> outcomes = local.join();
+            Map<String, Iterator<BidResult>> remoteResults = new HashMap<>();
+            List<BidResult> results = new ArrayList<>(parsed.size());
+            int next = 0;
+            for (BidStreamParser.ParsedBid bid : parsed) {
+                if (bid.getBid() == null) {
+                    results.add(new BidResult(bid.getStatus(), bid.getAuctionId(), null, bid.getError()));
+                    continue;
+                }
+                String owner = route ? ownerOf(bid.getBid()) : null;
+                if (owner == null) {
+                    results.add(result(outcomes.get(next++)));
+                } else {
+                    results.add(remoteResults.computeIfAbsent(owner, node -> remote.get(node).join().iterator())
+                            .next());
+                }
+            }
+            response.resume(new BatchResult(HttpStatus.OK_200, results));
+        });
+    }
+
+    // The node a bid has to be sent on to, or null if this node owns its auction.
+    private String ownerOf(Bid bid) {
+        return cluster == null || cluster.isLocal(bid.getAuctionId()) ? null : cluster.ownerOf(bid.getAuctionId());
+    }
+
+    // Sends bids on to the node that owns them as one binary batch. When the node cannot be reached or its answer
+    // cannot be read, each of the bids is reported as 503 Service Unavailable instead of failing the whole batch.
+    private CompletableFuture<List<BidResult>> forward(String owner, List<Bid> bids) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(bids.size() * 64);
+        for (Bid bid : bids) {
+            byte[] frame = BinaryBidCodec.write(bid);
+            body.write(frame, 0, frame.length);
+        }
+        return cluster.forwardAsync(owner, HttpMethod.POST, BATCH_URI, BinaryBidProvider.APPLICATION_AUCTION_BID,
+                BinaryBidProvider.APPLICATION_AUCTION_BID_TYPE, body.toByteArray())
+                .thenApply(forwarded -> forwardedResults(forwarded, bids.size()))
+                .exceptionally(failure -> {
+                    List<BidResult> unavailable = new ArrayList<>(bids.size());
+                    for (Bid bid : bids) {
+                        unavailable.add(new BidResult(HttpStatus.SERVICE_UNAVAILABLE_503, bid.getAuctionId(), null,
+                                HttpStatus.getMessage(HttpStatus.SERVICE_UNAVAILABLE_503)));
+                    }
+                    return unavailable;
+                });
+    }
+
+    private static List<BidResult> forwardedResults(Response forwarded, int expected) {
+        if (forwarded.getStatus() != HttpStatus.OK_200) {
+            throw new IllegalStateException("Forwarded batch failed with " + forwarded.getStatus());
+        }
+        try {
+            List<BidResult> results = BinaryBidCodec.readBatchResult(
+                    BinaryBidCodec.readFrame(new ByteArrayInputStream(forwarded.readEntity(byte[].class))))
+                    .getResults();
+            if (results.size() != expected) {
+                throw new IOException("Expected " + expected + " forwarded results, got " + results.size());
+            }
+            return results;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static BidResult result(BidOutcome outcome) {
+        Integer auctionId = outcome.getBid().getAuctionId();
+        if (outcome.isApplied()) {
+            return new BidResult(HttpStatus.CREATED_201, auctionId, outcome.getBid().equals(outcome.getWinner()), null,
+                    outcome.getWarning());
+        }
+        if (outcome.getFailure() instanceof WebApplicationException) {
+            int status = ((WebApplicationException) outcome.getFailure()).getResponse().getStatus();
+            return new BidResult(status, auctionId, null, HttpStatus.getMessage(status));
+        }
+        return new BidResult(HttpStatus.INTERNAL_SERVER_ERROR_500, auctionId, null,
+                HttpStatus.getMessage(HttpStatus.INTERNAL_SERVER_ERROR_500));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,54 @@
+package com.auction.resources;
+
+import com.auction.api.AuctionStatus;
+import com.auction.lifecycle.AuctionScheduler;
+import com.auction.services.AuctionService;
+import com.codahale.metrics.annotation.Timed;
+import org.eclipse.jetty.http.HttpStatus;
+
+import javax.inject.Singleton;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import javax.ws.rs.GET;
+import javax.ws.rs.PUT;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+
+@Singleton
+@Path("/auction/close")
+@Produces(MediaType.APPLICATION_JSON)
+public class AuctionScheduleResource {
+
+    private final AuctionService auctionService;
+
+    private final AuctionScheduler scheduler;
+
+    public AuctionScheduleResource(AuctionService auctionService, AuctionScheduler scheduler) {
+        this.auctionService = auctionService;
+        this.scheduler = scheduler;
+    }
+
+    @GET
+    @Timed
+    public AuctionStatus getStatus(@QueryParam("auctionId") @NotNull @Min(0) Integer auctionId) {
+        return status(auctionId);
+    }
+
+    @PUT
+    @Timed
+    public AuctionStatus schedule(@QueryParam("auctionId") @NotNull @Min(0) Integer auctionId,
+                                  @QueryParam("closesAt") @NotNull @Min(0) Long closesAt) {
+        // Sets or moves the auction's close time, in epoch milliseconds. 409 Conflict if it has already closed.
+        scheduler.schedule(auctionId, closesAt);
+        return status(auctionId);
+    }
+
+    private AuctionStatus status(int auctionId) {
+        // Read the close time first: an auction closing in between then shows as closed rather than as neither.
+        Long closesAt = scheduler.getCloseTime(auctionId);
+        boolean closed = auctionService.isClosed(auctionId);
+        return new AuctionStatus(HttpStatus.OK_200, auctionId, closed ? null : closesAt, closed);
+    }
+}
@@ -0,0 +1,192 @@
+package com.auction.resources;
+
+import com.auction.model.Bid;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.dropwizard.jersey.validation.Validators;
+import io.dropwizard.validation.ConstraintViolations;
+import org.eclipse.jetty.http.HttpStatus;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+// Reads bids from a request body holding either a JSON array of bid objects or NDJSON, one bid object per line.
+//
+// The body is read token by token with Jackson's streaming parser and each object is turned straight into a Bid, so
+// no tree or intermediate bean is built for the batch. A bid that fails validation is reported on its own and does
+// not stop the rest of the batch; malformed JSON fails the whole request with 400 Bad Request.
+//
+// Every Bid built is checked against its Bean Validation constraints, as a single POST /auction is, and a bid that
+// violates one is reported with 422 like there.
+public class BidStreamParser {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final Validator VALIDATOR = Validators.newValidator();
+
+    private final int maxBids;
+
+    public BidStreamParser(int maxBids) {
+        this.maxBids = maxBids;
+    }
+
+    public List<ParsedBid> parse(InputStream body) {
+        List<ParsedBid> bids = new ArrayList<>();
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_ARRAY) {
+                while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                    add(bids, parseBid(parser, token));
+                }
+            } else {
+                while (token != null) {
+                    add(bids, parseBid(parser, token));
+                    token = parser.nextToken();
+                }
+            }
+        } catch (IOException e) {
+            throw new WebApplicationException(e, Response.Status.BAD_REQUEST);
+        }
+        return bids;
+    }
+
+    private void add(List<ParsedBid> bids, ParsedBid bid) {
+        if (bids.size() == maxBids) {
+            throw new WebApplicationException(Response.Status.REQUEST_ENTITY_TOO_LARGE);
+        }
+        bids.add(bid);
+    }
+
+    private ParsedBid parseBid(JsonParser parser, JsonToken token) throws IOException {
+        if (token != JsonToken.START_OBJECT) {
+            throw new WebApplicationException(Response.Status.BAD_REQUEST);
+        }
+        String bidderId = null;
+        String startingBid = null;
+        String maxBid = null;
+        String autoIncrement = null;
+        Integer auctionId = null;
+        String error = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            try {
+                switch (field) {
+                    case "bidderId":
+                        bidderId = text(parser, value);
+                        break;
+                    case "startingBid":
+                        startingBid = text(parser, value);
+                        break;
+                    case "maxBid":
+                        maxBid = text(parser, value);
+                        break;
+                    case "autoIncrement":
+                        autoIncrement = text(parser, value);
+                        break;
+                    case "auctionId":
+                        auctionId = integer(parser, value);
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            } catch (IllegalArgumentException e) {
+                parser.skipChildren();
+                error = error == null ? e.getMessage() : error;
+            }
+        }
+
+        if (error != null) {
+            return new ParsedBid(null, auctionId, error);
+        }
+        Bid bid;
+        try {
+            bid = new Bid(bidderId, startingBid, maxBid, autoIncrement, auctionId);
+        } catch (Exception e) {
+            return new ParsedBid(null, auctionId, e.getMessage());
+        }
+        return validated(bid);
+    }
+
+    // A bid that was built from the body, or the constraints it violates.
+    static ParsedBid validated(Bid bid) {
+        Set<ConstraintViolation<Bid>> violations = VALIDATOR.validate(bid);
+        if (violations.isEmpty()) {
+            return new ParsedBid(bid, bid.getAuctionId(), null);
+        }
+        return new ParsedBid(null, bid.getAuctionId(), HttpStatus.UNPROCESSABLE_ENTITY_422,
+                String.join(", ", ConstraintViolations.format(violations)));
+    }
+
+    private static String text(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (!value.isScalarValue()) {
+            throw new IllegalArgumentException(parser.getCurrentName() + " must be a string or number.");
+        }
+        return parser.getText();
+    }
+
+    private static Integer integer(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (value == JsonToken.VALUE_NUMBER_INT && parser.getNumberType() == JsonParser.NumberType.INT) {
+            return parser.getIntValue();
+        }
+        if (value == JsonToken.VALUE_STRING) {
+            try {
+                return Integer.valueOf(parser.getText().trim());
+            } catch (NumberFormatException e) {
+                // reported below
+            }
+        }
+        throw new IllegalArgumentException("auctionId must be a whole number.");
+    }
+
+
+    // A bid read from the body, or the reason it could not be turned into a valid Bid and the status to report.
+    public static final class ParsedBid {
+        private final Bid bid;
+        private final Integer auctionId;
+        private final int status;
+        private final String error;
+
+        ParsedBid(Bid bid, Integer auctionId, String error) {
+            this(bid, auctionId, HttpStatus.BAD_REQUEST_400, error);
+        }
+
+        ParsedBid(Bid bid, Integer auctionId, int status, String error) {
+            this.bid = bid;
+            this.auctionId = auctionId;
+            this.status = status;
+            this.error = error;
+        }
+
+        public Bid getBid() {
+            return bid;
+        }
+
+        public Integer getAuctionId() {
+            return auctionId;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package com.auction.resources;
+
+import com.auction.api.BatchResult;
+import com.auction.api.BidResult;
+import com.auction.api.ProcessedBid;
+import com.auction.api.Winner;
+import com.auction.model.Bid;
+import com.auction.model.Bidder;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Compact binary encoding of bids and their responses, for clients that submit bids at a rate where JSON parsing and
+// formatting show up. Clients select it with the application/x-auction-bid Content-Type and Accept headers.
+//
+// Every message is a frame, [int payload length][payload], big-endian. A body for POST /auction holds one frame, one
+// for POST /auction/batch any number of frames back to back. The payloads are
+//
+//     Bid           int auctionId, string bidderId, decimal startingBid, decimal maxBid, decimal autoIncrement
+//     ProcessedBid  short code, Bid
+//     Winner        short code, int auctionId, string bidderId, decimal winningPrice
+//     BatchResult   short code, int count, then per result short code, byte flags, [int auctionId], [string error],
+//                   [string warning]
+//
+// A string is an unsigned short byte length and UTF-8. A decimal is a byte scale, an unsigned byte length and the
+// unscaled value as two's-complement bytes, so any amount a bid can realistically hold round-trips exactly. The
+// BidResult flags say which optional fields follow.
+final class BinaryBidCodec {
+
+    // Upper bound on a frame; a bid with a 64 KB bidderId is already far beyond any real one.
+    static final int MAX_FRAME_BYTES = 1 << 17;
+
+    private static final int HAS_AUCTION_ID = 1;
+
+    private static final int HAS_WINNING = 2;
+
+    private static final int WINNING = 4;
+
+    private static final int HAS_ERROR = 8;
+
+    private static final int HAS_WARNING = 16;
+
+    private BinaryBidCodec() {
+    }
+
+    // Reads the next frame's payload, or returns null at the end of the stream.
+    static ByteBuffer readFrame(InputStream input) throws IOException {
+        byte[] header = new byte[4];
+        int read = readFully(input, header);
+        if (read == 0) {
+            return null;
+        }
+        if (read < header.length) {
+            throw new IOException("Truncated frame header.");
+        }
+        int length = ByteBuffer.wrap(header).getInt();
+        if (length < 0 || length > MAX_FRAME_BYTES) {
+            throw new IOException("Invalid frame length " + length + ".");
+        }
+        byte[] payload = new byte[length];
+        if (readFully(input, payload) < length) {
+            throw new IOException("Truncated frame.");
+        }
+        return ByteBuffer.wrap(payload);
+    }
+
+    // Reads the frames of a batch body. Like BidStreamParser, a bid that fails validation, Bean Validation included,
+    // is reported on its own, while a body that cannot be decoded fails the request with 400 Bad Request.
+    static List<BidStreamParser.ParsedBid> readBids(InputStream input, int maxBids) {
+        List<BidStreamParser.ParsedBid> bids = new ArrayList<>();
+        try {
+            ByteBuffer frame;
+            while ((frame = readFrame(input)) != null) {
+                if (bids.size() == maxBids) {
+                    throw new WebApplicationException(Response.Status.REQUEST_ENTITY_TOO_LARGE);
+                }
+                int auctionId = frame.getInt(0);
+                try {
+                    bids.add(BidStreamParser.validated(readBid(frame)));
+                } catch (InvalidBidException e) {
+                    bids.add(new BidStreamParser.ParsedBid(null, auctionId, e.getMessage()));
+                }
+            }
+        } catch (IOException | IndexOutOfBoundsException e) {
+            throw new WebApplicationException(e, Response.Status.BAD_REQUEST);
+        }
+        return bids;
+    }
+
+    // Decodes a Bid payload and validates it like the JSON constructor does.
+    static Bid readBid(ByteBuffer payload) throws IOException {
+        try {
+            int auctionId = payload.getInt();
+            String bidderId = getString(payload);
+            BigDecimal startingBid = getDecimal(payload);
+            BigDecimal maxBid = getDecimal(payload);
+            BigDecimal autoIncrement = getDecimal(payload);
+            checkConsumed(payload);
+            try {
+                return Bid.create(bidderId, startingBid, maxBid, autoIncrement, auctionId);
+            } catch (IOException e) {
+                throw new InvalidBidException(e.getMessage());
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated bid.", e);
+        }
+    }
+
+    static ProcessedBid readProcessedBid(ByteBuffer payload) throws IOException {
+        try {
+            int code = payload.getShort();
+            return new ProcessedBid(code, readBid(payload));
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated response.", e);
+        }
+    }
+
+    static Winner readWinner(ByteBuffer payload) throws IOException {
+        try {
+            int code = payload.getShort();
+            int auctionId = payload.getInt();
+            String bidderId = getString(payload);
+            BigDecimal winningPrice = getDecimal(payload);
+            checkConsumed(payload);
+            return new Winner(code, bidderId, winningPrice, auctionId);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated response.", e);
+        }
+    }
+
+    static BatchResult readBatchResult(ByteBuffer payload) throws IOException {
+        try {
+            int code = payload.getShort();
+            int count = payload.getInt();
+            if (count < 0 || count > payload.remaining() / 3) {
+                throw new IOException("Invalid result count " + count + ".");
+            }
+            List<BidResult> results = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int resultCode = payload.getShort();
+                int flags = payload.get();
+                Integer auctionId = (flags & HAS_AUCTION_ID) != 0 ? payload.getInt() : null;
+                Boolean winning = (flags & HAS_WINNING) != 0 ? (flags & WINNING) != 0 : null;
+                String error = (flags & HAS_ERROR) != 0 ? getString(payload) : null;
+                String warning = (flags & HAS_WARNING) != 0 ? getString(payload) : null;
+                results.add(new BidResult(resultCode, auctionId, winning, error, warning));
+            }
+            checkConsumed(payload);
+            return new BatchResult(code, results);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated response.", e);
+        }
+    }
+
+    static byte[] write(Bid bid) {
+        FrameWriter frame = new FrameWriter();
+        putBid(frame, bid);
+        return frame.toByteArray();
+    }
+
+    static byte[] write(ProcessedBid processedBid) {
+        FrameWriter frame = new FrameWriter();
+        frame.putShort(processedBid.getCode());
+        putBid(frame, processedBid.getBid());
+        return frame.toByteArray();
+    }
+
+    static byte[] write(Winner winner) {
+        FrameWriter frame = new FrameWriter();
+        frame.putShort(winner.getCode());
+        frame.putInt(winner.getAuctionId());
+        frame.putString(winner.getBidderId());
+        frame.putDecimal(winner.getWinningAmount());
+        return frame.toByteArray();
+    }
+
+    static byte[] write(BatchResult batch) {
+        FrameWriter frame = new FrameWriter();
+        frame.putShort(batch.getCode());
+        frame.putInt(batch.getResults().size());
+        for (BidResult result : batch.getResults()) {
+            int flags = (result.getAuctionId() != null ? HAS_AUCTION_ID : 0)
+                    | (result.getWinning() != null ? HAS_WINNING : 0)
+                    | (Boolean.TRUE.equals(result.getWinning()) ? WINNING : 0)
+                    | (result.getError() != null ? HAS_ERROR : 0)
+                    | (result.getWarning() != null ? HAS_WARNING : 0);
+            frame.putShort(result.getCode());
+            frame.write(flags);
+            if (result.getAuctionId() != null) {
+                frame.putInt(result.getAuctionId());
+            }
+            if (result.getError() != null) {
+                frame.putString(result.getError());
+            }
+            if (result.getWarning() != null) {
+                frame.putString(result.getWarning());
+            }
+        }
+        return frame.toByteArray();
+    }
+
+    private static void putBid(FrameWriter frame, Bid bid) {
+        frame.putInt(bid.getAuctionId());
+        frame.putBidderId(bid.getBidder());
+        frame.putDecimal(bid.getStartingBid());
+        frame.putDecimal(bid.getMaxBid());
+        frame.putDecimal(bid.getAutoIncrement());
+    }
+
+    private static String getString(ByteBuffer payload) {
+        int length = payload.getShort() & 0xFFFF;
+        if (length > payload.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        String value = new String(payload.array(), payload.arrayOffset() + payload.position(), length,
+                StandardCharsets.UTF_8);
+        payload.position(payload.position() + length);
+        return value;
+    }
+
+    private static BigDecimal getDecimal(ByteBuffer payload) throws IOException {
+        int scale = payload.get();
+        int length = payload.get() & 0xFF;
+        if (length == 0 || length > payload.remaining()) {
+            throw new IOException("Invalid decimal length " + length + ".");
+        }
+        if (length <= 8) {
+            // Sign-extends the first byte and shifts in the rest, which covers every realistic amount without a
+            // BigInteger.
+            long unscaled = payload.get();
+            for (int i = 1; i < length; i++) {
+                unscaled = unscaled << 8 | payload.get() & 0xFF;
+            }
+            return BigDecimal.valueOf(unscaled, scale);
+        }
+        byte[] unscaled = new byte[length];
+        payload.get(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+
+    private static void checkConsumed(ByteBuffer payload) throws IOException {
+        if (payload.hasRemaining()) {
+            throw new IOException("Frame has " + payload.remaining() + " unexpected trailing bytes.");
+        }
+    }
+
+    private static int readFully(InputStream input, byte[] bytes) throws IOException {
+        int read = 0;
+        while (read < bytes.length) {
+            int count = input.read(bytes, read, bytes.length - read);
+            if (count < 0) {
+                break;
+            }
+            read += count;
+        }
+        return read;
+    }
+
+
+    // A bid that decoded cleanly but failed validation.
+    static final class InvalidBidException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        InvalidBidException(String message) {
+            super(message);
+        }
+    }
+
+
+    // Builds one frame, filling in the length prefix once the payload is complete.
+    private static final class FrameWriter extends ByteArrayOutputStream {
+
+        private FrameWriter() {
+            super(64);
+            putInt(0);
+        }
+
+        private void putShort(long value) {
+            if (value < Short.MIN_VALUE || value > Short.MAX_VALUE) {
+                throw new IllegalArgumentException("Code " + value + " does not fit the binary encoding.");
+            }
+            write((int) value >>> 8);
+            write((int) value);
+        }
+
+        private void putInt(int value) {
+            write(value >>> 24);
+            write(value >>> 16);
+            write(value >>> 8);
+            write(value);
+        }
+
+        private void putString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > 0xFFFF) {
+                throw new IllegalArgumentException("String of " + bytes.length + " bytes does not fit the binary "
+                        + "encoding.");
+            }
+            write(bytes.length >>> 8);
+            write(bytes.length);
+            write(bytes, 0, bytes.length);
+        }
+
+        // As putString, writing the interned id's bytes without building a String.
+        private void putBidderId(Bidder bidder) {
+            int length = bidder.utf8Length();
+            if (length > 0xFFFF) {
+                throw new IllegalArgumentException("String of " + length + " bytes does not fit the binary "
+                        + "encoding.");
+            }
+            write(length >>> 8);
+            write(length);
+            if (count + length > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, count + length));
+            }
+            bidder.writeUtf8(ByteBuffer.wrap(buf, count, length));
+            count += length;
+        }
+
+        private void putDecimal(BigDecimal value) {
+            byte[] unscaled = value.unscaledValue().toByteArray();
+            if (value.scale() < Byte.MIN_VALUE || value.scale() > Byte.MAX_VALUE || unscaled.length > 0xFF) {
+                throw new IllegalArgumentException("Amount " + value + " does not fit the binary encoding.");
+            }
+            write(value.scale());
+            write(unscaled.length);
+            write(unscaled, 0, unscaled.length);
+        }
+
+        @Override
+        public synchronized byte[] toByteArray() {
+            int length = count - 4;
+            buf[0] = (byte) (length >>> 24);
+            buf[1] = (byte) (length >>> 16);
+            buf[2] = (byte) (length >>> 8);
+            buf[3] = (byte) length;
+            return super.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.auction.resources;
+
+import com.auction.api.BatchResult;
+import com.auction.api.ProcessedBid;
+import com.auction.api.Winner;
+import com.auction.model.Bid;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+
+// Reads and writes Bid, ProcessedBid, Winner and BatchResult in the binary encoding described in BinaryBidCodec when
+// the Content-Type or Accept header asks for application/x-auction-bid. Registered on both the server and clients,
+// so either side can encode and decode every message.
+@Provider
+@Consumes(BinaryBidProvider.APPLICATION_AUCTION_BID)
+@Produces(BinaryBidProvider.APPLICATION_AUCTION_BID)
+public class BinaryBidProvider implements MessageBodyReader<Object>, MessageBodyWriter<Object> {
+
+    public static final String APPLICATION_AUCTION_BID = "application/x-auction-bid";
+
+    public static final MediaType APPLICATION_AUCTION_BID_TYPE = new MediaType("application", "x-auction-bid");
+
+    @Override
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return isSupported(type) && APPLICATION_AUCTION_BID_TYPE.isCompatible(mediaType);
+    }
+
+    @Override
+    public Object readFrom(Class<Object> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                           MultivaluedMap<String, String> httpHeaders, InputStream entityStream) throws IOException {
+        Class<?> messageType = type;
+        ByteBuffer frame;
+        try {
+            frame = BinaryBidCodec.readFrame(entityStream);
+            if (frame == null || BinaryBidCodec.readFrame(entityStream) != null) {
+                throw new IOException("Expected exactly one frame.");
+            }
+            if (messageType == Bid.class) {
+                return BinaryBidCodec.readBid(frame);
+            }
+            if (messageType == ProcessedBid.class) {
+                return BinaryBidCodec.readProcessedBid(frame);
+            }
+            if (messageType == Winner.class) {
+                return BinaryBidCodec.readWinner(frame);
+            }
+            return BinaryBidCodec.readBatchResult(frame);
+        } catch (IOException e) {
+            // Both an undecodable body and an invalid bid are the client's fault.
+            throw new WebApplicationException(e, Response.Status.BAD_REQUEST);
+        }
+    }
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return isSupported(type) && APPLICATION_AUCTION_BID_TYPE.isCompatible(mediaType);
+    }
+
+    @Override
+    public long getSize(Object value, Class<?> type, Type genericType, Annotation[] annotations,
+                        MediaType mediaType) {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(Object value, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                        MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException {
+        byte[] frame;
+        if (value instanceof Bid) {
+            frame = BinaryBidCodec.write((Bid) value);
+        } else if (value instanceof ProcessedBid) {
+            frame = BinaryBidCodec.write((ProcessedBid) value);
+        } else if (value instanceof Winner) {
+            frame = BinaryBidCodec.write((Winner) value);
+        } else {
+            frame = BinaryBidCodec.write((BatchResult) value);
+        }
+        entityStream.write(frame);
+    }
+
+    private static boolean isSupported(Class<?> type) {
+        return type == Bid.class || type == ProcessedBid.class || type == Winner.class || type == BatchResult.class;
+    }
+}
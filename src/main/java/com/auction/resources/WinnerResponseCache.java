@@ -0,0 +1,89 @@
+package com.auction.resources;
+
+import com.auction.api.Winner;
+import com.auction.model.Bid;
+import com.auction.services.AuctionService;
+import com.auction.services.WinnerListener;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.CacheBuilder;
+import org.eclipse.jetty.http.HttpStatus;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
+import java.util.concurrent.ConcurrentMap;
+
+// Encoded GET /auction responses, kept per auction until its winner or winning price changes.
+//
+// A reader that misses first puts a placeholder for the auction, then reads the winner and encodes it, and finally
+// swaps the placeholder for the encoded response. A winner change removes whatever is cached for the auction, so if it
+// lands anywhere after the placeholder went in, the swap fails and the possibly stale response is served once but
+// never cached. A change that landed before the placeholder is already visible to the read.
+//
+// Once maxEntries auctions are cached the least recently read are evicted. Auctions without a winner are not cached
+// at all, so probing for auctions that do not exist cannot push out the ones that do. The cache only follows winner
+// changes once whoever builds it registers it as a WinnerListener.
+class WinnerResponseCache implements WinnerListener {
+
+    private static final byte[] PENDING = new byte[0];
+
+    private final AuctionService auctionService;
+
+    private final ObjectMapper objectMapper;
+
+    private final ConcurrentMap<Integer, byte[]> responses;
+
+    WinnerResponseCache(AuctionService auctionService, ObjectMapper objectMapper, int maxEntries) {
+        this.auctionService = auctionService;
+        this.objectMapper = objectMapper;
+        this.responses = CacheBuilder.newBuilder().maximumSize(maxEntries).<Integer, byte[]>build().asMap();
+    }
+
+    @Override
+    public void winnerChanged(Bid previousWinner, Bid winner) {
+        responses.remove(winner.getAuctionId());
+    }
+
+    byte[] get(Integer auctionId) {
+        byte[] response = responses.get(auctionId);
+        if (response != null && response != PENDING) {
+            return response;
+        }
+
+        // Only the reader whose placeholder went in caches its result; concurrent misses just encode for themselves.
+        boolean caching = response == null && responses.putIfAbsent(auctionId, PENDING) == null;
+        try {
+            Bid winner = auctionService.findWinner(auctionId);
+            if (winner == null) {
+                if (caching) {
+                    responses.remove(auctionId, PENDING);
+                    caching = false;
+                }
+                winner = auctionService.getWinner(auctionId);
+            }
+            response = encode(new Winner(HttpStatus.OK_200, winner.getId(), winner.getWinningPrice(),
+                    winner.getAuctionId()));
+        } catch (RuntimeException e) {
+            if (caching) {
+                responses.remove(auctionId, PENDING);
+            }
+            throw e;
+        }
+        if (caching) {
+            responses.replace(auctionId, PENDING, response);
+        }
+        return response;
+    }
+
+    int size() {
+        return responses.size();
+    }
+
+    private byte[] encode(Winner winner) {
+        try {
+            return objectMapper.writeValueAsBytes(winner);
+        } catch (JsonProcessingException e) {
+            throw new WebApplicationException(e, Response.Status.INTERNAL_SERVER_ERROR);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.auction.resources;
+
+import com.auction.api.Winner;
+import com.auction.model.Bid;
+import com.auction.services.AuctionService;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.eclipse.jetty.http.HttpStatus;
+
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Map;
+
+// Writes the winners of many auctions straight to the response as they are looked up, instead of building a Winner
+// per auction and a list to hold them. Auctions without bids get the same "No entries." placeholder as GET /auction,
+// written from constants rather than from a placeholder Bid.
+class WinnersOutput implements StreamingOutput {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    static final String NO_ENTRIES_BIDDER = "No entries.";
+
+    static final String NO_ENTRIES_PRICE = Winner.formatPrice(BigDecimal.ZERO);
+
+    private final AuctionService auctionService;
+
+    private final int[] auctionIds;
+
+    // Winners of auctions other cluster nodes own, already fetched from them.
+    private final Map<Integer, Winner> forwarded;
+
+    WinnersOutput(AuctionService auctionService, int[] auctionIds) {
+        this(auctionService, auctionIds, Collections.emptyMap());
+    }
+
+    WinnersOutput(AuctionService auctionService, int[] auctionIds, Map<Integer, Winner> forwarded) {
+        this.auctionService = auctionService;
+        this.auctionIds = auctionIds;
+        this.forwarded = forwarded;
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(output, JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeNumberField("code", HttpStatus.OK_200);
+            generator.writeArrayFieldStart("winners");
+            for (int auctionId : auctionIds) {
+                Winner remote = forwarded.get(auctionId);
+                Bid winner = remote == null ? auctionService.findWinner(auctionId) : null;
+                generator.writeStartObject();
+                if (remote != null) {
+                    generator.writeStringField("bidderId", remote.getBidderId());
+                    generator.writeStringField("winningPrice", remote.getWinningPrice());
+                } else if (winner == null) {
+                    generator.writeStringField("bidderId", NO_ENTRIES_BIDDER);
+                    generator.writeStringField("winningPrice", NO_ENTRIES_PRICE);
+                } else {
+                    generator.writeStringField("bidderId", winner.getId());
+                    generator.writeStringField("winningPrice", Winner.formatPrice(winner.getWinningPrice()));
+                }
+                generator.writeNumberField("auctionId", auctionId);
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
+}
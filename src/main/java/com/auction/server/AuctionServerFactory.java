@@ -0,0 +1,40 @@
+package com.auction.server;
+
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonTypeName;
+import io.dropwizard.server.DefaultServerFactory;
+import org.eclipse.jetty.util.thread.ThreadPool;
+
+import javax.validation.constraints.NotNull;
+
+// Dropwizard's default server with a choice of request threads, selected in config.yml with "type: auction" under
+// server. With PLATFORM it builds exactly the thread pool the default server factory does.
+//
+// With VIRTUAL every request runs on its own virtual thread, with no limit on how many run at once. maxThreads,
+// minThreads and maxQueuedRequests then only size the platform threads kept for Jetty's acceptors and selectors,
+// which block in accept() and select() and would pin a virtual thread's carrier; see VirtualThreadPool.
+@JsonTypeName("auction")
+public class AuctionServerFactory extends DefaultServerFactory {
+
+    @NotNull
+    private RequestThreads requestThreads = RequestThreads.PLATFORM;
+
+    @JsonProperty
+    public RequestThreads getRequestThreads() {
+        return requestThreads;
+    }
+
+    @JsonProperty
+    public void setRequestThreads(RequestThreads requestThreads) {
+        this.requestThreads = requestThreads;
+    }
+
+    @Override
+    protected ThreadPool createThreadPool(MetricRegistry metricRegistry) {
+        if (requestThreads == RequestThreads.PLATFORM) {
+            return super.createThreadPool(metricRegistry);
+        }
+        return new VirtualThreadPool(super.createThreadPool(metricRegistry), "dw-virtual", metricRegistry);
+    }
+}
@@ -0,0 +1,13 @@
+package com.auction.server;
+
+// What kind of threads Jetty's request thread pool starts.
+public enum RequestThreads {
+
+    // Ordinary platform threads, as Dropwizard's default server factory starts them.
+    PLATFORM,
+
+    // A new virtual thread for every request, which needs Java 21 or newer at runtime. A request blocked on the
+    // journal or the bid engine then parks cheaply instead of holding an OS thread, and there is no cap on requests
+    // in flight. Jetty's acceptors and selectors keep running on platform threads.
+    VIRTUAL
+}
@@ -0,0 +1,124 @@
+package com.auction.server;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import org.eclipse.jetty.util.component.ContainerLifeCycle;
+import org.eclipse.jetty.util.thread.ThreadPool;
+import org.eclipse.jetty.util.thread.strategy.EatWhatYouKill;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Jetty's thread pool for VIRTUAL request threads: every request runs on a new virtual thread of an unbounded
+// thread-per-task executor, and only Jetty's acceptors and selectors run on a pool of platform threads.
+//
+// Acceptors and selectors must stay on platform threads. They block in accept() and select() for the life of the
+// server, and a virtual thread blocked there pins its carrier, as it does inside the synchronized sections Jetty 9.4
+// is full of. A handful of pinned carriers would stall every virtual thread in the service.
+//
+// This pool deliberately does not implement TryExecutor. Jetty's selectors then never hand their selecting over to a
+// reserved thread to run a request themselves, and execute every blocking request task here instead.
+class VirtualThreadPool extends ContainerLifeCycle implements ThreadPool {
+
+    private final ThreadPool platformThreads;
+
+    private final String name;
+
+    private final AtomicInteger running = new AtomicInteger();
+
+    private volatile ExecutorService virtualThreads;
+
+    VirtualThreadPool(ThreadPool platformThreads, String name, MetricRegistry metricRegistry) {
+        this.platformThreads = platformThreads;
+        this.name = name;
+        addBean(platformThreads);
+        metricRegistry.register(MetricRegistry.name(VirtualThreadPool.class, name, "running"),
+                (Gauge<Integer>) running::get);
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        virtualThreads = VirtualThreads.newPerTaskExecutor(name + "-");
+        super.doStart();
+    }
+
+    // Requests still running get until the stop timeout to finish and are interrupted after that.
+    @Override
+    protected void doStop() throws Exception {
+        super.doStop();
+        virtualThreads.shutdown();
+        if (!virtualThreads.awaitTermination(Math.max(getStopTimeout(), 1), TimeUnit.MILLISECONDS)) {
+            virtualThreads.shutdownNow();
+        }
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (isInfrastructure(task)) {
+            platformThreads.execute(task);
+            return;
+        }
+        ExecutorService executor = virtualThreads;
+        if (executor == null) {
+            throw new RejectedExecutionException(name + " is not started");
+        }
+        running.incrementAndGet();
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    running.decrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            running.decrementAndGet();
+            throw e;
+        }
+    }
+
+    @Override
+    public void join() throws InterruptedException {
+        platformThreads.join();
+        ExecutorService executor = virtualThreads;
+        if (executor != null) {
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                // Keep waiting, as QueuedThreadPool.join does.
+            }
+        }
+    }
+
+    // Platform threads plus the virtual threads running a request.
+    @Override
+    public int getThreads() {
+        return platformThreads.getThreads() + running.get();
+    }
+
+    // Only platform threads sit idle; a virtual thread ends with its request.
+    @Override
+    public int getIdleThreads() {
+        return platformThreads.getIdleThreads();
+    }
+
+    // There is no limit on virtual threads to run low on.
+    @Override
+    public boolean isLowOnThreads() {
+        return false;
+    }
+
+    int getRunningVirtualThreads() {
+        return running.get();
+    }
+
+    // Acceptors, and the selector loops each ManagedSelector starts as a lambda around its EatWhatYouKill strategy.
+    static boolean isInfrastructure(Runnable task) {
+        if (task instanceof EatWhatYouKill) {
+            return true;
+        }
+        String type = task.getClass().getName();
+        return type.equals("org.eclipse.jetty.server.AbstractConnector$Acceptor")
+                || type.startsWith("org.eclipse.jetty.io.ManagedSelector$$Lambda");
+    }
+}
@@ -0,0 +1,48 @@
+package com.auction.server;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+// Reaches the Java 21 virtual thread API through reflection, so the service keeps building for and running on Java 8
+// and only needs a newer runtime when virtual threads are asked for.
+final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    static boolean isSupported() {
+        try {
+            Thread.class.getMethod("ofVirtual");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    // Equivalent to Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(prefix, 0).factory()): starts a new
+    // virtual thread for every task, without a limit, and names them prefix0, prefix1 and so on.
+    static ExecutorService newPerTaskExecutor(String prefix) {
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+            Object factory = builderType.getMethod("factory").invoke(builder);
+            Method executor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) executor.invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual request threads need Java 21 or newer, but this is Java "
+                    + System.getProperty("java.version") + ".", e);
+        }
+    }
+
+    // Equivalent to thread.isVirtual(), false before Java 21.
+    static boolean isVirtual(Thread thread) {
+        try {
+            return (Boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+        } catch (ReflectiveOperationException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.auction.services;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+// Set of auctionIds kept in open-addressing int tables, about 8 bytes per id where a ConcurrentHashMap key set takes
+// a node and a boxed Integer, over 40.
+//
+// Ids are only ever added. The tables are split into segments whose monitor is held to add an id; contains reads
+// without a lock, since a slot is only ever written once, from EMPTY to its id, and a grown table is published whole.
+// A reader that has not synchronized with the add may miss an id added concurrently, as with any concurrent set.
+final class AuctionIdSet {
+
+    private static final int SEGMENT_BITS = 6;
+
+    private static final int SEGMENTS = 1 << SEGMENT_BITS;
+
+    private static final int MIN_CAPACITY = 16;
+
+    private static final int EMPTY = -1;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    AuctionIdSet() {
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    // Returns false if the set already held auctionId, which must not be negative.
+    boolean add(int auctionId) {
+        int hash = auctionId * 0x9E3779B9;
+        Segment segment = segments[hash >>> (Integer.SIZE - SEGMENT_BITS)];
+        synchronized (segment) {
+            return segment.add(auctionId, hash);
+        }
+    }
+
+    boolean contains(int auctionId) {
+        int hash = auctionId * 0x9E3779B9;
+        int[] keys = segments[hash >>> (Integer.SIZE - SEGMENT_BITS)].keys;
+        return keys[find(keys, auctionId, hash)] == auctionId;
+    }
+
+    int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    void forEach(IntConsumer action) {
+        for (Segment segment : segments) {
+            for (int key : segment.keys) {
+                if (key != EMPTY) {
+                    action.accept(key);
+                }
+            }
+        }
+    }
+
+    long estimatedBytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            bytes += 4L * segment.keys.length;
+        }
+        return bytes;
+    }
+
+    // Returns the id's slot, or the empty slot where it belongs.
+    private static int find(int[] keys, int auctionId, int hash) {
+        int mask = keys.length - 1;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != auctionId) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int[] newKeys(int capacity) {
+        int[] keys = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        return keys;
+    }
+
+
+    private static final class Segment {
+        private volatile int[] keys = newKeys(MIN_CAPACITY);
+        private volatile int size;
+
+        // Caller holds this segment's monitor.
+        private boolean add(int auctionId, int hash) {
+            int slot = find(keys, auctionId, hash);
+            if (keys[slot] == auctionId) {
+                return false;
+            }
+            if (size + 1 > keys.length * 3 / 4) {
+                int[] grown = newKeys(keys.length * 2);
+                for (int key : keys) {
+                    if (key != EMPTY) {
+                        grown[find(grown, key, key * 0x9E3779B9)] = key;
+                    }
+                }
+                keys = grown;
+                slot = find(keys, auctionId, hash);
+            }
+            keys[slot] = auctionId;
+            size++;
+            return true;
+        }
+    }
+}
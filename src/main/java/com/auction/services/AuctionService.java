@@ -1,24 +1,101 @@
 package com.auction.services;
 
 import com.auction.model.Bid;
+import com.auction.model.Money;
 import org.jetbrains.annotations.NotNull;
 
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Response;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.util.Map;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.ObjLongConsumer;
 
 public class AuctionService {
 
-    private Map<Integer, Bid> auctionWinners = new ConcurrentHashMap<>();
+    private final WinnerStore auctionWinners;
+
+    // Final winners of closed auctions, moved out of auctionWinners when the auction closes. Closed auctions are
+    // only ever read, so they are packed into primitive arrays whatever store open auctions use.
+    private final WinnerStore closedWinners = new PrimitiveWinnerStore();
+
+    // Closed auctions that never received a bid. Every auction ends up here or in closedWinners, so they are kept as
+    // primitive ints.
+    private final AuctionIdSet closedWithoutBids = new AuctionIdSet();
+
+    // Close time in epoch milliseconds of every auction that is scheduled but not closed yet.
+    private final ConcurrentMap<Integer, Long> closeTimes = new ConcurrentHashMap<>();
+
+    private final List<CloseListener> closeListeners = new CopyOnWriteArrayList<>();
+
+    private final List<WinnerListener> winnerListeners = new CopyOnWriteArrayList<>();
+
+    private final List<WinnerListener> orderedWinnerListeners = new CopyOnWriteArrayList<>();
+
+    private final List<BidListener> bidListeners = new CopyOnWriteArrayList<>();
+
+    private final List<ResolutionListener> resolutionListeners = new CopyOnWriteArrayList<>();
+
+    // One in this many resolved bids is timed. System.nanoTime() alone can cost as much as resolving a bid.
+    private volatile int resolutionTimingInterval = 1;
+
+    // Winners loaded at startup that have not been updated since. An auction is promoted into auctionWinners the
+    // first time a bid or a replayed journal record touches it, and auctionWinners takes precedence from then on.
+    private volatile WinnerSource baseline = EMPTY_BASELINE;
+
+    private final AtomicInteger promotedAuctions = new AtomicInteger();
+
+    private static final WinnerSource EMPTY_BASELINE = new WinnerSource() {
+        @Override
+        public Bid get(int auctionId) {
+            return null;
+        }
+
+        @Override
+        public int size() {
+            return 0;
+        }
+
+        @Override
+        public void forEach(Consumer<Bid> action) {
+        }
+    };
+
+    // Whether bids whose prices fit in micro-units are resolved with long arithmetic. Both paths produce identical
+    // winners and prices, including the BigDecimal scale of the winning price.
+    private final boolean fixedPoint;
+
+    public AuctionService() {
+        this(new HeapWinnerStore());
+    }
+
+    public AuctionService(WinnerStore auctionWinners) {
+        this(auctionWinners, true);
+    }
+
+    AuctionService(boolean fixedPoint) {
+        this(new HeapWinnerStore(), fixedPoint);
+    }
+
+    // fixedPoint false always resolves with BigDecimal, which the replay command uses as the reference to diff the
+    // fixed-point path against.
+    public AuctionService(WinnerStore auctionWinners, boolean fixedPoint) {
+        this.auctionWinners = auctionWinners;
+        this.fixedPoint = fixedPoint;
+    }
 
     public Bid getWinner(Integer auctionId) {
         if (auctionId == null || auctionId < 0) {
             throw new WebApplicationException(Response.Status.BAD_REQUEST);
         }
-        Bid winner = auctionWinners.get(auctionId);
+        Bid winner = findWinner(auctionId);
         try {
             if (winner == null) {
                 winner = new Bid("No entries.", "0",
@@ -30,29 +107,334 @@ public class AuctionService {
         }
     }
 
-    public void processBid(Bid newBid) {
+    // Returns the auction's winning Bid, or null if the auction has no bids. Unlike getWinner, a miss allocates
+    // nothing, which matters when looking up many auctions at once.
+    public Bid findWinner(int auctionId) {
+        Bid winner = auctionWinners.get(auctionId);
+        if (winner == null) {
+            winner = closedWinners.get(auctionId);
+        }
+        return winner != null ? winner : baseline.get(auctionId);
+    }
+
+    // Like findWinner, but for bulk readers such as snapshots: the read does not count as use of the auction, so a
+    // tiered store keeps its working set.
+    public Bid peekWinner(int auctionId) {
+        Bid winner = auctionWinners.peek(auctionId);
+        if (winner == null) {
+            winner = closedWinners.get(auctionId);
+        }
+        return winner != null ? winner : baseline.get(auctionId);
+    }
+
+    // Applies newBid to its auction and returns the auction's winning Bid afterwards, or null if newBid was
+    // incomplete and therefore ignored. A bid on a closed auction is rejected with 409 Conflict.
+    //
+    // Safe to call from any thread, not only BidEngine's: ordered WinnerListeners are told inside the auction's
+    // compute(), so they see one auction's changes in the order they were applied whoever applies them, and if one
+    // throws the bid is not applied at all.
+    public Bid processBid(Bid newBid) {
 
         if (isNullOrContainsAnyNullFields(newBid)) {
-            return ;
+            return null;
+        }
+
+        // The whole read-compare-replace for an auction happens inside compute(), so two bids racing on the same
+        // auction are applied one after the other against whichever winner the other one left behind. Stored Bids
+        // are never mutated; a new winning price is published as a new Bid instance, which means readers calling
+        // getWinner() always see a consistent winner and price pair.
+        boolean notify = !resolutionListeners.isEmpty();
+        int interval = resolutionTimingInterval;
+        boolean timed = notify && (interval == 1 || ThreadLocalRandom.current().nextInt(interval) == 0);
+        long start = timed ? System.nanoTime() : 0;
+        Resolution resolution = new Resolution();
+        Bid winner = auctionWinners.compute(newBid.getAuctionId(), winningBid -> {
+            if (winningBid == null) {
+                // A closed auction is never in auctionWinners, so only a miss needs to check for one.
+                if (isClosed(newBid.getAuctionId())) {
+                    resolution.branch = BidResolution.CLOSED;
+                    return null;
+                }
+                winningBid = promote(newBid.getAuctionId());
+            }
+            resolution.previousWinner = winningBid;
+            Bid resolved = resolveWinner(winningBid, newBid, resolution);
+            if (resolved != winningBid) {
+                winnerChangedInOrder(winningBid, resolved);
+            }
+            return resolved;
+        });
+
+        if (notify) {
+            long nanos = timed ? System.nanoTime() - start : -1;
+            for (ResolutionListener listener : resolutionListeners) {
+                listener.bidResolved(newBid.getAuctionId(), resolution.branch, nanos);
+            }
+        }
+        if (resolution.branch == BidResolution.CLOSED) {
+            throw new WebApplicationException(Response.Status.CONFLICT);
+        }
+        if (winner != resolution.previousWinner) {
+            for (WinnerListener listener : winnerListeners) {
+                listener.winnerChanged(resolution.previousWinner, winner);
+            }
+        }
+        for (BidListener listener : bidListeners) {
+            listener.bidProcessed(newBid, winner);
         }
+        return winner;
+    }
+
+    // Told after the change is applied, outside the auction's lock. Two threads applying bids to the same auction
+    // can tell it about their changes in either order.
+    public void addWinnerListener(WinnerListener listener) {
+        winnerListeners.add(listener);
+    }
+
+    // Told inside the auction's compute(), before the change is applied, so changes to one auction arrive in the
+    // order they were applied and a listener that throws stops the change. Meant for the journal; it holds up every
+    // other auction sharing the lock while it runs.
+    public void addOrderedWinnerListener(WinnerListener listener) {
+        orderedWinnerListeners.add(listener);
+    }
+
+    public void addBidListener(BidListener listener) {
+        bidListeners.add(listener);
+    }
+
+    public void addResolutionListener(ResolutionListener listener) {
+        resolutionListeners.add(listener);
+    }
+
+    public void addCloseListener(CloseListener listener) {
+        closeListeners.add(listener);
+    }
+
+    // Times one in interval resolved bids, picked at random, instead of every one.
+    public void setResolutionTimingInterval(int interval) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("interval must be positive.");
+        }
+        resolutionTimingInterval = interval;
+    }
+
+    public int getResolutionTimingInterval() {
+        return resolutionTimingInterval;
+    }
+
+    // Puts a previously persisted winner back in place without resolving it against the current winner and without
+    // notifying listeners. Used while recovering state at startup.
+    public void restoreWinner(@NotNull Bid winner) {
+        auctionWinners.compute(winner.getAuctionId(), restoredBid -> {
+            if (restoredBid == null) {
+                promote(winner.getAuctionId());
+            }
+            return winner;
+        });
+    }
+
+    // Puts a winner received from the replication primary in place as is, without resolving it against the current
+    // winner. Unlike restoreWinner, WinnerListeners are notified, so the response cache, event subscribers and the
+    // journal of a replica follow the primary's changes.
+    public void replicateWinner(@NotNull Bid winner) {
+        Bid[] previous = new Bid[1];
+        auctionWinners.compute(winner.getAuctionId(), current -> {
+            previous[0] = current != null ? current : promote(winner.getAuctionId());
+            if (previous[0] != winner) {
+                winnerChangedInOrder(previous[0], winner);
+            }
+            return winner;
+        });
+        if (previous[0] != winner) {
+            for (WinnerListener listener : winnerListeners) {
+                listener.winnerChanged(previous[0], winner);
+            }
+        }
+    }
+
+    // Sets the winners to fall back to for auctions that have not been bid on since startup. Must be called before
+    // any bid is processed or restored.
+    public void setBaseline(@NotNull WinnerSource baseline) {
+        this.baseline = baseline;
+        this.promotedAuctions.set(0);
+    }
+
+    // Sets or moves the auction's close time, in epoch milliseconds. Returns false, changing nothing, if the auction
+    // has already closed. CloseListeners are told inside the change, so they see changes to one auction in order.
+    public boolean setCloseTime(int auctionId, long closesAt) {
+        if (isClosed(auctionId)) {
+            return false;
+        }
+        closeTimes.compute(auctionId, (ignored, current) -> {
+            for (CloseListener listener : closeListeners) {
+                listener.closeTimeChanged(auctionId, closesAt);
+            }
+            return closesAt;
+        });
+        return true;
+    }
+
+    // The auction's close time in epoch milliseconds, or null if it has none or has already closed.
+    public Long getCloseTime(int auctionId) {
+        return closeTimes.get(auctionId);
+    }
+
+    public int getScheduledCount() {
+        return closeTimes.size();
+    }
+
+    // Visits every auction's close time. Each visit runs under the same per-auction ordering as setCloseTime, so a
+    // close time recorded by the visitor is never older than one a CloseListener has already been told about.
+    public void forEachCloseTime(ObjLongConsumer<Integer> action) {
+        for (Integer auctionId : closeTimes.keySet()) {
+            closeTimes.computeIfPresent(auctionId, (ignored, closesAt) -> {
+                action.accept(auctionId, closesAt);
+                return closesAt;
+            });
+        }
+    }
+
+    // Closes the auction if closesAt is still its close time. Returns false if the close time has moved or the
+    // auction was already closed.
+    public boolean closeAuction(int auctionId, long closesAt) {
+        return closeTimes.remove(auctionId, closesAt) && closeAuction(auctionId);
+    }
+
+    // Closes the auction: later bids on it are rejected and its winner, if it has one, moves to the closed store.
+    // Waits for a bid being applied to the auction to finish first. Returns false if it was already closed.
+    public boolean closeAuction(int auctionId) {
+        if (!close(auctionId)) {
+            return false;
+        }
+        for (CloseListener listener : closeListeners) {
+            listener.auctionClosed(auctionId);
+        }
+        return true;
+    }
+
+    // Puts a previously persisted close time back in place without notifying listeners. Ignored if the auction has
+    // closed. Used while recovering state at startup.
+    public void restoreCloseTime(int auctionId, long closesAt) {
+        if (!isClosed(auctionId)) {
+            closeTimes.put(auctionId, closesAt);
+        }
+    }
+
+    // Closes the auction again without notifying listeners. Used while recovering state at startup.
+    public void restoreClosed(int auctionId) {
+        close(auctionId);
+    }
+
+    public boolean isClosed(int auctionId) {
+        return closedWinners.containsKey(auctionId) || closedWithoutBids.contains(auctionId);
+    }
+
+    // Visits the id of every closed auction.
+    public void forEachClosed(IntConsumer action) {
+        closedWinners.forEach(winner -> action.accept(winner.getAuctionId()));
+        closedWithoutBids.forEach(action);
+    }
+
+    // Visits every auction's current winner, closed auctions included, weakly consistent with concurrent bids.
+    public void forEachWinner(Consumer<Bid> action) {
+        auctionWinners.forEach(action);
+        closedWinners.forEach(action);
+        WinnerSource source = baseline;
+        source.forEach(winner -> {
+            if (!auctionWinners.containsKey(winner.getAuctionId())
+                    && !closedWinners.containsKey(winner.getAuctionId())) {
+                action.accept(winner);
+            }
+        });
+    }
+
+    // Number of auctions with a winner, open or closed.
+    public int getAuctionCount() {
+        return auctionWinners.size() + closedWinners.size() + baseline.size() - promotedAuctions.get();
+    }
+
+    public int getClosedAuctionCount() {
+        return closedWinners.size() + closedWithoutBids.size();
+    }
+
+    // Rough heap footprint of the winners held in memory. Baseline winners mapped from a snapshot are not counted.
+    public long getEstimatedWinnerBytes() {
+        return auctionWinners.estimatedBytes() + closedWinners.estimatedBytes();
+    }
+
+    private boolean close(int auctionId) {
+        boolean[] closed = new boolean[1];
+        auctionWinners.compute(auctionId, winner -> {
+            if (winner == null) {
+                if (isClosed(auctionId)) {
+                    return null;
+                }
+                winner = promote(auctionId);
+            }
+            // The auction is marked closed before it leaves auctionWinners, so a reader never finds it in neither.
+            if (winner == null) {
+                closedWithoutBids.add(auctionId);
+            } else {
+                Bid finalWinner = winner;
+                closedWinners.compute(auctionId, ignored -> finalWinner);
+            }
+            closed[0] = true;
+            return null;
+        });
+        if (closed[0]) {
+            closeTimes.remove(auctionId);
+        }
+        return closed[0];
+    }
+
+    private void winnerChangedInOrder(Bid previousWinner, Bid winner) {
+        for (WinnerListener listener : orderedWinnerListeners) {
+            listener.winnerChanged(previousWinner, winner);
+        }
+    }
+
+    // Called inside compute() for an auction that has no heap entry yet.
+    private Bid promote(int auctionId) {
+        Bid winner = baseline.get(auctionId);
+        if (winner != null) {
+            promotedAuctions.incrementAndGet();
+        }
+        return winner;
+    }
+
+    // Returns the auction's winning Bid after newBid has competed against winningBid. The returned Bid is
+    // winningBid itself when nothing changed, so callers can detect an update with a reference comparison.
+    private Bid resolveWinner(Bid winningBid, @NotNull Bid newBid, Resolution resolution) {
 
         // Initialize winning Bid.
-        if (!auctionWinners.containsKey(newBid.getAuctionId())) {
-            auctionWinners.put(newBid.getAuctionId(), newBid);
-            return ;
+        if (winningBid == null) {
+            resolution.branch = BidResolution.NEW_AUCTION;
+            return newBid;
         }
 
         // Dupe Handling: Don't compare winning duplicate against itself if the following fields are equal:
         // id, startingBid, maxBid, autoIncrement
-        if (auctionWinners.get(newBid.getAuctionId()).equals(newBid)) {
-            return ;
+        if (winningBid.equals(newBid)) {
+            resolution.branch = BidResolution.DUPLICATE;
+            return winningBid;
+        }
+
+        if (fixedPoint && isFixedPoint(winningBid) && isFixedPoint(newBid)) {
+            try {
+                return resolveWinnerFixedPoint(winningBid, newBid, resolution);
+            } catch (ArithmeticException e) {
+                // A price overflowed a long; the BigDecimal path below gives the exact answer.
+            }
         }
+        return resolveWinnerDecimal(winningBid, newBid, resolution);
+    }
 
-        Bid winningBid = auctionWinners.get(newBid.getAuctionId());
+    private Bid resolveWinnerDecimal(@NotNull Bid winningBid, @NotNull Bid newBid, Resolution resolution) {
 
         // If the newBid's maxBid cannot overtake the winningBid's winningPrice, winningBid should stay the same.
         if (winningBid.getWinningPrice().compareTo(newBid.getMaxBid()) >= 0) {
-            return ;
+            resolution.branch = BidResolution.CANNOT_OVERTAKE;
+            return winningBid;
         }
 
 
@@ -94,8 +476,8 @@ public class AuctionService {
             BigDecimal relativeWinningPrice = relativeWinningPrice(winningBid, newBidMaxPotential);
 
             // update the winningBid's winningPrice to simulate outbidding the losing bid.
-            winningBid.setWinningPrice(relativeWinningPrice);
-            return ;
+            resolution.branch = BidResolution.INCUMBENT_WINS;
+            return withWinningPrice(winningBid, relativeWinningPrice);
         }
 
 
@@ -118,12 +500,9 @@ public class AuctionService {
                 relativeWinningPrice = relativeWinningPrice.add(newBid.getAutoIncrement());
             }
 
-            // update the newBid's winningPrice to simulate outbidding the losing bid.
-            newBid.setWinningPrice(relativeWinningPrice);
-
-            // replace the previous winningBid with newBid as the winningBid for this auction
-            auctionWinners.put(newBid.getAuctionId(), newBid);
-            return;
+            // replace the previous winningBid with newBid, priced to simulate outbidding the losing bid.
+            resolution.branch = BidResolution.CHALLENGER_WINS;
+            return withWinningPrice(newBid, relativeWinningPrice);
         }
 
 
@@ -138,12 +517,62 @@ public class AuctionService {
         // Highest, valid bid newBid can make
         BigDecimal newBidMaxPotential = maximumPotentialBid(newBid);
 
+        resolution.branch = BidResolution.CLOSE_RACE;
         if (newBidMaxPotential.compareTo(winningBidMaxPotential) > 0) {
-            newBid.setWinningPrice(newBidMaxPotential);
-            auctionWinners.put(newBid.getAuctionId(), newBid);
-        } else {
-            winningBid.setWinningPrice(winningBidMaxPotential);
+            return withWinningPrice(newBid, newBidMaxPotential);
         }
+        return withWinningPrice(winningBid, winningBidMaxPotential);
+    }
+
+    // Same decision tree as resolveWinnerDecimal, evaluated on micro-unit longs so that no BigDecimal is created
+    // unless the winning price changes. Every intermediate value carries the scale its BigDecimal counterpart would
+    // have had, so the published winning price is equal to the one resolveWinnerDecimal produces, scale included.
+    // Overflow surfaces as an ArithmeticException from the exact arithmetic helpers.
+    private Bid resolveWinnerFixedPoint(@NotNull Bid winningBid, @NotNull Bid newBid, Resolution resolution) {
+
+        // If the newBid's maxBid cannot overtake the winningBid's winningPrice, winningBid should stay the same.
+        if (winningBid.getWinningPriceMicros() >= newBid.getMaxBidMicros()) {
+            resolution.branch = BidResolution.CANNOT_OVERTAKE;
+            return winningBid;
+        }
+
+        // winnerBid is the definite winner. Price it relative to newBid's maximumPotentialBid.
+        if (lowerBoundMaxPotentialSafeMicros(winningBid, newBid) >= 0) {
+            long newBidMaxPotential = maximumPotentialBidMicros(newBid);
+
+            long relativeWinningPrice = relativeWinningPriceMicros(winningBid, newBidMaxPotential);
+            int relativeWinningPriceScale = relativeWinningPriceScale(winningBid, newBidMaxPotential);
+
+            resolution.branch = BidResolution.INCUMBENT_WINS;
+            return withWinningPrice(winningBid, relativeWinningPrice, relativeWinningPriceScale);
+        }
+
+        // newBid is the definite winner. Price it relative to winningBid's maximumPotentialBid.
+        if (lowerBoundMaxPotentialSafeMicros(newBid, winningBid) > 0) {
+            long winningBidMaxPotential = maximumPotentialBidMicros(winningBid);
+
+            long relativeWinningPrice = relativeWinningPriceMicros(newBid, winningBidMaxPotential);
+            int relativeWinningPriceScale = relativeWinningPriceScale(newBid, winningBidMaxPotential);
+
+            // ties result in the original winner winning, so add another autoIncrement round.
+            if (relativeWinningPrice == winningBidMaxPotential) {
+                relativeWinningPrice = Math.addExact(relativeWinningPrice, newBid.getAutoIncrementMicros());
+                relativeWinningPriceScale = Math.max(relativeWinningPriceScale, newBid.getAutoIncrement().scale());
+            }
+
+            resolution.branch = BidResolution.CHALLENGER_WINS;
+            return withWinningPrice(newBid, relativeWinningPrice, relativeWinningPriceScale);
+        }
+
+        // No clear winner. Compare the true maximumPotentialBids.
+        long winningBidMaxPotential = maximumPotentialBidMicros(winningBid);
+        long newBidMaxPotential = maximumPotentialBidMicros(newBid);
+
+        resolution.branch = BidResolution.CLOSE_RACE;
+        if (newBidMaxPotential > winningBidMaxPotential) {
+            return withWinningPrice(newBid, newBidMaxPotential, maximumPotentialBidScale(newBid));
+        }
+        return withWinningPrice(winningBid, winningBidMaxPotential, maximumPotentialBidScale(winningBid));
     }
 
 /////////////////////////////////////////////////// HELPER FUNCTIONS ///////////////////////////////////////////////////
@@ -237,9 +666,91 @@ public class AuctionService {
     }
 
 
+    private int lowerBoundMaxPotentialSafeMicros(@NotNull Bid left, @NotNull Bid right) {
+        return Long.compare(left.getMaxBidMicros() - left.getAutoIncrementMicros(), right.getMaxBidMicros());
+    }
+
+
+    private long maximumPotentialBidMicros(@NotNull Bid bid) {
+        long notLessThanOrEqualToZero = bid.getMaxBidMicros() - bid.getStartingBidMicros();
+        if (notLessThanOrEqualToZero == 0) {
+            return bid.getStartingBidMicros();
+        }
+        long rounds = notLessThanOrEqualToZero / bid.getAutoIncrementMicros();
+        return Math.addExact(Math.multiplyExact(rounds, bid.getAutoIncrementMicros()), bid.getStartingBidMicros());
+    }
+
+    // Scale maximumPotentialBid() gives its result: startingBid's when there is nothing to add, otherwise the larger
+    // of autoIncrement's and startingBid's since the quotient is rounded to scale 0.
+    private int maximumPotentialBidScale(@NotNull Bid bid) {
+        if (bid.getMaxBidMicros() == bid.getStartingBidMicros()) {
+            return bid.getStartingBid().scale();
+        }
+        return Math.max(bid.getAutoIncrement().scale(), bid.getStartingBid().scale());
+    }
+
+
+    private long relativeWinningPriceMicros(@NotNull Bid winnerBid, long loserMaxPotential) {
+        long notLessThanOrEqualToZero = loserMaxPotential - winnerBid.getWinningPriceMicros();
+        if (notLessThanOrEqualToZero < 0) {
+            return winnerBid.getWinningPriceMicros();
+        }
+
+        if (notLessThanOrEqualToZero == 0) {
+            return Math.addExact(winnerBid.getWinningPriceMicros(), winnerBid.getAutoIncrementMicros());
+        }
+
+        long rounds = notLessThanOrEqualToZero / winnerBid.getAutoIncrementMicros();
+        if (notLessThanOrEqualToZero % winnerBid.getAutoIncrementMicros() != 0) {
+            rounds++;
+        }
+        return Math.addExact(Math.multiplyExact(rounds, winnerBid.getAutoIncrementMicros()),
+                winnerBid.getWinningPriceMicros());
+    }
+
+    // Scale relativeWinningPrice() gives its result, following the same three branches.
+    private int relativeWinningPriceScale(@NotNull Bid winnerBid, long loserMaxPotential) {
+        if (loserMaxPotential < winnerBid.getWinningPriceMicros()) {
+            return winnerBid.getWinningPrice().scale();
+        }
+        return Math.max(winnerBid.getAutoIncrement().scale(), winnerBid.getWinningPrice().scale());
+    }
+
+
+    // Avoids publishing a new winner instance when the price did not actually move.
+    private Bid withWinningPrice(@NotNull Bid bid, long winningPriceMicros, int scale) {
+        if (winningPriceMicros == bid.getWinningPriceMicros() && scale == bid.getWinningPrice().scale()) {
+            return bid;
+        }
+        return bid.withWinningPrice(Money.toBigDecimal(winningPriceMicros, scale), winningPriceMicros);
+    }
+
+    private boolean isFixedPoint(@NotNull Bid bid) {
+        return Money.isRepresentable(bid.getStartingBidMicros()) && Money.isRepresentable(bid.getMaxBidMicros())
+                && Money.isRepresentable(bid.getAutoIncrementMicros())
+                && Money.isRepresentable(bid.getWinningPriceMicros());
+    }
+
+
+    // Avoids publishing a new winner instance when the price did not actually move.
+    private Bid withWinningPrice(@NotNull Bid bid, @NotNull BigDecimal winningPrice) {
+        if (winningPrice.equals(bid.getWinningPrice())) {
+            return bid;
+        }
+        return bid.withWinningPrice(winningPrice);
+    }
+
+
     private boolean isNullOrContainsAnyNullFields(Bid bid) {
-        return (bid == null || bid.getId() == null || bid.getStartingBid() == null ||
+        return (bid == null || bid.getBidder() == null || bid.getStartingBid() == null ||
                 bid.getMaxBid() == null || bid.getAutoIncrement() == null || bid.getAuctionId() == null ||
                 bid.getWinningPrice() == null);
     }
+
+
+    // What resolving one bid found out, filled in inside compute().
+    private static final class Resolution {
+        private Bid previousWinner;
+        private BidResolution branch;
+    }
 }
@@ -0,0 +1,326 @@
+package com.auction.services;
+
+import com.auction.model.Bid;
+import com.auction.persistence.BidJournal;
+import io.dropwizard.lifecycle.Managed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Partitions auctions by auctionId into shards and applies every bid for a shard on that shard's own thread.
+// Since only one thread ever writes a given auction, bids on a hot auction no longer contend with each other inside
+// AuctionService, and each shard drains its queue in batches instead of waking up once per bid.
+//
+// Request threads hand bids off through a bounded queue per shard. When a shard's queue is full the bid is rejected
+// with 429 Too Many Requests and a Retry-After rather than letting an overloaded shard queue up work without limit.
+// Once the engine is stopping bids are rejected with 503, and bids still queued are failed with 503.
+//
+// With a journal, a shard acknowledges a batch only after the journal has committed the winner changes the batch
+// produced. The shard does not wait for that itself; it moves on to its next batch while the journal's group commit
+// is in flight. The journal queues a winner change inside the change itself, so a bid the journal cannot queue is
+// not applied and fails; once queued the change is applied, so when the commit fails the bids are still reported as
+// applied, which they are, with the NOT_JOURNALED warning.
+public class BidEngine implements Managed {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BidEngine.class);
+
+    static final int TOO_MANY_REQUESTS = 429;
+
+    // Seconds a client is asked to wait before retrying a bid a full shard turned away.
+    static final int RETRY_AFTER_SECONDS = 1;
+
+    private final AuctionService auctionService;
+
+    private final BidJournal journal;
+
+    private final Shard[] shards;
+
+    private final int batchSize;
+
+    private final long timeoutMillis;
+
+    public BidEngine(AuctionService auctionService, int shardCount, int queueCapacity, int batchSize,
+                     long timeoutMillis) {
+        this(auctionService, null, shardCount, queueCapacity, batchSize, timeoutMillis);
+    }
+
+    // journal may be null, in which case bids are acknowledged as soon as they are applied.
+    public BidEngine(AuctionService auctionService, BidJournal journal, int shardCount, int queueCapacity,
+                     int batchSize, long timeoutMillis) {
+        if (shardCount < 1 || queueCapacity < 1 || batchSize < 1 || timeoutMillis < 1) {
+            throw new IllegalArgumentException("Shard count, queue capacity, batch size and timeout must be positive.");
+        }
+        this.auctionService = auctionService;
+        this.journal = journal;
+        this.batchSize = batchSize;
+        this.timeoutMillis = timeoutMillis;
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i, queueCapacity);
+        }
+    }
+
+    @Override
+    public void start() {
+        for (Shard shard : shards) {
+            shard.thread.start();
+        }
+    }
+
+    @Override
+    public void stop() throws InterruptedException {
+        for (Shard shard : shards) {
+            shard.running = false;
+            shard.thread.interrupt();
+        }
+        for (Shard shard : shards) {
+            shard.thread.join(timeoutMillis);
+            shard.failPending();
+        }
+    }
+
+    // Queues the bid on its auction's shard. The returned future completes with the auction's winning Bid once the
+    // bid has been applied.
+    public CompletableFuture<Bid> submit(Bid bid) {
+        return submitForOutcome(bid).thenApply(outcome -> {
+            if (!outcome.isApplied()) {
+                throw outcome.getFailure();
+            }
+            return outcome.getWinner();
+        });
+    }
+
+    // As submit, completing with the bid's outcome, applied or not, so the caller also sees its warning.
+    public CompletableFuture<BidOutcome> submitForOutcome(Bid bid) {
+        if (bid == null || bid.getAuctionId() == null) {
+            throw new WebApplicationException(Response.Status.BAD_REQUEST);
+        }
+        BidOutcome outcome = new BidOutcome(bid);
+        PendingBids pending = new PendingBids(Collections.singletonList(outcome));
+        Shard shard = shardFor(bid);
+        if (!shard.offer(pending)) {
+            throw shard.rejection();
+        }
+        return pending.done.thenApply(ignored -> outcome);
+    }
+
+    // Queues many bids at once. Bids are grouped by shard and, within a shard, by auctionId, and each shard receives
+    // its whole group as a single queue entry. Bids for the same auction are applied in the order given. The future
+    // completes with one outcome per bid, in the order given, once every group has been applied or rejected; a full
+    // shard only fails the bids it concerns.
+    public CompletableFuture<List<BidOutcome>> submitAll(List<Bid> bids) {
+        List<BidOutcome> outcomes = new ArrayList<>(bids.size());
+        List<List<BidOutcome>> groups = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            groups.add(new ArrayList<>());
+        }
+        for (Bid bid : bids) {
+            BidOutcome outcome = new BidOutcome(bid);
+            outcomes.add(outcome);
+            if (bid == null || bid.getAuctionId() == null) {
+                outcome.failed(new WebApplicationException(Response.Status.BAD_REQUEST));
+            } else {
+                groups.get(bid.getAuctionId() % shards.length).add(outcome);
+            }
+        }
+
+        List<CompletableFuture<Void>> queued = new ArrayList<>();
+        for (int i = 0; i < shards.length; i++) {
+            List<BidOutcome> group = groups.get(i);
+            if (group.isEmpty()) {
+                continue;
+            }
+            // List.sort is stable, so bids for one auction keep their relative order.
+            group.sort(Comparator.comparingInt(outcome -> outcome.getBid().getAuctionId()));
+            PendingBids pending = new PendingBids(group);
+            if (shards[i].offer(pending)) {
+                queued.add(pending.done);
+            } else {
+                for (BidOutcome outcome : group) {
+                    outcome.failed(shards[i].rejection());
+                }
+            }
+        }
+        return CompletableFuture.allOf(queued.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> outcomes);
+    }
+
+    // Queues the bid and blocks the calling thread until it has been applied.
+    public Bid process(Bid bid) {
+        return await(submit(bid));
+    }
+
+    // Queues the bids and blocks the calling thread until all of them have been applied or rejected.
+    public List<BidOutcome> processAll(List<Bid> bids) {
+        return await(submitAll(bids));
+    }
+
+    private <T> T await(CompletableFuture<T> result) {
+        try {
+            return result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WebApplicationException(Response.Status.SERVICE_UNAVAILABLE);
+        } catch (TimeoutException e) {
+            throw new WebApplicationException(Response.Status.SERVICE_UNAVAILABLE);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof WebApplicationException) {
+                throw (WebApplicationException) e.getCause();
+            }
+            throw new WebApplicationException(e.getCause(), Response.Status.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    private Shard shardFor(Bid bid) {
+        return shards[bid.getAuctionId() % shards.length];
+    }
+
+    // How long the blocking variants wait for a bid to be applied, and how long callers should wait on a future.
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    // Number of bids waiting across all shards.
+    public int getQueuedBids() {
+        int queued = 0;
+        for (Shard shard : shards) {
+            queued += shard.queue.size();
+        }
+        return queued;
+    }
+
+
+    // One queue entry: a single bid, or every bid of a batch that belongs to the same shard.
+    private static final class PendingBids {
+        private final List<BidOutcome> outcomes;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private PendingBids(List<BidOutcome> outcomes) {
+            this.outcomes = outcomes;
+        }
+    }
+
+
+    private final class Shard implements Runnable {
+        private final BlockingQueue<PendingBids> queue;
+        private final Thread thread;
+        private volatile boolean running = true;
+
+        private Shard(int index, int queueCapacity) {
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.thread = new Thread(this, "bid-engine-shard-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        // A stop that sets running between the check and the offer has already drained the queue, so an entry that
+        // got in after it is failed here rather than left waiting forever.
+        private boolean offer(PendingBids pending) {
+            if (!running || !queue.offer(pending)) {
+                return false;
+            }
+            if (!running) {
+                failPending();
+            }
+            return true;
+        }
+
+        private WebApplicationException rejection() {
+            if (!running) {
+                return new WebApplicationException(Response.Status.SERVICE_UNAVAILABLE);
+            }
+            return new WebApplicationException(Response.status(TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                    .build());
+        }
+
+        @Override
+        public void run() {
+            List<PendingBids> batch = new ArrayList<>(batchSize);
+            while (running) {
+                try {
+                    batch.add(queue.take());
+                } catch (InterruptedException e) {
+                    break;
+                }
+                queue.drainTo(batch, batchSize - 1);
+                for (PendingBids pending : batch) {
+                    for (BidOutcome outcome : pending.outcomes) {
+                        apply(outcome);
+                    }
+                }
+                acknowledge(new ArrayList<>(batch));
+                batch.clear();
+            }
+        }
+
+        private void apply(BidOutcome outcome) {
+            try {
+                outcome.applied(auctionService.processBid(outcome.getBid()));
+            } catch (WebApplicationException e) {
+                // A rejected bid, such as one on a closed auction.
+                outcome.failed(e);
+            } catch (RuntimeException e) {
+                LOGGER.error("Failed to process bid for auction {}", outcome.getBid().getAuctionId(), e);
+                outcome.failed(e);
+            }
+        }
+
+        private void acknowledge(List<PendingBids> applied) {
+            if (journal == null) {
+                for (PendingBids pending : applied) {
+                    pending.done.complete(null);
+                }
+                return;
+            }
+            CompletableFuture<Long> durable;
+            try {
+                durable = journal.sync();
+            } catch (RuntimeException e) {
+                durable = new CompletableFuture<>();
+                durable.completeExceptionally(e);
+            }
+            // The winner changes are already in memory and visible to readers, so a bid whose change may not have
+            // reached the journal is reported as applied, with a warning, rather than as a failure it is not.
+            durable.whenComplete((segment, failure) -> {
+                if (failure != null) {
+                    LOGGER.error("Journal failed for {} queued entries", applied.size(), failure);
+                }
+                for (PendingBids pending : applied) {
+                    if (failure != null) {
+                        for (BidOutcome outcome : pending.outcomes) {
+                            if (outcome.isApplied()) {
+                                outcome.warn(BidOutcome.NOT_JOURNALED);
+                            }
+                        }
+                    }
+                    pending.done.complete(null);
+                }
+            });
+        }
+
+        private void failPending() {
+            List<PendingBids> remaining = new ArrayList<>();
+            queue.drainTo(remaining);
+            for (PendingBids pending : remaining) {
+                pending.done.completeExceptionally(
+                        new WebApplicationException(Response.Status.SERVICE_UNAVAILABLE));
+            }
+        }
+    }
+}
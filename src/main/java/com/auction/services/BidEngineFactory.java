@@ -0,0 +1,74 @@
+package com.auction.services;
+
+import com.auction.persistence.BidJournal;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.setup.Environment;
+import io.dropwizard.util.Duration;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+public class BidEngineFactory {
+
+    // 0 means one shard per available core.
+    @Min(0)
+    private int shards = 0;
+
+    @Min(1)
+    private int queueCapacity = 4096;
+
+    @Min(1)
+    private int batchSize = 256;
+
+    @NotNull
+    private Duration timeout = Duration.seconds(5);
+
+    @JsonProperty
+    public int getShards() {
+        return shards;
+    }
+
+    @JsonProperty
+    public void setShards(int shards) {
+        this.shards = shards;
+    }
+
+    @JsonProperty
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    @JsonProperty
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    @JsonProperty
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    @JsonProperty
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    @JsonProperty
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    @JsonProperty
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    // journal may be null when journaling is disabled.
+    public BidEngine build(AuctionService auctionService, BidJournal journal, Environment environment) {
+        int shardCount = shards > 0 ? shards : Runtime.getRuntime().availableProcessors();
+        BidEngine bidEngine = new BidEngine(auctionService, journal, shardCount, queueCapacity, batchSize,
+                timeout.toMilliseconds());
+        environment.lifecycle().manage(bidEngine);
+        return bidEngine;
+    }
+}
@@ -0,0 +1,406 @@
+package com.auction.services;
+
+import com.auction.model.Bid;
+import com.auction.model.Money;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+// Append-only ledger of every bid AuctionService applies, for auditing disputes and recomputing results.
+//
+// Bids are stored column by column in fixed-size chunks of primitive arrays: auctionId, an index into a bidder table,
+// the three prices as micro-unit longs, their scales, the time the bid was applied and, per entry, the sequence
+// number of the previous entry for the same auction. An auction's history is that backwards chain, starting from the
+// auction's latest entry, so recording a bid and reading a page are both independent of how many bids the ledger
+// holds.
+//
+// The chunks form a ring. Once the ledger holds maxBids bids, starting the next chunk drops the oldest one, so memory
+// stays bounded at roughly 50 bytes per retained bid. Dropping a chunk also forgets the auctions whose latest bid was
+// in it and releases its entries' bidders, so neither the auction heads nor the bidder table outgrow the retained
+// bids.
+//
+// Large ledgers are split into stripes by auctionId, each a ring of its own with its own lock and an equal share of
+// maxBids, so bids the engine applies on different shards rarely wait for each other here. A stripe is only made
+// once it gets several chunks' worth of bids, so small ledgers keep a single ring. A sequence number carries its
+// stripe in its low bits.
+//
+// Bids with a price that does not fit in micro-units are rare and are kept whole in an overflow map.
+public class BidHistory implements BidListener {
+
+    static final int CHUNK_BITS = 16;
+
+    static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+    private static final int MAX_STRIPE_BITS = 4;
+
+    private static final int MIN_STRIPE_CHUNKS = 4;
+
+    private static final long NONE = -1;
+
+    private static final int WINNING = 1 << 24;
+
+    private final Stripe[] stripes;
+
+    private final int stripeBits;
+
+    private final LongSupplier clock;
+
+    public BidHistory(long maxBids) {
+        this(maxBids, System::currentTimeMillis);
+    }
+
+    BidHistory(long maxBids, LongSupplier clock) {
+        if (maxBids < 1) {
+            throw new IllegalArgumentException("maxBids must be positive.");
+        }
+        int bits = 0;
+        while (bits < MAX_STRIPE_BITS && maxBids >> (bits + 1) >= (long) MIN_STRIPE_CHUNKS * CHUNK_SIZE) {
+            bits++;
+        }
+        long stripeBids = (maxBids + (1 << bits) - 1) >> bits;
+        // One chunk beyond a stripe's share so that dropping its oldest chunk never takes it below that share.
+        long chunkCount = (stripeBids + CHUNK_SIZE - 1) / CHUNK_SIZE + 1;
+        if (chunkCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("maxBids is too large.");
+        }
+        this.stripeBits = bits;
+        this.stripes = new Stripe[1 << bits];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe(i, (int) chunkCount);
+        }
+        this.clock = clock;
+    }
+
+    @Override
+    public void bidProcessed(Bid bid, Bid winner) {
+        record(bid, winner != null && winner.equals(bid));
+    }
+
+    void record(Bid bid, boolean winning) {
+        stripeFor(bid.getAuctionId()).record(bid, winning, clock.getAsLong());
+    }
+
+    // Returns up to limit of the auction's bids, newest first, starting with the bid recorded as sequence, or with
+    // the latest bid when sequence is negative. Returns an empty list when the auction has no retained bids and null
+    // when sequence is not a retained bid of this auction.
+    public List<Entry> page(int auctionId, long sequence, int limit) {
+        Stripe stripe = stripeFor(auctionId);
+        if (sequence >= 0 && stripeOf(sequence) != stripe) {
+            return null;
+        }
+        return stripe.page(auctionId, sequence < 0 ? NONE : sequence >>> stripeBits, limit);
+    }
+
+    // Sequence number of the entry recorded before the given one for the same auction, or -1 if there is none left.
+    public long previous(long sequence) {
+        return sequence < 0 ? NONE : stripeOf(sequence).previous(sequence >>> stripeBits);
+    }
+
+    // Number of bids currently retained.
+    public long size() {
+        long size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    // Number of auctions with a retained bid.
+    int auctionCount() {
+        int count = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                count += stripe.heads.size;
+            }
+        }
+        return count;
+    }
+
+    // Number of distinct bidders among the retained bids.
+    int bidderCount() {
+        int count = 0;
+        for (Stripe stripe : stripes) {
+            count += stripe.bidders.size();
+        }
+        return count;
+    }
+
+    int stripeCount() {
+        return stripes.length;
+    }
+
+    private Stripe stripeFor(int auctionId) {
+        return stripeBits == 0 ? stripes[0] : stripes[(auctionId * 0x9E3779B9) >>> (Integer.SIZE - stripeBits)];
+    }
+
+    private Stripe stripeOf(long sequence) {
+        return stripes[(int) (sequence & (stripes.length - 1))];
+    }
+
+    private static boolean isFixedWidth(Bid bid) {
+        return Money.isRepresentable(bid.getStartingBidMicros()) && Money.isRepresentable(bid.getMaxBidMicros())
+                && Money.isRepresentable(bid.getAutoIncrementMicros());
+    }
+
+
+    // One recorded bid. The Bid's winning price is its starting bid; winning tells whether the bid was the auction's
+    // winner right after it was applied.
+    public static final class Entry {
+        private final long sequence;
+        private final long timestamp;
+        private final Bid bid;
+        private final boolean winning;
+
+        Entry(long sequence, long timestamp, Bid bid, boolean winning) {
+            this.sequence = sequence;
+            this.timestamp = timestamp;
+            this.bid = bid;
+            this.winning = winning;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public Bid getBid() {
+            return bid;
+        }
+
+        public boolean isWinning() {
+            return winning;
+        }
+    }
+
+
+    // One ring of chunks. Sequence numbers within a stripe are local; entries handed out carry the ledger-wide ones.
+    private final class Stripe {
+        private final int index;
+
+        private final Chunk[] chunks;
+
+        private final BidderTable bidders = new BidderTable();
+
+        private final Map<Long, Bid> overflow = new HashMap<>();
+
+        private final AuctionHeads heads = new AuctionHeads();
+
+        // Local sequence numbers of the oldest retained bid and of the next bid to be recorded. Written under the
+        // stripe's monitor; volatile so size() can add them up without taking every stripe's lock.
+        private volatile long firstSequence;
+
+        private volatile long nextSequence;
+
+        private Stripe(int index, int chunkCount) {
+            this.index = index;
+            this.chunks = new Chunk[chunkCount];
+        }
+
+        private synchronized void record(Bid bid, boolean winning, long timestamp) {
+            long sequence = nextSequence;
+            int offset = (int) (sequence & (CHUNK_SIZE - 1));
+            Chunk chunk = offset == 0 ? startChunk(sequence) : chunkFor(sequence);
+
+            int auctionId = bid.getAuctionId();
+            long previous = heads.put(auctionId, sequence);
+            chunk.auctionIds[offset] = auctionId;
+            chunk.previous[offset] = previous >= firstSequence ? previous : NONE;
+            chunk.timestamps[offset] = timestamp;
+            if (isFixedWidth(bid)) {
+                chunk.bidders[offset] = bidders.acquire(bid.getBidder());
+                chunk.startingBids[offset] = bid.getStartingBidMicros();
+                chunk.maxBids[offset] = bid.getMaxBidMicros();
+                chunk.autoIncrements[offset] = bid.getAutoIncrementMicros();
+                chunk.scales[offset] = bid.getStartingBid().scale() | bid.getMaxBid().scale() << 8
+                        | bid.getAutoIncrement().scale() << 16 | (winning ? WINNING : 0);
+            } else {
+                chunk.bidders[offset] = -1;
+                chunk.scales[offset] = winning ? WINNING : 0;
+                overflow.put(sequence, bid);
+            }
+            nextSequence = sequence + 1;
+        }
+
+        private synchronized List<Entry> page(int auctionId, long sequence, int limit) {
+            if (sequence < 0) {
+                sequence = heads.get(auctionId);
+                if (sequence < firstSequence) {
+                    return new ArrayList<>();
+                }
+            } else if (sequence < firstSequence || sequence >= nextSequence
+                    || chunkFor(sequence).auctionIds[(int) (sequence & (CHUNK_SIZE - 1))] != auctionId) {
+                return null;
+            }
+
+            List<Entry> entries = new ArrayList<>(Math.min(limit, 64));
+            while (sequence >= firstSequence && entries.size() < limit) {
+                entries.add(entry(sequence));
+                sequence = chunkFor(sequence).previous[(int) (sequence & (CHUNK_SIZE - 1))];
+            }
+            return entries;
+        }
+
+        private synchronized long previous(long sequence) {
+            if (sequence < firstSequence || sequence >= nextSequence) {
+                return NONE;
+            }
+            long previous = chunkFor(sequence).previous[(int) (sequence & (CHUNK_SIZE - 1))];
+            return previous >= firstSequence ? previous << stripeBits | index : NONE;
+        }
+
+        private long size() {
+            return nextSequence - firstSequence;
+        }
+
+        private Entry entry(long sequence) {
+            Chunk chunk = chunkFor(sequence);
+            int offset = (int) (sequence & (CHUNK_SIZE - 1));
+            int scales = chunk.scales[offset];
+            Bid bid;
+            if (chunk.bidders[offset] < 0) {
+                bid = overflow.get(sequence);
+            } else {
+                BigDecimal startingBid = Money.toBigDecimal(chunk.startingBids[offset], scales & 0xFF);
+                bid = new Bid(bidders.get(chunk.bidders[offset]), startingBid,
+                        Money.toBigDecimal(chunk.maxBids[offset], (scales >>> 8) & 0xFF),
+                        Money.toBigDecimal(chunk.autoIncrements[offset], (scales >>> 16) & 0xFF),
+                        chunk.auctionIds[offset], startingBid);
+            }
+            return new Entry(sequence << stripeBits | index, chunk.timestamps[offset], bid,
+                    (scales & WINNING) != 0);
+        }
+
+        private Chunk chunkFor(long sequence) {
+            return chunks[(int) ((sequence >>> CHUNK_BITS) % chunks.length)];
+        }
+
+        // Claims the ring slot for the chunk starting at sequence, dropping the chunk that held it before.
+        private Chunk startChunk(long sequence) {
+            int slot = (int) ((sequence >>> CHUNK_BITS) % chunks.length);
+            Chunk chunk = chunks[slot];
+            if (chunk == null) {
+                chunk = new Chunk();
+                chunks[slot] = chunk;
+                return chunk;
+            }
+            firstSequence = sequence - (long) (chunks.length - 1) * CHUNK_SIZE;
+            for (int bidder : chunk.bidders) {
+                if (bidder >= 0) {
+                    bidders.release(bidder);
+                }
+            }
+            heads.removeOlderThan(firstSequence);
+            if (!overflow.isEmpty()) {
+                overflow.keySet().removeIf(overflowed -> overflowed < firstSequence);
+            }
+            return chunk;
+        }
+    }
+
+
+    private static final class Chunk {
+        private final int[] auctionIds = new int[CHUNK_SIZE];
+        private final int[] bidders = new int[CHUNK_SIZE];
+        private final long[] startingBids = new long[CHUNK_SIZE];
+        private final long[] maxBids = new long[CHUNK_SIZE];
+        private final long[] autoIncrements = new long[CHUNK_SIZE];
+        private final int[] scales = new int[CHUNK_SIZE];
+        private final long[] timestamps = new long[CHUNK_SIZE];
+        private final long[] previous = new long[CHUNK_SIZE];
+    }
+
+
+    // Latest sequence number per auctionId, as an open-addressing table of primitives.
+    private static final class AuctionHeads {
+        private static final int EMPTY = -1;
+
+        private static final int MIN_CAPACITY = 1024;
+
+        private int[] keys = newKeys(MIN_CAPACITY);
+        private long[] values = new long[MIN_CAPACITY];
+        private int size;
+
+        private long get(int auctionId) {
+            int slot = find(keys, auctionId);
+            return keys[slot] == EMPTY ? NONE : values[slot];
+        }
+
+        // Stores sequence as the auction's latest and returns the one it replaces, or NONE.
+        private long put(int auctionId, long sequence) {
+            int slot = find(keys, auctionId);
+            if (keys[slot] == EMPTY) {
+                if (size + 1 > keys.length * 3 / 4) {
+                    rebuild(keys.length * 2, Long.MIN_VALUE);
+                    slot = find(keys, auctionId);
+                }
+                keys[slot] = auctionId;
+                values[slot] = sequence;
+                size++;
+                return NONE;
+            }
+            long previous = values[slot];
+            values[slot] = sequence;
+            return previous;
+        }
+
+        // Forgets the auctions whose latest bid is older than firstSequence, shrinking the table if most are gone.
+        // Called once per dropped chunk, so the pass over the table is spread over a chunk's worth of bids.
+        private void removeOlderThan(long firstSequence) {
+            int live = 0;
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (keys[slot] != EMPTY && values[slot] >= firstSequence) {
+                    live++;
+                }
+            }
+            if (live == size) {
+                return;
+            }
+            int capacity = MIN_CAPACITY;
+            while (capacity * 3 / 8 < live) {
+                capacity <<= 1;
+            }
+            rebuild(capacity, firstSequence);
+        }
+
+        private void rebuild(int capacity, long firstSequence) {
+            int[] oldKeys = keys;
+            long[] oldValues = values;
+            keys = newKeys(capacity);
+            values = new long[capacity];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY && oldValues[i] >= firstSequence) {
+                    int slot = find(keys, oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                    size++;
+                }
+            }
+        }
+
+        // Returns the auction's slot, or the empty slot where it belongs.
+        private static int find(int[] keys, int auctionId) {
+            int mask = keys.length - 1;
+            int hash = auctionId * 0x9E3779B9;
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            while (keys[slot] != EMPTY && keys[slot] != auctionId) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private static int[] newKeys(int capacity) {
+            int[] keys = new int[capacity];
+            Arrays.fill(keys, EMPTY);
+            return keys;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.auction.services;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import javax.validation.constraints.Min;
+
+public class BidHistoryFactory {
+
+    private boolean enabled = false;
+
+    @Min(1)
+    private long maxBids = 10_000_000;
+
+    @JsonProperty
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @JsonProperty
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @JsonProperty
+    public long getMaxBids() {
+        return maxBids;
+    }
+
+    @JsonProperty
+    public void setMaxBids(long maxBids) {
+        this.maxBids = maxBids;
+    }
+
+    // Returns the ledger recording every bid auctionService applies from now on, or null when history is disabled.
+    public BidHistory build(AuctionService auctionService) {
+        if (!enabled) {
+            return null;
+        }
+        BidHistory history = new BidHistory(maxBids);
+        auctionService.addBidListener(history);
+        return history;
+    }
+}
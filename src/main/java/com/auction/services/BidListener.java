@@ -0,0 +1,11 @@
+package com.auction.services;
+
+import com.auction.model.Bid;
+
+// Notified after every bid AuctionService applies, whether or not it changed the winner. Called on the thread that
+// processed the bid, with the same ordering guarantee as WinnerListener.
+public interface BidListener {
+
+    // winner is the auction's winning Bid after bid was applied.
+    void bidProcessed(Bid bid, Bid winner);
+}
@@ -0,0 +1,56 @@
+package com.auction.services;
+
+import com.auction.model.Bid;
+
+// The result of applying one bid through BidEngine: the auction's winner afterwards, or why the bid was not applied.
+public class BidOutcome {
+
+    // Warning of a bid that was applied but whose winner change the journal failed to commit.
+    public static final String NOT_JOURNALED = "Applied, but not journaled; the bid may be lost on restart.";
+
+    private final Bid bid;
+
+    private Bid winner;
+
+    private RuntimeException failure;
+
+    private String warning;
+
+    BidOutcome(Bid bid) {
+        this.bid = bid;
+    }
+
+    public Bid getBid() {
+        return bid;
+    }
+
+    // The auction's winning Bid after this bid was applied, or null if it was not applied.
+    public Bid getWinner() {
+        return winner;
+    }
+
+    public RuntimeException getFailure() {
+        return failure;
+    }
+
+    public boolean isApplied() {
+        return failure == null;
+    }
+
+    // Set for an applied bid whose effect may not survive a restart, or null.
+    public String getWarning() {
+        return warning;
+    }
+
+    void applied(Bid winner) {
+        this.winner = winner;
+    }
+
+    void failed(RuntimeException failure) {
+        this.failure = failure;
+    }
+
+    void warn(String warning) {
+        this.warning = warning;
+    }
+}
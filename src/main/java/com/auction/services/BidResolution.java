@@ -0,0 +1,26 @@
+package com.auction.services;
+
+// The branch of AuctionService's winner resolution a bid went through.
+public enum BidResolution {
+
+    // The auction was closed, so the bid was rejected.
+    CLOSED,
+
+    // The auction had no winner yet, so the bid became its winner.
+    NEW_AUCTION,
+
+    // The bid has the same bidder and amounts as the current winner and was not compared.
+    DUPLICATE,
+
+    // The bid's maxBid does not exceed the current winning price.
+    CANNOT_OVERTAKE,
+
+    // Bounds alone showed the current winner keeps the auction; only the loser's maximum was computed.
+    INCUMBENT_WINS,
+
+    // Bounds alone showed the bid takes the auction; only the loser's maximum was computed.
+    CHALLENGER_WINS,
+
+    // The bounds were too close, so both bids' maximum potential bids were computed.
+    CLOSE_RACE
+}
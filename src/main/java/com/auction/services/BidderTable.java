@@ -0,0 +1,140 @@
+package com.auction.services;
+
+import com.auction.model.Bidder;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// Maps the bidders a store refers to onto dense int indexes so a winner can refer to its bidder with 4 bytes instead
+// of a reference. Indexes are local to the table rather than Bidder handles, so the bidder array is sized by the
+// bidders this store refers to, not by every bidder in the process.
+//
+// Every index is reference counted: acquire counts one more use of a bidder and release one less. Once the last use
+// is released the table lets go of the Bidder, so BidderRegistry can collect it, and hands the index to the next new
+// bidder. Holding the Bidders keeps them interned for as long as the store may rebuild a Bid for them.
+//
+// Counting is lock-free while a bidder is in use; the table's monitor is only taken to add or free an index.
+class BidderTable {
+
+    private static final int PAGE_BITS = 10;
+
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+    // Count of an index that has been freed, or has not been handed out yet.
+    private static final int FREE = -1;
+
+    // Bidders are interned, so identity is equality.
+    private final ConcurrentMap<Bidder, Integer> indexes = new ConcurrentHashMap<>();
+
+    // Written only while holding this table's monitor. A bidder is stored before its index is published through
+    // indexes, so any thread that learned an index, directly or through a store that recorded it, can read it.
+    private volatile Bidder[] bidders = new Bidder[PAGE_SIZE];
+
+    // Use counts in pages that are never moved, so a count can be updated while the table grows.
+    private volatile AtomicIntegerArray[] counts = {newPage()};
+
+    // Guarded by this table's monitor: indexes below nextIndex that were freed, to be handed out again first.
+    private int[] freeIndexes = new int[16];
+
+    private int freeCount;
+
+    private int nextIndex;
+
+    // Returns the bidder's index, counting one more use of it.
+    int acquire(Bidder bidder) {
+        Integer index = indexes.get(bidder);
+        if (index != null && retain(index)) {
+            // The index may have been freed and handed to another bidder since it was looked up.
+            if (bidders[index] == bidder) {
+                return index;
+            }
+            release(index);
+        }
+        synchronized (this) {
+            index = indexes.get(bidder);
+            if (index != null) {
+                // Still mapped, so not freed yet: a count that just dropped to zero is taken back up.
+                counts(index).incrementAndGet(index & (PAGE_SIZE - 1));
+                return index;
+            }
+            int added = freeCount > 0 ? freeIndexes[--freeCount] : nextIndex++;
+            Bidder[] current = bidders;
+            if (added == current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+                AtomicIntegerArray[] pages = Arrays.copyOf(counts, counts.length * 2);
+                for (int i = counts.length; i < pages.length; i++) {
+                    pages[i] = newPage();
+                }
+                counts = pages;
+            }
+            current[added] = bidder;
+            bidders = current;
+            counts(added).set(added & (PAGE_SIZE - 1), 1);
+            indexes.put(bidder, added);
+            return added;
+        }
+    }
+
+    // Counts one less use of the index, freeing it once nothing uses it.
+    void release(int index) {
+        AtomicIntegerArray page = counts(index);
+        int offset = index & (PAGE_SIZE - 1);
+        if (page.decrementAndGet(offset) != 0) {
+            return;
+        }
+        synchronized (this) {
+            // An acquire may have taken the count back up in the meantime.
+            if (!page.compareAndSet(offset, 0, FREE)) {
+                return;
+            }
+            indexes.remove(bidders[index]);
+            bidders[index] = null;
+            if (freeCount == freeIndexes.length) {
+                freeIndexes = Arrays.copyOf(freeIndexes, freeCount * 2);
+            }
+            freeIndexes[freeCount++] = index;
+        }
+    }
+
+    Bidder get(int index) {
+        return bidders[index];
+    }
+
+    // Number of bidders in use.
+    int size() {
+        return indexes.size();
+    }
+
+    // The bidder and count arrays plus, per bidder, its map entry, boxed index and a Bidder with an id of typical
+    // length.
+    long estimatedBytes() {
+        return bidders.length * 8L + indexes.size() * 100L;
+    }
+
+    // Counts one more use of an index that is in use, or returns false if its count has dropped to zero and it may
+    // be about to be freed.
+    private boolean retain(int index) {
+        AtomicIntegerArray page = counts(index);
+        int offset = index & (PAGE_SIZE - 1);
+        for (int count = page.get(offset); count > 0; count = page.get(offset)) {
+            if (page.compareAndSet(offset, count, count + 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private AtomicIntegerArray counts(int index) {
+        return counts[index >>> PAGE_BITS];
+    }
+
+    private static AtomicIntegerArray newPage() {
+        AtomicIntegerArray page = new AtomicIntegerArray(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            page.set(i, FREE);
+        }
+        return page;
+    }
+}
@@ -0,0 +1,11 @@
+package com.auction.services;
+
+// Notified when an auction's close time is set or moved and when an auction closes. A close time change is reported
+// while the change is being made, so for a given auction the calls arrive in the order the changes were made.
+public interface CloseListener {
+
+    // closesAt is in epoch milliseconds.
+    void closeTimeChanged(int auctionId, long closesAt);
+
+    void auctionClosed(int auctionId);
+}
@@ -0,0 +1,89 @@
+package com.auction.services;
+
+// Approximate per-auction access counts for TieredWinnerStore's admission policy: a count-min sketch of 4-bit
+// counters, sixteen to a long, with four counters per auction.
+//
+// Counters saturate at 15, which is plenty to tell a busy auction from a one-off lookup. Once the sketch has seen
+// ten increments per tracked auction every counter is halved, so auctions that were busy an hour ago lose out to the
+// ones that are busy now. Not thread-safe; the store calls it under a segment lock.
+final class FrequencySketch {
+
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+
+    // Clears the high bit of every 4-bit counter, so a right shift by one halves all sixteen at once.
+    private static final long HALF_MASK = 0x7777777777777777L;
+
+    private final long[] table;
+
+    private final int sampleSize;
+
+    private int additions;
+
+    // maximumSize is the number of auctions whose frequencies should stay distinguishable.
+    FrequencySketch(int maximumSize) {
+        int length = 1;
+        while (length < Math.max(maximumSize, 1)) {
+            length <<= 1;
+        }
+        table = new long[length];
+        sampleSize = 10 * Math.max(maximumSize, 1);
+    }
+
+    int frequency(int auctionId) {
+        int hash = spread(auctionId);
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < SEEDS.length; i++) {
+            long h = indexHash(hash, i);
+            frequency = Math.min(frequency, (int) (table[index(h)] >>> offset(h)) & 0xF);
+        }
+        return frequency;
+    }
+
+    void increment(int auctionId) {
+        int hash = spread(auctionId);
+        boolean added = false;
+        for (int i = 0; i < SEEDS.length; i++) {
+            long h = indexHash(hash, i);
+            int index = index(h);
+            int offset = offset(h);
+            if (((table[index] >>> offset) & 0xF) != 0xF) {
+                table[index] += 1L << offset;
+                added = true;
+            }
+        }
+        if (added && ++additions == sampleSize) {
+            reset();
+        }
+    }
+
+    long estimatedBytes() {
+        return table.length * 8L;
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & HALF_MASK;
+        }
+        additions /= 2;
+    }
+
+    private static int spread(int auctionId) {
+        int hash = auctionId * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private static long indexHash(int hash, int i) {
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        return h + (h >>> 32);
+    }
+
+    private int index(long h) {
+        return (int) h & (table.length - 1);
+    }
+
+    // One of the sixteen counters in the long, picked by bits the index did not use.
+    private static int offset(long h) {
+        return ((int) (h >>> 40) & 0xF) << 2;
+    }
+}
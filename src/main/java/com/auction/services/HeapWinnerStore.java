@@ -0,0 +1,49 @@
+package com.auction.services;
+
+import com.auction.model.Bid;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+// Keeps each winner as a Bid object in a ConcurrentHashMap. Lookups return the stored instance without decoding, at
+// the cost of a few hundred bytes of heap per auction.
+public class HeapWinnerStore implements WinnerStore {
+
+    // A map node and boxed key, a Bid referring to its bidder's shared Bidder, and four BigDecimals with their
+    // BigIntegers and cached strings, on a 64-bit JVM with compressed oops.
+    static final long BYTES_PER_WINNER = 280;
+
+    private final ConcurrentMap<Integer, Bid> winners = new ConcurrentHashMap<>();
+
+    @Override
+    public Bid get(int auctionId) {
+        return winners.get(auctionId);
+    }
+
+    @Override
+    public boolean containsKey(int auctionId) {
+        return winners.containsKey(auctionId);
+    }
+
+    @Override
+    public Bid compute(int auctionId, UnaryOperator<Bid> remapping) {
+        return winners.compute(auctionId, (id, winner) -> remapping.apply(winner));
+    }
+
+    @Override
+    public int size() {
+        return winners.size();
+    }
+
+    @Override
+    public long estimatedBytes() {
+        return winners.size() * BYTES_PER_WINNER;
+    }
+
+    @Override
+    public void forEach(Consumer<Bid> action) {
+        winners.values().forEach(action);
+    }
+}
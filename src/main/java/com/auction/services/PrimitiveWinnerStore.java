@@ -0,0 +1,393 @@
+package com.auction.services;
+
+import com.auction.model.Bid;
+import com.auction.model.Bidder;
+import com.auction.model.Money;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+// Keeps winners in primitive open-addressing tables keyed by int auctionId instead of as Bid objects.
+//
+// A winner takes a 4 byte key, a 4 byte index into a reference-counted bidder table, its four prices as micro-unit
+// longs and their four BigDecimal scales packed into an int: 44 bytes per slot, where HeapWinnerStore holds a map
+// node, a boxed key, a Bid, four BigDecimals and their backing objects. The store holds a few dozen large arrays in
+// place of millions of small objects, which is what the garbage collector has to trace. A bidder's index is released
+// once it wins no auction here, so the table only holds the bidders of current winners.
+//
+// The tables are split into segments, each guarded by a StampedLock. Writers take the segment's write lock; readers
+// copy a slot's primitives under an optimistic read and only fall back to the read lock if a writer got in between.
+// A Bid is rebuilt from the primitives on every read, trading a little CPU per lookup for the memory saved.
+//
+// Winners with a price that does not fit in micro-units are rare; they keep a slot marked OVERFLOW and the Bid
+// itself is kept in the segment's overflow map.
+public class PrimitiveWinnerStore implements WinnerStore {
+
+    private static final int SEGMENT_BITS = 6;
+
+    private static final int SEGMENTS = 1 << SEGMENT_BITS;
+
+    private static final int MIN_CAPACITY = 16;
+
+    private static final int EMPTY = -1;
+
+    private static final int BYTES_PER_SLOT = 44;
+
+    // Bidder index of a slot whose winner lives in the segment's overflow map.
+    private static final int OVERFLOW = -1;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    private final BidderTable bidders = new BidderTable();
+
+    public PrimitiveWinnerStore() {
+        this(1024);
+    }
+
+    // expectedAuctions sizes the tables up front; they grow as needed either way.
+    public PrimitiveWinnerStore(int expectedAuctions) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * 3 / 4 < expectedAuctions / SEGMENTS + 1) {
+            capacity <<= 1;
+        }
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(capacity);
+        }
+    }
+
+    @Override
+    public Bid get(int auctionId) {
+        int hash = hash(auctionId);
+        Segment segment = segmentFor(hash);
+
+        long stamp = segment.lock.tryOptimisticRead();
+        if (stamp != 0) {
+            Table table = segment.table;
+            int slot = table.find(auctionId, hash);
+            if (slot < 0) {
+                if (segment.lock.validate(stamp)) {
+                    return null;
+                }
+            } else {
+                int bidder = table.bidders[slot];
+                // Resolved before validating: once the stamp is no longer valid, the index may have been released
+                // and handed to another bidder.
+                Bidder owner = bidder == OVERFLOW ? null : bidders.get(bidder);
+                long startingBid = table.prices[4 * slot];
+                long maxBid = table.prices[4 * slot + 1];
+                long autoIncrement = table.prices[4 * slot + 2];
+                long winningPrice = table.prices[4 * slot + 3];
+                int scales = table.scales[slot];
+                Bid overflowed = bidder == OVERFLOW ? segment.overflow.get(auctionId) : null;
+                if (segment.lock.validate(stamp)) {
+                    return bidder == OVERFLOW ? overflowed
+                            : decode(auctionId, owner, startingBid, maxBid, autoIncrement, winningPrice, scales);
+                }
+            }
+        }
+
+        stamp = segment.lock.readLock();
+        try {
+            return segment.get(auctionId, hash);
+        } finally {
+            segment.lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public boolean containsKey(int auctionId) {
+        int hash = hash(auctionId);
+        Segment segment = segmentFor(hash);
+
+        long stamp = segment.lock.tryOptimisticRead();
+        if (stamp != 0) {
+            boolean found = segment.table.find(auctionId, hash) >= 0;
+            if (segment.lock.validate(stamp)) {
+                return found;
+            }
+        }
+        stamp = segment.lock.readLock();
+        try {
+            return segment.table.find(auctionId, hash) >= 0;
+        } finally {
+            segment.lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public Bid compute(int auctionId, UnaryOperator<Bid> remapping) {
+        int hash = hash(auctionId);
+        Segment segment = segmentFor(hash);
+
+        long stamp = segment.lock.writeLock();
+        try {
+            Bid current = segment.get(auctionId, hash);
+            Bid winner = remapping.apply(current);
+            if (winner == null) {
+                segment.remove(auctionId, hash);
+            } else if (winner != current) {
+                segment.put(auctionId, hash, winner);
+            }
+            return winner;
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    // Copies one segment at a time under its read lock and decodes the copy after releasing it, so a long walk,
+    // such as writing a snapshot, never holds up bids for more than one segment's copy.
+    @Override
+    public void forEach(Consumer<Bid> action) {
+        for (Segment segment : segments) {
+            Table table;
+            Bidder[] owners;
+            List<Bid> overflowed;
+            long stamp = segment.lock.readLock();
+            try {
+                table = segment.table.copy();
+                // Resolved under the lock, since a bidder index may be reused once a winner is replaced.
+                owners = new Bidder[table.keys.length];
+                for (int slot = 0; slot < owners.length; slot++) {
+                    if (table.keys[slot] != EMPTY && table.bidders[slot] != OVERFLOW) {
+                        owners[slot] = bidders.get(table.bidders[slot]);
+                    }
+                }
+                overflowed = new ArrayList<>(segment.overflow.values());
+            } finally {
+                segment.lock.unlockRead(stamp);
+            }
+            for (int slot = 0; slot < table.keys.length; slot++) {
+                if (owners[slot] != null) {
+                    action.accept(decode(table, slot, owners[slot]));
+                }
+            }
+            overflowed.forEach(action);
+        }
+    }
+
+    // Counts every allocated slot, not just the occupied ones, since the tables hold their capacity whether used or
+    // not. Overflowed winners are charged like HeapWinnerStore's.
+    @Override
+    public long estimatedBytes() {
+        long bytes = bidders.estimatedBytes();
+        for (Segment segment : segments) {
+            bytes += (long) segment.table.keys.length * BYTES_PER_SLOT
+                    + segment.overflow.size() * HeapWinnerStore.BYTES_PER_WINNER;
+        }
+        return bytes;
+    }
+
+    // Number of distinct bidders winning an auction, leaving out winners kept in the overflow maps.
+    public int getBidderCount() {
+        return bidders.size();
+    }
+
+    private static int hash(int auctionId) {
+        return auctionId * 0x9E3779B9;
+    }
+
+    private Segment segmentFor(int hash) {
+        return segments[hash >>> (Integer.SIZE - SEGMENT_BITS)];
+    }
+
+    private static Bid decode(Table table, int slot, Bidder bidder) {
+        return decode(table.keys[slot], bidder, table.prices[4 * slot], table.prices[4 * slot + 1],
+                table.prices[4 * slot + 2], table.prices[4 * slot + 3], table.scales[slot]);
+    }
+
+    private static Bid decode(int auctionId, Bidder bidder, long startingBid, long maxBid, long autoIncrement,
+                              long winningPrice, int scales) {
+        return new Bid(bidder,
+                Money.toBigDecimal(startingBid, scales & 0xFF),
+                Money.toBigDecimal(maxBid, (scales >>> 8) & 0xFF),
+                Money.toBigDecimal(autoIncrement, (scales >>> 16) & 0xFF),
+                auctionId,
+                Money.toBigDecimal(winningPrice, scales >>> 24));
+    }
+
+    private static boolean isFixedWidth(Bid winner) {
+        return Money.isRepresentable(winner.getStartingBidMicros()) && Money.isRepresentable(winner.getMaxBidMicros())
+                && Money.isRepresentable(winner.getAutoIncrementMicros())
+                && Money.isRepresentable(winner.getWinningPriceMicros());
+    }
+
+
+    private final class Segment {
+        private final StampedLock lock = new StampedLock();
+
+        private final ConcurrentMap<Integer, Bid> overflow = new ConcurrentHashMap<>();
+
+        // Replaced as a whole when the segment grows, so an optimistic reader always sees one consistent table.
+        private volatile Table table;
+
+        private volatile int size;
+
+        private Segment(int capacity) {
+            this.table = new Table(capacity);
+        }
+
+        // Caller holds the read or write lock.
+        private Bid get(int auctionId, int hash) {
+            int slot = table.find(auctionId, hash);
+            if (slot < 0) {
+                return null;
+            }
+            int bidder = table.bidders[slot];
+            return bidder == OVERFLOW ? overflow.get(auctionId) : decode(table, slot, bidders.get(bidder));
+        }
+
+        // Caller holds the write lock.
+        private void remove(int auctionId, int hash) {
+            int slot = table.find(auctionId, hash);
+            if (slot < 0) {
+                return;
+            }
+            if (table.bidders[slot] == OVERFLOW) {
+                overflow.remove(auctionId);
+            } else {
+                bidders.release(table.bidders[slot]);
+            }
+            table.remove(slot);
+            size--;
+        }
+
+        // Caller holds the write lock.
+        private void put(int auctionId, int hash, Bid winner) {
+            int slot = table.find(auctionId, hash);
+            int replaced = OVERFLOW;
+            if (slot < 0) {
+                if (size + 1 > table.keys.length * 3 / 4) {
+                    table = table.resize(table.keys.length * 2);
+                }
+                slot = table.insert(auctionId, hash);
+                size++;
+            } else if (table.bidders[slot] == OVERFLOW) {
+                overflow.remove(auctionId);
+            } else {
+                replaced = table.bidders[slot];
+            }
+
+            if (isFixedWidth(winner)) {
+                // Acquired before the replaced winner's bidder is released, so a bidder outbidding itself keeps
+                // its index.
+                table.bidders[slot] = bidders.acquire(winner.getBidder());
+                table.prices[4 * slot] = winner.getStartingBidMicros();
+                table.prices[4 * slot + 1] = winner.getMaxBidMicros();
+                table.prices[4 * slot + 2] = winner.getAutoIncrementMicros();
+                table.prices[4 * slot + 3] = winner.getWinningPriceMicros();
+                table.scales[slot] = winner.getStartingBid().scale()
+                        | winner.getMaxBid().scale() << 8
+                        | winner.getAutoIncrement().scale() << 16
+                        | winner.getWinningPrice().scale() << 24;
+            } else {
+                table.bidders[slot] = OVERFLOW;
+                overflow.put(auctionId, winner);
+            }
+            if (replaced != OVERFLOW) {
+                bidders.release(replaced);
+            }
+        }
+    }
+
+
+    // Open-addressing table with linear probing. Removing an auction shifts the rest of its probe run back into the
+    // freed slot, so there are no tombstones.
+    private static final class Table {
+        private final int[] keys;
+        private final int[] bidders;
+        private final long[] prices;
+        private final int[] scales;
+
+        private Table(int capacity) {
+            this(new int[capacity], new int[capacity], new long[4 * capacity], new int[capacity]);
+            Arrays.fill(keys, EMPTY);
+        }
+
+        private Table(int[] keys, int[] bidders, long[] prices, int[] scales) {
+            this.keys = keys;
+            this.bidders = bidders;
+            this.prices = prices;
+            this.scales = scales;
+        }
+
+        // Returns the auction's slot, or -1. Safe to call on a table that is being written; the result is then
+        // meaningless but in bounds.
+        private int find(int auctionId, int hash) {
+            int mask = keys.length - 1;
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            for (int probes = 0; probes <= mask; probes++) {
+                int key = keys[slot];
+                if (key == auctionId) {
+                    return slot;
+                }
+                if (key == EMPTY) {
+                    return -1;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        // Claims a slot for an auction the table does not hold. The table must have a free slot.
+        private int insert(int auctionId, int hash) {
+            int mask = keys.length - 1;
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            while (keys[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = auctionId;
+            return slot;
+        }
+
+        // Frees slot, moving every later entry of the probe run whose home slot allows it into the gap.
+        private void remove(int slot) {
+            int mask = keys.length - 1;
+            int hole = slot;
+            for (int next = (slot + 1) & mask; keys[next] != EMPTY; next = (next + 1) & mask) {
+                int hash = hash(keys[next]);
+                int home = (hash ^ (hash >>> 16)) & mask;
+                // The entry can fill the hole unless its home lies cyclically after the hole.
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    keys[hole] = keys[next];
+                    bidders[hole] = bidders[next];
+                    System.arraycopy(prices, 4 * next, prices, 4 * hole, 4);
+                    scales[hole] = scales[next];
+                    hole = next;
+                }
+            }
+            keys[hole] = EMPTY;
+        }
+
+        private Table resize(int capacity) {
+            Table resized = new Table(capacity);
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (keys[slot] != EMPTY) {
+                    int target = resized.insert(keys[slot], hash(keys[slot]));
+                    resized.bidders[target] = bidders[slot];
+                    System.arraycopy(prices, 4 * slot, resized.prices, 4 * target, 4);
+                    resized.scales[target] = scales[slot];
+                }
+            }
+            return resized;
+        }
+
+        private Table copy() {
+            return new Table(keys.clone(), bidders.clone(), prices.clone(), scales.clone());
+        }
+    }
+}
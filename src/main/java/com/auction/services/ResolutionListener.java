@@ -0,0 +1,10 @@
+package com.auction.services;
+
+// Notified after every bid AuctionService resolves, with the branch it took. One in
+// AuctionService.getResolutionTimingInterval() bids is also timed, and nanos is how long resolving it took, including
+// any wait for the auction's lock; for the others nanos is -1. Called on the thread that processed the bid, before
+// WinnerListeners and BidListeners.
+public interface ResolutionListener {
+
+    void bidResolved(int auctionId, BidResolution resolution, long nanos);
+}
@@ -0,0 +1,387 @@
+package com.auction.services;
+
+import com.auction.model.Bid;
+import com.auction.persistence.ColdWinnerFile;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+// Keeps the winners of auctions that are being bid on or looked up on the heap and moves the rest to files on local
+// disk, so heap usage follows the working set instead of every auction seen since startup.
+//
+// The store is split into segments, each with its own monitor, hot tier, FrequencySketch and ColdWinnerFile. A hot
+// tier follows W-TinyLFU: a newly seen or faulted-in auction enters a small LRU window, and an auction leaving the
+// window only displaces the least recently used auction of the main area if the sketch has seen it more often. The
+// main area is a segmented LRU where auctions used again while in probation move to the protected part. A burst of
+// one-off lookups therefore cannot flush the auctions that receive bids all the time.
+//
+// An evicted winner is written to its segment's cold file only if it changed since it was last written; get and
+// compute fault cold winners back in transparently. Cold file IO happens under the segment's monitor, so a fault
+// holds up the other auctions of its segment for one read, which the operating system's page cache usually serves.
+// An IOException from the cold tier surfaces as an UncheckedIOException.
+public class TieredWinnerStore implements WinnerStore, Closeable {
+
+    private static final int SEGMENT_BITS = 5;
+
+    private static final int SEGMENTS = 1 << SEGMENT_BITS;
+
+    // HeapWinnerStore's estimate plus an access-ordered LinkedHashMap entry and the Node.
+    private static final long BYTES_PER_HOT_WINNER = HeapWinnerStore.BYTES_PER_WINNER + 40;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    // maxHotAuctions is split evenly over the segments, with at least one per segment. Cold files are created in
+    // directory, replacing any left over from an earlier run.
+    public TieredWinnerStore(Path directory, int maxHotAuctions) throws IOException {
+        Files.createDirectories(directory);
+        int segmentCapacity = Math.max(1, maxHotAuctions / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(new ColdWinnerFile(directory.resolve("cold-winners-" + i + ".dat")),
+                    segmentCapacity);
+        }
+    }
+
+    @Override
+    public Bid get(int auctionId) {
+        Segment segment = segmentFor(auctionId);
+        synchronized (segment) {
+            try {
+                return segment.get(auctionId);
+            } catch (IOException e) {
+                throw coldFailure(auctionId, e);
+            }
+        }
+    }
+
+    // Reads a cold winner straight from the cold file, without recording the access in the sketch or admitting it
+    // to the hot tier, so a snapshot walking every auction leaves the working set as it found it.
+    @Override
+    public Bid peek(int auctionId) {
+        Segment segment = segmentFor(auctionId);
+        synchronized (segment) {
+            try {
+                Node node = segment.hotNode(auctionId);
+                return node != null ? node.winner : segment.cold.read(auctionId);
+            } catch (IOException e) {
+                throw coldFailure(auctionId, e);
+            }
+        }
+    }
+
+    @Override
+    public boolean containsKey(int auctionId) {
+        Segment segment = segmentFor(auctionId);
+        synchronized (segment) {
+            return segment.isHot(auctionId) || segment.cold.contains(auctionId);
+        }
+    }
+
+    @Override
+    public Bid compute(int auctionId, UnaryOperator<Bid> remapping) {
+        Segment segment = segmentFor(auctionId);
+        synchronized (segment) {
+            try {
+                return segment.compute(auctionId, remapping);
+            } catch (IOException e) {
+                throw coldFailure(auctionId, e);
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    // Copies a segment's hot winners and cold auctionIds under its monitor, then reads the cold winners one at a
+    // time, so a long walk neither holds up bids nor pulls every cold winner onto the heap at once.
+    @Override
+    public void forEach(Consumer<Bid> action) {
+        for (Segment segment : segments) {
+            List<Bid> hot;
+            int[] cold;
+            synchronized (segment) {
+                hot = segment.hotWinners();
+                cold = segment.coldOnlyAuctionIds();
+            }
+            hot.forEach(action);
+            for (int auctionId : cold) {
+                Bid winner = peek(auctionId);
+                if (winner != null) {
+                    action.accept(winner);
+                }
+            }
+        }
+    }
+
+    // Hot winners are charged like HeapWinnerStore's; cold ones only cost their index slot.
+    @Override
+    public long estimatedBytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                bytes += segment.hotSize() * BYTES_PER_HOT_WINNER + segment.cold.estimatedBytes()
+                        + segment.sketch.estimatedBytes();
+            }
+        }
+        return bytes;
+    }
+
+    // Number of auctions whose winner is currently on the heap.
+    public int getHotCount() {
+        int count = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                count += segment.hotSize();
+            }
+        }
+        return count;
+    }
+
+    // Bytes the cold files take on disk, including records that were superseded but not yet compacted away.
+    public long getColdFileBytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                bytes += segment.cold.fileBytes();
+            }
+        }
+        return bytes;
+    }
+
+    boolean isHot(int auctionId) {
+        Segment segment = segmentFor(auctionId);
+        synchronized (segment) {
+            return segment.isHot(auctionId);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.cold.close();
+            }
+        }
+    }
+
+    private Segment segmentFor(int auctionId) {
+        return segments[(auctionId * 0x9E3779B9) >>> (Integer.SIZE - SEGMENT_BITS)];
+    }
+
+    private static UncheckedIOException coldFailure(int auctionId, IOException e) {
+        return new UncheckedIOException("Could not access the cold winner of auction " + auctionId + ".", e);
+    }
+
+    private static Map.Entry<Integer, Node> pollEldest(LinkedHashMap<Integer, Node> map) {
+        Iterator<Map.Entry<Integer, Node>> entries = map.entrySet().iterator();
+        Map.Entry<Integer, Node> eldest = entries.next();
+        entries.remove();
+        return eldest;
+    }
+
+
+    // A hot winner, dirty if it changed since it was last written to the cold file.
+    private static final class Node {
+        private Bid winner;
+        private boolean dirty;
+
+        private Node(Bid winner, boolean dirty) {
+            this.winner = winner;
+            this.dirty = dirty;
+        }
+    }
+
+
+    // Every method is called while holding the segment's monitor.
+    private static final class Segment {
+        private final ColdWinnerFile cold;
+
+        private final FrequencySketch sketch;
+
+        // Access-ordered, so iteration starts at the least recently used auction.
+        private final LinkedHashMap<Integer, Node> window = new LinkedHashMap<>(16, 0.75f, true);
+
+        private final LinkedHashMap<Integer, Node> probation = new LinkedHashMap<>(16, 0.75f, true);
+
+        private final LinkedHashMap<Integer, Node> protectedArea = new LinkedHashMap<>(16, 0.75f, true);
+
+        private final int windowCapacity;
+
+        private final int mainCapacity;
+
+        private final int protectedCapacity;
+
+        // Auctions held in either tier. Written under the monitor, read without it by size().
+        private volatile int size;
+
+        private Segment(ColdWinnerFile cold, int capacity) {
+            this.cold = cold;
+            this.sketch = new FrequencySketch(capacity);
+            // The window takes 1% and the protected part 80% of the main area, W-TinyLFU's usual split.
+            this.windowCapacity = Math.max(1, capacity / 100);
+            this.mainCapacity = capacity - windowCapacity;
+            this.protectedCapacity = mainCapacity * 8 / 10;
+        }
+
+        private Bid get(int auctionId) throws IOException {
+            sketch.increment(auctionId);
+            Node node = touch(auctionId);
+            if (node != null) {
+                return node.winner;
+            }
+            Bid winner = cold.read(auctionId);
+            if (winner != null) {
+                admit(auctionId, new Node(winner, false));
+            }
+            return winner;
+        }
+
+        private Bid compute(int auctionId, UnaryOperator<Bid> remapping) throws IOException {
+            sketch.increment(auctionId);
+            Node node = touch(auctionId);
+            Bid current = node != null ? node.winner : cold.read(auctionId);
+            Bid winner = remapping.apply(current);
+            if (winner == null) {
+                if (current != null) {
+                    if (node != null) {
+                        removeHot(auctionId);
+                    }
+                    cold.remove(auctionId);
+                    size--;
+                }
+            } else if (node != null) {
+                if (winner != current) {
+                    node.winner = winner;
+                    node.dirty = true;
+                }
+            } else {
+                if (current == null) {
+                    size++;
+                }
+                admit(auctionId, new Node(winner, winner != current));
+            }
+            return winner;
+        }
+
+        // Returns the auction's hot node, recording the access: a second access while in probation promotes it to
+        // the protected part, which in turn demotes that part's least recently used auction back to probation.
+        private Node touch(int auctionId) {
+            Node node = window.get(auctionId);
+            if (node != null) {
+                return node;
+            }
+            node = protectedArea.get(auctionId);
+            if (node != null) {
+                return node;
+            }
+            node = probation.remove(auctionId);
+            if (node != null) {
+                protectedArea.put(auctionId, node);
+                if (protectedArea.size() > protectedCapacity) {
+                    Map.Entry<Integer, Node> demoted = pollEldest(protectedArea);
+                    probation.put(demoted.getKey(), demoted.getValue());
+                }
+            }
+            return node;
+        }
+
+        // Adds an auction to the window. When the window overflows, its least recently used auction competes with
+        // the main area's eviction victim and the one the sketch has seen less often goes to the cold tier.
+        private void admit(int auctionId, Node node) throws IOException {
+            window.put(auctionId, node);
+            if (window.size() <= windowCapacity) {
+                return;
+            }
+            Map.Entry<Integer, Node> candidate = pollEldest(window);
+            if (probation.size() + protectedArea.size() < mainCapacity) {
+                probation.put(candidate.getKey(), candidate.getValue());
+                return;
+            }
+            if (mainCapacity == 0) {
+                evict(candidate.getValue());
+                return;
+            }
+            LinkedHashMap<Integer, Node> victims = probation.isEmpty() ? protectedArea : probation;
+            Map.Entry<Integer, Node> victim = victims.entrySet().iterator().next();
+            if (sketch.frequency(candidate.getKey()) > sketch.frequency(victim.getKey())) {
+                pollEldest(victims);
+                evict(victim.getValue());
+                probation.put(candidate.getKey(), candidate.getValue());
+            } else {
+                evict(candidate.getValue());
+            }
+        }
+
+        // A clean node's winner is already the cold file's latest record for the auction.
+        private void evict(Node node) throws IOException {
+            if (node.dirty) {
+                cold.write(node.winner);
+            }
+        }
+
+        private boolean isHot(int auctionId) {
+            return window.containsKey(auctionId) || probation.containsKey(auctionId)
+                    || protectedArea.containsKey(auctionId);
+        }
+
+        // Looks up a hot node without promoting it out of probation, though the lookup still counts as recent use.
+        private Node hotNode(int auctionId) {
+            Node node = window.get(auctionId);
+            if (node == null) {
+                node = probation.get(auctionId);
+            }
+            if (node == null) {
+                node = protectedArea.get(auctionId);
+            }
+            return node;
+        }
+
+        private void removeHot(int auctionId) {
+            if (window.remove(auctionId) == null && probation.remove(auctionId) == null) {
+                protectedArea.remove(auctionId);
+            }
+        }
+
+        private int hotSize() {
+            return window.size() + probation.size() + protectedArea.size();
+        }
+
+        private List<Bid> hotWinners() {
+            List<Bid> winners = new ArrayList<>(hotSize());
+            for (LinkedHashMap<Integer, Node> area : Arrays.asList(window, probation, protectedArea)) {
+                for (Node node : area.values()) {
+                    winners.add(node.winner);
+                }
+            }
+            return winners;
+        }
+
+        // The cold file keeps a stale record of an auction that was faulted back in, so those are left out.
+        private int[] coldOnlyAuctionIds() {
+            int[] auctionIds = cold.auctionIds();
+            int count = 0;
+            for (int auctionId : auctionIds) {
+                if (!isHot(auctionId)) {
+                    auctionIds[count++] = auctionId;
+                }
+            }
+            return Arrays.copyOf(auctionIds, count);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.auction.services;
+
+import com.auction.model.Bid;
+
+// Notified when an auction's winner or winning price changes. Called on the thread that processed the bid, once per
+// change. A listener added with AuctionService.addOrderedWinnerListener is called inside the change and sees one
+// auction's changes in the order they were applied; one added with addWinnerListener is called after it, and sees
+// them in order only as long as bids for that auction are processed one at a time, which BidEngine guarantees.
+public interface WinnerListener {
+
+    // previousWinner is null when the auction had no winner yet.
+    void winnerChanged(Bid previousWinner, Bid winner);
+}
@@ -0,0 +1,17 @@
+package com.auction.services;
+
+import com.auction.model.Bid;
+
+import java.util.function.Consumer;
+
+// A read-only set of auction winners that AuctionService falls back to for auctions it does not hold itself, such
+// as a snapshot mapped from disk at startup.
+public interface WinnerSource {
+
+    // Returns the auction's winner, or null if the source has none.
+    Bid get(int auctionId);
+
+    int size();
+
+    void forEach(Consumer<Bid> action);
+}
@@ -0,0 +1,28 @@
+package com.auction.services;
+
+import com.auction.model.Bid;
+
+import java.util.function.UnaryOperator;
+
+// Holds the current winning Bid of every auction that AuctionService has seen since startup.
+//
+// Implementations decide how winners are laid out in memory; Bids handed out are always fresh or immutable, so
+// callers never observe a winner changing underneath them.
+public interface WinnerStore extends WinnerSource {
+
+    boolean containsKey(int auctionId);
+
+    // Returns the auction's winner like get, for bulk readers such as snapshots: a store that keeps a working set
+    // neither counts the read as use nor moves the winner between its tiers.
+    default Bid peek(int auctionId) {
+        return get(auctionId);
+    }
+
+    // Replaces the auction's winner with remapping's result and returns it. remapping receives null for an auction
+    // the store does not hold, and returning null removes the auction or leaves it absent. Calls for the same auction
+    // run one after the other, and when remapping returns its argument unchanged the store is left as it was.
+    Bid compute(int auctionId, UnaryOperator<Bid> remapping);
+
+    // Approximate heap bytes the store uses for its winners, cheap enough to read on every metrics report.
+    long estimatedBytes();
+}
@@ -0,0 +1,77 @@
+package com.auction.services;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import org.hibernate.validator.constraints.NotEmpty;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.io.IOException;
+import java.nio.file.Paths;
+
+public class WinnerStoreFactory {
+
+    @NotNull
+    private WinnerStoreType type = WinnerStoreType.HEAP;
+
+    // Only used to size the PRIMITIVE store's tables up front.
+    @Min(0)
+    private int expectedAuctions = 1024;
+
+    // Only used by the TIERED store: how many winners it keeps on the heap, and where the rest go.
+    @Min(1)
+    private int maxHotAuctions = 100_000;
+
+    @NotEmpty
+    private String coldDirectory = "/tmp/auction-service/cold";
+
+    @JsonProperty
+    public WinnerStoreType getType() {
+        return type;
+    }
+
+    @JsonProperty
+    public void setType(WinnerStoreType type) {
+        this.type = type;
+    }
+
+    @JsonProperty
+    public int getExpectedAuctions() {
+        return expectedAuctions;
+    }
+
+    @JsonProperty
+    public void setExpectedAuctions(int expectedAuctions) {
+        this.expectedAuctions = expectedAuctions;
+    }
+
+    @JsonProperty
+    public int getMaxHotAuctions() {
+        return maxHotAuctions;
+    }
+
+    @JsonProperty
+    public void setMaxHotAuctions(int maxHotAuctions) {
+        this.maxHotAuctions = maxHotAuctions;
+    }
+
+    @JsonProperty
+    public String getColdDirectory() {
+        return coldDirectory;
+    }
+
+    @JsonProperty
+    public void setColdDirectory(String coldDirectory) {
+        this.coldDirectory = coldDirectory;
+    }
+
+    public WinnerStore build() throws IOException {
+        if (type == WinnerStoreType.TIERED) {
+            return new TieredWinnerStore(Paths.get(coldDirectory), maxHotAuctions);
+        }
+        if (type == WinnerStoreType.PRIMITIVE) {
+            return new PrimitiveWinnerStore(expectedAuctions);
+        }
+        return new HeapWinnerStore();
+    }
+}
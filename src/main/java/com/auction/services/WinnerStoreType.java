@@ -0,0 +1,15 @@
+package com.auction.services;
+
+// How AuctionService lays out auction winners in memory.
+public enum WinnerStoreType {
+
+    // A Bid object per auction, see HeapWinnerStore.
+    HEAP,
+
+    // Primitive arrays with fixed-point prices and interned bidder ids, see PrimitiveWinnerStore.
+    PRIMITIVE,
+
+    // A bounded set of recently and frequently used Bids on the heap, the rest in files on local disk, see
+    // TieredWinnerStore.
+    TIERED
+}
@@ -0,0 +1,92 @@
+package com.auction.api;
+
+import com.auction.model.Bid;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.dropwizard.jackson.Jackson;
+import org.eclipse.jetty.http.HttpStatus;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class AuctionJsonModuleTest {
+
+    private final ObjectMapper beanMapper = Jackson.newObjectMapper();
+
+    private final ObjectMapper moduleMapper = Jackson.newObjectMapper().registerModule(new AuctionJsonModule());
+
+    @Test
+    public void testWinnerMatchesBeanSerialization() throws Exception {
+        assertSameJson(new Winner(HttpStatus.OK_200, "JohnDoe123", new BigDecimal("1000.34"), 1));
+        assertSameJson(new Winner(HttpStatus.OK_200, "No entries.", BigDecimal.ZERO, 7));
+        assertSameJson(new Winner(HttpStatus.OK_200, "Jo\"hn\u00e9\u2028", new BigDecimal("1234567.5"), null));
+        assertEquals(moduleMapper.writeValueAsString(
+                new Winner(HttpStatus.OK_200, "JohnDoe123", new BigDecimal("1000.34"), 1)),
+                "{\"code\":200,\"bidderId\":\"JohnDoe123\",\"winningPrice\":\"$1,000.34\",\"auctionId\":1}");
+    }
+
+    @Test
+    public void testProcessedBidMatchesBeanSerialization() throws Exception {
+        assertSameJson(new ProcessedBid(HttpStatus.CREATED_201, new Bid("JohnDoe123", "$1,000.34", "5E+3", "$.100", 3)));
+        assertSameJson(new ProcessedBid(HttpStatus.CREATED_201, new Bid("JohnDoe123", "2", "14.00", "1.5", 0)));
+        assertSameJson(new ProcessedBid());
+        assertSameJson(new Bid("JohnDoe123", "2", "14.00", "1.5", 0));
+    }
+
+    @Test
+    public void testBidMatchesBeanDeserialization() throws Exception {
+        String[] bodies = {
+                "{\"bidderId\":\"JohnDoe123\",\"startingBid\":\"$2.00\",\"maxBid\":\"$14.00\","
+                        + "\"autoIncrement\":\"$1.50\",\"auctionId\":1}",
+                "{\"auctionId\":2,\"autoIncrement\":1,\"maxBid\":6.50,\"startingBid\":5,\"bidderId\":\"a\"}",
+                "{\"bidderId\":\"a\",\"startingBid\":5,\"maxBid\":6,\"autoIncrement\":1,\"auctionId\":\"4\"}",
+                "{\"bidderId\":\"a\",\"startingBid\":5,\"maxBid\":6,\"autoIncrement\":1,\"auctionId\":2.7}",
+                "{\"bidderId\":true,\"startingBid\":5,\"maxBid\":6,\"autoIncrement\":1,\"auctionId\":4}",
+                "{\"bidderId\":\"a\",\"startingBid\":5,\"maxBid\":6,\"autoIncrement\":1,\"auctionId\":4,\"auctionId\":5}",
+        };
+        for (String body : bodies) {
+            Bid expected = beanMapper.readValue(body, Bid.class);
+            Bid actual = moduleMapper.readValue(body, Bid.class);
+            assertEquals(body, expected, actual);
+            assertEquals(body, expected.getAuctionId(), actual.getAuctionId());
+            assertEquals(body, expected.getMaxBid(), actual.getMaxBid());
+        }
+        assertNull(moduleMapper.readValue("null", Bid.class));
+    }
+
+    @Test
+    public void testBidRejectedLikeBeanDeserialization() throws Exception {
+        String[] bodies = {
+                "{\"bidderId\":\"a\",\"startingBid\":5,\"maxBid\":4,\"autoIncrement\":1,\"auctionId\":3}",
+                "{\"bidderId\":\"a\",\"startingBid\":5,\"maxBid\":6,\"autoIncrement\":1,\"auctionId\":null}",
+                "{\"bidderId\":\"a\",\"startingBid\":5,\"maxBid\":6,\"autoIncrement\":1}",
+                "{\"bidderId\":\"a\",\"startingBid\":5,\"maxBid\":6,\"autoIncrement\":1,\"auctionId\":\"\"}",
+                "{\"bidderId\":\"a\",\"startingBid\":5,\"maxBid\":6,\"autoIncrement\":1,\"auctionId\":-1}",
+                "{\"bidderId\":\"a\",\"startingBid\":\"abc\",\"maxBid\":6,\"autoIncrement\":1,\"auctionId\":1}",
+                "{\"bidderId\":\"a\",\"startingBid\":5,\"maxBid\":6,\"autoIncrement\":1,\"auctionId\":true}",
+                "{\"bidderId\":\"a\",\"startingBid\":5,\"maxBid\":6,\"autoIncrement\":1,\"auctionId\":99999999999}",
+                "{\"bidderId\":{},\"startingBid\":5,\"maxBid\":6,\"autoIncrement\":1,\"auctionId\":1}",
+                "{\"bidderId\":\"a\",\"startingBid\":5,\"maxBid\":6,\"autoIncrement\":1,\"auctionId\":1,\"x\":1}",
+                "[]",
+                "\"a\"",
+        };
+        for (String body : bodies) {
+            assertEquals(body, failure(beanMapper, body), failure(moduleMapper, body));
+        }
+    }
+
+    private void assertSameJson(Object value) throws Exception {
+        assertEquals(beanMapper.writeValueAsString(value), moduleMapper.writeValueAsString(value));
+    }
+
+    private static Class<?> failure(ObjectMapper mapper, String body) {
+        try {
+            mapper.readValue(body, Bid.class);
+            return null;
+        } catch (Exception e) {
+            return e.getClass();
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package com.auction.cluster;
+
+import com.auction.api.AuctionJsonModule;
+import com.auction.api.BatchResult;
+import com.auction.api.BidResult;
+import com.auction.api.ProcessedBid;
+import com.auction.api.Winner;
+import com.auction.model.Bid;
+import com.auction.resources.AuctionResource;
+import com.auction.resources.BinaryBidProvider;
+import com.auction.services.AuctionService;
+import com.auction.services.BidEngine;
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.dropwizard.jackson.Jackson;
+import io.dropwizard.jersey.DropwizardResourceConfig;
+import io.dropwizard.jersey.jackson.JacksonMessageBodyProvider;
+import io.dropwizard.jersey.validation.HibernateValidationFeature;
+import io.dropwizard.jersey.validation.Validators;
+import io.dropwizard.util.Duration;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.servlet.FilterHolder;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.client.ClientProperties;
+import org.glassfish.jersey.servlet.ServletContainer;
+import org.junit.After;
+import org.junit.Test;
+
+import javax.servlet.DispatcherType;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+// Starts three nodes on localhost ports, each with its own AuctionService, and checks that every node answers for
+// every auction while only the owner holds it.
+public class ClusterTest {
+
+    private static final int NODES = 3;
+
+    private static final String SECRET = "cluster-test-secret";
+
+    private static final ObjectMapper MAPPER = Jackson.newObjectMapper().registerModule(new AuctionJsonModule());
+
+    private final List<Node> nodes = new ArrayList<>();
+
+    private final Client client = ClientBuilder.newClient(new ClientConfig()
+            .property(ClientProperties.FOLLOW_REDIRECTS, false)
+            .register(new JacksonMessageBodyProvider(MAPPER))
+            .register(BinaryBidProvider.class));
+
+    @After
+    public void stopNodes() throws Exception {
+        client.close();
+        for (Node node : nodes) {
+            node.stop();
+        }
+    }
+
+    @Test
+    public void testBidOnAnyNodeLandsOnTheOwner() throws Exception {
+        start(ClusterMode.FORWARD);
+        for (int auctionId = 0; auctionId < 30; auctionId++) {
+            Node entry = nodes.get(auctionId % NODES);
+            ProcessedBid processed = client.target(entry.url).path("auction").request(MediaType.APPLICATION_JSON)
+                    .post(Entity.json(new Bid("JohnDoe123", "1", "10", "1", auctionId)), ProcessedBid.class);
+            assertEquals(processed.getCode(), HttpStatus.CREATED_201);
+
+            for (Node node : nodes) {
+                if (node.cluster.isLocal(auctionId)) {
+                    assertNotNull(node.service.findWinner(auctionId));
+                } else {
+                    assertNull(node.service.findWinner(auctionId));
+                }
+                Winner winner = client.target(node.url).path("auction").queryParam("auctionId", auctionId)
+                        .request(MediaType.APPLICATION_JSON).get(Winner.class);
+                assertEquals(winner.getBidderId(), "JohnDoe123");
+                assertEquals(winner.getAuctionId(), Integer.valueOf(auctionId));
+            }
+        }
+    }
+
+    @Test
+    public void testBinaryBidIsForwarded() throws Exception {
+        start(ClusterMode.FORWARD);
+        int auctionId = remoteAuction(nodes.get(0));
+        ProcessedBid processed = client.target(nodes.get(0).url).path("auction")
+                .request(BinaryBidProvider.APPLICATION_AUCTION_BID_TYPE)
+                .post(Entity.entity(new Bid("A", "1", "10", "1", auctionId),
+                        BinaryBidProvider.APPLICATION_AUCTION_BID_TYPE), ProcessedBid.class);
+        assertEquals(processed.getCode(), HttpStatus.CREATED_201);
+        assertNotNull(owner(auctionId).service.findWinner(auctionId));
+        assertNull(nodes.get(0).service.findWinner(auctionId));
+    }
+
+    @Test
+    public void testRedirectsToTheOwner() throws Exception {
+        start(ClusterMode.REDIRECT);
+        Node entry = nodes.get(0);
+        int auctionId = remoteAuction(entry);
+        Response response = client.target(entry.url).path("auction").queryParam("auctionId", auctionId)
+                .request(MediaType.APPLICATION_JSON).get();
+        assertEquals(response.getStatus(), HttpStatus.TEMPORARY_REDIRECT_307);
+        assertEquals(response.getLocation().getPort(), owner(auctionId).port);
+
+        response = client.target(entry.url).path("auction").request(MediaType.APPLICATION_JSON)
+                .post(Entity.json(new Bid("A", "1", "10", "1", auctionId)));
+        assertEquals(response.getStatus(), HttpStatus.TEMPORARY_REDIRECT_307);
+        assertEquals(response.getLocation().getPort(), owner(auctionId).port);
+        assertNull(owner(auctionId).service.findWinner(auctionId));
+    }
+
+    @Test
+    public void testBatchIsSplitAcrossOwners() throws Exception {
+        start(ClusterMode.FORWARD);
+        List<Bid> bids = new ArrayList<>();
+        for (int auctionId = 0; auctionId < 20; auctionId++) {
+            bids.add(new Bid("A", "1", "10", "1", auctionId));
+            bids.add(new Bid("B", "1", "20", "1", auctionId));
+        }
+        BatchResult batch = client.target(nodes.get(1).url).path("auction/batch").request(MediaType.APPLICATION_JSON)
+                .post(Entity.json(bids), BatchResult.class);
+
+        assertEquals(batch.getResults().size(), bids.size());
+        for (int i = 0; i < bids.size(); i++) {
+            BidResult result = batch.getResults().get(i);
+            assertEquals(result.getCode(), HttpStatus.CREATED_201);
+            assertEquals(result.getAuctionId(), bids.get(i).getAuctionId());
+            // The second bid on each auction outbids the first.
+            assertEquals(result.getWinning(), true);
+        }
+        for (int auctionId = 0; auctionId < 20; auctionId++) {
+            assertEquals(owner(auctionId).service.findWinner(auctionId).getId(), "B");
+        }
+    }
+
+    @Test
+    public void testWinnersAreGatheredFromOwners() throws Exception {
+        start(ClusterMode.FORWARD);
+        for (int auctionId = 0; auctionId < 10; auctionId += 2) {
+            owner(auctionId).service.processBid(Bid.create("Bidder" + auctionId, BigDecimal.ONE,
+                    BigDecimal.TEN, BigDecimal.ONE, auctionId));
+        }
+        for (Node node : nodes) {
+            JsonNode winners = MAPPER.readTree(client.target(node.url).path("auction/winners")
+                    .queryParam("ids", "9,8,7,6,5,4,3,2,1,0").request(MediaType.APPLICATION_JSON).get(String.class))
+                    .path("winners");
+            assertEquals(winners.size(), 10);
+            for (int i = 0; i < 10; i++) {
+                int auctionId = 9 - i;
+                assertEquals(winners.get(i).path("auctionId").asInt(), auctionId);
+                assertEquals(winners.get(i).path("bidderId").asText(),
+                        auctionId % 2 == 0 ? "Bidder" + auctionId : "No entries.");
+            }
+        }
+    }
+
+    @Test
+    public void testForwardedRequestIsServedLocally() throws Exception {
+        start(ClusterMode.FORWARD);
+        Node entry = nodes.get(0);
+        int auctionId = remoteAuction(entry);
+        ProcessedBid processed = client.target(entry.url).path("auction").request(MediaType.APPLICATION_JSON)
+                .header(Cluster.FORWARDED_BY, "node-1").header(Cluster.FORWARD_TOKEN, SECRET)
+                .post(Entity.json(new Bid("A", "1", "10", "1", auctionId)), ProcessedBid.class);
+        assertEquals(processed.getCode(), HttpStatus.CREATED_201);
+        assertNotNull(entry.service.findWinner(auctionId));
+        assertNull(owner(auctionId).service.findWinner(auctionId));
+    }
+
+    // A batch or winner lookup another node sent on is answered by this node alone, and never sent on again.
+    @Test
+    public void testForwardedBatchAndWinnersAreServedLocally() throws Exception {
+        start(ClusterMode.FORWARD);
+        Node entry = nodes.get(0);
+        int auctionId = remoteAuction(entry);
+        owner(auctionId).service.processBid(Bid.create("Owner", BigDecimal.ONE, BigDecimal.TEN, BigDecimal.ONE,
+                auctionId));
+
+        List<Bid> bids = new ArrayList<>();
+        bids.add(new Bid("A", "1", "10", "1", auctionId));
+        BatchResult batch = client.target(entry.url).path("auction/batch").request(MediaType.APPLICATION_JSON)
+                .header(Cluster.FORWARDED_BY, "node-2").header(Cluster.FORWARD_TOKEN, SECRET)
+                .post(Entity.json(bids), BatchResult.class);
+        assertEquals(HttpStatus.CREATED_201, batch.getResults().get(0).getCode());
+        assertEquals("A", entry.service.findWinner(auctionId).getId());
+        assertEquals("Owner", owner(auctionId).service.findWinner(auctionId).getId());
+
+        JsonNode winners = MAPPER.readTree(client.target(entry.url).path("auction/winners")
+                .queryParam("ids", auctionId).request(MediaType.APPLICATION_JSON)
+                .header(Cluster.FORWARDED_BY, "node-2").header(Cluster.FORWARD_TOKEN, SECRET)
+                .get(String.class)).path("winners");
+        assertEquals("A", winners.get(0).path("bidderId").asText());
+    }
+
+    // Winner lookups wait for the owners without holding a request thread, and answer 503 when an owner is down.
+    @Test
+    public void testWinnersAnswerUnavailableWhenAnOwnerIsDown() throws Exception {
+        start(ClusterMode.FORWARD);
+        Node entry = nodes.get(0);
+        int auctionId = remoteAuction(entry);
+        owner(auctionId).server.stop();
+
+        Response response = client.target(entry.url).path("auction/winners").queryParam("ids", auctionId)
+                .request(MediaType.APPLICATION_JSON).get();
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE_503, response.getStatus());
+    }
+
+    // FORWARDED_BY without the cluster's secret is ignored, so a client cannot use it to skip routing.
+    @Test
+    public void testForwardedByWithoutSecretIsRouted() throws Exception {
+        start(ClusterMode.FORWARD);
+        Node entry = nodes.get(0);
+        int auctionId = remoteAuction(entry);
+        for (String token : new String[]{null, "guessed"}) {
+            ProcessedBid processed = client.target(entry.url).path("auction").request(MediaType.APPLICATION_JSON)
+                    .header(Cluster.FORWARDED_BY, "node-2").header(Cluster.FORWARD_TOKEN, token)
+                    .post(Entity.json(new Bid("A", "1", "10", "1", auctionId)), ProcessedBid.class);
+            assertEquals(processed.getCode(), HttpStatus.CREATED_201);
+        }
+        List<Bid> bids = new ArrayList<>();
+        bids.add(new Bid("B", "1", "20", "1", auctionId));
+        client.target(entry.url).path("auction/batch").request(MediaType.APPLICATION_JSON)
+                .header(Cluster.FORWARDED_BY, "node-2")
+                .post(Entity.json(bids), BatchResult.class);
+
+        assertNull(entry.service.findWinner(auctionId));
+        assertEquals("B", owner(auctionId).service.findWinner(auctionId).getId());
+    }
+
+    // Event streams are redirected to the owner even when other requests are forwarded.
+    @Test
+    public void testEventSubscriptionIsRedirectedToTheOwner() throws Exception {
+        start(ClusterMode.FORWARD);
+        Node entry = nodes.get(0);
+        int auctionId = remoteAuction(entry);
+        Response response = client.target(entry.url).path("auction/events").queryParam("auctionId", auctionId)
+                .request("text/event-stream").get();
+        assertEquals(HttpStatus.TEMPORARY_REDIRECT_307, response.getStatus());
+        assertEquals(owner(auctionId).port, response.getLocation().getPort());
+        assertEquals("/auction/events", response.getLocation().getPath());
+    }
+
+    private void start(ClusterMode mode) throws Exception {
+        List<ClusterNode> members = new ArrayList<>();
+        for (int i = 0; i < NODES; i++) {
+            Node node = new Node();
+            members.add(new ClusterNode("node-" + (i + 1), node.url));
+            nodes.add(node);
+        }
+        for (int i = 0; i < NODES; i++) {
+            ClusterFactory factory = new ClusterFactory();
+            factory.setTimeout(Duration.seconds(5));
+            nodes.get(i).start(new Cluster("node-" + (i + 1), members, 128, mode, factory.buildClient(), SECRET,
+                    5000));
+        }
+    }
+
+    private int remoteAuction(Node node) {
+        int auctionId = 0;
+        while (node.cluster.isLocal(auctionId)) {
+            auctionId++;
+        }
+        return auctionId;
+    }
+
+    private Node owner(int auctionId) {
+        for (Node node : nodes) {
+            if (node.cluster.isLocal(auctionId)) {
+                return node;
+            }
+        }
+        throw new AssertionError("No owner for " + auctionId);
+    }
+
+
+    // One node's server. The connector is opened first so every node's URL is known before the clusters are built.
+    private static final class Node {
+        private final Server server = new Server();
+        private final ServerConnector connector = new ServerConnector(server);
+        private final AuctionService service = new AuctionService();
+        private final BidEngine engine = new BidEngine(service, 2, 1024, 16, 5000);
+        private final int port;
+        private final String url;
+        private Cluster cluster;
+
+        private Node() throws Exception {
+            connector.setHost("localhost");
+            connector.setPort(0);
+            connector.open();
+            port = connector.getLocalPort();
+            url = "http://localhost:" + port;
+            server.addConnector(connector);
+        }
+
+        private void start(Cluster cluster) throws Exception {
+            this.cluster = cluster;
+            DropwizardResourceConfig config = DropwizardResourceConfig.forTesting(new MetricRegistry());
+            config.register(new JacksonMessageBodyProvider(MAPPER));
+            config.register(new HibernateValidationFeature(Validators.newValidator()));
+            config.register(BinaryBidProvider.class);
+            config.register(new AuctionResource(service, engine, null, MAPPER, cluster));
+            ServletHolder jersey = new ServletHolder(new ServletContainer(config));
+            jersey.setAsyncSupported(true);
+            ServletContextHandler context = new ServletContextHandler();
+            FilterHolder routing = new FilterHolder(new ClusterRoutingFilter(cluster));
+            routing.setAsyncSupported(true);
+            context.addFilter(routing, "/auction/*", EnumSet.of(DispatcherType.REQUEST));
+            context.addFilter(routing, "/auction", EnumSet.of(DispatcherType.REQUEST));
+            context.addServlet(jersey, "/*");
+            server.setHandler(context);
+            engine.start();
+            server.start();
+        }
+
+        private void stop() throws Exception {
+            server.stop();
+            engine.stop();
+            if (cluster != null) {
+                cluster.stop();
+            }
+        }
+    }
+}
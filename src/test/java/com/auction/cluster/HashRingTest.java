@@ -0,0 +1,57 @@
+package com.auction.cluster;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HashRingTest {
+
+    private static final int AUCTIONS = 100_000;
+
+    @Test
+    public void testSpreadsAuctionsEvenly() {
+        HashRing ring = new HashRing(Arrays.asList("node-1", "node-2", "node-3"), 128);
+        Map<String, Integer> counts = new HashMap<>();
+        for (int auctionId = 0; auctionId < AUCTIONS; auctionId++) {
+            counts.merge(ring.ownerOf(auctionId), 1, Integer::sum);
+        }
+        assertEquals(counts.size(), 3);
+        for (int count : counts.values()) {
+            assertTrue("Unbalanced ring: " + counts, Math.abs(count - AUCTIONS / 3) < AUCTIONS / 3 * 0.2);
+        }
+    }
+
+    @Test
+    public void testAddingANodeOnlyMovesAuctionsToIt() {
+        HashRing before = new HashRing(Arrays.asList("node-1", "node-2", "node-3"), 128);
+        HashRing after = new HashRing(Arrays.asList("node-1", "node-2", "node-3", "node-4"), 128);
+        int moved = 0;
+        for (int auctionId = 0; auctionId < AUCTIONS; auctionId++) {
+            if (!before.ownerOf(auctionId).equals(after.ownerOf(auctionId))) {
+                assertEquals(after.ownerOf(auctionId), "node-4");
+                moved++;
+            }
+        }
+        assertTrue("Moved " + moved, moved > AUCTIONS * 0.15 && moved < AUCTIONS * 0.35);
+    }
+
+    @Test
+    public void testOwnersDoNotDependOnConfigurationOrder() {
+        HashRing ring = new HashRing(Arrays.asList("node-1", "node-2", "node-3"), 16);
+        HashRing reordered = new HashRing(Arrays.asList("node-3", "node-1", "node-2"), 16);
+        for (int auctionId = 0; auctionId < 10_000; auctionId++) {
+            assertEquals(reordered.ownerOf(auctionId), ring.ownerOf(auctionId));
+        }
+        assertEquals(ring.getNodes(), Arrays.asList("node-1", "node-2", "node-3"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsEmptyRing() {
+        new HashRing(Arrays.asList(), 128);
+    }
+}
@@ -0,0 +1,162 @@
+package com.auction.events;
+
+import com.auction.model.Bid;
+import com.auction.services.AuctionService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class WinnerEventHubTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AuctionService auctionService = new AuctionService();
+    private final WinnerEventHub hub = new WinnerEventHub(auctionService, objectMapper, 60000);
+
+    @Before
+    public void setUp() {
+        auctionService.addWinnerListener(hub);
+        hub.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        hub.stop();
+    }
+
+    // A new subscriber first gets the current winner, then every change of it.
+    @Test
+    public void testSubscriberReceivesCurrentAndChangedWinner() throws Exception {
+        auctionService.processBid(new Bid("Alice", "1", "10", "1", 1));
+        RecordingSubscriber subscriber = new RecordingSubscriber(true);
+        hub.subscribe(1, subscriber);
+
+        auctionService.processBid(new Bid("Bob", "1", "20", "1", 1));
+        subscriber.awaitEvents(2);
+
+        assertEquals("Alice", winner(subscriber.events.get(0)).get("bidderId").asText());
+        JsonNode changed = winner(subscriber.events.get(1));
+        assertEquals("Bob", changed.get("bidderId").asText());
+        assertEquals("$11.00", changed.get("winningPrice").asText());
+        assertEquals(1, changed.get("auctionId").asInt());
+    }
+
+    // Auctions without bids start with the "No entries." placeholder, and other auctions' changes are not sent.
+    @Test
+    public void testSubscriberOnlyReceivesItsAuction() throws Exception {
+        RecordingSubscriber subscriber = new RecordingSubscriber(true);
+        hub.subscribe(2, subscriber);
+        auctionService.processBid(new Bid("Carol", "1", "10", "1", 3));
+        auctionService.processBid(new Bid("Dave", "1", "10", "1", 2));
+        subscriber.awaitEvents(2);
+        Thread.sleep(50);
+
+        assertEquals(2, subscriber.events.size());
+        assertEquals("No entries.", winner(subscriber.events.get(0)).get("bidderId").asText());
+        assertEquals("Dave", winner(subscriber.events.get(1)).get("bidderId").asText());
+    }
+
+    // A subscriber that cannot keep up skips intermediate winners and gets the latest one once it catches up.
+    @Test
+    public void testSlowSubscriberGetsLatestWinnerOnly() throws Exception {
+        RecordingSubscriber subscriber = new RecordingSubscriber(false);
+        hub.subscribe(4, subscriber);
+        for (int i = 1; i <= 50; i++) {
+            auctionService.processBid(new Bid("Bidder" + i, "1", Integer.toString(10 * i), "1", 4));
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while (hub.getDroppedEvents() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(100);
+
+        subscriber.ready = true;
+        subscriber.write();
+
+        assertEquals(1, subscriber.events.size());
+        assertEquals("Bidder50", winner(subscriber.events.get(0)).get("bidderId").asText());
+        assertTrue(hub.getDroppedEvents() > 0);
+    }
+
+    // A winner change made while a new topic reads the current winner is not lost, and the older read does not
+    // overwrite it.
+    @Test
+    public void testChangeDuringSubscribeIsKept() throws Exception {
+        Bid racingBid = new Bid("Bob", "1", "20", "1", 6);
+        AuctionService racingService = new AuctionService() {
+            @Override
+            public Bid findWinner(int auctionId) {
+                Bid winner = super.findWinner(auctionId);
+                processBid(racingBid);
+                return winner;
+            }
+        };
+        WinnerEventHub racingHub = new WinnerEventHub(racingService, objectMapper, 60000);
+        racingService.addWinnerListener(racingHub);
+        racingHub.start();
+        try {
+            racingService.processBid(new Bid("Alice", "1", "10", "1", 6));
+            RecordingSubscriber subscriber = new RecordingSubscriber(true);
+            racingHub.subscribe(6, subscriber);
+            subscriber.awaitEvents(1);
+            Thread.sleep(50);
+
+            String last = subscriber.events.get(subscriber.events.size() - 1);
+            assertEquals("Bob", winner(last).get("bidderId").asText());
+        } finally {
+            racingHub.stop();
+        }
+    }
+
+    @Test
+    public void testUnsubscribe() throws Exception {
+        RecordingSubscriber subscriber = new RecordingSubscriber(true);
+        hub.subscribe(5, subscriber);
+        assertEquals(1, hub.getSubscriberCount());
+        hub.unsubscribe(5, subscriber);
+        assertEquals(0, hub.getSubscriberCount());
+    }
+
+    private JsonNode winner(String event) throws Exception {
+        assertTrue(event.startsWith("event: winner\ndata: "));
+        assertTrue(event.endsWith("\n\n"));
+        return objectMapper.readTree(event.substring(event.indexOf("data: ") + 6));
+    }
+
+
+    private static final class RecordingSubscriber extends WinnerEventHub.Subscriber {
+        private final List<String> events = new CopyOnWriteArrayList<>();
+        private volatile boolean ready;
+
+        private RecordingSubscriber(boolean ready) {
+            this.ready = ready;
+        }
+
+        @Override
+        protected synchronized void write() {
+            byte[] event;
+            while (ready && (event = take()) != null) {
+                events.add(new String(event, StandardCharsets.UTF_8));
+            }
+        }
+
+        @Override
+        protected void close() {
+        }
+
+        private void awaitEvents(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (events.size() < count && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+        }
+    }
+}
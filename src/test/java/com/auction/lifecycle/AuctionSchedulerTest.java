@@ -0,0 +1,95 @@
+package com.auction.lifecycle;
+
+import com.auction.model.Bid;
+import com.auction.services.AuctionService;
+import org.junit.Test;
+
+import javax.ws.rs.WebApplicationException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AuctionSchedulerTest {
+
+    private static final long NOW = 1_539_856_000_000L;
+
+    private final AuctionService auctionService = new AuctionService();
+
+    private final AuctionScheduler scheduler = new AuctionScheduler(auctionService, 10, NOW);
+
+    @Test
+    public void testClosesAtCloseTimeAndKeepsWinner() throws Exception {
+        auctionService.processBid(new Bid("Alice", "1", "10", "1", 1));
+        scheduler.schedule(1, NOW + 1005);
+        scheduler.schedule(2, NOW + 2000);
+
+        // Never early: the tick containing the close time is not enough.
+        assertEquals(scheduler.advanceTo(NOW + 1000), 0);
+        assertEquals(scheduler.advanceTo(NOW + 1010), 1);
+        assertTrue(auctionService.isClosed(1));
+        assertFalse(auctionService.isClosed(2));
+        assertNull(scheduler.getCloseTime(1));
+        assertEquals(auctionService.getWinner(1).getId(), "Alice");
+
+        assertEquals(scheduler.advanceTo(NOW + 5000), 1);
+        assertTrue(auctionService.isClosed(2));
+        assertEquals(auctionService.getClosedAuctionCount(), 2);
+        assertEquals(auctionService.getAuctionCount(), 1);
+    }
+
+    @Test
+    public void testMovingCloseTime() throws Exception {
+        scheduler.schedule(3, NOW + 1000);
+        scheduler.schedule(3, NOW + 3000);
+        scheduler.schedule(4, NOW + 3000);
+        scheduler.schedule(4, NOW + 500);
+
+        assertEquals(scheduler.advanceTo(NOW + 1000), 1);
+        assertFalse(auctionService.isClosed(3));
+        assertTrue(auctionService.isClosed(4));
+        assertEquals(scheduler.getCloseTime(3), Long.valueOf(NOW + 3000));
+
+        assertEquals(scheduler.advanceTo(NOW + 3000), 1);
+        assertTrue(auctionService.isClosed(3));
+        assertEquals(scheduler.getScheduledCount(), 0);
+    }
+
+    @Test
+    public void testRejectsSchedulingClosedAuction() throws Exception {
+        scheduler.schedule(5, NOW - 1);
+        scheduler.advanceTo(NOW);
+        try {
+            scheduler.schedule(5, NOW + 1000);
+            fail("Expected a closed auction to stay closed");
+        } catch (WebApplicationException e) {
+            assertEquals(e.getResponse().getStatus(), 409);
+        }
+    }
+
+    @Test
+    public void testClosesManyAuctionsInOneTick() throws Exception {
+        for (int auctionId = 0; auctionId < 100000; auctionId++) {
+            scheduler.schedule(auctionId, NOW + 60_000 + auctionId % 7);
+        }
+        assertEquals(scheduler.advanceTo(NOW + 59_999), 0);
+        assertEquals(scheduler.advanceTo(NOW + 60_010), 100000);
+        assertEquals(auctionService.getClosedAuctionCount(), 100000);
+    }
+
+    // Close times recovered before the scheduler is built are scheduled, and ones that passed close on the first tick.
+    @Test
+    public void testSchedulesRecoveredCloseTimes() throws Exception {
+        AuctionService recovered = new AuctionService();
+        recovered.restoreCloseTime(1, NOW - 5000);
+        recovered.restoreCloseTime(2, NOW + 1000);
+        AuctionScheduler restarted = new AuctionScheduler(recovered, 10, NOW);
+
+        assertEquals(1, restarted.advanceTo(NOW + 10));
+        assertTrue(recovered.isClosed(1));
+        assertEquals(1, restarted.advanceTo(NOW + 1000));
+        assertTrue(recovered.isClosed(2));
+    }
+}
@@ -0,0 +1,80 @@
+package com.auction.lifecycle;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TimerWheelTest {
+
+    // Every entry expires on exactly the tick of its deadline, across every wheel, however far the wheel advances
+    // at a time.
+    @Test
+    public void testExpiresOnDeadlineTick() throws Exception {
+        long start = (1L << 24) - 1000;
+        TimerWheel wheel = new TimerWheel(start);
+        Random random = new Random(9);
+        Map<Integer, Long> deadlines = new HashMap<>();
+        for (int auctionId = 0; auctionId < 20000; auctionId++) {
+            long deadline = start + (long) Math.pow(2, random.nextDouble() * 26);
+            deadlines.put(auctionId, deadline);
+            wheel.add(auctionId, deadline);
+        }
+
+        Map<Integer, Long> expiredAt = new HashMap<>();
+        long tick = start;
+        while (wheel.size() > 0) {
+            tick += 1 + random.nextInt(5000);
+            long now = tick;
+            wheel.advance(now, (auctionId, deadline) -> {
+                assertEquals(deadlines.get(auctionId), Long.valueOf(deadline));
+                assertTrue(deadline <= now);
+                expiredAt.put(auctionId, now);
+            });
+        }
+        assertEquals(deadlines.size(), expiredAt.size());
+        for (Map.Entry<Integer, Long> entry : expiredAt.entrySet()) {
+            // Expired on the first advance that reached the deadline.
+            assertTrue(entry.getValue() - deadlines.get(entry.getKey()) < 5001);
+        }
+    }
+
+    @Test
+    public void testSingleTicks() throws Exception {
+        TimerWheel wheel = new TimerWheel(250);
+        wheel.add(1, 256);
+        wheel.add(2, 300);
+        wheel.add(3, 65536 + 3);
+        wheel.add(4, 100);
+        List<long[]> expired = new ArrayList<>();
+        for (long tick = 250; tick <= 70000; tick++) {
+            long now = tick;
+            wheel.advance(tick, (auctionId, deadline) -> expired.add(new long[]{auctionId, now}));
+        }
+        assertEquals(expired.size(), 4);
+        assertEquals(expired.get(0)[0], 4);
+        assertEquals(expired.get(0)[1], 250);
+        assertEquals(expired.get(1)[1], 256);
+        assertEquals(expired.get(2)[1], 300);
+        assertEquals(expired.get(3)[1], 65539);
+    }
+
+    // Deadlines beyond the wheels' span go round until they are in range.
+    @Test
+    public void testFarDeadline() throws Exception {
+        TimerWheel wheel = new TimerWheel(0);
+        wheel.add(1, Long.MAX_VALUE);
+        wheel.add(2, 1L << 50);
+        long[] expired = new long[1];
+        wheel.advance((1L << 50) - 1, (auctionId, deadline) -> expired[0]++);
+        assertEquals(expired[0], 0);
+        wheel.advance(1L << 50, (auctionId, deadline) -> assertEquals(auctionId, 2));
+        assertEquals(wheel.size(), 1);
+    }
+}
@@ -0,0 +1,49 @@
+package com.auction.metrics;
+
+import com.auction.model.Bid;
+import com.auction.services.AuctionService;
+import com.auction.services.BidResolution;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BidMetricsTest {
+
+    @Test
+    public void testCountsEveryBidAndTimesASample() throws Exception {
+        AuctionService auctionService = new AuctionService();
+        auctionService.setResolutionTimingInterval(4);
+        BidMetrics metrics = new BidMetrics(2, 4, 1, TimeUnit.MINUTES);
+        MetricRegistry registry = new MetricRegistry();
+        metrics.register(registry, auctionService);
+        auctionService.addResolutionListener(metrics);
+
+        Bid bid = new Bid("Hot", "1", "10", "1", 1);
+        for (int i = 0; i < 4000; i++) {
+            auctionService.processBid(bid);
+        }
+        auctionService.processBid(new Bid("Other", "1", "10", "1", 2));
+
+        Counter duplicates = registry.counter(
+                "com.auction.services.AuctionService.resolution.duplicate");
+        assertEquals(duplicates.getCount(), 3999);
+        assertEquals(metrics.getCount(BidResolution.NEW_AUCTION).getCount(), 2);
+        long timed = metrics.getLatency(BidResolution.DUPLICATE).getCount();
+        assertTrue(timed > 800 && timed < 1200);
+
+        Map<Integer, Long> hot = metrics.getHotAuctions();
+        assertEquals(hot.keySet().iterator().next(), Integer.valueOf(1));
+        assertEquals(hot.get(1), 4000, 600);
+        Gauge<?> auctions = registry.getGauges().get("com.auction.services.AuctionService.auctions");
+        assertEquals(auctions.getValue(), 2);
+        Gauge<?> bytes = registry.getGauges().get("com.auction.services.AuctionService.winner-bytes");
+        assertTrue((Long) bytes.getValue() > 0);
+    }
+}
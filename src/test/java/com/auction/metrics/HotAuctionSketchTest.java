@@ -0,0 +1,44 @@
+package com.auction.metrics;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HotAuctionSketchTest {
+
+    @Test
+    public void testFindsHeavyHittersAmongNoise() throws Exception {
+        HotAuctionSketch sketch = new HotAuctionSketch(8);
+        Random random = new Random(11);
+        for (int i = 0; i < 200000; i++) {
+            int roll = random.nextInt(100);
+            // Auctions 1 to 3 get 10%, 6% and 3% of the bids, the rest is spread over 100000 auctions.
+            sketch.offer(roll < 10 ? 1 : roll < 16 ? 2 : roll < 19 ? 3 : 100 + random.nextInt(100000));
+        }
+        Map<Integer, Long> top = sketch.top(3);
+        assertEquals(new ArrayList<>(top.keySet()), Arrays.asList(1, 2, 3));
+        // Counts never understate.
+        assertTrue(top.get(1) >= 20000 * 0.95);
+        assertTrue(top.get(3) >= 6000 * 0.95);
+    }
+
+    @Test
+    public void testCountsAreExactBelowCapacity() throws Exception {
+        HotAuctionSketch sketch = new HotAuctionSketch(4);
+        for (int i = 0; i < 10; i++) {
+            for (int auctionId = 0; auctionId <= i; auctionId++) {
+                sketch.offer(auctionId);
+            }
+        }
+        Map<Integer, Long> top = sketch.top(2);
+        assertEquals(top.size(), 2);
+        assertEquals(top.get(0), Long.valueOf(10));
+        assertEquals(top.get(1), Long.valueOf(9));
+    }
+}
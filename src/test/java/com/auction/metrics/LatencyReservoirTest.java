@@ -0,0 +1,53 @@
+package com.auction.metrics;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.Snapshot;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyReservoirTest {
+
+    @Test
+    public void testPercentilesTrackRecordedValues() throws Exception {
+        LatencyReservoir reservoir = new LatencyReservoir(1, TimeUnit.MINUTES);
+        Random random = new Random(3);
+        for (int i = 0; i < 100000; i++) {
+            reservoir.update(1000 + random.nextInt(9000));
+        }
+        Snapshot snapshot = reservoir.getSnapshot();
+        assertEquals(snapshot.getMedian(), 5500, 5500 * 0.07);
+        assertEquals(snapshot.get99thPercentile(), 9910, 9910 * 0.07);
+        assertEquals(snapshot.getMean(), 5500, 5500 * 0.07);
+        assertEquals(snapshot.getMin(), 1000, 1000 * 0.07);
+        assertEquals(snapshot.getMax(), 10000, 10000 * 0.07);
+        assertEquals(snapshot.getValues().length, snapshot.size());
+        assertEquals(new LatencyReservoir(1, TimeUnit.MINUTES).getSnapshot().getMedian(), 0.0, 0.0);
+    }
+
+    @Test
+    public void testSnapshotsForgetOldWindows() throws Exception {
+        long[] now = {0};
+        LatencyReservoir reservoir = new LatencyReservoir(10, TimeUnit.SECONDS, new Clock() {
+            @Override
+            public long getTick() {
+                return now[0];
+            }
+        });
+        reservoir.update(100);
+        now[0] = TimeUnit.SECONDS.toNanos(10);
+        reservoir.getSnapshot();
+        reservoir.update(200);
+        // The first window is now the previous one and still reported.
+        assertEquals(reservoir.getSnapshot().size(), 2);
+
+        now[0] = TimeUnit.SECONDS.toNanos(20);
+        assertEquals(reservoir.getSnapshot().size(), 1);
+        now[0] = TimeUnit.SECONDS.toNanos(40);
+        assertEquals(reservoir.getSnapshot().size(), 0);
+    }
+}
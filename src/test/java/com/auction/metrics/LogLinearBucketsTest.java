@@ -0,0 +1,32 @@
+package com.auction.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LogLinearBucketsTest {
+
+    @Test
+    public void testBucketsCoverEveryValue() throws Exception {
+        // LatencyReservoir's layout and the load generator's.
+        for (int subBits : new int[]{4, 7}) {
+            LogLinearBuckets buckets = new LogLinearBuckets(subBits);
+            assertEquals(0, buckets.index(-5));
+            for (int index = 0; index < buckets.count() - 1; index++) {
+                long lower = buckets.lowerBound(index);
+                long upper = buckets.lowerBound(index + 1) - 1;
+                assertEquals(index, buckets.index(lower));
+                assertEquals(index, buckets.index(upper));
+                // Within 1 part in 2^subBits of anything in the bucket.
+                assertTrue(upper - lower <= Math.max(1, lower >> subBits));
+            }
+            assertEquals(buckets.count() - 1, buckets.index(Long.MAX_VALUE));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsZeroSubBits() throws Exception {
+        new LogLinearBuckets(0);
+    }
+}
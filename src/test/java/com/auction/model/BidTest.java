@@ -8,6 +8,7 @@ import java.math.BigDecimal;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
 
 public class BidTest {
 
@@ -56,6 +57,15 @@ public class BidTest {
         assertEquals(bid, other);
     }
 
+    // Bids of the same bidder share its interned id, whichever constructor built them.
+    @Test
+    public void testBidsShareBidder() throws Exception {
+        Bid other = new Bid(ID, new BigDecimal("1"), new BigDecimal("2"), new BigDecimal("1"), 7, new BigDecimal("1"));
+        assertSame(bid.getBidder(), other.getBidder());
+        assertSame(bid.getBidder(), bid.withWinningPrice(new BigDecimal("3.50")).getBidder());
+        assertEquals(other.getId(), ID);
+    }
+
     @Test
     public void testUnequalBids() throws Exception {
         Bid other = new Bid(ID, STARTING_BID, MAX_BID, AUTO_INCREMENT_BAD, AUCTION_ID);
@@ -0,0 +1,133 @@
+package com.auction.model;
+
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class BidderRegistryTest {
+
+    private final BidderRegistry registry = new BidderRegistry();
+
+    @Test
+    public void testInternReturnsSameBidder() {
+        Bidder bidder = registry.intern("JohnDoe123");
+        assertSame(registry.intern(new String("JohnDoe123")), bidder);
+        assertNotSame(registry.intern("JaneDoe123"), bidder);
+        assertEquals(registry.size(), 2);
+    }
+
+    // Latin-1 ids are stored as bytes and others as Strings; both come back unchanged.
+    @Test
+    public void testIdsRoundTrip() {
+        String[] ids = {"", "bob", "Jos\u00e9 M\u00fcller \u00ff", "\u5f20\u4f1f", "mixed \u00e9\u20ac"};
+        for (String id : ids) {
+            Bidder bidder = registry.intern(id);
+            assertEquals(bidder.getId(), id);
+            assertSame(registry.intern(id), bidder);
+        }
+        assertEquals(registry.size(), ids.length);
+    }
+
+    // Encoders get the same UTF-8 bytes from the Bidder as from its id, and the same blankness as String.trim().
+    @Test
+    public void testEncodesIdsWithoutAString() {
+        String[] ids = {"", "bob", "Jos\u00e9 M\u00fcller \u00ff", "\u5f20\u4f1f", "mixed \u00e9\u20ac", " \t ",
+                "\u00a0"};
+        for (String id : ids) {
+            Bidder bidder = registry.intern(id);
+            byte[] expected = id.getBytes(StandardCharsets.UTF_8);
+            ByteBuffer buffer = ByteBuffer.allocate(expected.length);
+            bidder.writeUtf8(buffer);
+            assertEquals(expected.length, bidder.utf8Length());
+            assertArrayEquals(expected, buffer.array());
+            assertEquals(id.trim().isEmpty(), bidder.isBlank());
+        }
+    }
+
+    // Ids that only differ past the Latin-1 range are different bidders.
+    @Test
+    public void testLatin1DoesNotConflate() {
+        Bidder latin1 = registry.intern("a\u00e9");
+        Bidder wide = registry.intern("a\u01e9");
+        assertNotSame(latin1, wide);
+        assertEquals(latin1.getId(), "a\u00e9");
+        assertEquals(wide.getId(), "a\u01e9");
+    }
+
+    @Test
+    public void testHandlesAreDenseAndDistinct() {
+        Set<Integer> handles = new HashSet<>();
+        List<Bidder> bidders = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            Bidder bidder = registry.intern("bidder" + i);
+            bidders.add(bidder);
+            handles.add(bidder.getHandle());
+        }
+        assertEquals(handles.size(), 10_000);
+        for (int handle : handles) {
+            assertTrue(handle >= 0 && handle < 10_000);
+        }
+        assertEquals(registry.size(), bidders.size());
+    }
+
+    // A bidder nothing refers to is dropped, and its handle goes to the next new bidder.
+    @Test
+    public void testCollectedBidderReleasesHandle() throws Exception {
+        Bidder kept = registry.intern("kept");
+        WeakReference<Bidder> dropped = new WeakReference<>(registry.intern("dropped"));
+        int droppedHandle = dropped.get().getHandle();
+        for (int i = 0; i < 100 && dropped.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertEquals(dropped.get(), null);
+        for (int i = 0; i < 100 && registry.size() != 1; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(registry.size(), 1);
+        assertEquals(registry.intern("new").getHandle(), droppedHandle);
+        assertSame(registry.intern("kept"), kept);
+    }
+
+    @Test
+    public void testConcurrentInterning() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Bidder[]>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                results.add(executor.submit(() -> {
+                    Bidder[] bidders = new Bidder[2_000];
+                    for (int i = 0; i < bidders.length; i++) {
+                        bidders[i] = registry.intern("bidder" + i);
+                    }
+                    return bidders;
+                }));
+            }
+            Bidder[] first = results.get(0).get();
+            for (Future<Bidder[]> result : results) {
+                Bidder[] bidders = result.get();
+                for (int i = 0; i < bidders.length; i++) {
+                    assertSame(bidders[i], first[i]);
+                }
+            }
+            assertEquals(registry.size(), 2_000);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.auction.model;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class MoneyParserTest {
+
+    @Test
+    public void testAcceptedFormats() {
+        assertParses("$1,000.34", "1000.34", 1_000_340_000L);
+        assertParses("4,000", "4000", 4_000_000_000L);
+        assertParses("$.100", ".100", 100_000L);
+        assertParses("0.000001", "0.000001", 1L);
+        assertParses("-$5", "-5", -5_000_000L);
+        assertParses("+1.5", "1.5", 1_500_000L);
+    }
+
+    @Test
+    public void testSlowPath() {
+        assertParses("$1E+3", "1E+3", Money.NOT_REPRESENTABLE);
+        assertParses("2.5e-2", "2.5e-2", 25_000L);
+        assertParses("$99,999,999,999,999,999,999", "99999999999999999999", Money.NOT_REPRESENTABLE);
+    }
+
+    @Test
+    public void testNotRepresentable() {
+        assertParses("0.0000001", "0.0000001", Money.NOT_REPRESENTABLE);
+        assertParses("999999999999999999", "999999999999999999", Money.NOT_REPRESENTABLE);
+    }
+
+    @Test
+    public void testErrors() {
+        assertError("abc", "maxBid has an unexpected character 'a' at position 0: abc");
+        assertError("$1.2.3", "maxBid has an unexpected character '.' at position 4: $1.2.3");
+        assertError("1-", "maxBid has an unexpected character '-' at position 1: 1-");
+        assertError("", "maxBid has no digits: ");
+        assertError("$", "maxBid has no digits: $");
+        assertError("$.", "maxBid has no digits: $.");
+        assertError("1e", "maxBid is not a valid amount: 1e");
+    }
+
+    // Every string either parses to what the regex and BigDecimal path produced, or is rejected by both.
+    @Test
+    public void testMatchesRegexParsing() {
+        Random random = new Random(42);
+        String alphabet = "0123456789$,.-+eE x";
+        for (int i = 0; i < 100000; i++) {
+            StringBuilder text = new StringBuilder();
+            int length = random.nextInt(12);
+            for (int j = 0; j < length; j++) {
+                text.append(alphabet.charAt(random.nextInt(random.nextBoolean() ? 10 : alphabet.length())));
+            }
+
+            BigDecimal expected;
+            try {
+                expected = new BigDecimal(text.toString().replaceAll("[$,]", ""));
+            } catch (NumberFormatException e) {
+                expected = null;
+            }
+            MoneyParser parser = new MoneyParser();
+            BigDecimal actual;
+            try {
+                actual = parser.parse(text.toString(), "maxBid");
+            } catch (NumberFormatException e) {
+                actual = null;
+            }
+            assertEquals(text.toString(), expected, actual);
+            if (actual != null) {
+                assertEquals(text.toString(), Money.toMicros(expected), parser.getMicros());
+            }
+        }
+    }
+
+    private static void assertParses(String text, String expected, long micros) {
+        MoneyParser parser = new MoneyParser();
+        BigDecimal value = parser.parse(text, "maxBid");
+        // equals, not compareTo, so the scale must match the one BigDecimal gives the stripped string.
+        assertEquals(new BigDecimal(expected), value);
+        assertEquals(micros, parser.getMicros());
+    }
+
+    private static void assertError(String text, String message) {
+        try {
+            new MoneyParser().parse(text, "maxBid");
+            fail("Expected " + text + " to be rejected");
+        } catch (NumberFormatException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+}
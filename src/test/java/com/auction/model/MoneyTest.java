@@ -0,0 +1,33 @@
+package com.auction.model;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.Assert.assertEquals;
+
+public class MoneyTest {
+
+    @Test
+    public void testToMicros() {
+        assertEquals(Money.toMicros(new BigDecimal("1000.34")), 1_000_340_000L);
+        assertEquals(Money.toMicros(new BigDecimal("4000")), 4_000_000_000L);
+        assertEquals(Money.toMicros(new BigDecimal(".100")), 100_000L);
+        assertEquals(Money.toMicros(new BigDecimal("0.000001")), 1L);
+    }
+
+    @Test
+    public void testNotRepresentable() {
+        assertEquals(Money.toMicros(new BigDecimal("0.0000001")), Money.NOT_REPRESENTABLE);
+        assertEquals(Money.toMicros(new BigDecimal("99999999999999999999")), Money.NOT_REPRESENTABLE);
+        assertEquals(Money.toMicros(new BigDecimal("1E+3")), Money.NOT_REPRESENTABLE);
+        assertEquals(Money.toMicros(null), Money.NOT_REPRESENTABLE);
+    }
+
+    @Test
+    public void testToBigDecimalKeepsScale() {
+        assertEquals(Money.toBigDecimal(1_000_340_000L, 2), new BigDecimal("1000.34"));
+        assertEquals(Money.toBigDecimal(8_000_000L, 0), new BigDecimal(8));
+        assertEquals(Money.toBigDecimal(100_000L, 3), new BigDecimal("0.100"));
+    }
+}
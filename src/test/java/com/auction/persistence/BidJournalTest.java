@@ -0,0 +1,181 @@
+package com.auction.persistence;
+
+import com.auction.model.Bid;
+import com.auction.services.AuctionService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.ws.rs.WebApplicationException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BidJournalTest {
+
+    private final String NO_ENTRIES = "No entries.";
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private Path directory;
+    private AuctionService auctionService;
+    private BidJournal journal;
+
+    @Before
+    public void setup() throws Exception {
+        directory = folder.getRoot().toPath();
+        auctionService = new AuctionService();
+        journal = open(auctionService);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        journal.stop();
+    }
+
+    // Every winner change is journaled, so a fresh service recovers the same winners and prices.
+    @Test
+    public void testRecoverReplaysJournal() throws Exception {
+        auctionService.processBid(new Bid("Winner1", "2", "10", "2", 1));
+        auctionService.processBid(new Bid("Loser1", "0", "4", "4", 1));
+        auctionService.processBid(new Bid("Winner2", "$1,000.34", "$4,000", "$.100", 2));
+        journal.sync().get();
+        journal.stop();
+
+        AuctionService recovered = new AuctionService();
+        journal = open(recovered);
+
+        assertRecovered(recovered, 1);
+        assertRecovered(recovered, 2);
+        assertEquals(recovered.getWinner(3).getId(), NO_ENTRIES);
+    }
+
+    // A snapshot replaces the journal written before it; changes made after the snapshot are replayed on top.
+    @Test
+    public void testRecoverFromSnapshotAndLaterSegments() throws Exception {
+        WinnerSnapshotter snapshotter = new WinnerSnapshotter(directory, journal, auctionService, 60000);
+        auctionService.processBid(new Bid("Winner1", "2", "10", "2", 1));
+        auctionService.processBid(new Bid("Winner2", "1", "5", "1", 2));
+        long snapshot = snapshotter.snapshot();
+
+        auctionService.processBid(new Bid("Loser1", "0", "4", "4", 1));
+        auctionService.processBid(new Bid("Winner3", "7", "7", "1", 3));
+        journal.sync().get();
+        journal.stop();
+
+        assertFalse(Files.exists(BidJournal.segmentPath(directory, snapshot - 1)));
+        assertTrue(Files.exists(WinnerSnapshotter.snapshotPath(directory, snapshot)));
+
+        AuctionService recovered = new AuctionService();
+        journal = open(recovered);
+
+        assertRecovered(recovered, 1);
+        assertRecovered(recovered, 2);
+        assertRecovered(recovered, 3);
+    }
+
+    // Close times and closes are journaled, so a closed auction keeps rejecting bids after a restart.
+    @Test
+    public void testRecoverReplaysCloses() throws Exception {
+        auctionService.processBid(new Bid("Winner1", "2", "10", "2", 1));
+        auctionService.setCloseTime(1, 1000);
+        auctionService.setCloseTime(2, 2000);
+        auctionService.setCloseTime(3, 3000);
+        auctionService.setCloseTime(3, 4000);
+        assertTrue(auctionService.closeAuction(1, 1000));
+        assertTrue(auctionService.closeAuction(2, 2000));
+        journal.sync().get();
+        journal.stop();
+
+        AuctionService recovered = new AuctionService();
+        journal = open(recovered);
+
+        assertTrue(recovered.isClosed(1));
+        assertTrue(recovered.isClosed(2));
+        assertFalse(recovered.isClosed(3));
+        assertRecovered(recovered, 1);
+        assertNull(recovered.getCloseTime(1));
+        assertEquals(Long.valueOf(4000), recovered.getCloseTime(3));
+        try {
+            recovered.processBid(new Bid("Late", "5", "50", "1", 1));
+            fail("Bid on a recovered closed auction was accepted");
+        } catch (WebApplicationException e) {
+            assertEquals(409, e.getResponse().getStatus());
+        }
+    }
+
+    // A snapshot deletes the segments the closes were journaled in, so its own segment checkpoints them.
+    @Test
+    public void testRecoverClosesAfterSnapshot() throws Exception {
+        WinnerSnapshotter snapshotter = new WinnerSnapshotter(directory, journal, auctionService, 60000);
+        auctionService.processBid(new Bid("Winner1", "2", "10", "2", 1));
+        auctionService.setCloseTime(1, 1000);
+        auctionService.setCloseTime(4, 4000);
+        assertTrue(auctionService.closeAuction(1, 1000));
+        assertTrue(auctionService.closeAuction(2));
+        long snapshot = snapshotter.snapshot();
+        auctionService.setCloseTime(5, 5000);
+        journal.sync().get();
+        journal.stop();
+
+        assertFalse(Files.exists(BidJournal.segmentPath(directory, snapshot - 1)));
+        AuctionService recovered = new AuctionService();
+        journal = open(recovered);
+
+        assertTrue(recovered.isClosed(1));
+        assertTrue(recovered.isClosed(2));
+        assertRecovered(recovered, 1);
+        assertEquals(2, recovered.getClosedAuctionCount());
+        assertEquals(Long.valueOf(4000), recovered.getCloseTime(4));
+        assertEquals(Long.valueOf(5000), recovered.getCloseTime(5));
+    }
+
+    // A record cut off by a crash mid-write is dropped and the records before it are kept.
+    @Test
+    public void testRecoverTruncatesTornRecord() throws Exception {
+        auctionService.processBid(new Bid("Winner1", "2", "10", "2", 1));
+        auctionService.processBid(new Bid("Winner2", "1", "5", "1", 2));
+        journal.sync().get();
+        journal.stop();
+
+        Path segment = BidJournal.segmentPath(directory, BidJournal.segmentIds(directory).get(0));
+        long size = Files.size(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 3);
+        }
+
+        AuctionService recovered = new AuctionService();
+        journal = open(recovered);
+
+        assertRecovered(recovered, 1);
+        assertEquals(recovered.getWinner(2).getId(), NO_ENTRIES);
+        assertTrue(Files.size(segment) < size - 3);
+    }
+
+    private BidJournal open(AuctionService service) throws Exception {
+        BidJournal opened = new BidJournal(directory, FsyncPolicy.ALWAYS, 10, 1024, 64);
+        opened.recover(service);
+        service.addOrderedWinnerListener(opened);
+        service.addCloseListener(opened);
+        opened.start();
+        return opened;
+    }
+
+    private void assertRecovered(AuctionService recovered, int auctionId) {
+        Bid expected = auctionService.getWinner(auctionId);
+        Bid actual = recovered.getWinner(auctionId);
+        assertEquals(expected, actual);
+        assertEquals(expected.getAuctionId(), actual.getAuctionId());
+        assertEquals(expected.getWinningPrice(), actual.getWinningPrice());
+    }
+}
@@ -0,0 +1,72 @@
+package com.auction.persistence;
+
+import com.auction.model.Bid;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ColdWinnerFileTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testLatestRecordWins() throws Exception {
+        try (ColdWinnerFile file = new ColdWinnerFile(folder.getRoot().toPath().resolve("cold.dat"))) {
+            file.write(new Bid("Alice", "1", "10", "1", 3));
+            file.write(new Bid("Bob", "2", "20.50", "1", 3));
+            file.write(new Bid("Carol", "1", "10", "1", 4));
+
+            assertEquals(file.size(), 2);
+            assertEquals(file.read(3).getId(), "Bob");
+            assertEquals(file.read(3).getMaxBid(), new BigDecimal("20.50"));
+
+            file.remove(3);
+            assertFalse(file.contains(3));
+            assertNull(file.read(3));
+            assertEquals(file.read(4).getId(), "Carol");
+            assertEquals(file.size(), 1);
+        }
+    }
+
+    // Rewriting the same auctions over and over compacts the file instead of growing it without bound.
+    @Test
+    public void testGarbageIsCompactedAway() throws Exception {
+        Path path = folder.getRoot().toPath().resolve("cold.dat");
+        try (ColdWinnerFile file = new ColdWinnerFile(path)) {
+            for (int round = 0; round < 200; round++) {
+                for (int auctionId = 0; auctionId < 500; auctionId++) {
+                    file.write(new Bid("Bidder" + round, "1", String.valueOf(10 + round), "1", auctionId));
+                }
+            }
+            assertTrue(file.fileBytes() < 3 << 20);
+            assertEquals(file.fileBytes(), Files.size(path));
+            for (int auctionId = 0; auctionId < 500; auctionId++) {
+                assertEquals(file.read(auctionId).getId(), "Bidder199");
+            }
+            assertEquals(file.auctionIds().length, 500);
+        }
+    }
+
+    // The file is a cache of the heap tier, so whatever an earlier run left behind is discarded.
+    @Test
+    public void testOpeningTruncates() throws Exception {
+        Path path = folder.getRoot().toPath().resolve("cold.dat");
+        try (ColdWinnerFile file = new ColdWinnerFile(path)) {
+            file.write(new Bid("Alice", "1", "10", "1", 3));
+        }
+        try (ColdWinnerFile file = new ColdWinnerFile(path)) {
+            assertEquals(file.size(), 0);
+            assertEquals(Files.size(path), 0);
+        }
+    }
+}
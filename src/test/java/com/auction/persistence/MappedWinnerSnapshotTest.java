@@ -0,0 +1,135 @@
+package com.auction.persistence;
+
+import com.auction.model.Bid;
+import com.auction.services.AuctionService;
+import com.auction.services.TieredWinnerStore;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MappedWinnerSnapshotTest {
+
+    private final String NO_ENTRIES = "No entries.";
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private AuctionService auctionService;
+    private Path snapshot;
+
+    @Before
+    public void setup() throws Exception {
+        auctionService = new AuctionService();
+        auctionService.processBid(new Bid("Winner1", "2", "10", "2", 1));
+        auctionService.processBid(new Bid("Loser1", "0", "4", "4", 1));
+        auctionService.processBid(new Bid("Winner2", "$1,000.34", "$4,000", "$.100", 2));
+        auctionService.processBid(new Bid("Winner1", "$5", "$6", "$1", 7));
+        // Does not fit in micro-units, so it goes to the overflow section.
+        auctionService.processBid(new Bid("Precise", "1.0000001", "10", "0.0000003", 5));
+        snapshot = folder.getRoot().toPath().resolve("snapshot.dat");
+        WinnerSnapshotter.write(snapshot, auctionService);
+    }
+
+    // Every winner is read back from the mapping with the same bidder, prices and price scales.
+    @Test
+    public void testWinnersReadFromMapping() throws Exception {
+        MappedWinnerSnapshot mapped = MappedWinnerSnapshot.open(snapshot);
+
+        assertEquals(mapped.size(), 4);
+        for (int auctionId : new int[]{1, 2, 5, 7}) {
+            assertSameWinner(auctionService.getWinner(auctionId), mapped.get(auctionId));
+        }
+        assertNull(mapped.get(3));
+        assertNull(mapped.get(8));
+
+        List<Bid> visited = new ArrayList<>();
+        mapped.forEach(visited::add);
+        assertEquals(visited.size(), 4);
+    }
+
+    // A service started from the mapping serves reads from it and moves an auction to the heap once it is bid on.
+    @Test
+    public void testServiceServesAndPromotesFromBaseline() throws Exception {
+        AuctionService restarted = new AuctionService();
+        restarted.setBaseline(MappedWinnerSnapshot.open(snapshot));
+
+        assertEquals(restarted.getAuctionCount(), 4);
+        assertSameWinner(auctionService.getWinner(2), restarted.getWinner(2));
+        assertEquals(restarted.getWinner(3).getId(), NO_ENTRIES);
+
+        Bid updated = restarted.processBid(new Bid("Challenger1", "1", "20", "1", 1));
+        assertEquals(updated.getId(), "Challenger1");
+        assertEquals(restarted.getWinner(1).getId(), "Challenger1");
+        assertEquals(restarted.getAuctionCount(), 4);
+
+        restarted.processBid(new Bid("New3", "1", "5", "1", 3));
+        assertEquals(restarted.getAuctionCount(), 5);
+
+        List<Bid> visited = new ArrayList<>();
+        restarted.forEachWinner(visited::add);
+        assertEquals(visited.size(), 5);
+    }
+
+    // Snapshots are written from sorted auctionIds, so winners from the heap, closed auctions and the baseline all
+    // come out in order, once each, with every bidder indexed.
+    @Test
+    public void testSnapshotOfManyBiddersAndClosedAuctions() throws Exception {
+        AuctionService service = new AuctionService();
+        service.setBaseline(MappedWinnerSnapshot.open(snapshot));
+        for (int auctionId = 1000; auctionId > 10; auctionId--) {
+            service.processBid(new Bid("Bidder" + auctionId % 300, "1", "5", "1", auctionId));
+        }
+        service.closeAuction(500);
+        service.processBid(new Bid("Challenger1", "1", "20", "1", 1));
+        Path rewritten = folder.getRoot().toPath().resolve("rewritten.dat");
+
+        assertEquals(994, WinnerSnapshotter.write(rewritten, service));
+        MappedWinnerSnapshot mapped = MappedWinnerSnapshot.open(rewritten);
+        assertEquals(994, mapped.size());
+        for (int auctionId : new int[]{1, 2, 5, 7, 11, 500, 1000}) {
+            assertSameWinner(service.findWinner(auctionId), mapped.get(auctionId));
+        }
+        int[] previous = {-1};
+        mapped.forEach(winner -> {
+            if (winner.getAuctionId() != 5) {
+                assertTrue(winner.getAuctionId() > previous[0]);
+                previous[0] = winner.getAuctionId();
+            }
+        });
+    }
+
+    // Snapshotting a tiered store reads its cold winners from disk and leaves its hot tier as it was.
+    @Test
+    public void testSnapshotOfTieredStoreLeavesHotTier() throws Exception {
+        try (TieredWinnerStore store = new TieredWinnerStore(folder.newFolder("cold").toPath(), 320)) {
+            AuctionService service = new AuctionService(store);
+            for (int auctionId = 0; auctionId < 5000; auctionId++) {
+                service.processBid(new Bid("Bidder" + auctionId % 50, "1", "5", "1", auctionId));
+            }
+            int hotCount = store.getHotCount();
+            Path tiered = folder.getRoot().toPath().resolve("tiered.dat");
+
+            assertEquals(5000, WinnerSnapshotter.write(tiered, service));
+            assertEquals(hotCount, store.getHotCount());
+            MappedWinnerSnapshot mapped = MappedWinnerSnapshot.open(tiered);
+            for (int auctionId = 0; auctionId < 5000; auctionId += 499) {
+                assertSameWinner(service.findWinner(auctionId), mapped.get(auctionId));
+            }
+        }
+    }
+
+    private void assertSameWinner(Bid expected, Bid actual) {
+        assertEquals(expected, actual);
+        assertEquals(expected.getAuctionId(), actual.getAuctionId());
+        assertEquals(expected.getWinningPrice(), actual.getWinningPrice());
+    }
+}
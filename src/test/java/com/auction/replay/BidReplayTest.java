@@ -0,0 +1,124 @@
+package com.auction.replay;
+
+import com.auction.model.Bid;
+import com.auction.services.AuctionService;
+import com.auction.services.HeapWinnerStore;
+import com.auction.services.WinnerStoreType;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BidReplayTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    // Fixed-point resolution with any store has to agree with BigDecimal resolution on the heap, bid for bid.
+    @Test
+    public void testVariantsAgree() throws Exception {
+        List<Bid> bids = randomBids(20_000, 300);
+        for (WinnerStoreType store : WinnerStoreType.values()) {
+            AuctionService baseline = ReplayVariant.parse("DECIMAL").build(0, 16, folder.newFolder().toPath());
+            AuctionService candidate = new ReplayVariant(true, store).build(300, 16, folder.newFolder().toPath());
+            BidReplay.Result result = new BidReplay(baseline, candidate, pool).replay(bids);
+            assertEquals(result.getBids(), 20_000);
+            assertEquals(result.getAuctions(), 300);
+            assertTrue(store + " diverged", result.getDivergences().isEmpty());
+        }
+    }
+
+    // An auction is reported once, at the first bid whose outcome differs, and other auctions are unaffected.
+    @Test
+    public void testReportsFirstDivergence() throws Exception {
+        List<Bid> bids = randomBids(5_000, 50);
+        int diverging = -1;
+        int seen = 0;
+        for (int i = 0; i < bids.size(); i++) {
+            if (bids.get(i).getAuctionId() == 7 && ++seen == 3) {
+                diverging = i;
+            }
+        }
+        Bid divergingBid = bids.get(diverging);
+        AuctionService candidate = new AuctionService(new HeapWinnerStore(), true) {
+            @Override
+            public Bid processBid(Bid newBid) {
+                Bid winner = super.processBid(newBid);
+                return newBid == divergingBid ? winner.withWinningPrice(new BigDecimal("123456.78")) : winner;
+            }
+        };
+
+        BidReplay.Result result = new BidReplay(new AuctionService(), candidate, pool).replay(bids);
+        assertEquals(result.getDivergences().size(), 1);
+        BidReplay.Divergence divergence = result.getDivergences().get(0);
+        assertEquals(divergence.getIndex(), diverging);
+        assertEquals(divergence.getBid().getAuctionId().intValue(), 7);
+        assertTrue(divergence.getActual(), divergence.getActual().endsWith(" at 123456.78"));
+    }
+
+    // A price with the same value but a different scale is a divergence, since clients see the scale.
+    @Test
+    public void testScaleDifferenceDiverges() throws Exception {
+        List<Bid> bids = new ArrayList<>();
+        bids.add(new Bid("a", "1.00", "5", "1", 1));
+        AuctionService candidate = new AuctionService() {
+            @Override
+            public Bid processBid(Bid newBid) {
+                Bid winner = super.processBid(newBid);
+                return winner.withWinningPrice(winner.getWinningPrice().setScale(3));
+            }
+        };
+        BidReplay.Result result = new BidReplay(new AuctionService(), candidate, pool).replay(bids);
+        assertEquals(result.getDivergences().size(), 1);
+        assertEquals(result.getDivergences().get(0).getExpected(), "a at 1.00");
+        assertEquals(result.getDivergences().get(0).getActual(), "a at 1.000");
+    }
+
+    // The bids of every auction keep their stream order whatever order the auctions are split in.
+    @Test
+    public void testPartitionKeepsStreamOrder() throws Exception {
+        List<Bid> bids = randomBids(1_000, 10);
+        BidReplay.Partitions partitions = BidReplay.partition(bids);
+        assertEquals(partitions.auctions(), 10);
+        assertEquals(partitions.offsets[10], 1_000);
+        for (int auction = 0; auction < partitions.auctions(); auction++) {
+            int auctionId = bids.get(partitions.order[partitions.offsets[auction]]).getAuctionId();
+            for (int i = partitions.offsets[auction] + 1; i < partitions.offsets[auction + 1]; i++) {
+                assertTrue(partitions.order[i] > partitions.order[i - 1]);
+                assertEquals(bids.get(partitions.order[i]).getAuctionId().intValue(), auctionId);
+            }
+        }
+    }
+
+    // Bids with prices of mixed scales, increments that do not divide the range, and repeated bidders, so every
+    // resolution branch is taken.
+    private static List<Bid> randomBids(int count, int auctions) throws Exception {
+        Random random = new Random(42);
+        String[] scales = {"", ".5", ".25", ".125", ".10"};
+        List<Bid> bids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int starting = 1 + random.nextInt(100);
+            int max = starting + 1 + random.nextInt(500);
+            String increment = (1 + random.nextInt(9)) + scales[random.nextInt(scales.length)];
+            bids.add(new Bid("bidder" + random.nextInt(20), starting + scales[random.nextInt(scales.length)],
+                    max + scales[random.nextInt(scales.length)], increment, random.nextInt(auctions)));
+        }
+        return bids;
+    }
+}
@@ -0,0 +1,86 @@
+package com.auction.replication;
+
+import com.auction.api.AuctionJsonModule;
+import com.auction.model.Bid;
+import com.auction.resources.AuctionResource;
+import com.auction.services.AuctionService;
+import com.auction.services.BidEngine;
+import io.dropwizard.jackson.Jackson;
+import io.dropwizard.testing.junit.ResourceTestRule;
+import org.eclipse.jetty.http.HttpStatus;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.MediaType;
+import java.net.ServerSocket;
+
+import static org.junit.Assert.assertEquals;
+
+public class ReplicaRequestFilterTest {
+
+    private static final AuctionService service = new AuctionService();
+    private static final BidEngine engine = new BidEngine(service, 1, 16, 16, 5000);
+
+    // A replica whose primary never answers, so it never syncs.
+    private final Replication replication = new Replication(new ReplicationPrimary(service, 0, 20, 16),
+            new ReplicationReplica(service, "localhost", unusedPort(), 100, 50), 1000);
+
+    @Rule
+    public final ResourceTestRule RESOURCES = ResourceTestRule.builder()
+            .setMapper(Jackson.newObjectMapper().registerModule(new AuctionJsonModule()))
+            .addResource(new AuctionResource(service, engine))
+            .addProvider(new ReplicaRequestFilter(replication))
+            .build();
+
+    @BeforeClass
+    public static void startEngine() {
+        engine.start();
+    }
+
+    @AfterClass
+    public static void stopEngine() throws Exception {
+        engine.stop();
+    }
+
+    @After
+    public void stopReplication() throws Exception {
+        replication.stop();
+    }
+
+    @Test
+    public void testReplicaRefusesWritesAndStaleReads() throws Exception {
+        replication.start();
+        assertEquals(RESOURCES.target("/auction").request()
+                .post(Entity.json(new Bid("A", "1", "10", "1", 1))).getStatus(), HttpStatus.METHOD_NOT_ALLOWED_405);
+        assertEquals(RESOURCES.target("/auction/close").queryParam("auctionId", 1).request()
+                .put(Entity.json("{}")).getStatus(), HttpStatus.METHOD_NOT_ALLOWED_405);
+        assertEquals(RESOURCES.target("/auction").queryParam("auctionId", 1).request().get().getStatus(),
+                HttpStatus.SERVICE_UNAVAILABLE_503);
+        assertEquals(RESOURCES.target("/auction/winners").request()
+                .post(Entity.entity("[1]", MediaType.APPLICATION_JSON_TYPE)).getStatus(),
+                HttpStatus.SERVICE_UNAVAILABLE_503);
+    }
+
+    @Test
+    public void testPromotedReplicaServesEverything() throws Exception {
+        replication.start();
+        replication.promote();
+        // Reaches the resources, which do not include AuctionScheduleResource here.
+        assertEquals(RESOURCES.target("/auction/close").queryParam("auctionId", 1).request()
+                .put(Entity.json("{}")).getStatus(), HttpStatus.NOT_FOUND_404);
+        assertEquals(RESOURCES.target("/auction").queryParam("auctionId", 1).request().get().getStatus(),
+                HttpStatus.OK_200);
+    }
+
+    private static int unusedPort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
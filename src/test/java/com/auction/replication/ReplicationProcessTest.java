@@ -0,0 +1,107 @@
+package com.auction.replication;
+
+import com.auction.model.Bid;
+import com.auction.services.AuctionService;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+// Runs the primary in a child JVM, see main, and kills it to check that the replica in this JVM notices and can take
+// over.
+public class ReplicationProcessTest {
+
+    private static final long MAX_STALENESS_MILLIS = 300;
+
+    private Process child;
+
+    @After
+    public void tearDown() {
+        if (child != null) {
+            child.destroyForcibly();
+        }
+    }
+
+    @Test
+    public void testReplicaTakesOverFromKilledPrimaryProcess() throws Exception {
+        child = new ProcessBuilder(new File(System.getProperty("java.home"), "bin/java").getPath(),
+                "-cp", System.getProperty("java.class.path"), ReplicationProcessTest.class.getName())
+                .redirectErrorStream(true)
+                .start();
+        BufferedReader output = new BufferedReader(new InputStreamReader(child.getInputStream(),
+                StandardCharsets.UTF_8));
+        PrintWriter input = new PrintWriter(child.getOutputStream(), true);
+        int port = Integer.parseInt(readLine(output, "port "));
+
+        AuctionService replicaService = new AuctionService();
+        ReplicationPrimary promotedPrimary = new ReplicationPrimary(replicaService, 0, 20, 1024);
+        replicaService.addWinnerListener(promotedPrimary);
+        Replication replication = new Replication(promotedPrimary,
+                new ReplicationReplica(replicaService, "localhost", port, 200, 50), MAX_STALENESS_MILLIS);
+        replication.start();
+        try {
+            for (int auctionId = 0; auctionId < 20; auctionId++) {
+                input.println("Alice " + auctionId);
+                readLine(output, "ok");
+            }
+            ReplicationTest.await(() -> replicaService.getAuctionCount() == 20);
+            input.println("Bob 7");
+            readLine(output, "ok");
+            ReplicationTest.await(() -> "Bob".equals(replicaService.findWinner(7).getId()));
+            assertTrue(replication.isFresh());
+
+            child.destroyForcibly().waitFor();
+            ReplicationTest.await(() -> !replication.isFresh());
+            assertTrue(replication.getLagMillis() > MAX_STALENESS_MILLIS);
+
+            assertTrue(replication.promote());
+            assertTrue(replication.isFresh());
+            Bid winner = replicaService.processBid(new Bid("Carol", "1", "100", "1", 7));
+            assertEquals(winner.getId(), "Carol");
+            assertEquals(replicaService.getAuctionCount(), 20);
+        } finally {
+            replication.stop();
+        }
+        assertFalse(child.isAlive());
+    }
+
+    private static String readLine(BufferedReader output, String prefix) throws Exception {
+        String line;
+        while ((line = output.readLine()) != null) {
+            if (line.startsWith(prefix)) {
+                return line.substring(prefix.length());
+            }
+        }
+        throw new AssertionError("Child exited before printing " + prefix);
+    }
+
+    // The primary process: serves replicas on a free port, printed first, then applies "<bidderId> <auctionId>" bids
+    // from stdin, answering each with "ok".
+    public static void main(String[] args) throws Exception {
+        AuctionService auctionService = new AuctionService();
+        ReplicationPrimary primary = new ReplicationPrimary(auctionService, 0, 20, 1024);
+        auctionService.addWinnerListener(primary);
+        primary.start();
+        System.out.println("port " + primary.getLocalPort());
+        System.out.flush();
+        BufferedReader input = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        String line;
+        int maxBid = 10;
+        while ((line = input.readLine()) != null) {
+            String[] bid = line.split(" ");
+            auctionService.processBid(new Bid(bid[0], "1", Integer.toString(maxBid++), "1",
+                    Integer.parseInt(bid[1])));
+            System.out.println("ok");
+            System.out.flush();
+        }
+        primary.stop();
+    }
+}
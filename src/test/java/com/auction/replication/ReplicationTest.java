@@ -0,0 +1,160 @@
+package com.auction.replication;
+
+import com.auction.model.Bid;
+import com.auction.services.AuctionService;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+// A primary and replicas in one JVM, talking over TCP on localhost.
+public class ReplicationTest {
+
+    private static final long TIMEOUT_MILLIS = 500;
+
+    private final AuctionService primaryService = new AuctionService();
+
+    private final ReplicationPrimary primary = new ReplicationPrimary(primaryService, 0, 20, 1024);
+
+    private final List<ReplicationReplica> replicas = new ArrayList<>();
+
+    @After
+    public void tearDown() throws Exception {
+        for (ReplicationReplica replica : replicas) {
+            replica.stop();
+        }
+        primary.stop();
+    }
+
+    @Test
+    public void testReplicaCopiesWinnersThenFollowsChanges() throws Exception {
+        primaryService.addWinnerListener(primary);
+        primary.start();
+        for (int auctionId = 0; auctionId < 100; auctionId++) {
+            primaryService.processBid(new Bid("Alice", "1", "10", "1", auctionId));
+        }
+        AuctionService replicaService = new AuctionService();
+        List<Bid> notified = new ArrayList<>();
+        replicaService.addWinnerListener((previousWinner, winner) -> notified.add(winner));
+        ReplicationReplica replica = follow(replicaService, primary.getLocalPort());
+
+        await(replica::isSynced);
+        assertEquals(replicaService.getAuctionCount(), 100);
+        assertEquals(notified.size(), 100);
+
+        for (int auctionId = 50; auctionId < 150; auctionId++) {
+            primaryService.processBid(new Bid("Bob", "1", "20", "1", auctionId));
+        }
+        await(() -> replicaService.getAuctionCount() == 150
+                && "Bob".equals(replicaService.findWinner(149).getId()));
+        for (int auctionId = 0; auctionId < 150; auctionId++) {
+            Bid expected = primaryService.findWinner(auctionId);
+            Bid actual = replicaService.findWinner(auctionId);
+            assertEquals(actual.getId(), expected.getId());
+            assertEquals(actual.getWinningPrice(), expected.getWinningPrice());
+            assertEquals(actual.getMaxBid(), expected.getMaxBid());
+        }
+        assertEquals(primary.getReplicaCount(), 1);
+    }
+
+    @Test
+    public void testLagStaysWithinHeartbeatsAndGrowsWhenPrimaryStops() throws Exception {
+        primaryService.addWinnerListener(primary);
+        primary.start();
+        ReplicationReplica replica = follow(new AuctionService(), primary.getLocalPort());
+        assertEquals(replica.getLagMillis(), -1);
+        assertFalse(replica.isFresh(TIMEOUT_MILLIS));
+
+        await(replica::isSynced);
+        Thread.sleep(100);
+        assertTrue("Lag " + replica.getLagMillis(), replica.isFresh(TIMEOUT_MILLIS));
+
+        primary.stop();
+        await(() -> !replica.isFresh(TIMEOUT_MILLIS));
+        assertTrue(replica.getLagMillis() > TIMEOUT_MILLIS);
+    }
+
+    // A replica that cannot keep up is dropped rather than slowing down bids, and resyncs from scratch.
+    @Test
+    public void testOverflowingReplicaResyncs() throws Exception {
+        ReplicationPrimary tiny = new ReplicationPrimary(primaryService, 0, 20, 1);
+        primaryService.addWinnerListener(tiny);
+        tiny.start();
+        try {
+            AuctionService replicaService = new AuctionService();
+            ReplicationReplica replica = follow(replicaService, tiny.getLocalPort());
+            await(replica::isSynced);
+            for (int i = 0; i < 20000; i++) {
+                primaryService.processBid(new Bid("Bidder" + i, "1", Integer.toString(10 + i), "1", i % 500));
+            }
+            await(() -> replica.isSynced() && replicaService.getAuctionCount() == 500
+                    && "Bidder19999".equals(replicaService.findWinner(19999 % 500).getId()));
+            for (int auctionId = 0; auctionId < 500; auctionId++) {
+                assertEquals(replicaService.findWinner(auctionId).getId(), primaryService.findWinner(auctionId).getId());
+            }
+        } finally {
+            for (ReplicationReplica replica : replicas) {
+                replica.stop();
+            }
+            replicas.clear();
+            tiny.stop();
+        }
+    }
+
+    @Test
+    public void testPromotedReplicaServesItsOwnReplicas() throws Exception {
+        primaryService.addWinnerListener(primary);
+        primary.start();
+        primaryService.processBid(new Bid("Alice", "1", "10", "1", 1));
+
+        AuctionService promotedService = new AuctionService();
+        ReplicationPrimary promotedPrimary = new ReplicationPrimary(promotedService, 0, 20, 1024);
+        promotedService.addWinnerListener(promotedPrimary);
+        ReplicationReplica follower = new ReplicationReplica(promotedService, "localhost", primary.getLocalPort(),
+                TIMEOUT_MILLIS, 50);
+        Replication replication = new Replication(promotedPrimary, follower, TIMEOUT_MILLIS);
+        replication.start();
+        try {
+            await(follower::isSynced);
+            assertFalse(replication.isPrimary());
+            assertTrue(replication.isFresh());
+
+            primary.stop();
+            assertTrue(replication.promote());
+            assertFalse(replication.promote());
+            assertTrue(replication.isFresh());
+            assertEquals(replication.getLagMillis(), 0);
+
+            // Bids applied after the promotion are streamed from the promoted node.
+            promotedService.processBid(new Bid("Bob", "1", "20", "1", 1));
+            AuctionService downstream = new AuctionService();
+            follow(downstream, promotedPrimary.getLocalPort());
+            await(() -> downstream.findWinner(1) != null && "Bob".equals(downstream.findWinner(1).getId()));
+        } finally {
+            replication.stop();
+        }
+    }
+
+    private ReplicationReplica follow(AuctionService auctionService, int port) {
+        ReplicationReplica replica = new ReplicationReplica(auctionService, "localhost", port, TIMEOUT_MILLIS, 50);
+        replicas.add(replica);
+        replica.start();
+        return replica;
+    }
+
+    static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Condition not met within 10s");
+            }
+            Thread.sleep(5);
+        }
+    }
+}
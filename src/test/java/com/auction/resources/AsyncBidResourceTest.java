@@ -0,0 +1,121 @@
+package com.auction.resources;
+
+import com.auction.api.AuctionJsonModule;
+import com.auction.api.ProcessedBid;
+import com.auction.model.Bid;
+import com.auction.services.AuctionService;
+import com.auction.services.BidEngine;
+import io.dropwizard.jackson.Jackson;
+import io.dropwizard.testing.junit.ResourceTestRule;
+import org.eclipse.jetty.http.HttpStatus;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.when;
+
+// Bids are answered from the bid engine's futures, so a suspended request holds no Jetty thread while its shard
+// works. Auction 2 lives on shard 0, every other auction used here on shard 1.
+public class AsyncBidResourceTest {
+
+    // Several times more bids in flight than the server has threads.
+    private static final int IN_FLIGHT = 4 * JettyTestContainerFactory.MAX_THREADS;
+
+    private static final AuctionService service = Mockito.mock(AuctionService.class);
+    private static final BidEngine engine = new BidEngine(service, 2, 1024, 16, 3000);
+    private static final AuctionResource resource = new AuctionResource(service, engine);
+
+    @Rule
+    public final ResourceTestRule RESOURCES = ResourceTestRule.builder()
+            .setTestContainerFactory(new JettyTestContainerFactory())
+            .setMapper(Jackson.newObjectMapper().registerModule(new AuctionJsonModule()))
+            .addResource(resource)
+            .build();
+
+    private final CountDownLatch gate = new CountDownLatch(1);
+
+    @BeforeClass
+    public static void startEngine() {
+        engine.start();
+    }
+
+    @AfterClass
+    public static void stopEngine() throws Exception {
+        engine.stop();
+    }
+
+    @Before
+    public void holdBids() {
+        when(service.processBid(any(Bid.class))).then(invocation -> {
+            gate.await();
+            return invocation.getArguments()[0];
+        });
+    }
+
+    @After
+    public void releaseBids() {
+        gate.countDown();
+    }
+
+    @Test
+    public void testSuspendedBidsDoNotHoldThreads() throws Exception {
+        List<Future<Response>> responses = new ArrayList<>();
+        for (int i = 0; i < IN_FLIGHT; i++) {
+            responses.add(RESOURCES.target("/auction").request(MediaType.APPLICATION_JSON_TYPE).async()
+                    .post(Entity.entity(new Bid("Bidder" + i, "1", "10", "1", 1), MediaType.APPLICATION_JSON_TYPE)));
+        }
+        assertEquals(awaitPendingRequests(IN_FLIGHT), IN_FLIGHT);
+
+        gate.countDown();
+        for (Future<Response> response : responses) {
+            assertEquals(response.get(5, TimeUnit.SECONDS).readEntity(ProcessedBid.class).getCode(),
+                    HttpStatus.CREATED_201);
+        }
+        // The completion callback runs once the response is written, which can be just after the client has it.
+        assertEquals(awaitPendingRequests(0), 0);
+    }
+
+    @Test
+    public void testBidTimesOut() throws Exception {
+        long start = System.nanoTime();
+        Response response = RESOURCES.target("/auction").request(MediaType.APPLICATION_JSON_TYPE)
+                .post(Entity.entity(new Bid("Bidder", "1", "10", "1", 2), MediaType.APPLICATION_JSON_TYPE));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(response.getStatus(), HttpStatus.SERVICE_UNAVAILABLE_503);
+        assertTrue(elapsedMillis >= 3000);
+    }
+
+    @Test
+    public void testBatchTimesOut() throws Exception {
+        String body = "[{\"bidderId\":\"A\",\"startingBid\":\"1\",\"maxBid\":\"5\",\"autoIncrement\":\"1\",\"auctionId\":2}]";
+        Response response = RESOURCES.target("/auction/batch").request(MediaType.APPLICATION_JSON_TYPE)
+                .post(Entity.entity(body, MediaType.APPLICATION_JSON_TYPE));
+
+        assertEquals(response.getStatus(), HttpStatus.SERVICE_UNAVAILABLE_503);
+    }
+
+    private static int awaitPendingRequests(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (resource.getPendingRequests() != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        return resource.getPendingRequests();
+    }
+}
@@ -1,13 +1,24 @@
 package com.auction.resources;
 
+import com.auction.api.AuctionJsonModule;
+import com.auction.api.BatchResult;
+import com.auction.api.BidHistoryPage;
+import com.auction.api.BidResult;
 import com.auction.api.ProcessedBid;
 import com.auction.api.Winner;
 import com.auction.model.Bid;
 import com.auction.services.AuctionService;
+import com.auction.services.BidEngine;
+import com.auction.services.BidHistory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.dropwizard.jackson.Jackson;
 import io.dropwizard.testing.junit.ResourceTestRule;
 import io.dropwizard.testing.junit5.DropwizardExtensionsSupport;
 import org.eclipse.jetty.http.HttpStatus;
+import org.junit.AfterClass;
 import org.junit.Before;
+import org.junit.BeforeClass;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -19,6 +30,8 @@ import javax.ws.rs.core.Response;
 import java.math.BigDecimal;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(DropwizardExtensionsSupport.class)
@@ -36,14 +49,29 @@ public class AuctionResourceTest {
 
 
     private static final AuctionService service = Mockito.mock(AuctionService.class);
+    private static final BidEngine engine = new BidEngine(service, 1, 16, 16, 5000);
+    private static final BidHistory history = new BidHistory(1000);
 
     @Rule
     public final ResourceTestRule RESOURCES = ResourceTestRule.builder()
-            .addResource(new AuctionResource(service))
+            .setTestContainerFactory(new JettyTestContainerFactory())
+            .setMapper(Jackson.newObjectMapper().registerModule(new AuctionJsonModule()))
+            .addResource(new AuctionResource(service, engine, history))
             .build();
     private Bid bid;
 
 
+    @BeforeClass
+    public static void startEngine() {
+        engine.start();
+    }
+
+    @AfterClass
+    public static void stopEngine() throws Exception {
+        engine.stop();
+    }
+
+
     @Before
     public void setUp() throws Exception {
         this.bid = new Bid(ID, STARTING_BID, MAX_BID, AUTO_INCREMENT, AUCTION_ID);
@@ -67,7 +95,7 @@ public class AuctionResourceTest {
 
     @Test
     public void testCreateBid() {
-        Mockito.doNothing().when(service).processBid(bid);
+        when(service.processBid(bid)).thenReturn(bid);
 
         final Response response = RESOURCES.target("/auction")
                 .request(MediaType.APPLICATION_JSON_TYPE)
@@ -82,4 +110,140 @@ public class AuctionResourceTest {
         assertEquals(responseBid.getAutoIncrement().compareTo(AUTO_INCREMENT_DEC), 0);
         assertEquals(responseBid.getAuctionId(), AUCTION_ID);
     }
+
+    @Test
+    public void testCreateBids() {
+        when(service.processBid(any(Bid.class))).then(invocation -> invocation.getArguments()[0]);
+        String body = "[{\"bidderId\":\"" + ID + "\",\"startingBid\":\"" + STARTING_BID + "\",\"maxBid\":\""
+                + MAX_BID + "\",\"autoIncrement\":\"" + AUTO_INCREMENT + "\",\"auctionId\":1},"
+                + "{\"bidderId\":\"JaneDoe\",\"startingBid\":\"5\",\"maxBid\":\"1\",\"autoIncrement\":\"1\",\"auctionId\":2}]";
+
+        final Response response = RESOURCES.target("/auction/batch")
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .post(Entity.entity(body, MediaType.APPLICATION_JSON_TYPE));
+        BatchResult batch = response.readEntity(BatchResult.class);
+
+        assertEquals(batch.getCode(), HttpStatus.OK_200);
+        assertEquals(batch.getResults().size(), 2);
+        BidResult accepted = batch.getResults().get(0);
+        assertEquals(accepted.getCode(), HttpStatus.CREATED_201);
+        assertEquals(accepted.getAuctionId(), AUCTION_ID);
+        assertTrue(accepted.getWinning());
+        BidResult rejected = batch.getResults().get(1);
+        assertEquals(rejected.getCode(), HttpStatus.BAD_REQUEST_400);
+        assertEquals(rejected.getAuctionId(), Integer.valueOf(2));
+    }
+
+    // A blank bidderId is rejected with 422 inside a batch, as it is for a single POST.
+    @Test
+    public void testCreateBidsValidatesEachBid() {
+        when(service.processBid(any(Bid.class))).then(invocation -> invocation.getArguments()[0]);
+        String body = "{\"bidderId\":\" \",\"startingBid\":\"1\",\"maxBid\":\"5\",\"autoIncrement\":\"1\",\"auctionId\":5}\n"
+                + "{\"bidderId\":\"B\",\"startingBid\":\"1\",\"maxBid\":\"9\",\"autoIncrement\":\"1\",\"auctionId\":6}\n";
+
+        final Response response = RESOURCES.target("/auction/batch")
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .post(Entity.entity(body, "application/x-ndjson"));
+        BatchResult batch = response.readEntity(BatchResult.class);
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY_422, batch.getResults().get(0).getCode());
+        assertEquals(Integer.valueOf(5), batch.getResults().get(0).getAuctionId());
+        assertEquals("id may not be empty", batch.getResults().get(0).getError());
+        assertEquals(HttpStatus.CREATED_201, batch.getResults().get(1).getCode());
+    }
+
+    @Test
+    public void testCreateBidsFromNdjson() {
+        when(service.processBid(any(Bid.class))).then(invocation -> invocation.getArguments()[0]);
+        String body = "{\"bidderId\":\"A\",\"startingBid\":\"1\",\"maxBid\":\"5\",\"autoIncrement\":\"1\",\"auctionId\":3}\n"
+                + "{\"bidderId\":\"B\",\"startingBid\":\"1\",\"maxBid\":\"9\",\"autoIncrement\":\"1\",\"auctionId\":4}\n";
+
+        final Response response = RESOURCES.target("/auction/batch")
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .post(Entity.entity(body, "application/x-ndjson"));
+        BatchResult batch = response.readEntity(BatchResult.class);
+
+        assertEquals(batch.getResults().size(), 2);
+        assertEquals(batch.getResults().get(0).getAuctionId(), Integer.valueOf(3));
+        assertEquals(batch.getResults().get(1).getAuctionId(), Integer.valueOf(4));
+        assertEquals(batch.getResults().get(1).getCode(), HttpStatus.CREATED_201);
+    }
+
+    @Test
+    public void testCreateBidsRejectsMalformedJson() {
+        final Response response = RESOURCES.target("/auction/batch")
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .post(Entity.entity("[{\"bidderId\":", MediaType.APPLICATION_JSON_TYPE));
+
+        assertEquals(response.getStatus(), HttpStatus.BAD_REQUEST_400);
+    }
+
+    @Test
+    public void testGetWinners() throws Exception {
+        when(service.findWinner(AUCTION_ID)).thenReturn(this.bid);
+
+        final Response response = RESOURCES.target("/auction/winners")
+                .queryParam("ids", "1,7")
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .get();
+        JsonNode winners = new ObjectMapper().readTree(response.readEntity(String.class));
+
+        assertEquals(winners.get("code").asInt(), HttpStatus.OK_200);
+        assertEquals(winners.get("winners").size(), 2);
+        assertEquals(winners.get("winners").get(0).get("bidderId").asText(), ID);
+        assertEquals(winners.get("winners").get(0).get("winningPrice").asText(), STARTING_BID);
+        assertEquals(winners.get("winners").get(0).get("auctionId").asInt(), 1);
+        assertEquals(winners.get("winners").get(1).get("bidderId").asText(), "No entries.");
+        assertEquals(winners.get("winners").get(1).get("winningPrice").asText(), "$.00");
+        assertEquals(winners.get("winners").get(1).get("auctionId").asInt(), 7);
+    }
+
+    @Test
+    public void testPostWinners() throws Exception {
+        when(service.findWinner(AUCTION_ID)).thenReturn(this.bid);
+
+        final Response response = RESOURCES.target("/auction/winners")
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .post(Entity.entity("[7, 1]", MediaType.APPLICATION_JSON_TYPE));
+        JsonNode winners = new ObjectMapper().readTree(response.readEntity(String.class));
+
+        assertEquals(winners.get("winners").get(0).get("auctionId").asInt(), 7);
+        assertEquals(winners.get("winners").get(1).get("bidderId").asText(), ID);
+    }
+
+    @Test
+    public void testGetWinnersRejectsInvalidIds() {
+        final Response response = RESOURCES.target("/auction/winners")
+                .queryParam("ids", "1,-2")
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .get();
+
+        assertEquals(response.getStatus(), HttpStatus.BAD_REQUEST_400);
+    }
+
+    @Test
+    public void testGetHistory() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            history.bidProcessed(new Bid("Bidder" + i, "1", "5", "1", 20), null);
+        }
+
+        BidHistoryPage page = RESOURCES.target("/auction/history")
+                .queryParam("auctionId", "20")
+                .queryParam("limit", "2")
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .get(BidHistoryPage.class);
+        assertEquals(page.getCode(), HttpStatus.OK_200);
+        assertEquals(page.getBids().size(), 2);
+        assertEquals(page.getBids().get(0).getBidderId(), "Bidder2");
+
+        BidHistoryPage last = RESOURCES.target("/auction/history")
+                .queryParam("auctionId", "20")
+                .queryParam("limit", "2")
+                .queryParam("cursor", page.getNext())
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .get(BidHistoryPage.class);
+        assertEquals(last.getBids().size(), 1);
+        assertEquals(last.getBids().get(0).getBidderId(), "Bidder0");
+        assertEquals(last.getNext(), null);
+    }
 }
@@ -0,0 +1,64 @@
+package com.auction.resources;
+
+import com.auction.api.AuctionStatus;
+import com.auction.lifecycle.AuctionScheduler;
+import com.auction.services.AuctionService;
+import io.dropwizard.testing.junit.ResourceTestRule;
+import org.eclipse.jetty.http.HttpStatus;
+import org.junit.Rule;
+import org.junit.Test;
+
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.Response;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class AuctionScheduleResourceTest {
+
+    private final AuctionService service = new AuctionService();
+
+    private final AuctionScheduler scheduler = new AuctionScheduler(service, 10);
+
+    @Rule
+    public final ResourceTestRule RESOURCES = ResourceTestRule.builder()
+            .addResource(new AuctionScheduleResource(service, scheduler))
+            .build();
+
+    @Test
+    public void testScheduleAndGetStatus() throws Exception {
+        long closesAt = System.currentTimeMillis() + 60_000;
+        AuctionStatus scheduled = put(1, closesAt).readEntity(AuctionStatus.class);
+        assertEquals(scheduled.getCode(), HttpStatus.OK_200);
+        assertEquals(scheduled.getClosesAt(), Long.valueOf(closesAt));
+        assertFalse(scheduled.isClosed());
+
+        AuctionStatus unscheduled = RESOURCES.target("/auction/close").queryParam("auctionId", 2)
+                .request().get(AuctionStatus.class);
+        assertNull(unscheduled.getClosesAt());
+        assertFalse(unscheduled.isClosed());
+    }
+
+    @Test
+    public void testClosedAuction() throws Exception {
+        service.closeAuction(3);
+        AuctionStatus status = RESOURCES.target("/auction/close").queryParam("auctionId", 3)
+                .request().get(AuctionStatus.class);
+        assertTrue(status.isClosed());
+        assertEquals(put(3, System.currentTimeMillis()).getStatus(), HttpStatus.CONFLICT_409);
+    }
+
+    @Test
+    public void testRejectsInvalidParameters() throws Exception {
+        assertEquals(put(-1, 0).getStatus(), HttpStatus.BAD_REQUEST_400);
+        assertEquals(RESOURCES.target("/auction/close").queryParam("auctionId", 4).request()
+                .put(Entity.text("")).getStatus(), HttpStatus.BAD_REQUEST_400);
+    }
+
+    private Response put(int auctionId, long closesAt) {
+        return RESOURCES.target("/auction/close").queryParam("auctionId", auctionId)
+                .queryParam("closesAt", closesAt).request().put(Entity.text(""));
+    }
+}
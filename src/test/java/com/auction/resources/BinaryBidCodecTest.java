@@ -0,0 +1,117 @@
+package com.auction.resources;
+
+import com.auction.api.BatchResult;
+import com.auction.api.BidResult;
+import com.auction.api.Winner;
+import com.auction.model.Bid;
+import org.eclipse.jetty.http.HttpStatus;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class BinaryBidCodecTest {
+
+    @Test
+    public void testBidRoundTripKeepsScale() throws Exception {
+        String[] amounts = {"0", "1000.34", ".100", "5E+3", "0.000001", "9223372036854775807",
+                "9223372036854775808", "123456789012345678901234567890.123", "128", "255", "256"};
+        for (String amount : amounts) {
+            Bid bid = Bid.create("JohnDoe123", new BigDecimal(amount), new BigDecimal(amount),
+                    new BigDecimal(amount), 42);
+            Bid decoded = BinaryBidCodec.readBid(frame(BinaryBidCodec.write(bid)));
+            assertEquals(amount, bid.getStartingBid(), decoded.getStartingBid());
+            assertEquals(amount, bid.getMaxBid(), decoded.getMaxBid());
+            assertEquals(amount, bid.getAutoIncrementMicros(), decoded.getAutoIncrementMicros());
+            assertEquals(decoded.getId(), "JohnDoe123");
+            assertEquals(decoded.getAuctionId(), Integer.valueOf(42));
+        }
+    }
+
+    @Test
+    public void testWinnerRoundTrip() throws Exception {
+        Winner winner = new Winner(HttpStatus.OK_200, "No entries.", BigDecimal.ZERO, 3);
+        Winner decoded = BinaryBidCodec.readWinner(frame(BinaryBidCodec.write(winner)));
+        assertEquals(decoded.getWinningPrice(), "$.00");
+        assertEquals(decoded.getBidderId(), "No entries.");
+        assertEquals(decoded.getAuctionId(), Integer.valueOf(3));
+    }
+
+    @Test
+    public void testBatchResultRoundTrip() throws Exception {
+        List<BidResult> results = Arrays.asList(
+                new BidResult(HttpStatus.CREATED_201, 1, true, null),
+                new BidResult(HttpStatus.CREATED_201, 2, false, null),
+                new BidResult(HttpStatus.CREATED_201, 3, true, null, "Applied, but not journaled."),
+                new BidResult(HttpStatus.BAD_REQUEST_400, null, null, "auctionId must be a whole number."));
+        BatchResult decoded = BinaryBidCodec.readBatchResult(
+                frame(BinaryBidCodec.write(new BatchResult(HttpStatus.OK_200, results))));
+        assertEquals(decoded.getCode(), HttpStatus.OK_200);
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(decoded.getResults().get(i).getCode(), results.get(i).getCode());
+            assertEquals(decoded.getResults().get(i).getAuctionId(), results.get(i).getAuctionId());
+            assertEquals(decoded.getResults().get(i).getWinning(), results.get(i).getWinning());
+            assertEquals(decoded.getResults().get(i).getError(), results.get(i).getError());
+            assertEquals(decoded.getResults().get(i).getWarning(), results.get(i).getWarning());
+        }
+    }
+
+    @Test
+    public void testInvalidBidIsReportedSeparately() throws Exception {
+        // auctionId -1, bidderId "B", then three one-byte amounts.
+        byte[] frame = {0, 0, 0, 16, -1, -1, -1, -1, 0, 1, 'B', 0, 1, 1, 0, 1, 2, 0, 1, 1};
+        List<BidStreamParser.ParsedBid> bids = BinaryBidCodec.readBids(new ByteArrayInputStream(frame), 10);
+        assertEquals(bids.size(), 1);
+        assertNull(bids.get(0).getBid());
+        assertEquals(bids.get(0).getAuctionId(), Integer.valueOf(-1));
+        assertEquals(bids.get(0).getError(), "AuctionId is invalid. Must be a positive, whole number.");
+    }
+
+    @Test
+    public void testBlankBidderIdIsReportedSeparately() throws Exception {
+        byte[] frame = BinaryBidCodec.write(Bid.create("", BigDecimal.ONE, BigDecimal.TEN, BigDecimal.ONE, 7));
+        List<BidStreamParser.ParsedBid> bids = BinaryBidCodec.readBids(new ByteArrayInputStream(frame), 10);
+        assertEquals(1, bids.size());
+        assertNull(bids.get(0).getBid());
+        assertEquals(Integer.valueOf(7), bids.get(0).getAuctionId());
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY_422, bids.get(0).getStatus());
+    }
+
+    @Test
+    public void testRejectsMalformedFrames() throws Exception {
+        byte[] valid = BinaryBidCodec.write(Bid.create("A", BigDecimal.ONE, BigDecimal.TEN, BigDecimal.ONE, 1));
+        assertMalformed(Arrays.copyOf(valid, 2));
+        assertMalformed(Arrays.copyOf(valid, valid.length - 1));
+        assertMalformed(new byte[]{0x7F, 0, 0, 0});
+
+        byte[] trailing = Arrays.copyOf(valid, valid.length + 1);
+        trailing[3]++;
+        try {
+            BinaryBidCodec.readBid(BinaryBidCodec.readFrame(new ByteArrayInputStream(trailing)));
+            fail("Expected trailing bytes to be rejected");
+        } catch (IOException e) {
+            assertEquals(e.getMessage(), "Frame has 1 unexpected trailing bytes.");
+        }
+    }
+
+    private static ByteBuffer frame(byte[] bytes) throws IOException {
+        return BinaryBidCodec.readFrame(new ByteArrayInputStream(bytes));
+    }
+
+    private static void assertMalformed(byte[] bytes) {
+        try {
+            BinaryBidCodec.readBid(frame(bytes));
+            fail("Expected " + Arrays.toString(bytes) + " to be rejected");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+}
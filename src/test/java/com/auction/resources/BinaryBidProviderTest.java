@@ -0,0 +1,154 @@
+package com.auction.resources;
+
+import com.auction.api.AuctionJsonModule;
+import com.auction.api.BatchResult;
+import com.auction.api.BidResult;
+import com.auction.api.ProcessedBid;
+import com.auction.api.Winner;
+import com.auction.model.Bid;
+import com.auction.services.AuctionService;
+import com.auction.services.BidEngine;
+import io.dropwizard.jackson.Jackson;
+import io.dropwizard.testing.junit.ResourceTestRule;
+import org.eclipse.jetty.http.HttpStatus;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.when;
+
+// Sends the same requests over JSON and the binary encoding and checks that the responses decode to the same values.
+public class BinaryBidProviderTest {
+
+    private static final AuctionService service = Mockito.mock(AuctionService.class);
+    private static final BidEngine engine = new BidEngine(service, 1, 16, 16, 5000);
+
+    @Rule
+    public final ResourceTestRule RESOURCES = ResourceTestRule.builder()
+            .setTestContainerFactory(new JettyTestContainerFactory())
+            .setMapper(Jackson.newObjectMapper().registerModule(new AuctionJsonModule()))
+            .addResource(new AuctionResource(service, engine))
+            .addProvider(BinaryBidProvider.class)
+            .build();
+
+    @BeforeClass
+    public static void startEngine() {
+        engine.start();
+    }
+
+    @AfterClass
+    public static void stopEngine() throws Exception {
+        engine.stop();
+    }
+
+    @Test
+    public void testCreateBidMatchesJson() throws Exception {
+        when(service.processBid(any(Bid.class))).then(invocation -> invocation.getArguments()[0]);
+        for (Bid bid : Arrays.asList(new Bid("JohnDoe123", "$1,000.34", "$1,000,000", "$.100", 1),
+                new Bid("Jos\u00e9", "0", "5E+3", "1", 0),
+                new Bid("big", "1", "123456789012345678901234567890.123", "0.000001", Integer.MAX_VALUE))) {
+            ProcessedBid json = target("/auction")
+                    .request(MediaType.APPLICATION_JSON_TYPE)
+                    .post(Entity.entity(bid, MediaType.APPLICATION_JSON_TYPE), ProcessedBid.class);
+            ProcessedBid binary = target("/auction")
+                    .request(BinaryBidProvider.APPLICATION_AUCTION_BID_TYPE)
+                    .post(Entity.entity(bid, BinaryBidProvider.APPLICATION_AUCTION_BID_TYPE), ProcessedBid.class);
+
+            assertEquals(binary.getCode(), json.getCode());
+            assertEquals(binary.getBid().getId(), json.getBid().getId());
+            assertEquals(binary.getBid().getStartingBid(), json.getBid().getStartingBid());
+            assertEquals(binary.getBid().getMaxBid(), json.getBid().getMaxBid());
+            assertEquals(binary.getBid().getAutoIncrement(), json.getBid().getAutoIncrement());
+            assertEquals(binary.getBid().getAuctionId(), json.getBid().getAuctionId());
+        }
+    }
+
+    @Test
+    public void testJsonStaysTheDefaultResponse() throws Exception {
+        Bid bid = new Bid("JohnDoe123", "2", "14", "1", 5);
+        when(service.processBid(any(Bid.class))).thenReturn(bid);
+
+        Response response = target("/auction")
+                .request()
+                .post(Entity.entity(bid, MediaType.APPLICATION_JSON_TYPE));
+
+        assertEquals(response.getMediaType().toString(), MediaType.APPLICATION_JSON);
+    }
+
+    @Test
+    public void testGetWinnerMatchesJson() throws Exception {
+        when(service.getWinner(7)).thenReturn(new Bid("JohnDoe123", "$1,000.34", "$2,000", "1", 7));
+
+        Winner json = target("/auction").queryParam("auctionId", 7)
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .get(Winner.class);
+        Winner binary = target("/auction").queryParam("auctionId", 7)
+                .request(BinaryBidProvider.APPLICATION_AUCTION_BID_TYPE)
+                .get(Winner.class);
+
+        assertEquals(binary.getCode(), json.getCode());
+        assertEquals(binary.getBidderId(), json.getBidderId());
+        assertEquals(binary.getWinningPrice(), json.getWinningPrice());
+        assertEquals(binary.getAuctionId(), json.getAuctionId());
+    }
+
+    @Test
+    public void testBatchMatchesJson() throws Exception {
+        when(service.processBid(any(Bid.class))).then(invocation -> invocation.getArguments()[0]);
+        String json = "[{\"bidderId\":\"A\",\"startingBid\":\"1\",\"maxBid\":\"5\",\"autoIncrement\":\"1\",\"auctionId\":3},"
+                + "{\"bidderId\":\"B\",\"startingBid\":\"5\",\"maxBid\":\"1\",\"autoIncrement\":\"1\",\"auctionId\":4}]";
+        ByteArrayOutputStream binary = new ByteArrayOutputStream();
+        binary.write(BinaryBidCodec.write(new Bid("A", "1", "5", "1", 3)));
+        // Bid's constructors reject a maximum below the starting bid, so this one is encoded by hand.
+        binary.write(new byte[]{0, 0, 0, 16, 0, 0, 0, 4, 0, 1, 'B', 0, 1, 5, 0, 1, 1, 0, 1, 1});
+
+        BatchResult fromJson = target("/auction/batch")
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .post(Entity.entity(json, MediaType.APPLICATION_JSON_TYPE), BatchResult.class);
+        BatchResult fromBinary = target("/auction/batch")
+                .request(BinaryBidProvider.APPLICATION_AUCTION_BID_TYPE)
+                .post(Entity.entity(binary.toByteArray(), BinaryBidProvider.APPLICATION_AUCTION_BID_TYPE),
+                        BatchResult.class);
+
+        assertEquals(fromBinary.getCode(), fromJson.getCode());
+        List<BidResult> expected = fromJson.getResults();
+        List<BidResult> actual = fromBinary.getResults();
+        assertEquals(actual.size(), 2);
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(actual.get(i).getCode(), expected.get(i).getCode());
+            assertEquals(actual.get(i).getAuctionId(), expected.get(i).getAuctionId());
+            assertEquals(actual.get(i).getWinning(), expected.get(i).getWinning());
+            assertEquals(actual.get(i).getError(), expected.get(i).getError());
+        }
+    }
+
+    @Test
+    public void testRejectsMalformedFrames() throws Exception {
+        byte[] truncated = Arrays.copyOf(BinaryBidCodec.write(new Bid("A", "1", "5", "1", 3)), 10);
+        assertEquals(post("/auction", truncated).getStatus(), HttpStatus.BAD_REQUEST_400);
+        assertEquals(post("/auction/batch", truncated).getStatus(), HttpStatus.BAD_REQUEST_400);
+        assertEquals(post("/auction", new byte[0]).getStatus(), HttpStatus.BAD_REQUEST_400);
+    }
+
+    private Response post(String path, byte[] body) {
+        return target(path)
+                .request(BinaryBidProvider.APPLICATION_AUCTION_BID_TYPE)
+                .post(Entity.entity(body, BinaryBidProvider.APPLICATION_AUCTION_BID_TYPE));
+    }
+
+    private WebTarget target(String path) {
+        return RESOURCES.target(path).register(BinaryBidProvider.class);
+    }
+}
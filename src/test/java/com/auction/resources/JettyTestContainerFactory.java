@@ -0,0 +1,69 @@
+package com.auction.resources;
+
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.servlet.ServletContainer;
+import org.glassfish.jersey.test.DeploymentContext;
+import org.glassfish.jersey.test.spi.TestContainer;
+import org.glassfish.jersey.test.spi.TestContainerFactory;
+
+import javax.ws.rs.core.UriBuilder;
+import java.net.URI;
+
+// Serves a ResourceTestRule's resources from Jetty on an ephemeral port. The default in-memory container cannot
+// suspend requests, so resources with @Suspended AsyncResponse methods are tested with this one.
+class JettyTestContainerFactory implements TestContainerFactory {
+
+    // Request threads in the server's pool, deliberately few so tests can show requests not holding on to them.
+    static final int MAX_THREADS = 32;
+
+    @Override
+    public TestContainer create(URI baseUri, DeploymentContext deploymentContext) {
+        return new TestContainer() {
+            private final Server server = new Server(new QueuedThreadPool(MAX_THREADS, 8));
+
+            private URI uri = baseUri;
+
+            @Override
+            public ClientConfig getClientConfig() {
+                return null;
+            }
+
+            @Override
+            public URI getBaseUri() {
+                return uri;
+            }
+
+            @Override
+            public void start() {
+                ServletHolder jersey = new ServletHolder(new ServletContainer(deploymentContext.getResourceConfig()));
+                jersey.setAsyncSupported(true);
+                ServerConnector connector = new ServerConnector(server, 1, 1);
+                connector.setPort(0);
+                server.addConnector(connector);
+                ServletContextHandler context = new ServletContextHandler();
+                context.addServlet(jersey, "/*");
+                server.setHandler(context);
+                try {
+                    server.start();
+                } catch (Exception e) {
+                    throw new IllegalStateException("Could not start Jetty", e);
+                }
+                uri = UriBuilder.fromUri(baseUri).host("localhost").port(connector.getLocalPort()).build();
+            }
+
+            @Override
+            public void stop() {
+                try {
+                    server.stop();
+                } catch (Exception e) {
+                    throw new IllegalStateException("Could not stop Jetty", e);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,84 @@
+package com.auction.resources;
+
+import com.auction.api.Winner;
+import com.auction.model.Bid;
+import com.auction.services.AuctionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.dropwizard.jackson.Jackson;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class WinnerResponseCacheTest {
+
+    private final ObjectMapper objectMapper = Jackson.newObjectMapper();
+    private final AuctionService auctionService = new AuctionService();
+    private WinnerResponseCache cache;
+
+    @Before
+    public void setUp() {
+        cache = new WinnerResponseCache(auctionService, objectMapper, 2);
+        auctionService.addWinnerListener(cache);
+    }
+
+    // Repeated reads are served from the same encoded response.
+    @Test
+    public void testRepeatedReadsShareResponse() throws Exception {
+        auctionService.processBid(new Bid("Alice", "1", "10", "1", 1));
+
+        byte[] first = cache.get(1);
+        assertSame(first, cache.get(1));
+
+        Winner winner = objectMapper.readValue(first, Winner.class);
+        assertEquals("Alice", winner.getBidderId());
+        assertEquals("$1.00", winner.getWinningPrice());
+        assertEquals(Integer.valueOf(1), winner.getAuctionId());
+    }
+
+    // A new winning price invalidates the response; a bid that changes nothing keeps it.
+    @Test
+    public void testWinnerChangeInvalidatesResponse() throws Exception {
+        auctionService.processBid(new Bid("Alice", "1", "10", "1", 2));
+        byte[] before = cache.get(2);
+
+        auctionService.processBid(new Bid("Alice", "1", "10", "1", 2));
+        assertSame(before, cache.get(2));
+
+        auctionService.processBid(new Bid("Bob", "1", "5", "1", 2));
+        byte[] after = cache.get(2);
+        assertNotSame(before, after);
+        assertEquals("$5.00", objectMapper.readValue(after, Winner.class).getWinningPrice());
+    }
+
+    // Auctions without bids are answered with the placeholder but not cached, and their first bid is seen at once.
+    @Test
+    public void testPlaceholderIsNotCached() throws Exception {
+        byte[] placeholder = cache.get(3);
+        assertEquals("No entries.", objectMapper.readValue(placeholder, Winner.class).getBidderId());
+        assertEquals(0, cache.size());
+        assertNotSame(placeholder, cache.get(3));
+
+        auctionService.processBid(new Bid("Carol", "2", "10", "1", 3));
+        assertEquals("Carol", objectMapper.readValue(cache.get(3), Winner.class).getBidderId());
+    }
+
+    // Beyond maxEntries auctions, older responses are evicted to make room and every response is still served.
+    @Test
+    public void testEvictsWhenFull() throws Exception {
+        for (int auctionId = 4; auctionId < 10; auctionId++) {
+            auctionService.processBid(new Bid("Dave", "1", "5", "1", auctionId));
+        }
+        for (int auctionId = 4; auctionId < 10; auctionId++) {
+            assertEquals(Integer.valueOf(auctionId),
+                    objectMapper.readValue(cache.get(auctionId), Winner.class).getAuctionId());
+        }
+
+        assertTrue(cache.size() <= 2);
+        byte[] latest = cache.get(9);
+        assertSame(latest, cache.get(9));
+    }
+}
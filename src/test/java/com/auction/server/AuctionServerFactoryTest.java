@@ -0,0 +1,141 @@
+package com.auction.server;
+
+import com.auction.AuctionServiceConfiguration;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.jetty9.InstrumentedQueuedThreadPool;
+import io.dropwizard.configuration.YamlConfigurationFactory;
+import io.dropwizard.jackson.Jackson;
+import io.dropwizard.jersey.validation.Validators;
+import io.dropwizard.jetty.ConnectorFactory;
+import io.dropwizard.jetty.HttpConnectorFactory;
+import io.dropwizard.setup.Environment;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.util.component.LifeCycle;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.ThreadPool;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+public class AuctionServerFactoryTest {
+
+    @Test
+    public void testSelectedFromConfiguration() throws Exception {
+        String yaml = "server:\n  type: auction\n  requestThreads: VIRTUAL\n  maxThreads: 10000\n";
+        AuctionServiceConfiguration configuration = new YamlConfigurationFactory<>(AuctionServiceConfiguration.class,
+                Validators.newValidator(), Jackson.newObjectMapper(), "dw")
+                .build(path -> new ByteArrayInputStream(yaml.getBytes(StandardCharsets.UTF_8)), "config.yml");
+
+        AuctionServerFactory serverFactory = (AuctionServerFactory) configuration.getServerFactory();
+        assertEquals(RequestThreads.VIRTUAL, serverFactory.getRequestThreads());
+        assertEquals(10000, serverFactory.getMaxThreads());
+    }
+
+    @Test
+    public void testPlatformThreadsByDefault() throws Exception {
+        QueuedThreadPool threadPool = (QueuedThreadPool) new AuctionServerFactory()
+                .createThreadPool(new MetricRegistry());
+        assertTrue(threadPool instanceof InstrumentedQueuedThreadPool);
+        assertFalse(VirtualThreads.isVirtual(runOn(threadPool)));
+    }
+
+    // Virtual threads where the runtime has them, and a clear failure at startup where it does not.
+    @Test
+    public void testVirtualThreads() throws Exception {
+        AuctionServerFactory serverFactory = new AuctionServerFactory();
+        serverFactory.setRequestThreads(RequestThreads.VIRTUAL);
+        if (!VirtualThreads.isSupported()) {
+            try {
+                runOn(serverFactory.createThreadPool(new MetricRegistry()));
+                fail("Expected virtual threads to be rejected before Java 21");
+            } catch (IllegalStateException e) {
+                assertTrue(e.getMessage().startsWith("Virtual request threads need Java 21 or newer"));
+            }
+            return;
+        }
+        ThreadPool threadPool = serverFactory.createThreadPool(new MetricRegistry());
+        assertTrue(threadPool instanceof VirtualThreadPool);
+        assertTrue(VirtualThreads.isVirtual(runOn(threadPool)));
+    }
+
+    // Every request gets a virtual thread, however many are running.
+    @Test
+    public void testVirtualThreadsAreNotCapped() throws Exception {
+        assumeTrue(VirtualThreads.isSupported());
+        AuctionServerFactory serverFactory = new AuctionServerFactory();
+        serverFactory.setRequestThreads(RequestThreads.VIRTUAL);
+        serverFactory.setMaxThreads(8);
+        serverFactory.setMinThreads(1);
+        serverFactory.setMaxQueuedRequests(8);
+        VirtualThreadPool threadPool = (VirtualThreadPool) serverFactory.createThreadPool(new MetricRegistry());
+        threadPool.start();
+        CountDownLatch running = new CountDownLatch(1000);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            for (int i = 0; i < 1000; i++) {
+                threadPool.execute(() -> {
+                    running.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+            assertTrue(running.await(10, TimeUnit.SECONDS));
+            assertEquals(1000, threadPool.getRunningVirtualThreads());
+            assertFalse(threadPool.isLowOnThreads());
+        } finally {
+            release.countDown();
+            threadPool.stop();
+        }
+    }
+
+    // A started server leaves its acceptors and selectors on platform threads and starts no virtual thread for them.
+    @Test
+    public void testSelectorsStayOnPlatformThreads() throws Exception {
+        assumeTrue(VirtualThreads.isSupported());
+        AuctionServerFactory serverFactory = new AuctionServerFactory();
+        serverFactory.setRequestThreads(RequestThreads.VIRTUAL);
+        for (ConnectorFactory connector : serverFactory.getApplicationConnectors()) {
+            ((HttpConnectorFactory) connector).setPort(0);
+        }
+        for (ConnectorFactory connector : serverFactory.getAdminConnectors()) {
+            ((HttpConnectorFactory) connector).setPort(0);
+        }
+        Server server = serverFactory.build(new Environment("test", Jackson.newObjectMapper(),
+                Validators.newValidator(), new MetricRegistry(), getClass().getClassLoader()));
+        server.start();
+        try {
+            VirtualThreadPool threadPool = (VirtualThreadPool) server.getThreadPool();
+            ServerConnector connector = (ServerConnector) server.getConnectors()[0];
+            int infrastructure = connector.getAcceptors() + connector.getSelectorManager().getSelectorCount();
+            assertEquals(0, threadPool.getRunningVirtualThreads());
+            assertTrue(threadPool.getThreads() - threadPool.getIdleThreads() >= infrastructure);
+        } finally {
+            server.stop();
+        }
+    }
+
+    private static Thread runOn(ThreadPool threadPool) throws Exception {
+        ((LifeCycle) threadPool).start();
+        try {
+            CompletableFuture<Thread> thread = new CompletableFuture<>();
+            threadPool.execute(() -> thread.complete(Thread.currentThread()));
+            return thread.get(5, TimeUnit.SECONDS);
+        } finally {
+            ((LifeCycle) threadPool).stop();
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.auction.server;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.auction.metrics.LatencyReservoir;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Snapshot;
+import com.google.common.collect.ImmutableList;
+import io.dropwizard.jackson.Jackson;
+import io.dropwizard.jersey.validation.Validators;
+import io.dropwizard.jetty.ConnectorFactory;
+import io.dropwizard.jetty.HttpConnectorFactory;
+import io.dropwizard.request.logging.LogbackAccessRequestLogFactory;
+import io.dropwizard.setup.Environment;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+// Serves 10,000 concurrent keep-alive connections once with PLATFORM and once with VIRTUAL request threads, every
+// request blocking for 100 ms the way one waiting on the journal does, and compares throughput and latency. With the
+// default 1024 platform threads at most 1024 requests are served at a time and the rest queue, while virtual threads
+// serve all of them at once.
+//
+// Runs where virtual threads are available, as with the java21 profile, and where the process may open a socket for
+// both ends of every connection. -Dauction.loadTest.connections sets a different number of connections.
+public class RequestThreadsLoadTest {
+
+    private static final int CONNECTIONS = Integer.getInteger("auction.loadTest.connections", 10_000);
+
+    private static final long BLOCK_MILLIS = 100;
+
+    private static final long WARMUP_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private static final long MEASURE_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private static final byte[] REQUEST = "GET /blocking HTTP/1.1\r\nHost: localhost\r\n\r\n"
+            .getBytes(StandardCharsets.US_ASCII);
+
+    private static final Logger ROOT_LOGGER = (Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+
+    private static Level rootLevel;
+
+    // Without a logging configuration Jetty logs every request at DEBUG.
+    @BeforeClass
+    public static void quietLogging() {
+        rootLevel = ROOT_LOGGER.getLevel();
+        ROOT_LOGGER.setLevel(Level.WARN);
+    }
+
+    @AfterClass
+    public static void restoreLogging() {
+        ROOT_LOGGER.setLevel(rootLevel);
+    }
+
+    @Test
+    public void testVirtualThreadsServeMoreConcurrentConnections() throws Exception {
+        assumeTrue("Virtual threads need Java 21 or newer", VirtualThreads.isSupported());
+        assumeTrue("Too few file descriptors for " + CONNECTIONS + " connections",
+                maxFileDescriptors() >= 2L * CONNECTIONS + 1024);
+
+        Run platform = run(RequestThreads.PLATFORM);
+        Run virtual = run(RequestThreads.VIRTUAL);
+
+        assertEquals(0, platform.errors);
+        assertEquals(0, virtual.errors);
+        assertTrue(virtual + " against " + platform, virtual.throughput() > platform.throughput());
+        assertTrue(virtual + " against " + platform,
+                virtual.latencies.getValue(0.5) < platform.latencies.getValue(0.5));
+    }
+
+    private static Run run(RequestThreads requestThreads) throws Exception {
+        AuctionServerFactory serverFactory = new AuctionServerFactory();
+        serverFactory.setRequestThreads(requestThreads);
+        // Requests waiting for a platform thread queue instead of being rejected, so both runs serve every request.
+        serverFactory.setMaxQueuedRequests(2 * CONNECTIONS);
+        // Logging every request would measure the console rather than the threads.
+        LogbackAccessRequestLogFactory requestLog = new LogbackAccessRequestLogFactory();
+        requestLog.setAppenders(ImmutableList.of());
+        serverFactory.setRequestLogFactory(requestLog);
+        for (ConnectorFactory connector : serverFactory.getApplicationConnectors()) {
+            ((HttpConnectorFactory) connector).setPort(0);
+            ((HttpConnectorFactory) connector).setAcceptQueueSize(CONNECTIONS);
+        }
+        for (ConnectorFactory connector : serverFactory.getAdminConnectors()) {
+            ((HttpConnectorFactory) connector).setPort(0);
+        }
+        Environment environment = new Environment("load-test", Jackson.newObjectMapper(),
+                Validators.newValidator(), new MetricRegistry(), RequestThreadsLoadTest.class.getClassLoader());
+        environment.jersey().register(new BlockingResource());
+        Server server = serverFactory.build(environment);
+        server.start();
+        ExecutorService clients = VirtualThreads.newPerTaskExecutor("load-client-");
+        try {
+            int port = ((ServerConnector) server.getConnectors()[0]).getLocalPort();
+            return drive(requestThreads, new InetSocketAddress("localhost", port), clients);
+        } finally {
+            clients.shutdownNow();
+            clients.awaitTermination(1, TimeUnit.MINUTES);
+            server.stop();
+        }
+    }
+
+    // Opens every connection first, then has each send a request as soon as its last one was answered. Latencies
+    // are recorded for the requests answered in the measured window after the warmup.
+    private static Run drive(RequestThreads requestThreads, InetSocketAddress address, ExecutorService clients)
+            throws Exception {
+        CountDownLatch connected = new CountDownLatch(CONNECTIONS);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(CONNECTIONS);
+        LatencyReservoir latencies = new LatencyReservoir(1, TimeUnit.HOURS);
+        AtomicLong requests = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        long[] window = new long[2];
+        for (int i = 0; i < CONNECTIONS; i++) {
+            clients.execute(() -> {
+                boolean opened = false;
+                try (Socket socket = new Socket()) {
+                    socket.connect(address, 60_000);
+                    opened = true;
+                    socket.setSoTimeout(120_000);
+                    OutputStream output = socket.getOutputStream();
+                    InputStream input = new BufferedInputStream(socket.getInputStream());
+                    connected.countDown();
+                    start.await();
+                    long measureFrom = window[0];
+                    long measureTo = window[1];
+                    for (long now = System.nanoTime(); now < measureTo; ) {
+                        output.write(REQUEST);
+                        output.flush();
+                        readResponse(input);
+                        long done = System.nanoTime();
+                        if (done >= measureFrom && done < measureTo) {
+                            latencies.update(done - now);
+                            requests.incrementAndGet();
+                        }
+                        now = done;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (IOException e) {
+                    errors.incrementAndGet();
+                } finally {
+                    if (!opened) {
+                        connected.countDown();
+                    }
+                    finished.countDown();
+                }
+            });
+        }
+        assertTrue("Connections not opened", connected.await(2, TimeUnit.MINUTES));
+        window[0] = System.nanoTime() + WARMUP_NANOS;
+        window[1] = window[0] + MEASURE_NANOS;
+        // The latch's countDown publishes the window to the clients.
+        start.countDown();
+        assertTrue("Clients did not finish", finished.await(5, TimeUnit.MINUTES));
+        return new Run(requestThreads, requests.get(), latencies.getSnapshot(), errors.get());
+    }
+
+    // Reads one response with a Content-Length, which the resource's short text always gets.
+    private static void readResponse(InputStream input) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int contentLength = -1;
+        boolean statusLine = true;
+        while (true) {
+            int c = input.read();
+            if (c < 0) {
+                throw new EOFException("Connection closed by the server");
+            }
+            if (c != '\n') {
+                if (c != '\r') {
+                    line.append((char) c);
+                }
+                continue;
+            }
+            if (line.length() == 0) {
+                break;
+            }
+            String header = line.toString();
+            if (statusLine && !header.startsWith("HTTP/1.1 200")) {
+                throw new IOException("Unexpected response: " + header);
+            }
+            if (header.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+                contentLength = Integer.parseInt(header.substring(15).trim());
+            }
+            statusLine = false;
+            line.setLength(0);
+        }
+        if (contentLength < 0) {
+            throw new IOException("Response without a Content-Length");
+        }
+        for (int i = 0; i < contentLength; i++) {
+            if (input.read() < 0) {
+                throw new EOFException("Connection closed by the server");
+            }
+        }
+    }
+
+    private static long maxFileDescriptors() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.UnixOperatingSystemMXBean) {
+            return ((com.sun.management.UnixOperatingSystemMXBean) os).getMaxFileDescriptorCount();
+        }
+        return Long.MAX_VALUE;
+    }
+
+
+    @Path("/blocking")
+    public static class BlockingResource {
+        @GET
+        @Produces(MediaType.TEXT_PLAIN)
+        public String block() throws InterruptedException {
+            Thread.sleep(BLOCK_MILLIS);
+            return "ok";
+        }
+    }
+
+
+    private static final class Run {
+        private final RequestThreads requestThreads;
+        private final long requests;
+        private final Snapshot latencies;
+        private final long errors;
+
+        private Run(RequestThreads requestThreads, long requests, Snapshot latencies, long errors) {
+            this.requestThreads = requestThreads;
+            this.requests = requests;
+            this.latencies = latencies;
+            this.errors = errors;
+        }
+
+        double throughput() {
+            return requests / (MEASURE_NANOS / 1e9);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "%s with %d connections: %.0f requests/s, latency p50 %.1f ms, p99 %.1f ms, max %.1f ms, "
+                            + "%d errors",
+                    requestThreads, CONNECTIONS, throughput(), latencies.getValue(0.5) / 1e6,
+                    latencies.getValue(0.99) / 1e6, latencies.getMax() / 1e6, errors);
+        }
+    }
+}
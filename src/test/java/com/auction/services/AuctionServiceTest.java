@@ -5,10 +5,25 @@ import org.junit.Test;
 import org.junit.jupiter.api.BeforeEach;
 
 import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 
 public class AuctionServiceTest {
@@ -259,4 +274,270 @@ public class AuctionServiceTest {
         assertEquals(new BigDecimal(17).compareTo(resultBidTwo.getWinningPrice()), EQUAL);
     }
 
+    // Many bidders race on the same auction. Every bid must be applied against the latest winner, so the bidder
+    // with the highest maxBid wins no matter how the threads interleave.
+    @Test
+    public void testConcurrentBidsOnSameAuction() throws Exception {
+        final int bidders = 64;
+        final int auctionId = 13;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> submissions = new ArrayList<>();
+        for (int i = 1; i <= bidders; i++) {
+            Bid bid = new Bid("Bidder" + i, "1", Integer.toString(i), "1", auctionId);
+            submissions.add(executor.submit(() -> {
+                start.await();
+                auctionService.processBid(bid);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> submission : submissions) {
+            submission.get();
+        }
+        executor.shutdown();
+
+        Bid result = auctionService.getWinner(auctionId);
+        assertEquals("Bidder" + bidders, result.getId());
+        assertTrue(result.getWinningPrice().compareTo(new BigDecimal(bidders - 1)) >= EQUAL);
+        assertTrue(result.getWinningPrice().compareTo(new BigDecimal(bidders)) <= EQUAL);
+    }
+
+    // Processing a bid never changes the price of a Bid that was already handed out as the winner.
+    @Test
+    public void testStoredWinnerIsNotMutated() throws Exception {
+        Bid winningBid = new Bid("Winner14", "2", "10", "2", 14);
+        Bid smallBid = new Bid("Loser14", "0", "4", "4", 14);
+        auctionService.processBid(winningBid);
+        Bid before = auctionService.getWinner(winningBid.getAuctionId());
+
+        auctionService.processBid(smallBid);
+        Bid after = auctionService.getWinner(winningBid.getAuctionId());
+
+        assertEquals(new BigDecimal(2).compareTo(before.getWinningPrice()), EQUAL);
+        assertEquals(new BigDecimal(4).compareTo(after.getWinningPrice()), EQUAL);
+        assertEquals(before, after);
+    }
+
+    // The fixed-point path must publish exactly the winner and winning price the BigDecimal path does, including
+    // the scale of the price.
+    @Test
+    public void testFixedPointMatchesDecimalResolution() throws Exception {
+        AuctionService decimalService = new AuctionService(false);
+        AuctionService fixedPointService = new AuctionService(true);
+        Random random = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            int auctionId = random.nextInt(50);
+            String startingBid = randomPrice(random, 0, 100);
+            String maxBid = new BigDecimal(startingBid).add(new BigDecimal(randomPrice(random, 0, 200))).toPlainString();
+            String autoIncrement = randomPrice(random, 1, 10);
+            Bid bid = new Bid("Bidder" + random.nextInt(20), startingBid, maxBid, autoIncrement, auctionId);
+
+            Bid decimalWinner = decimalService.processBid(bid);
+            Bid fixedPointWinner = fixedPointService.processBid(bid);
+
+            assertEquals(decimalWinner.getId(), fixedPointWinner.getId());
+            assertEquals(decimalWinner.getWinningPrice(), fixedPointWinner.getWinningPrice());
+        }
+    }
+
+    // Prices that do not fit in micro-units fall back to BigDecimal arithmetic.
+    @Test
+    public void testFixedPointFallsBackForPreciseAndLargePrices() throws Exception {
+        AuctionService decimalService = new AuctionService(false);
+        AuctionService fixedPointService = new AuctionService(true);
+        Bid[] bids = {
+                new Bid("Precise", "1.0000001", "10.0000005", "0.0000003", 15),
+                new Bid("Rounded", "1", "10", "0.5", 15),
+                new Bid("Large", "1", "99999999999999999999", "3", 15),
+                new Bid("Larger", "2", "99999999999999999999.5", "3", 15)
+        };
+        for (Bid bid : bids) {
+            Bid decimalWinner = decimalService.processBid(bid);
+            Bid fixedPointWinner = fixedPointService.processBid(bid);
+            assertEquals(decimalWinner.getId(), fixedPointWinner.getId());
+            assertEquals(decimalWinner.getWinningPrice(), fixedPointWinner.getWinningPrice());
+        }
+    }
+
+    // Both winner stores produce the same winners and prices, including for prices that overflow micro-units.
+    @Test
+    public void testPrimitiveStoreMatchesHeapStore() throws Exception {
+        AuctionService heapService = new AuctionService(new HeapWinnerStore());
+        AuctionService primitiveService = new AuctionService(new PrimitiveWinnerStore(16));
+        Random random = new Random(17);
+        for (int i = 0; i < 20000; i++) {
+            int auctionId = random.nextInt(500);
+            String startingBid = randomPrice(random, 0, 100);
+            String maxBid = new BigDecimal(startingBid).add(new BigDecimal(randomPrice(random, 0, 200))).toPlainString();
+            String autoIncrement = i % 1000 == 0 ? "0.0000001" : randomPrice(random, 1, 10);
+            Bid bid = new Bid("Bidder" + random.nextInt(20), startingBid, maxBid, autoIncrement, auctionId);
+
+            Bid heapWinner = heapService.processBid(bid);
+            Bid primitiveWinner = primitiveService.processBid(bid);
+
+            assertEquals(heapWinner, primitiveWinner);
+            assertEquals(heapWinner.getWinningPrice(), primitiveWinner.getWinningPrice());
+        }
+        assertEquals(heapService.getAuctionCount(), primitiveService.getAuctionCount());
+        heapService.forEachWinner(winner -> assertEquals(winner.getWinningPrice(),
+                primitiveService.getWinner(winner.getAuctionId()).getWinningPrice()));
+    }
+
+    /////////////////////////////////////////////
+    // Close Auction //
+    ///////////////////
+
+    // A closed auction keeps its final winner, moved out of the winner store, and rejects later bids.
+    @Test
+    public void testClosedAuctionRejectsBids() throws Exception {
+        WinnerStore store = new HeapWinnerStore();
+        AuctionService service = new AuctionService(store);
+        Bid winner = service.processBid(new Bid("Winner17", "2", "10", "1", 17));
+
+        assertTrue(service.closeAuction(17));
+        assertTrue(!service.closeAuction(17));
+        assertTrue(service.isClosed(17));
+        assertTrue(!store.containsKey(17));
+        assertEquals(service.getWinner(17), winner);
+        assertEquals(service.getWinner(17).getWinningPrice(), winner.getWinningPrice());
+        try {
+            service.processBid(new Bid("Late17", "20", "100", "1", 17));
+            fail("Expected a bid on a closed auction to be rejected");
+        } catch (WebApplicationException e) {
+            assertEquals(e.getResponse().getStatus(), Response.Status.CONFLICT.getStatusCode());
+        }
+        assertEquals(service.getWinner(17).getId(), "Winner17");
+
+        List<Bid> winners = new ArrayList<>();
+        service.forEachWinner(winners::add);
+        assertEquals(winners, Arrays.asList(winner));
+        assertEquals(service.getAuctionCount(), 1);
+    }
+
+    // An auction without bids can be closed too; it still has no winner afterwards.
+    @Test
+    public void testCloseAuctionWithoutBids() throws Exception {
+        assertTrue(auctionService.closeAuction(18));
+        assertEquals(auctionService.getWinner(18).getId(), NO_ENTRIES);
+        try {
+            auctionService.processBid(new Bid("Late18", "1", "2", "1", 18));
+            fail("Expected a bid on a closed auction to be rejected");
+        } catch (WebApplicationException e) {
+            assertEquals(e.getResponse().getStatus(), Response.Status.CONFLICT.getStatusCode());
+        }
+        assertEquals(auctionService.getAuctionCount(), 0);
+        assertEquals(auctionService.getClosedAuctionCount(), 1);
+    }
+
+    // Resolution listeners hear which branch each bid took, and the decimal and fixed-point paths agree on it.
+    @Test
+    public void testResolutionListenersSeeEveryBranch() throws Exception {
+        AuctionService decimalService = new AuctionService(false);
+        AuctionService fixedPointService = new AuctionService(true);
+        List<BidResolution> decimalBranches = new ArrayList<>();
+        List<BidResolution> fixedPointBranches = new ArrayList<>();
+        decimalService.addResolutionListener((auctionId, resolution, nanos) -> {
+            assertTrue(nanos >= 0);
+            decimalBranches.add(resolution);
+        });
+        fixedPointService.addResolutionListener((auctionId, resolution, nanos) -> fixedPointBranches.add(resolution));
+
+        Bid first = new Bid("First", "2", "6", "2", 1000);
+        decimalService.processBid(first);
+        decimalService.processBid(first);
+        decimalService.processBid(new Bid("Low", "1", "2", "1", 1000));
+        decimalService.closeAuction(1000);
+        try {
+            decimalService.processBid(first);
+        } catch (WebApplicationException e) {
+            // expected
+        }
+        assertEquals(decimalBranches.subList(0, 4), Arrays.asList(BidResolution.NEW_AUCTION,
+                BidResolution.DUPLICATE, BidResolution.CANNOT_OVERTAKE, BidResolution.CLOSED));
+
+        Random random = new Random(7);
+        for (int i = 0; i < 5000; i++) {
+            String startingBid = randomPrice(random, 0, 100);
+            String maxBid = new BigDecimal(startingBid).add(new BigDecimal(randomPrice(random, 0, 200))).toPlainString();
+            Bid bid = new Bid("Bidder" + random.nextInt(5), startingBid, maxBid, randomPrice(random, 1, 10),
+                    random.nextInt(50));
+            decimalService.processBid(bid);
+            fixedPointService.processBid(bid);
+        }
+        assertEquals(decimalBranches.subList(4, decimalBranches.size()), fixedPointBranches);
+        assertTrue(decimalBranches.containsAll(Arrays.asList(BidResolution.values())));
+    }
+
+    // A replicated winner replaces the current one as is, even a lower one, and listeners see the change.
+    @Test
+    public void testReplicateWinnerReplacesWithoutResolving() throws Exception {
+        List<Bid> changes = new ArrayList<>();
+        auctionService.addWinnerListener((previousWinner, winner) -> changes.add(winner));
+        auctionService.processBid(new Bid("High", "1", "100", "1", 5));
+        Bid replicated = new Bid("Low", "1", "2", "1", 5);
+        auctionService.replicateWinner(replicated);
+        auctionService.replicateWinner(replicated);
+
+        assertEquals(auctionService.findWinner(5), replicated);
+        assertEquals(changes.size(), 2);
+        assertEquals(changes.get(1), replicated);
+    }
+
+    // Ordered listeners are told inside the change, so even with two threads bidding on one auction each change
+    // they see follows the one before it.
+    @Test
+    public void testOrderedWinnerListenerSeesChangesInOrder() throws Exception {
+        List<Bid[]> changes = Collections.synchronizedList(new ArrayList<>());
+        auctionService.addOrderedWinnerListener(
+                (previousWinner, winner) -> changes.add(new Bid[]{previousWinner, winner}));
+        Thread[] threads = new Thread[2];
+        for (int t = 0; t < threads.length; t++) {
+            String bidder = "Bidder" + t;
+            threads[t] = new Thread(() -> {
+                for (int i = 1; i <= 500; i++) {
+                    try {
+                        auctionService.processBid(new Bid(bidder, "1", String.valueOf(i), "1", 9));
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertNull(changes.get(0)[0]);
+        for (int i = 1; i < changes.size(); i++) {
+            assertSame(changes.get(i - 1)[1], changes.get(i)[0]);
+        }
+        assertSame(auctionService.findWinner(9), changes.get(changes.size() - 1)[1]);
+    }
+
+    // A change an ordered listener refuses is not applied.
+    @Test
+    public void testOrderedWinnerListenerFailureLeavesWinner() throws Exception {
+        auctionService.processBid(new Bid("First", "1", "5", "1", 11));
+        auctionService.addOrderedWinnerListener((previousWinner, winner) -> {
+            throw new IllegalStateException("Refused");
+        });
+        try {
+            auctionService.processBid(new Bid("Second", "1", "50", "1", 11));
+            fail("Expected the listener's failure.");
+        } catch (IllegalStateException expected) {
+            // The bid is not applied.
+        }
+        assertEquals("First", auctionService.findWinner(11).getId().toString());
+    }
+
+    private String randomPrice(Random random, int min, int max) {
+        BigDecimal whole = new BigDecimal(min + random.nextInt(max - min + 1));
+        int scale = random.nextInt(4);
+        BigDecimal fraction = new BigDecimal(random.nextInt(1000)).movePointLeft(3).setScale(scale, RoundingMode.DOWN);
+        BigDecimal price = whole.add(fraction);
+        return price.signum() == 0 && min > 0 ? "1" : price.toPlainString();
+    }
+
 }
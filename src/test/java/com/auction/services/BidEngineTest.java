@@ -0,0 +1,171 @@
+package com.auction.services;
+
+import com.auction.model.Bid;
+import com.auction.persistence.BidJournal;
+import com.auction.persistence.FsyncPolicy;
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.HttpHeaders;
+import java.math.BigDecimal;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.when;
+
+public class BidEngineTest {
+
+    private final int EQUAL = 0;
+    private BidEngine bidEngine;
+
+    @After
+    public void tearDown() throws Exception {
+        if (bidEngine != null) {
+            bidEngine.stop();
+        }
+    }
+
+    // Bids submitted through the engine settle against the same winner rules as calling the service directly.
+    @Test
+    public void testProcessReturnsSettledWinner() throws Exception {
+        bidEngine = new BidEngine(new AuctionService(), 4, 64, 8, 5000);
+        bidEngine.start();
+
+        bidEngine.process(new Bid("Winner1", "2", "10", "2", 1));
+        Bid winner = bidEngine.process(new Bid("Loser1", "0", "4", "4", 1));
+
+        assertEquals("Winner1", winner.getId());
+        assertEquals(new BigDecimal(4).compareTo(winner.getWinningPrice()), EQUAL);
+    }
+
+    // Bids for many auctions are spread over the shards and each auction keeps its own winner.
+    @Test
+    public void testBidsAcrossShards() throws Exception {
+        AuctionService auctionService = new AuctionService();
+        bidEngine = new BidEngine(auctionService, 4, 1024, 32, 5000);
+        bidEngine.start();
+
+        List<CompletableFuture<Bid>> results = new ArrayList<>();
+        for (int auctionId = 0; auctionId < 100; auctionId++) {
+            results.add(bidEngine.submit(new Bid("First" + auctionId, "1", "5", "1", auctionId)));
+            results.add(bidEngine.submit(new Bid("Second" + auctionId, "1", "9", "1", auctionId)));
+        }
+        CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).get();
+
+        for (int auctionId = 0; auctionId < 100; auctionId++) {
+            Bid winner = auctionService.getWinner(auctionId);
+            assertEquals("Second" + auctionId, winner.getId());
+            assertEquals(new BigDecimal(6).compareTo(winner.getWinningPrice()), EQUAL);
+        }
+    }
+
+    // A full shard queue rejects new bids instead of buffering them.
+    @Test
+    public void testFullQueueRejectsBids() throws Exception {
+        AuctionService auctionService = Mockito.mock(AuctionService.class);
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(auctionService.processBid(any(Bid.class))).then(invocation -> {
+            blocked.countDown();
+            release.await();
+            return invocation.getArguments()[0];
+        });
+        bidEngine = new BidEngine(auctionService, 1, 1, 1, 5000);
+        bidEngine.start();
+
+        // The first bid occupies the shard thread and the second fills the queue.
+        CompletableFuture<Bid> first = bidEngine.submit(new Bid("A", "1", "5", "1", 1));
+        blocked.await();
+        bidEngine.submit(new Bid("B", "1", "5", "1", 1));
+        try {
+            bidEngine.submit(new Bid("C", "1", "5", "1", 1));
+            fail("Expected the full shard to reject the bid.");
+        } catch (WebApplicationException e) {
+            assertEquals(429, e.getResponse().getStatus());
+            assertEquals("1", e.getResponse().getHeaderString(HttpHeaders.RETRY_AFTER));
+        } finally {
+            release.countDown();
+        }
+        assertEquals("A", first.get().getId());
+    }
+
+    // A batch is applied per shard in submission order for each auction and reports one outcome per bid, in order.
+    @Test
+    public void testSubmitAllKeepsOrder() throws Exception {
+        AuctionService auctionService = new AuctionService();
+        bidEngine = new BidEngine(auctionService, 4, 64, 8, 5000);
+        bidEngine.start();
+
+        List<Bid> bids = new ArrayList<>();
+        for (int auctionId = 0; auctionId < 10; auctionId++) {
+            bids.add(new Bid("First" + auctionId, "1", "5", "1", auctionId));
+        }
+        for (int auctionId = 0; auctionId < 10; auctionId++) {
+            bids.add(new Bid("Second" + auctionId, "1", "9", "1", auctionId));
+        }
+        List<BidOutcome> outcomes = bidEngine.processAll(bids);
+
+        assertEquals(bids.size(), outcomes.size());
+        for (int i = 0; i < bids.size(); i++) {
+            assertEquals(bids.get(i), outcomes.get(i).getBid());
+            assertTrue(outcomes.get(i).isApplied());
+        }
+        for (int auctionId = 0; auctionId < 10; auctionId++) {
+            Bid winner = auctionService.getWinner(auctionId);
+            assertEquals("Second" + auctionId, winner.getId());
+            assertEquals(new BigDecimal(6).compareTo(winner.getWinningPrice()), EQUAL);
+        }
+    }
+
+    // A journal that cannot commit does not undo bids that were already applied; each is reported as applied with a
+    // warning that it was not journaled.
+    @Test
+    public void testJournalFailureIsReportedPerBid() throws Exception {
+        // Never started, so every sync fails.
+        BidJournal journal = new BidJournal(Paths.get("unused"), FsyncPolicy.NEVER, 10, 16, 16);
+        AuctionService auctionService = new AuctionService();
+        bidEngine = new BidEngine(auctionService, journal, 4, 64, 8, 5000);
+        bidEngine.start();
+
+        List<Bid> bids = new ArrayList<>();
+        for (int auctionId = 0; auctionId < 8; auctionId++) {
+            bids.add(new Bid("Bidder" + auctionId, "1", "5", "1", auctionId));
+        }
+        List<BidOutcome> outcomes = bidEngine.submitAll(bids).get();
+
+        assertEquals(8, outcomes.size());
+        for (BidOutcome outcome : outcomes) {
+            assertTrue(outcome.isApplied());
+            assertEquals(BidOutcome.NOT_JOURNALED, outcome.getWarning());
+            assertEquals(outcome.getBid(), auctionService.getWinner(outcome.getBid().getAuctionId()));
+        }
+    }
+
+    // Bids submitted once the engine is stopping are rejected with 503 rather than queued where nothing takes them.
+    @Test
+    public void testStoppedEngineRejectsBids() throws Exception {
+        bidEngine = new BidEngine(new AuctionService(), 2, 64, 8, 5000);
+        bidEngine.start();
+        bidEngine.stop();
+        try {
+            bidEngine.submit(new Bid("Late", "1", "5", "1", 1));
+            fail("Expected the stopped engine to reject the bid.");
+        } catch (WebApplicationException e) {
+            assertEquals(503, e.getResponse().getStatus());
+        }
+        BidOutcome outcome = bidEngine.submitAll(Collections.singletonList(new Bid("Late", "1", "5", "1", 2)))
+                .get(1, TimeUnit.SECONDS).get(0);
+        assertEquals(503, ((WebApplicationException) outcome.getFailure()).getResponse().getStatus());
+    }
+}
@@ -0,0 +1,146 @@
+package com.auction.services;
+
+import com.auction.model.Bid;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class BidHistoryTest {
+
+    private final AuctionService auctionService = new AuctionService();
+
+    // Every applied bid is recorded, newest first, including the ones that did not change the winner.
+    @Test
+    public void testRecordsEveryAppliedBid() throws Exception {
+        BidHistory history = new BidHistory(1000, () -> 42L);
+        auctionService.addBidListener(history);
+
+        auctionService.processBid(new Bid("Alice", "$1.00", "$10.00", "$1.00", 1));
+        auctionService.processBid(new Bid("Bob", "2", "5", "1", 1));
+        auctionService.processBid(new Bid("Carol", "3", "30", "0.25", 2));
+        auctionService.processBid(new Bid("Dave", "$11.50", "$20", "$.50", 1));
+
+        List<BidHistory.Entry> entries = history.page(1, -1, 10);
+        assertEquals(3, entries.size());
+        assertEquals("Dave", entries.get(0).getBid().getId());
+        assertTrue(entries.get(0).isWinning());
+        assertEquals("Bob", entries.get(1).getBid().getId());
+        assertFalse(entries.get(1).isWinning());
+        assertEquals("Alice", entries.get(2).getBid().getId());
+        assertTrue(entries.get(2).isWinning());
+
+        Bid dave = entries.get(0).getBid();
+        assertEquals(new BigDecimal("11.50"), dave.getStartingBid());
+        assertEquals(new BigDecimal("20"), dave.getMaxBid());
+        assertEquals(new BigDecimal(".50"), dave.getAutoIncrement());
+        assertEquals(Integer.valueOf(1), dave.getAuctionId());
+        assertEquals(42L, entries.get(0).getTimestamp());
+        assertEquals(4, history.size());
+    }
+
+    // A page continues from the cursor, and a cursor that belongs to another auction is rejected.
+    @Test
+    public void testPagesThroughHistory() throws Exception {
+        BidHistory history = new BidHistory(1000);
+        for (int i = 0; i < 10; i++) {
+            history.record(new Bid("Bidder" + i, "1", "5", "1", i % 2), false);
+        }
+
+        List<BidHistory.Entry> first = history.page(0, -1, 3);
+        assertEquals("Bidder8", first.get(0).getBid().getId());
+        assertEquals("Bidder4", first.get(2).getBid().getId());
+
+        long cursor = history.previous(first.get(2).getSequence());
+        List<BidHistory.Entry> second = history.page(0, cursor, 3);
+        assertEquals(2, second.size());
+        assertEquals("Bidder2", second.get(0).getBid().getId());
+        assertEquals("Bidder0", second.get(1).getBid().getId());
+        assertEquals(-1, history.previous(second.get(1).getSequence()));
+
+        assertNull(history.page(1, cursor, 3));
+        assertTrue(history.page(5, -1, 3).isEmpty());
+    }
+
+    // Once full, the ledger drops its oldest chunk and an auction's chain stops at the oldest retained bid.
+    @Test
+    public void testDropsOldestBidsWhenFull() throws Exception {
+        BidHistory history = new BidHistory(BidHistory.CHUNK_SIZE);
+        int bids = 3 * BidHistory.CHUNK_SIZE;
+        for (int i = 0; i < bids; i++) {
+            history.record(new Bid("Bidder" + (i % 7), "1", "5", "1", i % 3), false);
+        }
+
+        assertTrue(history.size() >= BidHistory.CHUNK_SIZE);
+        assertTrue(history.size() <= 2 * BidHistory.CHUNK_SIZE);
+        List<BidHistory.Entry> entries = history.page(0, -1, bids);
+        assertEquals(history.size() / 3, entries.size());
+        assertEquals(bids - 3, entries.get(0).getSequence());
+    }
+
+    // Dropping a chunk forgets the auctions and bidders that only had bids in it.
+    @Test
+    public void testDroppingBidsReleasesAuctionsAndBidders() throws Exception {
+        BidHistory history = new BidHistory(BidHistory.CHUNK_SIZE);
+        for (int i = 0; i < 2 * BidHistory.CHUNK_SIZE; i++) {
+            history.record(new Bid("Early" + i, "1", "5", "1", i), false);
+        }
+        assertEquals(2 * BidHistory.CHUNK_SIZE, history.auctionCount());
+        assertEquals(2 * BidHistory.CHUNK_SIZE, history.bidderCount());
+
+        for (int i = 0; i < 2 * BidHistory.CHUNK_SIZE; i++) {
+            history.record(new Bid("Late", "1", "5", "1", i % 10), false);
+        }
+
+        assertEquals(10, history.auctionCount());
+        assertEquals(1, history.bidderCount());
+        assertTrue(history.page(BidHistory.CHUNK_SIZE + 5, -1, 10).isEmpty());
+        assertEquals("Late", history.page(5, -1, 1).get(0).getBid().getId());
+    }
+
+    // A large ledger is striped by auction; each auction's chain and cursors stay within its stripe.
+    @Test
+    public void testStripesLargeLedgers() throws Exception {
+        BidHistory history = new BidHistory(64L * BidHistory.CHUNK_SIZE);
+        assertEquals(16, history.stripeCount());
+        for (int i = 0; i < 1000; i++) {
+            history.record(new Bid("Bidder" + i, "1", "5", "1", i % 50), false);
+        }
+        assertEquals(1000, history.size());
+        assertEquals(50, history.auctionCount());
+
+        for (int auctionId = 0; auctionId < 50; auctionId++) {
+            List<BidHistory.Entry> first = history.page(auctionId, -1, 15);
+            assertEquals(15, first.size());
+            assertEquals("Bidder" + (950 + auctionId), first.get(0).getBid().getId());
+            long cursor = history.previous(first.get(14).getSequence());
+            List<BidHistory.Entry> rest = history.page(auctionId, cursor, 100);
+            assertEquals(5, rest.size());
+            assertEquals("Bidder" + auctionId, rest.get(4).getBid().getId());
+            assertEquals(-1, history.previous(rest.get(4).getSequence()));
+        }
+
+        long cursor = history.page(0, -1, 1).get(0).getSequence();
+        assertEquals(1, history.page(0, cursor, 1).size());
+        for (int auctionId = 1; auctionId < 50; auctionId++) {
+            assertNull(history.page(auctionId, cursor, 1));
+        }
+    }
+
+    // Prices that do not fit in micro-units are recorded exactly.
+    @Test
+    public void testRecordsPreciseAndLargePrices() throws Exception {
+        BidHistory history = new BidHistory(1000);
+        Bid precise = new Bid("Precise", "1.0000001", "99999999999999999999", "0.5", 3);
+        history.record(precise, true);
+
+        Bid recorded = history.page(3, -1, 1).get(0).getBid();
+        assertEquals(precise.getStartingBid(), recorded.getStartingBid());
+        assertEquals(precise.getMaxBid(), recorded.getMaxBid());
+    }
+}
@@ -0,0 +1,202 @@
+package com.auction.services;
+
+import com.auction.model.Bid;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PrimitiveWinnerStoreTest {
+
+    private final PrimitiveWinnerStore store = new PrimitiveWinnerStore(16);
+
+    // A stored winner comes back with the same bidder, prices and BigDecimal scales.
+    @Test
+    public void testWinnerRoundTrips() throws Exception {
+        Bid winner = new Bid("Alice", "$1,000.34", "4,000", "$2.000", 1).withWinningPrice(new BigDecimal("1002.340"));
+        store.compute(1, current -> winner);
+
+        Bid stored = store.get(1);
+        assertEquals(winner, stored);
+        assertEquals(winner.getAuctionId(), stored.getAuctionId());
+        assertEquals(winner.getStartingBid(), stored.getStartingBid());
+        assertEquals(winner.getMaxBid(), stored.getMaxBid());
+        assertEquals(winner.getAutoIncrement(), stored.getAutoIncrement());
+        assertEquals(winner.getWinningPrice(), stored.getWinningPrice());
+        assertTrue(store.containsKey(1));
+        assertFalse(store.containsKey(2));
+        assertNull(store.get(2));
+    }
+
+    // Removing auctions in random order keeps every other auction reachable through its probe run.
+    @Test
+    public void testRemoveKeepsProbeRunsIntact() throws Exception {
+        Random random = new Random(5);
+        Set<Integer> held = new HashSet<>();
+        for (int i = 0; i < 20000; i++) {
+            int auctionId = random.nextInt(2000);
+            if (random.nextInt(3) == 0) {
+                store.compute(auctionId, current -> null);
+                held.remove(auctionId);
+            } else {
+                Bid winner = new Bid("Bidder" + auctionId, "1", i % 50 == 0 ? "1.0000001" : "10", "1", auctionId);
+                store.compute(auctionId, current -> winner);
+                held.add(auctionId);
+            }
+        }
+        assertEquals(held.size(), store.size());
+        for (int auctionId = 0; auctionId < 2000; auctionId++) {
+            assertEquals(held.contains(auctionId), store.containsKey(auctionId));
+            if (held.contains(auctionId)) {
+                assertEquals("Bidder" + auctionId, store.get(auctionId).getId());
+            }
+        }
+    }
+
+    // Prices that do not fit in micro-units are kept as they are, and the auction can move back to a fixed-width
+    // winner later.
+    @Test
+    public void testOverflowWinners() throws Exception {
+        Bid precise = new Bid("Precise", "1.0000001", "10", "0.5", 7);
+        Bid large = new Bid("Large", "1", "99999999999999999999", "3", 8);
+        store.compute(7, current -> precise);
+        store.compute(8, current -> large);
+        assertEquals(precise.getStartingBid(), store.get(7).getStartingBid());
+        assertEquals(large.getMaxBid(), store.get(8).getMaxBid());
+
+        Bid plain = new Bid("Plain", "2", "20", "1", 7);
+        store.compute(7, current -> plain);
+        assertEquals(plain, store.get(7));
+        assertEquals(2, store.size());
+    }
+
+    // A bidder is let go once it no longer wins an auction, whether it was outbid, moved to the overflow map or its
+    // auction removed, and its index is reused for the next bidder.
+    @Test
+    public void testReplacedWinnersReleaseTheirBidders() throws Exception {
+        store.compute(1, current -> bid("Alice", "10", 1));
+        store.compute(2, current -> bid("Alice", "10", 2));
+        store.compute(3, current -> bid("Bob", "10", 3));
+        assertEquals(2, store.getBidderCount());
+
+        store.compute(1, current -> bid("Carol", "20", 1));
+        assertEquals(3, store.getBidderCount());
+        store.compute(2, current -> bid("Carol", "20", 2));
+        assertEquals(2, store.getBidderCount());
+        // Outbidding itself keeps the bidder.
+        store.compute(2, current -> bid("Carol", "30", 2));
+        assertEquals(2, store.getBidderCount());
+
+        store.compute(3, current -> bid("Bob", "99999999999999999999", 3));
+        assertEquals(1, store.getBidderCount());
+        store.compute(1, current -> null);
+        store.compute(2, current -> null);
+        assertEquals(0, store.getBidderCount());
+
+        store.compute(4, current -> bid("Dave", "10", 4));
+        assertEquals("Dave", store.get(4).getId());
+        assertEquals("Bob", store.get(3).getId());
+        List<String> visited = new ArrayList<>();
+        store.forEach(winner -> visited.add(winner.getId()));
+        assertEquals(2, visited.size());
+        assertTrue(visited.contains("Dave"));
+    }
+
+    // Returning the current winner unchanged leaves the store untouched, and the remapping sees null for a new
+    // auction.
+    @Test
+    public void testComputeReceivesCurrentWinner() throws Exception {
+        Bid winner = new Bid("Bob", "1", "5", "1", 3);
+        assertSame(winner, store.compute(3, current -> {
+            assertNull(current);
+            return winner;
+        }));
+        Bid[] seen = new Bid[1];
+        Bid result = store.compute(3, current -> {
+            seen[0] = current;
+            return current;
+        });
+        assertSame(seen[0], result);
+        assertEquals(winner, result);
+        assertEquals(1, store.size());
+    }
+
+    // The tables grow past their initial size and keep every auction, including sparse and large ids.
+    @Test
+    public void testGrowsAndVisitsEveryWinner() throws Exception {
+        Random random = new Random(7);
+        Set<Integer> auctionIds = new HashSet<>();
+        while (auctionIds.size() < 20000) {
+            auctionIds.add(auctionIds.size() % 2 == 0 ? auctionIds.size() : random.nextInt(Integer.MAX_VALUE));
+        }
+        for (int auctionId : auctionIds) {
+            Bid winner = new Bid("Bidder" + auctionId % 100, "1.5", "10", "0.25", auctionId);
+            store.compute(auctionId, current -> winner);
+        }
+
+        assertEquals(auctionIds.size(), store.size());
+        assertEquals(100, store.getBidderCount());
+        for (int auctionId : auctionIds) {
+            assertEquals("Bidder" + auctionId % 100, store.get(auctionId).getId());
+        }
+        Set<Integer> visited = new HashSet<>();
+        store.forEach(winner -> visited.add(winner.getAuctionId()));
+        assertEquals(auctionIds, visited);
+    }
+
+    // Readers racing with writers on the same segments always see a complete winner.
+    @Test
+    public void testConcurrentReadersSeeConsistentWinners() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int writer = 0; writer < 2; writer++) {
+            int offset = writer;
+            tasks.add(executor.submit(() -> {
+                for (int i = 0; i < 20000; i++) {
+                    int price = i + 1;
+                    Bid winner = new Bid("Bidder" + price, Integer.toString(price), Integer.toString(price), "1",
+                            (i * 2 + offset) % 5000);
+                    store.compute(winner.getAuctionId(), current -> winner);
+                }
+                return null;
+            }));
+        }
+        for (int reader = 0; reader < 2; reader++) {
+            tasks.add(executor.submit(() -> {
+                for (int i = 0; i < 20000; i++) {
+                    Bid winner = store.get(i % 5000);
+                    if (winner != null) {
+                        assertEquals("Bidder" + winner.getMaxBid().toPlainString(), winner.getId());
+                        assertEquals(winner.getStartingBid(), winner.getMaxBid());
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> task : tasks) {
+            task.get();
+        }
+        executor.shutdown();
+    }
+
+    private static Bid bid(String bidderId, String maxBid, int auctionId) {
+        try {
+            return new Bid(bidderId, "1", maxBid, "1", auctionId);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.auction.services;
+
+import com.auction.model.Bid;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TieredWinnerStoreTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private TieredWinnerStore store;
+
+    @After
+    public void closeStore() throws Exception {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    // Winners beyond the hot tier's capacity go to disk and come back with the same bidder, prices and scales.
+    @Test
+    public void testEvictedWinnersFaultBackIn() throws Exception {
+        store = new TieredWinnerStore(folder.getRoot().toPath(), 320);
+        for (int auctionId = 0; auctionId < 5000; auctionId++) {
+            Bid winner = new Bid("Bidder" + auctionId, "$1,000.34", "4,000", "$2.000", auctionId)
+                    .withWinningPrice(new BigDecimal("1002.340"));
+            store.compute(auctionId, current -> winner);
+        }
+        assertEquals(store.size(), 5000);
+        assertTrue(store.getHotCount() <= 320);
+        assertTrue(store.getColdFileBytes() > 0);
+
+        for (int auctionId = 0; auctionId < 5000; auctionId++) {
+            assertTrue(store.containsKey(auctionId));
+            Bid stored = store.get(auctionId);
+            assertEquals("Bidder" + auctionId, stored.getId());
+            assertEquals(stored.getAuctionId(), Integer.valueOf(auctionId));
+            assertEquals(stored.getStartingBid(), new BigDecimal("1000.34"));
+            assertEquals(stored.getAutoIncrement(), new BigDecimal("2.000"));
+            assertEquals(stored.getWinningPrice(), new BigDecimal("1002.340"));
+        }
+        assertTrue(store.getHotCount() <= 320);
+        assertFalse(store.containsKey(5000));
+        assertNull(store.get(5000));
+    }
+
+    // Auctions that are bid on all the time keep their place on the heap through a scan of one-off lookups.
+    @Test
+    public void testFrequentAuctionsSurviveScan() throws Exception {
+        store = new TieredWinnerStore(folder.getRoot().toPath(), 3200);
+        for (int auctionId = 0; auctionId < 50_000; auctionId++) {
+            Bid winner = new Bid("Bidder", "1", "10", "1", auctionId);
+            store.compute(auctionId, current -> winner);
+        }
+        for (int round = 0; round < 10; round++) {
+            for (int auctionId = 0; auctionId < 1000; auctionId++) {
+                store.get(auctionId);
+            }
+        }
+        for (int auctionId = 1000; auctionId < 50_000; auctionId++) {
+            store.get(auctionId);
+        }
+
+        int hot = 0;
+        for (int auctionId = 0; auctionId < 1000; auctionId++) {
+            if (store.isHot(auctionId)) {
+                hot++;
+            }
+        }
+        assertTrue("Only " + hot + " frequent auctions stayed hot", hot > 900);
+    }
+
+    // A snapshot walks every auction with forEach and peek, which reads cold winners from disk without admitting
+    // them, so the same auctions are hot before and after.
+    @Test
+    public void testPeekWalkLeavesHotSet() throws Exception {
+        store = new TieredWinnerStore(folder.getRoot().toPath(), 3200);
+        for (int auctionId = 0; auctionId < 20_000; auctionId++) {
+            Bid winner = new Bid("Bidder", "1", "10", "1", auctionId);
+            store.compute(auctionId, current -> winner);
+        }
+        for (int round = 0; round < 10; round++) {
+            for (int auctionId = 0; auctionId < 1000; auctionId++) {
+                store.get(auctionId);
+            }
+        }
+        int hotCount = store.getHotCount();
+        boolean[] hot = new boolean[20_000];
+        for (int auctionId = 0; auctionId < hot.length; auctionId++) {
+            hot[auctionId] = store.isHot(auctionId);
+        }
+
+        int[] visited = {0};
+        store.forEach(winner -> visited[0]++);
+        for (int auctionId = hot.length - 1; auctionId >= 0; auctionId--) {
+            assertEquals(Integer.valueOf(auctionId), store.peek(auctionId).getAuctionId());
+        }
+
+        assertEquals(20_000, visited[0]);
+        assertEquals(hotCount, store.getHotCount());
+        for (int auctionId = 0; auctionId < hot.length; auctionId++) {
+            assertEquals("Auction " + auctionId, hot[auctionId], store.isHot(auctionId));
+        }
+    }
+
+    // Random updates and removals across both tiers leave the store agreeing with a plain map.
+    @Test
+    public void testMatchesMapAcrossTiers() throws Exception {
+        store = new TieredWinnerStore(folder.getRoot().toPath(), 64);
+        Map<Integer, Bid> expected = new HashMap<>();
+        Random random = new Random(11);
+        for (int i = 0; i < 30_000; i++) {
+            int auctionId = random.nextInt(3000);
+            int operation = random.nextInt(4);
+            if (operation == 0) {
+                store.compute(auctionId, current -> null);
+                expected.remove(auctionId);
+            } else if (operation == 1) {
+                assertEquals(expected.get(auctionId), store.get(auctionId));
+            } else {
+                Bid winner = new Bid("Bidder" + i, "1", String.valueOf(1 + random.nextInt(1000)), "1", auctionId);
+                store.compute(auctionId, current -> winner);
+                expected.put(auctionId, winner);
+            }
+        }
+        assertEquals(expected.size(), store.size());
+
+        Map<Integer, Bid> visited = new HashMap<>();
+        store.forEach(winner -> assertNull(visited.put(winner.getAuctionId(), winner)));
+        assertEquals(expected.keySet(), visited.keySet());
+        for (Map.Entry<Integer, Bid> entry : expected.entrySet()) {
+            assertEquals(entry.getValue().getId(), visited.get(entry.getKey()).getId());
+            assertEquals(entry.getValue().getMaxBid(), store.get(entry.getKey()).getMaxBid());
+        }
+    }
+
+    // Heap usage follows the hot tier, not the number of auctions held.
+    @Test
+    public void testEstimatedBytesFollowHotTier() throws Exception {
+        store = new TieredWinnerStore(folder.getRoot().toPath(), 320);
+        for (int auctionId = 0; auctionId < 20_000; auctionId++) {
+            Bid winner = new Bid("Bidder", "1", "10", "1", auctionId);
+            store.compute(auctionId, current -> winner);
+        }
+        assertTrue(store.estimatedBytes() < 20_000 * HeapWinnerStore.BYTES_PER_WINNER / 4);
+    }
+}